@@ -470,6 +470,9 @@ gslc_tsElemRef                  $<STORAGE>Ref[1];
 <LISTBOX_ITEM>
   gslc_ElemXListboxAddItem(&m_gui, pElemRef, "$<TEXT>");
 <STOP>
+<LISTBOX_ITEM_POOL>
+  gslc_ElemXListboxAddItem(&m_gui, pElemRef, StrPoolCopy($<TEXT>));
+<STOP>
 <LISTBOX_GAP>
   gslc_ElemXListboxItemsSetGap(&m_gui, pElemRef, $<LIST-106>,$<LIST-107>);
 <STOP>
@@ -557,6 +560,54 @@ $<CALLBACK>
   //       ensure that the main page is the correct page no matter the add order.
   gslc_SetPageCur(&m_gui,$<PAGE_ENUM>);
 <STOP>
+<PAGEINIT>
+// ------------------------------------------------
+// Create $<PAGE_ENUM> elements the first time it's shown
+// ------------------------------------------------
+void InitPage_$<PAGE_ENUM>()
+{
+  static bool bCreated = false;
+  gslc_tsElemRef* pElemRef = NULL;
+
+  if (bCreated) { return; }
+  bCreated = true;
+<STOP>
+<PAGEINIT_END>
+}
+
+<STOP>
+<PAGEINIT_HOOKS>
+// ------------------------------------------------
+// Deferred page creation
+// ------------------------------------------------
+// Pages are created the first time they're shown so gslc_SetPageCur()
+// and gslc_PopupShow() now create a page before showing it.
+// Call InitPage_gen() before using a page's elements any other way.
+void InitPage_gen(int16_t nPageId);
+static inline void SetPageCur_gen(gslc_tsGui* pGui,int16_t nPageId)
+{ InitPage_gen(nPageId); (gslc_SetPageCur)(pGui,nPageId); }
+static inline void PopupShow_gen(gslc_tsGui* pGui,int16_t nPageId,bool bModal)
+{ InitPage_gen(nPageId); (gslc_PopupShow)(pGui,nPageId,bModal); }
+#define gslc_SetPageCur(pGui,nPageId) SetPageCur_gen(pGui,nPageId)
+#define gslc_PopupShow(pGui,nPageId,bModal) PopupShow_gen(pGui,nPageId,bModal)
+
+<STOP>
+<PAGEINIT_SWITCH>
+void InitPage_gen(int16_t nPageId)
+{
+  switch (nPageId) {
+<STOP>
+<PAGEINIT_CASE>
+    case $<PAGE_ENUM>:
+      InitPage_$<PAGE_ENUM>();
+      break;
+<STOP>
+<PAGEINIT_SWITCH_END>
+    default:
+      break;
+  }
+}
+<STOP>
 <PROGMEM>
 // Define the maximum number of elements per page
 // - To enable the same code to run on devices that support storing
@@ -767,6 +818,27 @@ $<CALLBACK>
         // using gslc_ElemXSpinnerGetCounter(&m_gui, &$<XDATA>);
         break;
 <STOP>
+<STRING_POOL>
+
+// Static text shared by our elements and stored in flash
+// - Identical strings are stored once, shorter ones share the tail of longer ones
+static const char m_acStrPool[] PROGMEM =
+<STOP>
+<STRING_POOL_COPY>
+
+// Copy pooled text into RAM for APIs unable to read it from flash
+static char m_acStrPoolBuf[MAX_STR];
+static char* StrPoolCopy(const char* pStr)
+{
+#if (GSLC_USE_PROGMEM)
+  strncpy_P(m_acStrPoolBuf, pStr, MAX_STR-1);
+#else
+  strncpy(m_acStrPoolBuf, pStr, MAX_STR-1);
+#endif
+  m_acStrPoolBuf[MAX_STR-1] = '\0';
+  return m_acStrPoolBuf;
+}
+<STOP>
 <TEXT>
   
   // Create $<COM-002> text label
@@ -859,6 +931,9 @@ $<CALLBACK>
 <TEXT_MARGIN>
   gslc_ElemSetTxtMargin(&m_gui,pElemRef,$<TXT-212>);
 <STOP>
+<TEXT_MEM_PROG>
+  gslc_ElemSetTxtMem(&m_gui,pElemRef,GSLC_TXT_MEM_PROG);
+<STOP>
 <TEXT_UPDATE>
   
   // Create $<COM-002> runtime modifiable text
@@ -77,6 +77,9 @@ bool CbSlidePos(void* pvGui,void* pvElemRef,int16_t nPos);
 bool CbSpinner(void* pvGui, void *pvElemRef, int16_t nState, void* pvData);
 bool CbTickScanner(void* pvGui,void* pvScope);
 
+//<InitPages !Start!>
+//<InitPages !End!>
+
 // ------------------------------------------------
 // Create page elements
 // ------------------------------------------------
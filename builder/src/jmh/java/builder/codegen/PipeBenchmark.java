@@ -0,0 +1,153 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import builder.codegen.pipes.WorkFlowPipe;
+import builder.common.Utils;
+import builder.models.ProjectModel;
+
+/**
+ * The Class PipeBenchmark times each pipe by itself generating 
+ * its section of a fresh template for a synthetic project.
+ * <p>
+ * Pipes are looked for in our arduino templates first, 
+ * then our linux template, the first holding the pipe's tag is used.
+ * </p>
+ * 
+ * @author Paul Conti
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipeBenchmark {
+
+  /** The Constant for the templates searched for each target. */
+  private final static String[][] TEMPLATES = {
+    { ProjectModel.PLATFORM_ARDUINO, 
+      CodeGenerator.ARDUINO_TEMPLATE, CodeGenerator.HDR_TEMPLATE },
+    { ProjectModel.PLATFORM_LINUX,   
+      CodeGenerator.LINUX_TEMPLATE },
+  };
+
+  /** The pipe. */
+  @Param({ "AppPipe", "ButtonCbPipe", "CheckboxCbPipe", "DrawCbPipe", 
+    "ElementPipe", "EnumPipe", "ExternRefPipe", "ExtraElementPipe", "FilePipe",
+    "FontLoadPipe", "FontsPipe", "HeaderPipe", "IncludesPipe", "InitGuiPipe", 
+    "KeypadCbPipe", "ListboxCbPipe", "PathStoragePipe", "ResourcesPipe",
+    "SaveRefPipe", "SliderCbPipe", "SpinnerCbPipe", "StartupPipe", "TickCbPipe" })
+  public String pipeName;
+
+  /** The number of pages. */
+  @Param({ "10" })
+  public int pages;
+
+  /** The number of widgets of each type on a page, 10 gives roughly 2,000 widgets over 10 pages. */
+  @Param({ "2", "10" })
+  public int widgets;
+
+  /** The folder holding our project. */
+  private File folder;
+
+  /** The pipe being timed. */
+  private WorkFlowPipe pipe;
+
+  /** The lines of the template our pipe works on. */
+  private List<String> lines;
+
+  /**
+   * setUp creates and generates a project for the first target 
+   * with a template holding our pipe's tag.
+   *
+   * @throws Exception
+   *           the exception
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    folder = Files.createTempDirectory("pipe").toFile();
+    String wdPath = Utils.getWorkingDir() + CodeGenerator.TEMPLATE_FOLDER + File.separator;
+    for (String[] templates : TEMPLATES) {
+      SyntheticProject project = SyntheticProject.create(
+          new File(folder, templates[0]), templates[0], pages, widgets);
+      CodeGenerator cg = project.generate(false);
+      pipe = (WorkFlowPipe) Class.forName(WorkFlowPipe.class.getPackage().getName() + "." + pipeName)
+          .getConstructor(CodeGenerator.class).newInstance(cg);
+      for (int i=1; i<templates.length; i++) {
+        lines = Files.readAllLines(new File(wdPath + templates[i]).toPath(), StandardCharsets.UTF_8);
+        if (new CodeDocument(lines).findTag(pipe.MY_TAG) >= 0) {
+          return;
+        }
+      }
+    }
+    throw new IllegalStateException("no template holds the tag of " + pipeName);
+  }
+
+  /**
+   * tearDown removes our project.
+   *
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    SyntheticProject.delete(folder);
+  }
+
+  /**
+   * process runs our pipe over a fresh copy of its template.
+   *
+   * @return the processed document
+   */
+  @Benchmark
+  public CodeDocument process() {
+    return pipe.process(new CodeDocument(lines));
+  }
+
+}
@@ -0,0 +1,353 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import builder.Builder;
+import builder.common.EnumFactory;
+import builder.controller.Controller;
+import builder.controller.LogManager;
+import builder.fonts.FontFactory;
+import builder.models.ProjectModel;
+import builder.prefs.GeneralEditor;
+import builder.widgets.ImageWidget;
+import builder.widgets.ImgButtonWidget;
+import builder.widgets.Widget;
+import builder.widgets.WidgetFactory;
+
+/**
+ * The Class SyntheticProject builds a project of N pages each holding 
+ * M widgets of every type our WidgetFactory can create, without
+ * ever creating our UI, so code generation can be benchmarked.
+ * 
+ * NOTE: Like BatchGenerator this expects to run from the Builder's
+ * install folder (or user.dir set to it) so templates and fonts can be found.
+ * 
+ * @author Paul Conti
+ *
+ */
+public class SyntheticProject {
+
+  /** The size of our generated images. */
+  private final static int IMAGE_SIZE = 16;
+
+  /** Set once our Builder singletons are ready. */
+  private static boolean bStarted = false;
+
+  /** The project file, it's never actually written. */
+  private final File projectFile;
+
+  /** The project model. */
+  private final ProjectModel pm;
+
+  /** The pages, the first holds our project options. */
+  private final List<CodePage> pages = new ArrayList<CodePage>();
+
+  /**
+   * Instantiates a new synthetic project.
+   *
+   * @param projectFile
+   *          the project file
+   * @param pm
+   *          the project model
+   */
+  private SyntheticProject(File projectFile, ProjectModel pm) {
+    this.projectFile = projectFile;
+    this.pm = pm;
+  }
+
+  /**
+   * create a project.
+   *
+   * @param folder
+   *          the folder to receive our generated code
+   * @param target
+   *          the target platform, like ProjectModel.PLATFORM_LINUX
+   * @param nPages
+   *          the number of pages
+   * @param nWidgets
+   *          the number of widgets of each type on every page
+   * @return the <code>SyntheticProject</code> object
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  public static synchronized SyntheticProject create(File folder, String target, 
+      int nPages, int nWidgets) throws IOException {
+    startUp(folder);
+    folder.mkdirs();
+    ProjectModel pm = Controller.newProjectModel();
+    pm.TurnOffEvents();
+    pm.setTargetPlatform(target);
+    pm.TurnOnEvents();
+    Controller.setProjectModel(pm);
+    String name = "synthetic_" + nPages + "x" + nWidgets;
+    SyntheticProject project = new SyntheticProject(new File(folder, name + ".prj"), pm);
+    project.pages.add(new Page(pm.getKey(), pm.getEnum(), EnumFactory.PROJECT));
+    File image = createImage(folder);
+    for (int p=1; p<=nPages; p++) {
+      Page page = new Page("Page$" + p, "E_PG_" + p, EnumFactory.PAGE);
+      int y = 0;
+      for (String type : EnumFactory.typeStrings) {
+        for (int i=0; i<nWidgets; i++) {
+          Widget w = createWidget(type, 10 + 4*i, 10 + y, image);
+          if (w == null) break;  // not a widget
+          page.widgets.add(w);
+        }
+        y += 4;
+      }
+      project.pages.add(page);
+    }
+    return project;
+  }
+
+  /**
+   * createWidget.
+   *
+   * @param type
+   *          the widget type
+   * @param x
+   *          the x coordinate position
+   * @param y
+   *          the y coordinate position
+   * @param image
+   *          the image for any image widgets
+   * @return the widget, or <code>null</code> if type isn't a widget
+   */
+  private static Widget createWidget(String type, int x, int y, File image) {
+    Widget w = WidgetFactory.getInstance().createWidget(type, x, y);
+    if (w instanceof ImageWidget) {
+      ((ImageWidget) w).setImage(image, x, y);
+    } else if (w instanceof ImgButtonWidget) {
+      ((ImgButtonWidget) w).setImage(image, x, y);
+      ((ImgButtonWidget) w).setImageSelected(image);
+    }
+    return w;
+  }
+
+  /**
+   * createImage writes a small 24 bit bitmap for our image widgets.
+   *
+   * @param folder
+   *          the folder
+   * @return the image file
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  private static File createImage(File folder) throws IOException {
+    File file = new File(folder, "synthetic.bmp");
+    if (!file.exists()) {
+      BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_3BYTE_BGR);
+      Graphics2D g2d = image.createGraphics();
+      g2d.setColor(Color.BLUE);
+      g2d.fillRect(0, 0, IMAGE_SIZE, IMAGE_SIZE);
+      g2d.dispose();
+      ImageIO.write(image, "bmp", file);
+    }
+    return file;
+  }
+
+  /**
+   * startUp initializes just the pieces of the Builder 
+   * our code generator depends upon, the same as BatchGenerator
+   * but logging inside our folder.
+   *
+   * @param folder
+   *          the folder
+   */
+  private static void startUp(File folder) {
+    if (bStarted) return;
+    System.setProperty("java.awt.headless", "true");
+    folder.mkdirs();
+    Builder.logger = LogManager.getLogger();
+    Builder.logger.openLogger(new File(folder, "builder.log").getPath());
+    FontFactory.getInstance().init();
+    Builder.loadThemes();
+    // GeneralEditor leaves stderr pointing at nothing
+    PrintStream err = System.err;
+    GeneralEditor.getInstance();
+    System.setErr(err);
+    bStarted = true;
+  }
+
+  /**
+   * delete removes a folder holding a synthetic project.
+   *
+   * @param folder
+   *          the folder
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  public static void delete(File folder) throws IOException {
+    if (folder == null || !folder.exists()) return;
+    try (Stream<Path> paths = Files.walk(folder.toPath())) {
+      for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  /**
+   * Gets the project file.
+   *
+   * @return the project file
+   */
+  public File getProjectFile() {
+    return projectFile;
+  }
+
+  /**
+   * Gets the project model.
+   *
+   * @return the project model
+   */
+  public ProjectModel getProjectModel() {
+    return pm;
+  }
+
+  /**
+   * Gets the application file our code generator creates, 
+   * *.c for linux and *.ino for arduino.
+   *
+   * @return the application file
+   */
+  public File getAppFile() {
+    String ext = pm.getTargetPlatform().equals(ProjectModel.PLATFORM_LINUX) ? ".c" : ".ino";
+    return new File(projectFile.getParentFile(), getName() + ext);
+  }
+
+  /**
+   * Gets the header file our code generator creates for arduino.
+   *
+   * @return the header file
+   */
+  public File getHdrFile() {
+    return new File(projectFile.getParentFile(), getName() + "_GSLC.h");
+  }
+
+  /**
+   * Gets the project name.
+   *
+   * @return the name
+   */
+  public String getName() {
+    String name = projectFile.getName();
+    return name.substring(0, name.indexOf(".prj"));
+  }
+
+  /**
+   * Gets the pages.
+   *
+   * @return the pages
+   */
+  public List<CodePage> getPages() {
+    return pages;
+  }
+
+  /**
+   * generate code for our project.
+   *
+   * @param bCompat
+   *          <code>true</code> for a single *.ino file
+   * @return the code generator, ready to run any of its workflows again
+   *         without any fingerprints to skip sections
+   */
+  public CodeGenerator generate(boolean bCompat) {
+    Controller.setProjectModel(pm);
+    CodeGenerator cg = CodeGenerator.getInstance();
+    cg.generate(projectFile, pages, pm, bCompat, null);
+    cg.fingerprints = null;
+    return cg;
+  }
+
+  /**
+   * The Class Page holds one page of our widgets.
+   */
+  static class Page implements CodePage {
+
+    /** The key. */
+    private final String key;
+
+    /** The enum. */
+    private final String pageEnum;
+
+    /** The page type. */
+    private final String pageType;
+
+    /** The widgets. */
+    private final List<Widget> widgets = new ArrayList<Widget>();
+
+    /**
+     * Instantiates a new page.
+     *
+     * @param key
+     *          the key
+     * @param pageEnum
+     *          the page enum
+     * @param pageType
+     *          the page type
+     */
+    Page(String key, String pageEnum, String pageType) {
+      this.key = key;
+      this.pageEnum = pageEnum;
+      this.pageType = pageType;
+    }
+
+    @Override
+    public String getKey() {
+      return key;
+    }
+
+    @Override
+    public String getEnum() {
+      return pageEnum;
+    }
+
+    @Override
+    public String getPageType() {
+      return pageType;
+    }
+
+    @Override
+    public List<Widget> getWidgets() {
+      return widgets;
+    }
+  }
+
+}
@@ -0,0 +1,244 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import builder.common.EnumFactory;
+import builder.models.ProjectModel;
+import builder.models.WidgetModel;
+import builder.widgets.Widget;
+
+/**
+ * The Class TemplateBenchmark times TemplateManager.expandMacros() 
+ * expanding the creation template of every widget in a synthetic project
+ * against the regular expression expansion it replaced.
+ * <p>
+ * Ten pages of ten widgets of each type gives us roughly 2,000 widgets.
+ * </p>
+ * 
+ * @author Paul Conti
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateBenchmark {
+
+  /** The Constant for the creation template of each widget type. */
+  private final static Map<String, String> TEMPLATES = new HashMap<String, String>();
+  static {
+    TEMPLATES.put(EnumFactory.BOX,          "<BOX>");
+    TEMPLATES.put(EnumFactory.CHECKBOX,     "<CHECKBOX>");
+    TEMPLATES.put(EnumFactory.GRAPH,        "<GRAPH>");
+    TEMPLATES.put(EnumFactory.IMAGE,        "<IMAGE_DEFINE>");
+    TEMPLATES.put(EnumFactory.IMAGEBUTTON,  "<IMGBUTTON_DEFINE>");
+    TEMPLATES.put(EnumFactory.LINE,         "<LINE>");
+    TEMPLATES.put(EnumFactory.LISTBOX,      "<LISTBOX>");
+    TEMPLATES.put(EnumFactory.NUMINPUT,     "<TEXT_INPUT_NUM>");
+    TEMPLATES.put(EnumFactory.PROGRESSBAR,  "<PROGRESSBAR>");
+    TEMPLATES.put(EnumFactory.RADIALGAUGE,  "<RADIALGAUGE>");
+    TEMPLATES.put(EnumFactory.RADIOBUTTON,  "<RADIOBUTTON>");
+    TEMPLATES.put(EnumFactory.RAMPGAUGE,    "<RAMPGAUGE>");
+    TEMPLATES.put(EnumFactory.RINGGAUGE,    "<RINGGAUGE>");
+    TEMPLATES.put(EnumFactory.SEEKBAR,      "<SEEKBAR>");
+    TEMPLATES.put(EnumFactory.SLIDER,       "<SLIDER>");
+    TEMPLATES.put(EnumFactory.SPINNER,      "<SPINNER>");
+    TEMPLATES.put(EnumFactory.TEXT,         "<TEXT>");
+    TEMPLATES.put(EnumFactory.TEXTBOX,      "<TEXTBOX>");
+    TEMPLATES.put(EnumFactory.TEXTBUTTON,   "<TXTBUTTON>");
+    TEMPLATES.put(EnumFactory.TEXTINPUT,    "<TEXT_INPUT>");
+    TEMPLATES.put(EnumFactory.TOGGLEBUTTON, "<TOGGLEBUTTON>");
+  }
+
+  /** The Constant MACRO_PATTERN is the regex search pattern '$<xxx>' we used to expand with. */
+  private final static Pattern MACRO_PATTERN = Pattern.compile("\\$\\<(.+?)\\>");
+
+  /** The number of pages. */
+  @Param({ "10" })
+  public int pages;
+
+  /** The number of widgets of each type on a page, 10 gives roughly 2,000 widgets. */
+  @Param({ "2", "10" })
+  public int widgets;
+
+  /** The folder holding our project. */
+  private File folder;
+
+  /** The template manager. */
+  private TemplateManager tm;
+
+  /** The models of our widgets. */
+  private List<WidgetModel> models = new ArrayList<WidgetModel>();
+
+  /** The page enum of each model. */
+  private List<String> pageEnums = new ArrayList<String>();
+
+  /** The creation template of each model. */
+  private List<List<String>> templates = new ArrayList<List<String>>();
+
+  /**
+   * setUp creates and generates our project then finds
+   * the creation template of every widget.
+   *
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    folder = Files.createTempDirectory("template").toFile();
+    SyntheticProject project = SyntheticProject.create(folder, 
+        ProjectModel.PLATFORM_ARDUINO, pages, widgets);
+    tm = project.generate(false).getTemplateManager();
+    for (CodePage p : project.getPages()) {
+      for (Widget w : p.getWidgets()) {
+        String name = TEMPLATES.get(w.getType());
+        if (name == null) continue;
+        models.add(w.getModel());
+        pageEnums.add(p.getEnum());
+        templates.add(tm.loadTemplate(name));
+      }
+    }
+  }
+
+  /**
+   * tearDown removes our project.
+   *
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    SyntheticProject.delete(folder);
+  }
+
+  /**
+   * expandMacros expands every template with our TemplateManager.
+   *
+   * @return the expanded code
+   */
+  @Benchmark
+  public StringBuilder expandMacros() {
+    StringBuilder sBd = new StringBuilder();
+    for (int i=0; i<models.size(); i++) {
+      tm.expandMacros(sBd, templates.get(i), models.get(i).getMappedProperties(pageEnums.get(i)));
+    }
+    return sBd;
+  }
+
+  /**
+   * regexBaseline expands every template the way we did before
+   * our templates were compiled, our baseline.
+   *
+   * @return the expanded code
+   */
+  @Benchmark
+  public StringBuilder regexBaseline() {
+    StringBuilder sBd = new StringBuilder();
+    for (int i=0; i<models.size(); i++) {
+      for (String line : regexExpand(templates.get(i), models.get(i).getMappedProperties(pageEnums.get(i)))) {
+        sBd.append(line);
+        sBd.append(System.lineSeparator());
+      }
+    }
+    return sBd;
+  }
+
+  /**
+   * regexExpand is our previous expandMacros() matching MACRO_PATTERN 
+   * over every line of the template.
+   *
+   * @param template
+   *          the template lines
+   * @param map
+   *          the map containing the key/value pairs.
+   * @return the expanded template
+   */
+  private static List<String> regexExpand(List<String> template, Map<String, String> map) {
+    List<String> outputList = new ArrayList<String>();
+    String sKey = null;
+    String sValue = null;
+    int nPadding = 0;
+    for (String l : template) {
+      Matcher m = MACRO_PATTERN.matcher(l);
+      StringBuffer sb = new StringBuffer();
+      while (m.find()) {
+        sKey = m.group(1);
+        // test the key, if its numeric its padding
+        // otherwise its a macro to be expanded
+        if (sKey.matches("[0-9]+")) {
+          nPadding = Integer.parseInt(sKey);
+          m.appendReplacement(sb, "");
+        } else {
+          sValue = map.get(sKey);
+          if (sValue != null) {
+            if (nPadding > 0) {
+              // space out this value
+              nPadding = nPadding - sValue.length();
+              if (nPadding > 0) {
+                for (int i=0; i<nPadding; i++)
+                  sValue = sValue + " ";
+                nPadding = 0; // reset for next value
+              }
+            }
+            m.appendReplacement(sb, "");
+            sb.append(sValue);
+          }
+        }
+      }
+      m.appendTail(sb);
+      outputList.add(sb.toString());
+    }
+    return outputList;
+  }
+
+}
@@ -0,0 +1,150 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import builder.codegen.pipes.Pipeline;
+import builder.common.Utils;
+import builder.models.ProjectModel;
+
+/**
+ * The Class WorkFlowBenchmark times each of our code generation 
+ * workflows regenerating the output of a synthetic project.
+ * <p>
+ * Every section is generated in full since our fingerprints are
+ * dropped once the project has been generated the first time.
+ * </p>
+ * 
+ * @author Paul Conti
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkFlowBenchmark {
+
+  /** The workflow. */
+  @Param({ "Linux", "Compat", "ArduinoHdr", "ArduinoIno" })
+  public String workFlow;
+
+  /** The number of pages. */
+  @Param({ "1", "10" })
+  public int pages;
+
+  /** The number of widgets of each type on a page, 10 gives roughly 2,000 widgets over 10 pages. */
+  @Param({ "2", "10" })
+  public int widgets;
+
+  /** The folder holding our project. */
+  private File folder;
+
+  /** The pipeline being timed. */
+  private Pipeline<CodeDocument> pipeline;
+
+  /** The lines of the document our pipeline regenerates. */
+  private List<String> lines;
+
+  /**
+   * setUp creates and generates our project.
+   *
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    folder = Files.createTempDirectory("workflow").toFile();
+    String target = workFlow.equals("Linux") ? ProjectModel.PLATFORM_LINUX : ProjectModel.PLATFORM_ARDUINO;
+    SyntheticProject project = SyntheticProject.create(folder, target, pages, widgets);
+    CodeGenerator cg = project.generate(false);
+    File file = project.getAppFile();
+    switch (workFlow) {
+      case "Linux":
+        pipeline = cg.workFlow_Linux;
+        break;
+      case "Compat":
+        // our compat workflow always starts from its template
+        pipeline = cg.workFlow_Compat;
+        file = new File(Utils.getWorkingDir() + CodeGenerator.TEMPLATE_FOLDER 
+            + File.separator + CodeGenerator.ARDUINO_COMPAT_TEMPLATE);
+        break;
+      case "ArduinoHdr":
+        pipeline = cg.workFlow_ArduinoHdr;
+        file = project.getHdrFile();
+        break;
+      case "ArduinoIno":
+        pipeline = cg.workFlow_ArduinoIno;
+        break;
+      default:
+        throw new IllegalArgumentException("unknown workflow: " + workFlow);
+    }
+    lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * tearDown removes our project.
+   *
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    SyntheticProject.delete(folder);
+  }
+
+  /**
+   * process runs our workflow over a fresh copy of its document.
+   *
+   * @return the processed document
+   */
+  @Benchmark
+  public CodeDocument process() {
+    return pipeline.process(new CodeDocument(lines));
+  }
+
+}
@@ -61,6 +61,7 @@ import javax.swing.WindowConstants;
 
 import builder.common.Utils;
 import builder.common.ThemeInfo;
+import builder.controller.BatchGenerator;
 import builder.controller.Controller;
 import builder.controller.LogManager;
 import builder.controller.PropManager;
@@ -185,7 +186,15 @@ public class Builder  extends JDesktopPane {
        if (args[0].equals("insideIDE")) {
          bInsideIDE = true;
        }
-    }    
+       /* --generate runs our code generator from the command line
+        * without ever creating our UI.
+        */
+       for (String arg : args) {
+         if (arg.equals(BatchGenerator.OPT_GENERATE)) {
+           System.exit(BatchGenerator.run(args));
+         }
+       }
+    }
     
     Builder builder = new Builder();
     version = Double.parseDouble(System.getProperty("java.specification.version"));
@@ -0,0 +1,369 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The Class CallbackIndex makes a single lexical pass over a document 
+ * and records every callback enum section, like "//<Button Enums !Start!>", 
+ * with the case statements found inside it. 
+ * 
+ * The callback pipes share this index instead of each one splitting 
+ * every line of its section into words to find the case statements
+ * they must preserve, update or remove.
+ * 
+ * A section's lines are kept as they were scanned. Since each pipe only
+ * replaces its own section, a section found unchanged inside the document
+ * is still valid, otherwise it's simply scanned again.
+ * 
+ * @author Paul Conti
+ *
+ */
+public final class CallbackIndex {
+
+  /** The tag name ending of our enum sections. */
+  private final static String ENUMS_SUFFIX = "Enums" + Tags.TAG_SUFFIX_START;
+
+  /** The word that starts a case statement. */
+  private final static String CASE_WORD = "case";
+
+  /** The word that ends a case statement. */
+  private final static String BREAK_WORD = "break";
+
+  /** The sections by their start tag, each pipe may look up its own at the same time. */
+  private final Map<String, Section> sections = new ConcurrentHashMap<String, Section>();
+
+  /** The document we indexed. */
+  private final CodeDocument doc;
+
+  /**
+   * Instantiates a new callback index.
+   *
+   * @param doc
+   *          the document
+   */
+  public CallbackIndex(CodeDocument doc) {
+    this.doc = doc;
+    int n = 0;
+    int nSize = doc.size();
+    while (n < nSize) {
+      String tag = CodeDocument.ltrim(doc.getLine(n));
+      n++;
+      if (tag.startsWith(Tags.TAG_PREFIX) && tag.endsWith(ENUMS_SUFFIX)
+          && !sections.containsKey(tag)) {
+        int nEnd = findEnd(doc, tag, n);
+        sections.put(tag, scan(doc, n, nEnd));
+        n = nEnd;
+      }
+    }
+  }
+
+  /**
+   * getDocument.
+   *
+   * @return the document we indexed
+   */
+  public CodeDocument getDocument() {
+    return doc;
+  }
+
+  /**
+   * getSection returns the section following our enum tag,
+   * scanning it again if it has changed since we indexed it.
+   *
+   * @param tag
+   *          the enum start tag
+   * @param nStart
+   *          the line number following the tag
+   * @return the section, it ends at our end tag or end of file
+   */
+  public Section getSection(String tag, int nStart) {
+    int nEnd = findEnd(doc, tag, nStart);
+    Section s = sections.get(tag);
+    if (s == null || !s.matches(doc, nStart, nEnd)) {
+      s = scan(doc, nStart, nEnd);
+      sections.put(tag, s);
+    }
+    return s;
+  }
+
+  /**
+   * findEnd locates the end tag of a section.
+   *
+   * @param doc
+   *          the document
+   * @param tag
+   *          the start tag
+   * @param nStart
+   *          the line number following the start tag
+   * @return the line number of our end tag, or the size of our document
+   */
+  private static int findEnd(CodeDocument doc, String tag, int nStart) {
+    String endTag = tag.substring(0, tag.length() - Tags.TAG_SUFFIX_START.length())
+        + Tags.TAG_SUFFIX_END;
+    int nEnd = doc.findTag(endTag, nStart);
+    return (nEnd < 0) ? doc.size() : nEnd;
+  }
+
+  /**
+   * scan tokenizes the lines of a section and records each case statement.
+   *
+   * @param doc
+   *          the document
+   * @param nStart
+   *          the first line of our section
+   * @param nEnd
+   *          the line following our section
+   * @return the section
+   */
+  private static Section scan(CodeDocument doc, int nStart, int nEnd) {
+    int nLines = nEnd - nStart;
+    String[] lines = new String[nLines];
+    String[][] words = new String[nLines][];
+    List<Case> cases = new ArrayList<Case>();
+    for (int i=0; i<nLines; i++) {
+      lines[i] = doc.getLine(nStart + i);
+      words[i] = splitWords(lines[i]);
+      if (words[i].length > 1 && words[i][0].equals(CASE_WORD)) {
+        cases.add(new Case(words[i][1], i));
+      }
+    }
+    // each case runs up to the next one, work backwards for the breaks
+    int nNextCase = nLines;
+    int nNextBreak = -1;
+    int c = cases.size() - 1;
+    for (int i=nLines-1; i>=0 && c>=0; i--) {
+      Case cs = cases.get(c);
+      if (i == cs.start) {
+        cs.end = nNextCase;
+        cs.breakLine = nNextBreak;
+        nNextCase = i;
+        c--;
+      }
+      if (hasWord(words[i], BREAK_WORD)) {
+        nNextBreak = i;
+      }
+    }
+    return new Section(lines, words, cases);
+  }
+
+  /**
+   * splitWords breaks up a line into words, each word starts with 
+   * a letter followed by letters, digits or underscores.
+   *
+   * @param s
+   *          the line
+   * @return the words
+   */
+  static String[] splitWords(String s) {
+    List<String> list = null;
+    int len = s.length();
+    int i = 0;
+    while (i < len) {
+      if (!isLetter(s.charAt(i))) {
+        i++;
+        continue;
+      }
+      int begin = i++;
+      while (i < len && (isLetter(s.charAt(i)) || isDigit(s.charAt(i)) || s.charAt(i) == '_')) {
+        i++;
+      }
+      if (list == null) list = new ArrayList<String>();
+      list.add(s.substring(begin, i));
+    }
+    return (list == null) ? new String[0] : list.toArray(new String[list.size()]);
+  }
+
+  private static boolean isLetter(char ch) {
+    return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z');
+  }
+
+  private static boolean isDigit(char ch) {
+    return ch >= '0' && ch <= '9';
+  }
+
+  private static boolean hasWord(String[] words, String word) {
+    for (String w : words) {
+      if (w.equals(word)) return true;
+    }
+    return false;
+  }
+
+  /**
+   * The Class Section holds the lines between a pair of enum tags
+   * along with their words and case statements.
+   */
+  public static final class Section {
+
+    /** The lines. */
+    private final String[] lines;
+
+    /** The words of each line. */
+    private final String[][] words;
+
+    /** The case statements in order of appearance. */
+    private final List<Case> cases;
+
+    /** The last case statement for each enum. */
+    private final Map<String, Case> caseMap = new HashMap<String, Case>();
+
+    Section(String[] lines, String[][] words, List<Case> cases) {
+      this.lines = lines;
+      this.words = words;
+      this.cases = Collections.unmodifiableList(cases);
+      for (Case c : cases) {
+        caseMap.put(c.label, c);
+      }
+    }
+
+    /**
+     * matches checks our lines are still the ones inside the document.
+     */
+    boolean matches(CodeDocument doc, int nStart, int nEnd) {
+      if (nEnd - nStart != lines.length) return false;
+      for (int i=0; i<lines.length; i++) {
+        String s = doc.getLine(nStart + i);
+        if (s != lines[i] && !s.equals(lines[i])) return false;
+      }
+      return true;
+    }
+
+    /**
+     * size.
+     *
+     * @return the number of lines
+     */
+    public int size() {
+      return lines.length;
+    }
+
+    /**
+     * getLine.
+     *
+     * @param idx
+     *          the line number within our section
+     * @return the line
+     */
+    public String getLine(int idx) {
+      return lines[idx];
+    }
+
+    /**
+     * getWords.
+     *
+     * @param idx
+     *          the line number within our section
+     * @return the words of the line
+     */
+    public String[] getWords(int idx) {
+      return words[idx];
+    }
+
+    /**
+     * getCases.
+     *
+     * @return the case statements in order of appearance
+     */
+    public List<Case> getCases() {
+      return cases;
+    }
+
+    /**
+     * getLines returns the lines of a case statement
+     * up to the next one, skipping empty lines.
+     *
+     * @param c
+     *          the case statement
+     * @return the lines
+     */
+    public List<String> getLines(Case c) {
+      List<String> list = new ArrayList<String>(c.end - c.start);
+      for (int i=c.start; i<c.end; i++) {
+        if (!lines[i].isEmpty()) {
+          list.add(lines[i]);
+        }
+      }
+      return list;
+    }
+
+    /**
+     * findCase.
+     *
+     * @param label
+     *          the enum of the case statement
+     * @return the last case statement for this enum, or <code>null</code> if none
+     */
+    public Case findCase(String label) {
+      return caseMap.get(label);
+    }
+  }
+
+  /**
+   * The Class Case locates a case statement within its section.
+   */
+  public static final class Case {
+
+    /** The enum of the case statement. */
+    private final String label;
+
+    /** The line of the case statement. */
+    private final int start;
+
+    /** The line of the next case statement, or end of our section. */
+    private int end;
+
+    /** The first line after start with a break statement, or -1 if none. */
+    private int breakLine = -1;
+
+    Case(String label, int start) {
+      this.label = label;
+      this.start = start;
+    }
+
+    public String getLabel() {
+      return label;
+    }
+
+    public int getStart() {
+      return start;
+    }
+
+    public int getEnd() {
+      return end;
+    }
+
+    public int getBreakLine() {
+      return breakLine;
+    }
+  }
+
+}
@@ -0,0 +1,444 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Class CodeDocument holds the source file being generated
+ * as a list of lines together with an index of where each of our
+ * tags currently sits.
+ *
+ * The file is read once at the start of code generation and every
+ * pipe in the workflow replaces only the region belonging to its tag.
+ * Once the workflow finishes the document is serialized once.
+ * This replaces the old scheme of each pipe re-encoding the entire
+ * file into bytes, reading it back line by line and copying it
+ * into a brand new StringBuilder.
+ *
+ * @author Paul Conti
+ *
+ */
+public class CodeDocument {
+
+  /** The lines of our document, without line terminators. */
+  private final List<String> lines;
+
+  /** The tag index, left trimmed tag line to first line number holding it. */
+  private final Map<String, Integer> tagIndex = new HashMap<String, Integer>();
+
+  /** The number of characters we hold, counting one for each line end. */
+  private long nLength = 0;
+
+  /** The first line changed since we started tracking, or -1 if none. */
+  private int nChangedStart = -1;
+
+  /** The line following the last line changed since we started tracking. */
+  private int nChangedEnd = -1;
+
+  /**
+   * Instantiates a new code document.
+   *
+   * @param lines
+   *          the lines of our source, without line terminators
+   */
+  public CodeDocument(List<String> lines) {
+    this.lines = new ArrayList<String>(lines);
+    for (int i=0; i<this.lines.size(); i++) {
+      indexLine(this.lines.get(i), i);
+      nLength += this.lines.get(i).length() + 1;
+    }
+  }
+
+  /**
+   * load reads a file into a new document.
+   *
+   * @param file
+   *          the file
+   * @return the <code>CodeDocument</code> object
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  static public CodeDocument load(File file) throws IOException {
+    List<String> list = new ArrayList<String>();
+    try (BufferedReader br = new BufferedReader(
+        new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+      String line = null;
+      while ((line = br.readLine()) != null) {
+        list.add(line);
+      }
+    }
+    return new CodeDocument(list);
+  }
+
+  /**
+   * size.
+   *
+   * @return the number of lines inside our document
+   */
+  public int size() {
+    return lines.size();
+  }
+
+  /**
+   * length.
+   *
+   * @return the number of characters inside our document, 
+   *         counting one for each line end
+   */
+  public long length() {
+    return nLength;
+  }
+
+  /**
+   * getLine.
+   *
+   * @param idx
+   *          the line number
+   * @return the line
+   */
+  public String getLine(int idx) {
+    return lines.get(idx);
+  }
+
+  /**
+   * findTag looks up the line holding our tag.
+   *
+   * @param tag
+   *          the tag
+   * @return the line number, or -1 if not found
+   */
+  public int findTag(String tag) {
+    Integer idx = tagIndex.get(tag);
+    if (idx != null) return idx.intValue();
+    // not a "//<" style tag so it's not indexed
+    if (!tag.startsWith(Tags.TAG_PREFIX)) {
+      return scan(tag, 0);
+    }
+    return -1;
+  }
+
+  /**
+   * findTag looks up the first line at or after start holding our tag.
+   *
+   * @param tag
+   *          the tag
+   * @param start
+   *          the starting line number
+   * @return the line number, or -1 if not found
+   */
+  public int findTag(String tag, int start) {
+    int idx = findTag(tag);
+    if (idx >= start || idx == -1 && tag.startsWith(Tags.TAG_PREFIX)) {
+      return idx;
+    }
+    // duplicated tag, fall back to scanning
+    return scan(tag, start);
+  }
+
+  /**
+   * reader creates a line reader positioned at start.
+   *
+   * @param start
+   *          the starting line number
+   * @return the <code>LineReader</code> object
+   */
+  public LineReader reader(int start) {
+    return new LineReader(start);
+  }
+
+  /**
+   * replace the lines from start up to but not including end
+   * with the contents of our generated code.
+   *
+   * @param start
+   *          the first line number to replace
+   * @param end
+   *          the line number following our last line replaced
+   * @param code
+   *          the generated code
+   */
+  public void replace(int start, int end, CharSequence code) {
+    List<String> newLines = splitLines(code);
+    List<String> removedTags = new ArrayList<String>();
+    int delta = newLines.size() - (end - start);
+    Iterator<Map.Entry<String, Integer>> it = tagIndex.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<String, Integer> e = it.next();
+      int idx = e.getValue().intValue();
+      if (idx >= end) {
+        e.setValue(Integer.valueOf(idx + delta));
+      } else if (idx >= start) {
+        removedTags.add(e.getKey());
+        it.remove();
+      }
+    }
+    trackChange(start, end, newLines.size());
+    List<String> region = lines.subList(start, end);
+    for (String s : region) {
+      nLength -= s.length() + 1;
+    }
+    region.clear();
+    region.addAll(newLines);
+    for (int i=0; i<newLines.size(); i++) {
+      indexLine(newLines.get(i), start + i);
+      nLength += newLines.get(i).length() + 1;
+    }
+    // a removed tag might still exist further on inside our document
+    for (String tag : removedTags) {
+      if (!tagIndex.containsKey(tag)) {
+        int idx = scan(tag, 0);
+        if (idx >= 0) {
+          tagIndex.put(tag, Integer.valueOf(idx));
+        }
+      }
+    }
+  }
+
+  /**
+   * startTracking resets the region of lines we have seen replaced.
+   */
+  public void startTracking() {
+    nChangedStart = -1;
+    nChangedEnd = -1;
+  }
+
+  /**
+   * getChangedStart.
+   *
+   * @return the first line replaced since we started tracking, or -1 if none
+   */
+  public int getChangedStart() {
+    return nChangedStart;
+  }
+
+  /**
+   * getChangedEnd.
+   *
+   * @return the line following the last line replaced since we started tracking
+   */
+  public int getChangedEnd() {
+    return nChangedEnd;
+  }
+
+  /**
+   * trackChange grows our changed region to cover a replacement.
+   *
+   * @param start
+   *          the first line number replaced
+   * @param end
+   *          the line number following our last line replaced
+   * @param count
+   *          the number of lines that replaced them
+   */
+  private void trackChange(int start, int end, int count) {
+    int delta = count - (end - start);
+    if (nChangedStart < 0) {
+      nChangedStart = start;
+      nChangedEnd = start + count;
+      return;
+    }
+    // move our region to where it sits after this replacement
+    if (nChangedStart >= end) {
+      nChangedStart += delta;
+    } else if (nChangedStart > start) {
+      nChangedStart = start;
+    }
+    if (nChangedEnd >= end) {
+      nChangedEnd += delta;
+    } else if (nChangedEnd > start) {
+      nChangedEnd = start + count;
+    }
+    nChangedStart = Math.min(nChangedStart, start);
+    nChangedEnd = Math.max(nChangedEnd, start + count);
+  }
+
+  /**
+   * writeTo serializes our document.
+   *
+   * @param out
+   *          the writer
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  public void writeTo(Writer out) throws IOException {
+    String sep = System.lineSeparator();
+    for (String s : lines) {
+      out.write(s);
+      out.write(sep);
+    }
+  }
+
+  /**
+   * toString
+   *
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    StringBuilder sBd = new StringBuilder();
+    String sep = System.lineSeparator();
+    for (String s : lines) {
+      sBd.append(s);
+      sBd.append(sep);
+    }
+    return sBd.toString();
+  }
+
+  /**
+   * splitLines breaks up generated code the same way
+   * BufferedReader.readLine() would.
+   *
+   * @param code
+   *          the code
+   * @return the list of lines
+   */
+  static public List<String> splitLines(CharSequence code) {
+    List<String> list = new ArrayList<String>();
+    int len = code.length();
+    int begin = 0;
+    int i = 0;
+    while (i < len) {
+      char c = code.charAt(i);
+      if (c == '\n' || c == '\r') {
+        list.add(code.subSequence(begin, i).toString());
+        if (c == '\r' && i+1 < len && code.charAt(i+1) == '\n') {
+          i++;
+        }
+        begin = i+1;
+      }
+      i++;
+    }
+    if (begin < len) {
+      list.add(code.subSequence(begin, len).toString());
+    }
+    return list;
+  }
+
+  /**
+   * indexLine adds the line to our tag index if its a tag.
+   *
+   * @param line
+   *          the line
+   * @param idx
+   *          the line number
+   */
+  private void indexLine(String line, int idx) {
+    String sTestTag = ltrim(line);
+    if (sTestTag.startsWith(Tags.TAG_PREFIX)) {
+      Integer prev = tagIndex.get(sTestTag);
+      if (prev == null || prev.intValue() > idx) {
+        tagIndex.put(sTestTag, Integer.valueOf(idx));
+      }
+    }
+  }
+
+  /**
+   * scan searches line by line for a tag.
+   *
+   * @param tag
+   *          the tag
+   * @param start
+   *          the starting line number
+   * @return the line number, or -1 if not found
+   */
+  private int scan(String tag, int start) {
+    for (int i=start; i<lines.size(); i++) {
+      if (ltrim(lines.get(i)).equals(tag)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * ltrim removes any leading white space, same as
+   * matching the regular expression "^\\s+".
+   *
+   * @param s
+   *          the string
+   * @return the left trimmed string
+   */
+  static public String ltrim(String s) {
+    int i = 0;
+    while (i < s.length() && " \t\n\u000B\f\r".indexOf(s.charAt(i)) >= 0) {
+      i++;
+    }
+    return (i == 0) ? s : s.substring(i);
+  }
+
+  /**
+   * The Class LineReader walks forward through our document
+   * a line at a time much like a BufferedReader, keeping track
+   * of how far a pipe has consumed so it knows what region to replace.
+   */
+  public class LineReader {
+
+    /** The position of the next line to read. */
+    private int pos;
+
+    /**
+     * Instantiates a new line reader.
+     *
+     * @param start
+     *          the starting line number
+     */
+    LineReader(int start) {
+      this.pos = start;
+    }
+
+    /**
+     * readLine.
+     *
+     * @return the next line, or null at the end of our document
+     */
+    public String readLine() {
+      if (pos >= lines.size()) return null;
+      return lines.get(pos++);
+    }
+
+    /**
+     * getPosition.
+     *
+     * @return the line number of the next line to be read
+     */
+    public int getPosition() {
+      return pos;
+    }
+  }
+
+}
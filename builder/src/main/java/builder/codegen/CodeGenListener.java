@@ -0,0 +1,53 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+/**
+ * The Interface CodeGenListener follows the progress
+ * of a code generation run.
+ * 
+ * It's called from the thread doing the generation 
+ * which may not be our Event Dispatch Thread.
+ * 
+ * @author Paul Conti
+ *
+ */
+public interface CodeGenListener {
+
+  /**
+   * Called as each stage of code generation starts.
+   *
+   * @param name
+   *          the stage name
+   * @param nStage
+   *          the stage number, starting at zero and reaching 
+   *          nStages as our output is saved
+   * @param nStages
+   *          the total number of stages
+   */
+  void stageStarted(String name, int nStage, int nStages);
+
+}
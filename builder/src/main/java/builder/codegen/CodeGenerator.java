@@ -39,12 +39,12 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
 
-import javax.swing.JOptionPane;
 
 import builder.Builder;
 import builder.codegen.pipes.AppPipe;
 import builder.codegen.pipes.ButtonCbPipe;
 import builder.codegen.pipes.CheckboxCbPipe;
+import builder.codegen.pipes.ConcurrentPipeline;
 import builder.codegen.pipes.DrawCbPipe;
 import builder.codegen.pipes.ElementPipe;
 import builder.codegen.pipes.EnumPipe;
@@ -55,11 +55,15 @@ import builder.codegen.pipes.FontsPipe;
 import builder.codegen.pipes.HeaderPipe;
 import builder.codegen.pipes.FontLoadPipe;
 import builder.codegen.pipes.IncludesPipe;
+import builder.codegen.pipes.IncrementalPipe;
 import builder.codegen.pipes.InitGuiPipe;
+import builder.codegen.pipes.InitPagesPipe;
 import builder.codegen.pipes.KeypadCbPipe;
 import builder.codegen.pipes.ListboxCbPipe;
 import builder.codegen.pipes.PathStoragePipe;
 import builder.codegen.pipes.Pipe;
+import builder.codegen.pipes.PipeListener;
+import builder.codegen.pipes.PipeTelemetry;
 import builder.codegen.pipes.Pipeline;
 import builder.codegen.pipes.ResourcesPipe;
 import builder.codegen.pipes.SaveRefPipe;
@@ -69,10 +73,14 @@ import builder.codegen.pipes.StartupPipe;
 import builder.codegen.pipes.TickCbPipe;
 import builder.common.Utils;
 import builder.controller.Controller;
+import builder.models.GeneralModel;
+import builder.models.KeyPadModel;
+import builder.models.KeyPadTextModel;
 import builder.models.ProjectModel;
 import builder.models.WidgetModel;
-import builder.views.PagePane;
-import builder.widgets.Widget;
+import builder.prefs.AlphaKeyPadEditor;
+import builder.prefs.GeneralEditor;
+import builder.prefs.NumKeyPadEditor;
 
 /**
  * The Class CodeGenerator is the Controller for creation of the C skeleton
@@ -82,7 +90,8 @@ import builder.widgets.Widget;
  * Contained in a Pipeline object.
  * 
  * Each Pipe (or Step) of the workflow is driven by Tags 
- * that are keyed within the C skeletons.
+ * that are keyed within the C skeletons. Pipes whose Tags don't
+ * overlap generate their code at the same time.
  * </p>
  * NOTE:
  * <p>
@@ -127,10 +136,19 @@ public class CodeGenerator {
   private final static String EMPTY_STRING = "";
 
   /** The projects' pages. */
-  private List<PagePane> pages;
+  private List<CodePage> pages;
   
-  /** The full list of widget models. */
-  List<WidgetModel> models;
+  /** The index of our widget models for this run. */
+  ModelIndex modelIndex;
+
+  /** The pool of our static text, or <code>null</code> if not pooled. */
+  StringPool stringPool;
+
+  /** The images we embed in flash, or <code>null</code> if not embedded. */
+  ImageExporter imageExporter;
+
+  /** The index of callback sections inside the document being generated. */
+  private CallbackIndex callbackIndex;
   
   /** The current project name. */
   String m_sProjectName = null;
@@ -153,6 +171,49 @@ public class CodeGenerator {
   /** Our project model */
   ProjectModel pm = null;
   
+  /** The user's general preferences. */
+  GeneralModel gm = null;
+  
+  /** The user's numeric keypad preferences. */
+  KeyPadModel numKeyPadModel = null;
+  
+  /** The user's alphanumeric keypad preferences. */
+  KeyPadTextModel alphaKeyPadModel = null;
+  
+  /** The fingerprints of each section generated last time. */
+  SectionFingerprints fingerprints = null;
+  
+  /** The font files we copied into the project last time. */
+  FontManifest fontManifest = null;
+  
+  /** The measurements of each pipe of our last run. */
+  PipeTelemetry<CodeDocument> telemetry = null;
+  
+  /** The estimated memory footprint of our last run. */
+  Footprint footprint = null;
+  
+  /** The fingerprint of our project wide settings. */
+  String m_sGlobalFingerprint = null;
+
+  /** The writer for our output files, keeping its buffers between runs. */
+  private final DocumentWriter writer = new DocumentWriter();
+  
+  /** Set when our current output file was just created from a template. */
+  boolean m_bNewFile = false;
+  
+  /** Set when the user asks us to stop code generation. */
+  private volatile boolean bCancelled = false;
+  
+  /** The listener following our progress, or null. */
+  private CodeGenListener listener = null;
+  
+  /** The current stage and number of stages of code generation. */
+  private int m_nStage = 0;
+  private int m_nStages = 0;
+  
+  /** The pipe listener reporting progress and checking for cancel. */
+  private final PipeListener<CodeDocument> stageListener = pipe -> stageStarted(pipe.getName());
+  
   /** The background color. */
   Color background;
   
@@ -170,36 +231,37 @@ public class CodeGenerator {
   
   protected static String m_sFileSep = null;
   
-  /** The code generation pipe lines. */
-  private Pipeline<StringBuilder> workFlow_Linux;
-  private Pipeline<StringBuilder> workFlow_Compat;
-  private Pipeline<StringBuilder> workFlow_ArduinoHdr;
-  private Pipeline<StringBuilder> workFlow_ArduinoIno;
+  /** The code generation pipe lines, package visible for our benchmarks. */
+  Pipeline<CodeDocument> workFlow_Linux;
+  Pipeline<CodeDocument> workFlow_Compat;
+  Pipeline<CodeDocument> workFlow_ArduinoHdr;
+  Pipeline<CodeDocument> workFlow_ArduinoIno;
   
   /** The workflow pipes. */
-  private Pipe<StringBuilder> appPipe;
-  private Pipe<StringBuilder> buttonCbPipe;
-  private Pipe<StringBuilder> checkboxCbPipe;
-  private Pipe<StringBuilder> drawCbPipe;
-  private Pipe<StringBuilder> elementPipe;
-  private Pipe<StringBuilder> enumPipe;
-  private Pipe<StringBuilder> externRefPipe;
-  private Pipe<StringBuilder> extraElementPipe;
-  private Pipe<StringBuilder> filePipe;
-  private Pipe<StringBuilder> fontsPipe;
-  private Pipe<StringBuilder> fontLoadPipe;
-  private Pipe<StringBuilder> headerPipe;
-  private Pipe<StringBuilder> includesPipe;
-  private Pipe<StringBuilder> initGuiPipe;
-  private Pipe<StringBuilder> keypadCbPipe;
-  private Pipe<StringBuilder> listboxCbPipe;
-  private Pipe<StringBuilder> pathStoragePipe;
-  private Pipe<StringBuilder> resourcesPipe;
-  private Pipe<StringBuilder> saveRefPipe;
-  private Pipe<StringBuilder> sliderCbPipe;
-  private Pipe<StringBuilder> spinnerCbPipe;
-  private Pipe<StringBuilder> startupPipe;
-  private Pipe<StringBuilder> tickCbPipe;
+  private Pipe<CodeDocument> appPipe;
+  private Pipe<CodeDocument> buttonCbPipe;
+  private Pipe<CodeDocument> checkboxCbPipe;
+  private Pipe<CodeDocument> drawCbPipe;
+  private Pipe<CodeDocument> elementPipe;
+  private Pipe<CodeDocument> enumPipe;
+  private Pipe<CodeDocument> externRefPipe;
+  private Pipe<CodeDocument> extraElementPipe;
+  private Pipe<CodeDocument> filePipe;
+  private Pipe<CodeDocument> fontsPipe;
+  private Pipe<CodeDocument> fontLoadPipe;
+  private Pipe<CodeDocument> headerPipe;
+  private Pipe<CodeDocument> includesPipe;
+  private Pipe<CodeDocument> initGuiPipe;
+  private Pipe<CodeDocument> initPagesPipe;
+  private Pipe<CodeDocument> keypadCbPipe;
+  private Pipe<CodeDocument> listboxCbPipe;
+  private Pipe<CodeDocument> pathStoragePipe;
+  private Pipe<CodeDocument> resourcesPipe;
+  private Pipe<CodeDocument> saveRefPipe;
+  private Pipe<CodeDocument> sliderCbPipe;
+  private Pipe<CodeDocument> spinnerCbPipe;
+  private Pipe<CodeDocument> startupPipe;
+  private Pipe<CodeDocument> tickCbPipe;
   
   /**
    * Gets the single instance of CodeGenerator.
@@ -211,33 +273,37 @@ public class CodeGenerator {
       instance = new CodeGenerator();
       CodeGenerator.m_sFileSep = System.getProperty("file.separator");
     }
-    // create our pipe line for processing code generation
-    instance.appPipe = new AppPipe(instance);
-    instance.buttonCbPipe = new ButtonCbPipe(instance);
-    instance.checkboxCbPipe = new CheckboxCbPipe(instance);
-    instance.drawCbPipe = new DrawCbPipe(instance);
-    instance.elementPipe = new ElementPipe(instance);
-    instance.enumPipe = new EnumPipe(instance);
-    instance.externRefPipe = new ExternRefPipe(instance);
-    instance.extraElementPipe = new ExtraElementPipe(instance);
-    instance.filePipe = new FilePipe(instance);
+    /* create our pipe line for processing code generation, each section
+     * is only regenerated when something it depends upon has changed.
+     * FontsPipe also copies font headers into the project folder so it always runs.
+     */
+    instance.appPipe = new IncrementalPipe(new AppPipe(instance));
+    instance.buttonCbPipe = new IncrementalPipe(new ButtonCbPipe(instance));
+    instance.checkboxCbPipe = new IncrementalPipe(new CheckboxCbPipe(instance));
+    instance.drawCbPipe = new IncrementalPipe(new DrawCbPipe(instance));
+    instance.elementPipe = new IncrementalPipe(new ElementPipe(instance));
+    instance.enumPipe = new IncrementalPipe(new EnumPipe(instance));
+    instance.externRefPipe = new IncrementalPipe(new ExternRefPipe(instance));
+    instance.extraElementPipe = new IncrementalPipe(new ExtraElementPipe(instance));
+    instance.filePipe = new IncrementalPipe(new FilePipe(instance));
     instance.fontsPipe = new FontsPipe(instance);
-    instance.fontLoadPipe = new FontLoadPipe(instance);
-    instance.headerPipe = new HeaderPipe(instance);
-    instance.includesPipe = new IncludesPipe(instance);
-    instance.initGuiPipe = new InitGuiPipe(instance);
-    instance.keypadCbPipe = new KeypadCbPipe(instance);
-    instance.listboxCbPipe = new ListboxCbPipe(instance);
-    instance.pathStoragePipe = new PathStoragePipe(instance);
-    instance.resourcesPipe = new ResourcesPipe(instance);
-    instance.saveRefPipe = new SaveRefPipe(instance);
-    instance.sliderCbPipe = new SliderCbPipe(instance);
-    instance.spinnerCbPipe = new SpinnerCbPipe(instance);
-    instance.startupPipe = new StartupPipe(instance);
-    instance.tickCbPipe = new TickCbPipe(instance);
+    instance.fontLoadPipe = new IncrementalPipe(new FontLoadPipe(instance));
+    instance.headerPipe = new IncrementalPipe(new HeaderPipe(instance));
+    instance.includesPipe = new IncrementalPipe(new IncludesPipe(instance));
+    instance.initGuiPipe = new IncrementalPipe(new InitGuiPipe(instance));
+    instance.initPagesPipe = new IncrementalPipe(new InitPagesPipe(instance));
+    instance.keypadCbPipe = new IncrementalPipe(new KeypadCbPipe(instance));
+    instance.listboxCbPipe = new IncrementalPipe(new ListboxCbPipe(instance));
+    instance.pathStoragePipe = new IncrementalPipe(new PathStoragePipe(instance));
+    instance.resourcesPipe = new IncrementalPipe(new ResourcesPipe(instance));
+    instance.saveRefPipe = new IncrementalPipe(new SaveRefPipe(instance));
+    instance.sliderCbPipe = new IncrementalPipe(new SliderCbPipe(instance));
+    instance.spinnerCbPipe = new IncrementalPipe(new SpinnerCbPipe(instance));
+    instance.startupPipe = new IncrementalPipe(new StartupPipe(instance));
+    instance.tickCbPipe = new IncrementalPipe(new TickCbPipe(instance));
 
     // create our workflow pipeline for single Linux C file output
-    instance.workFlow_Linux = new Pipeline<StringBuilder>(
+    instance.workFlow_Linux = new ConcurrentPipeline<CodeDocument>(
         instance.filePipe,
         instance.includesPipe,
         instance.pathStoragePipe,
@@ -261,7 +327,7 @@ public class CodeGenerator {
     );
 
     // create our workflow pipeline for single ino file output bCompat=true
-    instance.workFlow_Compat = new Pipeline<StringBuilder>(
+    instance.workFlow_Compat = new ConcurrentPipeline<CodeDocument>(
         instance.filePipe,
         instance.includesPipe,
         instance.fontsPipe,
@@ -284,7 +350,7 @@ public class CodeGenerator {
     );
 
     // create our workflow pipeline for header file output bCompat=false
-    instance.workFlow_ArduinoHdr = new Pipeline<StringBuilder>(
+    instance.workFlow_ArduinoHdr = new ConcurrentPipeline<CodeDocument>(
         instance.filePipe,
         instance.includesPipe,
         instance.fontsPipe,
@@ -293,13 +359,14 @@ public class CodeGenerator {
         instance.elementPipe,
         instance.extraElementPipe,
         instance.externRefPipe,
+        instance.initPagesPipe,
         instance.initGuiPipe,
         instance.fontLoadPipe,
         instance.startupPipe
     );
 
     // create our workflow pipeline for single file output bCompat=false
-    instance.workFlow_ArduinoIno = new Pipeline<StringBuilder>(
+    instance.workFlow_ArduinoIno = new ConcurrentPipeline<CodeDocument>(
         instance.appPipe,
         instance.headerPipe,
         instance.saveRefPipe,
@@ -323,63 +390,134 @@ public class CodeGenerator {
   }
   
   /**
-   * Generate code setup.
+   * generate does the actual code generation without any user interaction
+   * so it can be driven by either our UI or the command line.
    *
-   * @param folder
-   *          the folder
-   * @param fileName
-   *          the file name
+   * @param projectFile
+   *          the project file (*.prj)
+   * @param pages
+   *          the pages
+   * @param bCompat
+   *          <code>true</code> for backward compatibility with a single *.ino file
+   * @return the <code>string</code> object
+   * @throws CodeGenException
+   *           the code gen exception
+   */
+  public String generate(File projectFile, List<? extends CodePage> pages, boolean bCompat) 
+      throws CodeGenException {
+    return generate(projectFile, pages, Controller.getProjectModel(), bCompat, null);
+  }      
+
+  /**
+   * generate code using the user's current preferences.
+   *
+   * @param projectFile
+   *          the project file (*.prj)
+   * @param pages
+   *          the pages
+   * @param pm
+   *          the project model
+   * @param bCompat
+   *          <code>true</code> for backward compatibility with a single *.ino file
+   * @param listener
+   *          the listener following our progress, or <code>null</code>
+   * @return the <code>string</code> object
+   * @throws CodeGenException
+   *           the code gen exception, also thrown when cancelled
+   */
+  public String generate(File projectFile, List<? extends CodePage> pages, ProjectModel pm,
+      boolean bCompat, CodeGenListener listener) throws CodeGenException {
+    return generate(projectFile, pages, pm, 
+        (GeneralModel) GeneralEditor.getInstance().getModel(),
+        (KeyPadModel) NumKeyPadEditor.getInstance().getModel(),
+        (KeyPadTextModel) AlphaKeyPadEditor.getInstance().getModel(),
+        bCompat, listener);
+  }
+
+  /**
+   * generate code from a snapshot of our project, possibly on a background thread.
+   * Nothing here may touch the pages and models being edited by the user,
+   * including our user's preferences.
+   *
+   * @param projectFile
+   *          the project file (*.prj)
    * @param pages
    *          the pages
+   * @param pm
+   *          the project model
+   * @param gm
+   *          the general preferences
+   * @param numKeyPadModel
+   *          the numeric keypad preferences
+   * @param alphaKeyPadModel
+   *          the alphanumeric keypad preferences
+   * @param bCompat
+   *          <code>true</code> for backward compatibility with a single *.ino file
+   * @param listener
+   *          the listener following our progress, or <code>null</code>
    * @return the <code>string</code> object
+   * @throws CodeGenException
+   *           the code gen exception, also thrown when cancelled
    */
-  public String generateCode(File projectFile, List<PagePane> pages, boolean bCompat) {
-    this.pages = pages;
+  public String generate(File projectFile, List<? extends CodePage> pages, ProjectModel pm,
+      GeneralModel gm, KeyPadModel numKeyPadModel, KeyPadTextModel alphaKeyPadModel,
+      boolean bCompat, CodeGenListener listener) throws CodeGenException {
+    this.pages = new ArrayList<CodePage>(pages);
+    this.pm = pm;
+    this.gm = gm;
+    this.numKeyPadModel = numKeyPadModel;
+    this.alphaKeyPadModel = alphaKeyPadModel;
+    this.listener = listener;
+    bCancelled = false;
     
-    // First build up a full list of widget models for later phases
-    models = new ArrayList<WidgetModel>();
-    for (PagePane p : pages) {
-      List<Widget> widgets = p.getWidgets();
-      for (Widget w : widgets) {
-        models.add(w.getModel());
-      }
+    boolean bFlash = !pm.getTargetPlatform().equals(ProjectModel.PLATFORM_LINUX);
+    // draw elements that never change into layers, linux has no flash to keep them in
+    if (pm.isBakeStatic() && bFlash) {
+      this.pages = StaticLayer.bake(this.pages, pm, gm);
+    }
+    // move what we can into flash should we be asked to fit a RAM budget
+    if (pm.isFlashPlacement()) {
+      FlashPlacement.optimize(this.pages, pm);
     }
+    // convert images loaded at runtime, and any layers, into arrays in flash
+    imageExporter = null;
+    if ((pm.isExportImages() || pm.isBakeStatic()) && bFlash) {
+      imageExporter = ImageExporter.export(this.pages, gm, pm.isExportImages());
+    }
+    // First index our widget models once for all later phases
+    modelIndex = new ModelIndex(this.pages);
+    callbackIndex = null;
     // create our template manager
     tm = new TemplateManager();
     // grab user's defaults from the General model so we can determine our target platform.
-    String target =Controller.getTargetPlatform();  
-    try {
-      // set our FSM state
-      if(target.equals(ProjectModel.PLATFORM_LINUX)) {
-        // do not use header version with linux C files
-        m_nState = ST_LINUX;
-        tm.storeTemplatesFromFileName("linux.t");
+    String target = pm.getTargetPlatform();  
+    // collect our static text into flash, linux has no PROGMEM to put it in
+    stringPool = null;
+    if (pm.isStringPool() && !target.equals(ProjectModel.PLATFORM_LINUX)) {
+      stringPool = StringPool.build(modelIndex.getModels());
+    }
+    // set our FSM state
+    if(target.equals(ProjectModel.PLATFORM_LINUX)) {
+      // do not use header version with linux C files
+      m_nState = ST_LINUX;
+      tm.storeTemplatesFromFileName("linux.t");
+    } else {
+      if (bCompat) {
+        m_nState = ST_ARDUINO_COMPAT;
       } else {
-        if (bCompat) {
-          m_nState = ST_ARDUINO_COMPAT;
-        } else {
-          m_nState = ST_ARDUINO_HDR;
-        }
-        tm.storeTemplatesFromFileName("graphics.t");
+        m_nState = ST_ARDUINO_HDR;
       }
-      if (m_nState == 0) {
-        Builder.logger.debug("Code Generation Failed: Graphics Library not defined");
-        JOptionPane.showMessageDialog(null, "Code Generation Failed: Graphics Library not defined", 
-            "Error", JOptionPane.ERROR_MESSAGE);
-      }
-      // adjust for chosen IDE
-      pm = Controller.getProjectModel();
-      if (pm.getIDE().equals(ProjectModel.IDE_PIO)) {
-        m_nState += ST_PIO;
-      }
-      // do the work
-      return doCodeGen(projectFile);
-    } catch (CodeGenException e) {
-      Builder.logger.debug("Code Generation Failed: " + e.toString());
-      JOptionPane.showMessageDialog(null, "Code Generation Failed: " + e.toString(), 
-          "Error", JOptionPane.ERROR_MESSAGE);
-      return null;
+      tm.storeTemplatesFromFileName("graphics.t");
+    }
+    if (m_nState == 0) {
+      throw new CodeGenException("Graphics Library not defined");
     }
+    // adjust for chosen IDE
+    if (pm.getIDE().equals(ProjectModel.IDE_PIO)) {
+      m_nState += ST_PIO;
+    }
+    // do the work
+    return doCodeGen(projectFile);
   }      
 
   /**
@@ -392,25 +530,29 @@ public class CodeGenerator {
    */
   public String doCodeGen(File projectFile) throws CodeGenException 
   {
-    StringBuilder sBd = null;
-    StringBuilder code = null;
+    CodeDocument doc = null;
     Builder.logger.debug("doCodeGen for: "+projectFile.toString());
     String folder = projectFile.getParent();
     // remove the project extension from our input file
     m_sProjectName = projectFile.getName();
     int n = m_sProjectName.indexOf(".prj");
     m_sProjectName = m_sProjectName.substring(0,n);
+    fingerprints = SectionFingerprints.load(
+        new File(folder, m_sProjectName + SectionFingerprints.FINGERPRINT_EXT));
+    fontManifest = FontManifest.load(
+        new File(folder, m_sProjectName + FontManifest.MANIFEST_EXT));
+    m_sGlobalFingerprint = createGlobalFingerprint();
+    telemetry = new PipeTelemetry<CodeDocument>(CodeDocument::length);
     
     File tmFile = null;
     File appFile = null;
     File hdrFile = null;
-    BufferedWriter bw = null;
 
     try {
       // if we are using PlatformIO IDE we may need to create some directory structure
       if (m_nState >= 10 && !Utils.isPlatformIO_INI_Present(folder)) {
         PlatformIO.makePIOFileStruct(folder);
-        PlatformIO.createIniFile(folder);
+        PlatformIO.createIniFile(folder, pm);
       }
       
       String appName = createAppName(m_sProjectName);
@@ -419,6 +561,10 @@ public class CodeGenerator {
       String hdrName = createHdrName(m_sProjectName);
       m_sHdrPath = createHdrPath(folder);
       String hdrFullPath = m_sHdrPath + hdrName;
+      // our image arrays go beside the app so the IDE compiles them
+      if (imageExporter != null) {
+        imageExporter.write(m_sAppPath, fontManifest);
+      }
       /* for user's information in case of any errors
        * we track our input file inside m_sTemplateFileName variable
        * which will either be the previous C Code app (*.ino), 
@@ -430,6 +576,8 @@ public class CodeGenerator {
        * NOTE: our *.prj file was already backed up by Controller.save()
        */
       appFile = new File(appFullPath);
+      m_bNewFile = false;
+      boolean bBackup = false;
       if (appFile.exists() && isValidateApp(folder, appFullPath)) {
         boolean bUpgraded = false;
         /*
@@ -439,13 +587,17 @@ public class CodeGenerator {
          */
         if (m_nState == ST_ARDUINO_HDR) {
           bUpgraded = modifyAppToUseHdr(folder, appFullPath, hdrFullPath);
+          m_bNewFile = bUpgraded;
         }
-        if (!bUpgraded) {
-          /*
-           * No upgrade needed so just backup our existing App File
-           */
-          Utils.backupFile(appFile);
-        }
+        /*
+         * No upgrade needed so backup our existing App File
+         * but only if we actually change it
+         */
+        bBackup = !bUpgraded;
+        /* now read our app starting code into a document
+         * so our pipes can process it for code generation
+         */
+        doc = CodeDocument.load(appFile);
       } else {
         /*
          * since our app doesn't currently exist create a new one
@@ -453,75 +605,157 @@ public class CodeGenerator {
          */
         m_sTemplateFileName = createTemplateName();
         tmFile = new File(m_sTemplateFileName);
-        Utils.copyFile(tmFile, appFile);
+        doc = CodeDocument.load(tmFile);
+        m_bNewFile = true;
       }
-      /* now dump our app starting code into a string buffer
-       * so our pipes can process it for code generation
-       */
-      sBd = CodeUtils.copyFileToBuffer(appFile);
       // run our chosen pipe line
+      m_nStage = 0;
       switch (m_nState) {
         case ST_PIO_LINUX:
         case ST_LINUX:
-          code = workFlow_Linux.process(sBd);
-          bw = new BufferedWriter(new OutputStreamWriter(
-              new FileOutputStream(appFile), "UTF-8"));
-          bw.write(code.toString());
+          m_nStages = workFlow_Linux.size();
+          telemetry.setWorkFlow("Linux");
+          doc = workFlow_Linux.process(doc, stageListener, telemetry);
+          stageStarted("Saving");
+          saveOutput(doc, appFile, bBackup);
           break;
         case ST_PIO_ARDUINO_COMPAT:
         case ST_ARDUINO_COMPAT:
           // run our pipe line
-          code = workFlow_Compat.process(sBd);
-          bw = new BufferedWriter(new OutputStreamWriter(
-              new FileOutputStream(appFile), "UTF-8"));
-          bw.write(code.toString());
+          m_nStages = workFlow_Compat.size();
+          telemetry.setWorkFlow("Compat");
+          doc = workFlow_Compat.process(doc, stageListener, telemetry);
+          stageStarted("Saving");
+          saveOutput(doc, appFile, bBackup);
           break;
         case ST_PIO_ARDUINO_HDR:
         case ST_ARDUINO_HDR:
           /* here we have two files to output
            * the app file *.ino,*.c, or *.cpp
            * and the header file *._GSLC.h
+           * neither is saved until both are generated so
+           * a cancel can't leave them out of step.
            */
-          code = workFlow_ArduinoIno.process(sBd); 
-          bw = new BufferedWriter(new OutputStreamWriter(
-              new FileOutputStream(appFile), "UTF-8"));
-          bw.write(code.toString());
-          bw.flush();
-          bw.close();
+          m_nStages = workFlow_ArduinoIno.size() + workFlow_ArduinoHdr.size();
+          telemetry.setWorkFlow("ArduinoIno");
+          CodeDocument appDoc = workFlow_ArduinoIno.process(doc, stageListener, telemetry);
           // finished with app now we deal with our header
           hdrFile = new File(hdrFullPath);
           String hdrTemplate = hdrFullPath;
-          if (!hdrFile.exists()) {
+          m_bNewFile = !hdrFile.exists();
+          if (m_bNewFile) {
             /* since it doesn't exist we create a fresh copy
              * from our template HDR_TEMPLATE
              */
             String name = Utils.getWorkingDir() +
                 TEMPLATE_FOLDER + m_sFileSep + HDR_TEMPLATE;
             tmFile = new File(name);
-            Utils.copyFile(tmFile, hdrFile);
             hdrTemplate = name;
+            doc = CodeDocument.load(tmFile);
           } else {
-            // Make a backup copy of project's header file
-            Utils.backupFile(hdrFile);
+            doc = CodeDocument.load(hdrFile);
           }
-          sBd = CodeUtils.copyFileToBuffer(hdrFile);
           // run our pipe line
           m_sTemplateFileName = hdrTemplate;  // for any error messages
           m_sOutputFileName = hdrName;
-          code = workFlow_ArduinoHdr.process(sBd);
-          bw = new BufferedWriter(new OutputStreamWriter(
-              new FileOutputStream(hdrFile), "UTF-8"));
-          bw.write(code.toString());
+          telemetry.setWorkFlow("ArduinoHdr");
+          doc = workFlow_ArduinoHdr.process(doc, stageListener, telemetry);
+          stageStarted("Saving");
+          saveOutput(appDoc, appFile, bBackup);
+          // Make a backup copy of project's header file if we change it
+          saveOutput(doc, hdrFile, !m_bNewFile);
           break;
       }
-      bw.flush();
-      bw.close();
+      fingerprints.save();
+      fontManifest.save();
+      telemetry.finish();
+      Builder.logger.debug(telemetry.report());
+      footprint = Footprint.estimate(pages, pm);
+      Builder.logger.debug(footprint.report());
+      if (footprint.isOverBudget()) {
+        Builder.logger.warning("Memory Footprint exceeds target: " + footprint.summary());
+      }
       return new String(m_sProjectName + m_sFileSep + appName);
     } catch (IOException e) {
       throw new CodeGenException(e.toString());
     } 
   }
   
+  /**
+   * stageStarted reports our progress and stops us
+   * once the user has cancelled code generation.
+   *
+   * @param name
+   *          the stage name
+   * @throws CodeGenException
+   *           the code gen exception when cancelled
+   */
+  private void stageStarted(String name) throws CodeGenException {
+    if (bCancelled) {
+      throw new CodeGenException("Code Generation Cancelled");
+    }
+    if (listener != null) {
+      listener.stageStarted(name, m_nStage, m_nStages);
+    }
+    m_nStage++;
+  }
+
+  /**
+   * cancel asks any code generation in progress to stop
+   * before it saves anything. It's safe to call from any thread.
+   */
+  public void cancel() {
+    bCancelled = true;
+  }
+
+  /**
+   * Checks if code generation was cancelled.
+   *
+   * @return <code>true</code>, if cancelled
+   */
+  public boolean isCancelled() {
+    return bCancelled;
+  }
+
+  /**
+   * saveOutput writes our generated code unless the file on disk
+   * already matches it byte for byte. Skipping unchanged files keeps
+   * their time stamps so IDEs don't rebuild needlessly, and avoids
+   * filling up our backup folder with identical copies.
+   *
+   * @param doc
+   *          the generated document
+   * @param file
+   *          the output file
+   * @param bBackup
+   *          <code>true</code>, if existing file should be backed up before changing it
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  private void saveOutput(CodeDocument doc, File file, boolean bBackup) throws IOException {
+    if (!writer.write(doc, file, bBackup)) {
+      Builder.logger.debug("Unchanged, skipped writing: " + file.getName());
+    }
+  }
+
+  /**
+   * createGlobalFingerprint covers the settings every section depends upon,
+   * our version, templates, project options and user preferences.
+   *
+   * @return the fingerprint
+   */
+  private String createGlobalFingerprint() {
+    Fingerprint fp = new Fingerprint();
+    fp.add(Builder.VERSION);
+    fp.add(m_nState);
+    fp.add(tm.getTemplateId());
+    fp.add(pm);
+    fp.add(gm);
+    fp.add(numKeyPadModel);
+    fp.add(alphaKeyPadModel);
+    return fp.digest();
+  }
+
   private String createAppName(String m_sProjectName) {
     String name=null;
     switch (m_nState) {
@@ -929,9 +1163,100 @@ public class CodeGenerator {
    *
    * @return the pages
    */
-  public List<PagePane> getPages() {
+  public List<CodePage> getPages() {
     return pages;
   }
+
+  /**
+   * Gets the project model we are generating code for.
+   *
+   * @return the project model
+   */
+  public ProjectModel getProjectModel() {
+    return pm;
+  }
+
+  /**
+   * Gets the general preferences we are generating code with.
+   *
+   * @return the general model
+   */
+  public GeneralModel getGeneralModel() {
+    return gm;
+  }
+
+  /**
+   * Gets the numeric keypad preferences we are generating code with.
+   *
+   * @return the keypad model
+   */
+  public KeyPadModel getNumKeyPadModel() {
+    return numKeyPadModel;
+  }
+
+  /**
+   * Gets the alphanumeric keypad preferences we are generating code with.
+   *
+   * @return the keypad model
+   */
+  public KeyPadTextModel getAlphaKeyPadModel() {
+    return alphaKeyPadModel;
+  }
+
+  /**
+   * Gets the fingerprints of each section generated last time.
+   *
+   * @return the fingerprints
+   */
+  public SectionFingerprints getFingerprints() {
+    return fingerprints;
+  }
+
+  /**
+   * Gets the manifest of font files copied into our project.
+   *
+   * @return the font manifest
+   */
+  public FontManifest getFontManifest() {
+    return fontManifest;
+  }
+
+  /**
+   * Gets the measurements of each pipe of our last run.
+   *
+   * @return the telemetry, or <code>null</code> if we haven't run
+   */
+  public PipeTelemetry<CodeDocument> getTelemetry() {
+    return telemetry;
+  }
+
+  /**
+   * Gets the estimated memory footprint of our last run.
+   *
+   * @return the footprint, or <code>null</code> if we haven't run
+   */
+  public Footprint getFootprint() {
+    return footprint;
+  }
+
+  /**
+   * Gets the fingerprint of our project wide settings.
+   *
+   * @return the fingerprint
+   */
+  public String getGlobalFingerprint() {
+    return m_sGlobalFingerprint;
+  }
+
+  /**
+   * isNewFile.
+   *
+   * @return <code>true</code>, if our current output file was just created 
+   *         from a template, or upgraded, so none of its sections can be skipped
+   */
+  public boolean isNewFile() {
+    return m_bNewFile;
+  }
   
   /**
    * Gets the models.
@@ -939,7 +1264,49 @@ public class CodeGenerator {
    * @return the models
    */
   public List<WidgetModel> getModels() {
-    return models;
+    return modelIndex.getModels();
+  }
+  
+  /**
+   * Gets the index of our models by type, page, font and callback.
+   *
+   * @return the model index
+   */
+  public ModelIndex getModelIndex() {
+    return modelIndex;
+  }
+  
+  /**
+   * Gets the images we embed in flash.
+   *
+   * @return the image exporter, or <code>null</code> if images aren't embedded
+   */
+  public ImageExporter getImageExporter() {
+    return imageExporter;
+  }
+  
+  /**
+   * Gets the pool of our static text.
+   *
+   * @return the string pool, or <code>null</code> if our text isn't pooled
+   */
+  public StringPool getStringPool() {
+    return stringPool;
+  }
+  
+  /**
+   * Gets the index of callback sections, scanning the document 
+   * the first time any of our callback pipes asks for it.
+   *
+   * @param doc
+   *          the document being generated
+   * @return the callback index
+   */
+  public synchronized CallbackIndex getCallbackIndex(CodeDocument doc) {
+    if (callbackIndex == null || callbackIndex.getDocument() != doc) {
+      callbackIndex = new CallbackIndex(doc);
+    }
+    return callbackIndex;
   }
   
   /**
@@ -0,0 +1,72 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+import java.util.List;
+
+import builder.widgets.Widget;
+
+/**
+ * The Interface CodePage is the view of a page our code generator needs.
+ * 
+ * It's implemented by PagePane inside the Builder's UI and by 
+ * BatchPage when we generate code from the command line 
+ * without creating any Swing components.
+ * 
+ * @author Paul Conti
+ *
+ */
+public interface CodePage {
+
+  /**
+   * Gets the page key.
+   *
+   * @return the key
+   */
+  String getKey();
+
+  /**
+   * Gets the page GUIslice enum.
+   *
+   * @return the enum
+   */
+  String getEnum();
+
+  /**
+   * Gets the page type.
+   *
+   * @return the page type
+   */
+  String getPageType();
+
+  /**
+   * Gets the widgets on this page.
+   *
+   * @return the widgets
+   */
+  List<Widget> getWidgets();
+
+}
@@ -26,27 +26,19 @@
 package builder.codegen;
 
 import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.lang.StringBuilder;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.ListIterator;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import builder.common.Pair;
-import builder.controller.Controller;
 import builder.fonts.FontTFT;
 import builder.fonts.FontTtf;
 import builder.models.ProjectModel;
 import builder.models.WidgetModel;
-import builder.views.PagePane;
-import builder.widgets.Widget;
 
 /**
  * The Class CodeUtils implements various utility routines 
@@ -58,7 +50,6 @@ import builder.widgets.Widget;
 public final class CodeUtils {
   
   /** The regex word patterns */
-  private static final Pattern WORD_PATTERN = Pattern.compile("[a-zA-Z][a-zA-Z0-9_]*");
   private final static Pattern LTRIM = Pattern.compile("^\\s+");
   private final static String EMPTY_STRING = "";
 
@@ -97,30 +88,9 @@ public final class CodeUtils {
     return sType + sCount;
   }
   
-  /**
-  * Count by type.
-  *
-  * @param widgets
-  *          the widgets
-  * @param widgetTypes
-  *          the widget types
-  * @return the <code>int</code> object
-  */
-  static public int countByType(List<Widget> widgets, List<String> widgetTypes) {
-    int count = 0;
-    for (Widget w : widgets) {
-      for (String type : widgetTypes) {
-        if (w.getType().equals(type)) {
-          count++;
-        }
-      }
-    }
-    return count;
-  }
-
   public static String createLiteral(FontTFT font, String qmark, String text) {
-    // grab user's defaults from the General model so we can determine our target platform.
-    String target =Controller.getTargetPlatform();  
+    // use the project we are generating, the user may be editing the live one
+    String target = CodeGenerator.getInstance().getProjectModel().getTargetPlatform();
 
     StringBuilder sBd = new StringBuilder();
     StringBuilder code = new StringBuilder();
@@ -179,26 +149,6 @@ public final class CodeUtils {
     return sBd.toString();
   }
 
-  /**
-  * finishUp copies what's left inside the BufferedReader 
-  * to our StringBuilder object.
-  *
-  * @return <code>StringBuilder</code> object 
-  */
-  static public StringBuilder finishUp(BufferedReader br, StringBuilder input) throws CodeGenException {
-    // read file and copy to output until end reached
-    String line  = "";
-    try {
-      while ((line = br.readLine()) != null) {
-        input.append(line);
-        input.append(System.lineSeparator());
-      } 
-      return input;   
-    } catch (IOException e) {
-      throw new CodeGenException(e.toString());
-    }
-  }
-  
   /**
   * get count from key 
   * strips "$" off of key.
@@ -212,51 +162,6 @@ public final class CodeUtils {
     return (key.substring(n+1));
   }
   
-  /**
-  * Gets the list of enums.
-  *
-  * @param widgetTypes
-  *          the widget types
-  * @return the list of enums
-  */
-  static public List<String> getListOfEnums(List<PagePane> pages, List<String> widgetTypes) {
-    // build up a list of widgets that match
-    List<String> eList = new ArrayList<String>();
-    List<WidgetModel> mList = new ArrayList<WidgetModel>();
-    for (PagePane p : pages) {
-      getModelsByType(p.getWidgets(), widgetTypes, mList);
-    }
-    // now pull out from the models our matching widget's enums
-    for (WidgetModel m : mList) {
-      eList.add(m.getEnum());
-    }
-    if (eList.size() > 1) {
-      Collections.sort(eList);
-    }
-    return eList;
-  }
-
-  /**
-  * Gets the widget models by type.
-  *
-  * @param widgets
-  *          the widgets
-  * @param widgetTypes
-  *          the widget types
-  * @param selected
-  *          the selected
-  * @return the models by type
-  */
-  static public void getModelsByType(List<Widget> widgets, List<String> widgetTypes, List<WidgetModel> selected) {
-    for (Widget w : widgets) {
-      for (String type : widgetTypes) {
-        if (w.getType().equals(type)) {
-          selected.add(w.getModel());
-        }
-      }
-    }
-  }
-
   /**
   * Has type will give back the index into the type list, if found
   *
@@ -275,34 +180,6 @@ public final class CodeUtils {
     return -1;
   }
 
-  /**
-  * findTag
-  * Continue reading the buffered reader but throw away all input 
-  * until finding the end string. Then write the end string output
-  * to our StringBuilder object.
-  *
-  * @param br
-  *          the BufferedReader
-  * @param sBd
-  *          the StringBuilder
-  * @param endString
-  *          the end string
-  * @throws IOException
-  *           Signals that an I/O exception has occurred.
-  */
-  static public void findTag(BufferedReader br, StringBuilder sBd, String endString) throws IOException {
-    String line = null;
-    String sTestTag = "";
-    while ((line = br.readLine()) != null) {
-      sTestTag = LTRIM.matcher(line).replaceAll(EMPTY_STRING);
-      if (sTestTag.equals(endString)) {
-        break;
-      }
-    }
-    sBd.append(line);
-    sBd.append(System.lineSeparator());
-  }
-
   /**
   * discardTag
   * Continue reading the buffered reader but throw away all input 
@@ -375,44 +252,5 @@ public final class CodeUtils {
     }
   }
 
-  /**
-   * copyFileToBuffer for our workflow
-   * @param file
-   * @return
-   * @throws IOException
-   */
-  static public StringBuilder copyFileToBuffer(File file) throws CodeGenException, IOException {
-    BufferedReader br = new BufferedReader(
-        new InputStreamReader(
-            new FileInputStream(file), "UTF8"));
-  
-    // open our source code template and copy its contents into a StringBuider for our workflow.
-    StringBuilder sBd = new StringBuilder();
-    String line  = "";
-    while ((line = br.readLine()) != null) {
-      sBd.append(line);
-      sBd.append(System.lineSeparator());
-    } 
-    br.close();
-    return sBd;
-  }
-
-  static public String[] splitWords(String s) {
-    ArrayList<String> wordList = new ArrayList<String>();
-    
-    Matcher m = WORD_PATTERN.matcher(s);
-    while (m.find()) {
-      String sWord = s.substring(m.start(), m.end());
-      wordList.add(sWord);
-    }
-    
-    String[] wordArray = new String[wordList.size()];
-    int i=0;
-    for (String w : wordList) {
-      wordArray[i++] = w;
-    }
-    return wordArray;
-  }
-
 
 }
@@ -0,0 +1,236 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import builder.models.MetaIds;
+
+/**
+ * The Class CompiledTemplate is a single code template that has
+ * been parsed once into segments of literal text, macros '$&lt;KEY&gt;',
+ * and padding directives '$&lt;nn&gt;'.
+ *
+ * It is immutable so it can be shared by every code generation run,
+ * and it still reads as a list of the original template lines
+ * for any code that simply wants to write the template out unchanged.
+ *
+ * @author Paul Conti
+ *
+ */
+public final class CompiledTemplate extends AbstractList<String> implements RandomAccess {
+
+  /** The Constants for segment types. */
+  public final static int LITERAL = 0;
+  public final static int MACRO   = 1;
+  public final static int PADDING = 2;
+
+  /** The template name. */
+  private final String name;
+
+  /** The original template lines. */
+  private final String[] lines;
+
+  /** The segments making up each line. */
+  private final Segment[][] segments;
+
+  /**
+   * Instantiates a new compiled template.
+   *
+   * @param name
+   *          the template name
+   * @param lines
+   *          the lines
+   * @param segments
+   *          the segments of each line
+   */
+  private CompiledTemplate(String name, String[] lines, Segment[][] segments) {
+    this.name = name;
+    this.lines = lines;
+    this.segments = segments;
+  }
+
+  /**
+   * compile parses template lines into segments.
+   *
+   * @param name
+   *          the template name
+   * @param templateLines
+   *          the template lines
+   * @return the <code>CompiledTemplate</code> object
+   * @throws CodeGenException
+   *           the code gen exception
+   */
+  static public CompiledTemplate compile(String name, List<String> templateLines)
+      throws CodeGenException {
+    String[] lines = templateLines.toArray(new String[templateLines.size()]);
+    Segment[][] segments = new Segment[lines.length][];
+    for (int i=0; i<lines.length; i++) {
+      segments[i] = compileLine(lines[i]);
+    }
+    return new CompiledTemplate(name, lines, segments);
+  }
+
+  /**
+   * compileLine breaks a line into segments following the same rules as
+   * our original regex search pattern '\$\&lt;(.+?)\&gt;'.
+   *
+   * @param line
+   *          the line
+   * @return the segments
+   * @throws CodeGenException
+   *           the code gen exception
+   */
+  static private Segment[] compileLine(String line) throws CodeGenException {
+    List<Segment> list = new ArrayList<Segment>();
+    int len = line.length();
+    int literalStart = 0;
+    int i = line.indexOf("$<");
+    while (i >= 0) {
+      // a key must be at least one character long
+      int end = line.indexOf('>', i + 3);
+      if (end < 0) {
+        i = line.indexOf("$<", i + 1);
+        continue;
+      }
+      if (i > literalStart) {
+        list.add(new Segment(LITERAL, line.substring(literalStart, i), 0, -1));
+      }
+      String sKey = line.substring(i + 2, end);
+      if (isNumeric(sKey)) {
+        try {
+          list.add(new Segment(PADDING, sKey, Integer.parseInt(sKey), -1));
+        } catch (NumberFormatException e) {
+          throw new CodeGenException(e.toString());
+        }
+      } else {
+        list.add(new Segment(MACRO, sKey, 0, MetaIds.slot(sKey)));
+      }
+      literalStart = end + 1;
+      i = line.indexOf("$<", literalStart);
+    }
+    if (literalStart < len || list.isEmpty()) {
+      list.add(new Segment(LITERAL, line.substring(literalStart), 0, -1));
+    }
+    return list.toArray(new Segment[list.size()]);
+  }
+
+  /**
+   * isNumeric
+   *
+   * @param s
+   *          the string
+   * @return <code>true</code>, if all characters are digits '0' to '9'
+   */
+  static private boolean isNumeric(String s) {
+    for (int i=0; i<s.length(); i++) {
+      char c = s.charAt(i);
+      if (c < '0' || c > '9') return false;
+    }
+    return true;
+  }
+
+  /**
+   * Gets the name.
+   *
+   * @return the name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Gets the segments of a line.
+   *
+   * @param idx
+   *          the line number
+   * @return the segments
+   */
+  Segment[] getSegments(int idx) {
+    return segments[idx];
+  }
+
+  /**
+   * get
+   *
+   * @see java.util.AbstractList#get(int)
+   */
+  @Override
+  public String get(int idx) {
+    return lines[idx];
+  }
+
+  /**
+   * size
+   *
+   * @see java.util.AbstractCollection#size()
+   */
+  @Override
+  public int size() {
+    return lines.length;
+  }
+
+  /**
+   * The Class Segment is one piece of a template line.
+   */
+  static final class Segment {
+
+    /** The segment type, LITERAL, MACRO or PADDING. */
+    final int type;
+
+    /** The literal text, or the macro key. */
+    final String text;
+
+    /** The padding width. */
+    final int width;
+
+    /** The slot of a macro's key, or -1. */
+    final int slot;
+
+    /**
+     * Instantiates a new segment.
+     *
+     * @param type
+     *          the type
+     * @param text
+     *          the text
+     * @param width
+     *          the width
+     * @param slot
+     *          the meta ID slot
+     */
+    Segment(int type, String text, int width, int slot) {
+      this.type = type;
+      this.text = text;
+      this.width = width;
+      this.slot = slot;
+    }
+  }
+
+}
@@ -0,0 +1,241 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import builder.common.Utils;
+
+/**
+ * The Class DocumentWriter streams a <code>CodeDocument</code> to disk
+ * line by line through a reusable encode buffer, so we never build
+ * a String or byte array copy of the whole output.
+ * 
+ * While encoding we compare against the existing file, if any.
+ * An identical file is left untouched. Otherwise the output goes to
+ * a temporary file, starting with the prefix that still matched,
+ * which is then renamed over the original.
+ * 
+ * A DocumentWriter is not thread safe, each code generation run
+ * should use its own.
+ * 
+ * @author Paul Conti
+ * 
+ */
+public class DocumentWriter {
+
+  /** The size of our encode and compare buffers. */
+  private final static int BUFFER_SIZE = 64 * 1024;
+
+  /** The encoded line separator. */
+  private final static byte[] LINE_SEPARATOR = 
+      System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+  /** The encoder, setup to replace bad characters just like String.getBytes(). */
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+  /** The encode buffer. */
+  private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+  /** The buffer holding existing file contents to compare against. */
+  private final ByteBuffer cmp = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+  /** The existing file, or <code>null</code>. */
+  private FileChannel old;
+
+  /** The temporary output file, or <code>null</code> while output still matches. */
+  private FileChannel out;
+
+  /** The temporary file path. */
+  private Path tmp;
+
+  /** The number of bytes that matched our existing file. */
+  private long nMatched;
+
+  /**
+   * write our document to a file, unless the file already holds
+   * exactly this document.
+   *
+   * @param doc
+   *          the document
+   * @param file
+   *          the output file
+   * @param bBackup
+   *          <code>true</code>, if existing file should be backed up before changing it
+   * @return <code>true</code>, if file was written
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  public boolean write(CodeDocument doc, File file, boolean bBackup) throws IOException {
+    Path target = file.getAbsoluteFile().toPath();
+    tmp = target.resolveSibling("." + file.getName() + ".tmp");
+    nMatched = 0;
+    buf.clear();
+    try {
+      try {
+        old = FileChannel.open(target, StandardOpenOption.READ);
+      } catch (NoSuchFileException e) {
+        old = null;
+      }
+      int nLines = doc.size();
+      for (int i=0; i<nLines; i++) {
+        encode(doc.getLine(i));
+        if (buf.remaining() < LINE_SEPARATOR.length) {
+          drain();
+        }
+        buf.put(LINE_SEPARATOR);
+      }
+      drain();
+      if (out == null) {
+        if (old != null && nMatched == old.size()) {
+          return false;
+        }
+        startOutput();
+      }
+      out.close();
+      out = null;
+      if (old != null) {
+        old.close();
+        old = null;
+        if (bBackup) {
+          Utils.backupFile(file);
+        }
+      }
+      try {
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, 
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+      return true;
+    } finally {
+      if (old != null) {
+        old.close();
+        old = null;
+      }
+      if (out != null) {
+        out.close();
+        out = null;
+      }
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /**
+   * encode a single line into our buffer, draining it as it fills.
+   *
+   * @param line
+   *          the line
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  private void encode(String line) throws IOException {
+    CharBuffer in = CharBuffer.wrap(line);
+    encoder.reset();
+    CoderResult result;
+    do {
+      result = encoder.encode(in, buf, true);
+      if (result.isOverflow()) drain();
+    } while (!result.isUnderflow());
+    do {
+      result = encoder.flush(buf);
+      if (result.isOverflow()) drain();
+    } while (!result.isUnderflow());
+  }
+
+  /**
+   * drain our encode buffer, either comparing it to our existing
+   * file or writing it out once the two differ.
+   *
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  private void drain() throws IOException {
+    buf.flip();
+    if (out == null) {
+      if (old != null && matches()) {
+        nMatched += buf.remaining();
+        buf.clear();
+        return;
+      }
+      startOutput();
+    }
+    while (buf.hasRemaining()) {
+      out.write(buf);
+    }
+    buf.clear();
+  }
+
+  /**
+   * matches reads the next part of our existing file.
+   *
+   * @return <code>true</code>, if it's the same as our encode buffer
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  private boolean matches() throws IOException {
+    cmp.clear();
+    cmp.limit(buf.remaining());
+    while (cmp.hasRemaining()) {
+      if (old.read(cmp) < 0) break;
+    }
+    cmp.flip();
+    return cmp.equals(buf);
+  }
+
+  /**
+   * startOutput opens our temporary file and copies over the part
+   * of our existing file that matched so far.
+   *
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  private void startOutput() throws IOException {
+    out = FileChannel.open(tmp, StandardOpenOption.CREATE, 
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    long nCopied = 0;
+    while (nCopied < nMatched) {
+      nCopied += old.transferTo(nCopied, nMatched - nCopied, out);
+    }
+  }
+
+}
@@ -0,0 +1,251 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+
+import builder.models.WidgetModel;
+
+/**
+ * The Class Fingerprint builds up a digest of everything 
+ * a section of generated code depends upon. 
+ * 
+ * Two fingerprints only match when every property value, page and 
+ * setting that was added to them matches, so an unchanged fingerprint 
+ * means the section would be generated exactly as it was last time.
+ * 
+ * @author Paul Conti
+ *
+ */
+public class Fingerprint {
+
+  /** The Constant for our digest algorithm. */
+  private final static String ALGORITHM = "SHA-256";
+
+  /** The message digest. */
+  private final MessageDigest md;
+
+  /**
+   * Instantiates a new fingerprint.
+   *
+   * @throws CodeGenException
+   *           the code gen exception
+   */
+  public Fingerprint() throws CodeGenException {
+    try {
+      md = MessageDigest.getInstance(ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new CodeGenException(e.toString());
+    }
+  }
+
+  /**
+   * add a string, null is distinct from empty.
+   *
+   * @param s
+   *          the string
+   * @return the <code>Fingerprint</code> object
+   */
+  public Fingerprint add(String s) {
+    if (s == null) {
+      add(-1);
+    } else {
+      byte[] b = s.getBytes(StandardCharsets.UTF_8);
+      add(b.length);
+      md.update(b);
+    }
+    return this;
+  }
+
+  /**
+   * add an integer.
+   *
+   * @param n
+   *          the integer
+   * @return the <code>Fingerprint</code> object
+   */
+  public Fingerprint add(int n) {
+    md.update((byte) (n >>> 24));
+    md.update((byte) (n >>> 16));
+    md.update((byte) (n >>> 8));
+    md.update((byte) n);
+    return this;
+  }
+
+  /**
+   * add a long.
+   *
+   * @param n
+   *          the long
+   * @return the <code>Fingerprint</code> object
+   */
+  public Fingerprint add(long n) {
+    add((int) (n >>> 32));
+    add((int) n);
+    return this;
+  }
+
+  /**
+   * add every property value of a model.
+   *
+   * @param m
+   *          the model
+   * @return the <code>Fingerprint</code> object
+   */
+  public Fingerprint add(WidgetModel m) {
+    Object[][] data = m.getData();
+    add(m.getType());
+    add(data.length);
+    for (int i=0; i<data.length; i++) {
+      add((String) data[i][WidgetModel.PROP_VAL_ID]);
+      addValue(data[i][WidgetModel.PROP_VAL_VALUE]);
+    }
+    return this;
+  }
+
+  /**
+   * add the models.
+   *
+   * @param models
+   *          the models, usually from our ModelIndex
+   * @return the <code>Fingerprint</code> object
+   */
+  public Fingerprint addModels(List<WidgetModel> models) {
+    for (WidgetModel m : models) {
+      add(m);
+    }
+    return this;
+  }
+
+  /**
+   * add the identity of every page.
+   *
+   * @param pages
+   *          the pages
+   * @return the <code>Fingerprint</code> object
+   */
+  public Fingerprint addPages(List<CodePage> pages) {
+    add(pages.size());
+    for (CodePage p : pages) {
+      add(p.getKey());
+      add(p.getEnum());
+      add(p.getPageType());
+    }
+    return this;
+  }
+
+  /**
+   * addValue adds a property value, arrays are added element by element.
+   *
+   * @param o
+   *          the value
+   */
+  private void addValue(Object o) {
+    if (o instanceof Object[]) {
+      Object[] array = (Object[]) o;
+      add(array.length);
+      for (Object e : array) {
+        addValue(e);
+      }
+    } else {
+      add(o == null ? null : o.toString());
+    }
+  }
+
+  /**
+   * digest finishes our fingerprint, after this it starts over.
+   *
+   * @return the fingerprint as a string
+   */
+  public String digest() {
+    return Base64.getEncoder().withoutPadding().encodeToString(md.digest());
+  }
+
+  /**
+   * of creates the fingerprint of a range of lines.
+   *
+   * @param doc
+   *          the document
+   * @param start
+   *          the first line
+   * @param end
+   *          the line following our last line
+   * @return the fingerprint as a string
+   */
+  static public String of(CodeDocument doc, int start, int end) {
+    Fingerprint fp = new Fingerprint();
+    fp.add(end - start);
+    for (int i=start; i<end; i++) {
+      fp.add(doc.getLine(i));
+    }
+    return fp.digest();
+  }
+
+  /**
+   * of creates the fingerprint of a file's contents.
+   *
+   * @param file
+   *          the file
+   * @return the fingerprint as a string
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  static public String of(Path file) throws IOException {
+    Fingerprint fp = new Fingerprint();
+    ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+    try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+      while (in.read(buf) >= 0) {
+        buf.flip();
+        fp.md.update(buf);
+        buf.clear();
+      }
+    }
+    return fp.digest();
+  }
+
+  /**
+   * of creates the fingerprint of some contents.
+   *
+   * @param content
+   *          the content
+   * @return the fingerprint as a string
+   */
+  static public String of(byte[] content) {
+    Fingerprint fp = new Fingerprint();
+    fp.md.update(content);
+    return fp.digest();
+  }
+
+}
@@ -0,0 +1,159 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import builder.Builder;
+import builder.common.EnumFactory;
+import builder.models.ProjectModel;
+import builder.models.WidgetModel;
+import builder.widgets.Widget;
+
+/**
+ * The Class FlashPlacement decides which elements to place in flash
+ * so our project fits within a RAM budget on its target MCU.
+ * <p>
+ * Only widgets offering the "Use Flash API?" property can move and we
+ * never move those our user's code updates at runtime, either through
+ * an ElementRef or external text storage. The rest are moved, those
+ * saving the most RAM first, until we fit. Our choice simply turns on
+ * "Use Flash API?" so the existing _P code blocks generate them.
+ * </p>
+ * NOTE: This changes the models it's given so must only ever be handed
+ * a snapshot of our project and never the pages being edited.
+ * 
+ * @author Paul Conti
+ *
+ */
+public class FlashPlacement {
+
+  /** The Constant for the meta id of our "Use Flash API?" property. */
+  private final static String USE_FLASH_ID = "COM-020";
+
+  /** The Constant for the meta id of our text storage size. */
+  private final static String TEXT_STORAGE_ID = "TXT-205";
+
+  /**
+   * optimize moves elements into flash until we fit within our RAM budget.
+   *
+   * @param pages
+   *          the pages, a snapshot of our project
+   * @param pm
+   *          the project model
+   * @return the models now placed in flash
+   */
+  public static List<WidgetModel> optimize(List<? extends CodePage> pages, ProjectModel pm) {
+    List<WidgetModel> moved = new ArrayList<WidgetModel>();
+    McuProfile mcu = McuProfile.of(pm);
+    int nBudget = (pm.getRamBudget() > 0) ? pm.getRamBudget() : mcu.getRam();
+    if (nBudget <= 0) return moved;  // nothing to fit within
+    int nExcess = Footprint.estimate(pages, pm).getRam() - nBudget;
+    if (nExcess <= 0) return moved;
+    
+    List<Candidate> candidates = new ArrayList<Candidate>();
+    for (CodePage p : pages) {
+      if (p.getPageType().equals(EnumFactory.PROJECT)) continue;
+      for (Widget w : p.getWidgets()) {
+        WidgetModel m = w.getModel();
+        int row = m.mapMetaIDtoProperty(USE_FLASH_ID);
+        if (row < 0 || m.useFlash() || isUpdatedAtRuntime(m)) continue;
+        int nSaved = Footprint.ramSaved(m, mcu);
+        if (nSaved > 0) {
+          candidates.add(new Candidate(m, row, nSaved));
+        }
+      }
+    }
+    // the biggest savings first so we move as few elements as we can,
+    // sorting is stable so ties keep our page order. A move only saves
+    // the gslc_tsElem and on AVR's its text, extended data stays in RAM
+    candidates.sort(Comparator.comparingInt((Candidate c) -> c.nSaved).reversed());
+    for (Candidate c : candidates) {
+      if (nExcess <= 0) break;
+      c.m.getData()[c.row][WidgetModel.PROP_VAL_VALUE] = Boolean.TRUE;
+      moved.add(c.m);
+      nExcess -= c.nSaved;
+    }
+    Builder.logger.debug("Flash Placement: moved " + moved.size() + " of " 
+        + candidates.size() + " eligible elements into flash for a budget of " + nBudget + " bytes");
+    if (nExcess > 0) {
+      Builder.logger.warning("Flash Placement: still " + nExcess 
+        + " bytes over the RAM budget of " + nBudget + " bytes");
+    }
+    return moved;
+  }
+
+  /**
+   * isUpdatedAtRuntime.
+   *
+   * @param m
+   *          the model
+   * @return <code>true</code>, if our user's code can change this element 
+   *         so it must stay in RAM
+   */
+  private static boolean isUpdatedAtRuntime(WidgetModel m) {
+    String ref = m.getElementRef();
+    if (ref != null && !ref.isEmpty()) return true;
+    int row = m.mapMetaIDtoProperty(TEXT_STORAGE_ID);
+    if (row < 0) return false;
+    Object storage = m.getData()[row][WidgetModel.PROP_VAL_VALUE];
+    return (storage instanceof Integer) && ((Integer) storage).intValue() > 0;
+  }
+
+  /**
+   * The Class Candidate holds an element we could place in flash.
+   */
+  private static class Candidate {
+
+    /** The model. */
+    final WidgetModel m;
+
+    /** The row of our "Use Flash API?" property. */
+    final int row;
+
+    /** The RAM saved by placing it in flash. */
+    final int nSaved;
+
+    /**
+     * Instantiates a new candidate.
+     *
+     * @param m
+     *          the model
+     * @param row
+     *          the row of our "Use Flash API?" property
+     * @param nSaved
+     *          the RAM saved
+     */
+    Candidate(WidgetModel m, int row, int nSaved) {
+      this.m = m;
+      this.row = row;
+      this.nSaved = nSaved;
+    }
+  }
+
+}
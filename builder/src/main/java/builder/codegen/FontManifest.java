@@ -0,0 +1,276 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import builder.Builder;
+
+/**
+ * The Class FontManifest remembers every font source file we copied
+ * into the user's project along with the fingerprint of its contents.
+ * <p>
+ * On our next code generation a font file is only copied again when it's 
+ * missing, or either it or its source no longer match what we recorded.
+ * Font files no longer used by the project are removed. 
+ * Unchanged fonts cost us no more than looking at their sizes and dates.
+ * </p>
+ * The manifest is kept next to the project file, deleting it
+ * simply means each font is checked by content once more.
+ * Files are recorded relative to the project's folder so a project 
+ * can be copied or moved along with its manifest, and we never
+ * delete anything outside of that folder.
+ * 
+ * @author Paul Conti
+ *
+ */
+public class FontManifest {
+
+  /** The Constant for our file extension. */
+  public final static String MANIFEST_EXT = ".fontmanifest";
+
+  /** The manifest file. */
+  private final File file;
+
+  /** The project's folder, every key is relative to it. */
+  private final File folder;
+
+  /** The copied files, key is the copy's path relative to our folder. */
+  private final Properties copies = new Properties();
+
+  /** The paths of copies still in use by this code generation. */
+  private final Set<String> inUse = new HashSet<String>();
+
+  /** Set when our manifest needs saving. */
+  private boolean bChanged = false;
+
+  /**
+   * Instantiates a new font manifest.
+   *
+   * @param file
+   *          the manifest file
+   */
+  private FontManifest(File file) {
+    this.file = file;
+    this.folder = file.getAbsoluteFile().getParentFile();
+  }
+
+  /**
+   * load our manifest, a missing or unreadable file
+   * simply means every font gets checked by content.
+   *
+   * @param file
+   *          the manifest file
+   * @return the <code>FontManifest</code> object
+   */
+  static public FontManifest load(File file) {
+    FontManifest fm = new FontManifest(file);
+    if (file.exists()) {
+      try (InputStream in = new FileInputStream(file)) {
+        fm.copies.load(in);
+      } catch (IOException | IllegalArgumentException e) {
+        Builder.logger.debug("Ignoring font manifest: " + file + " " + e.toString());
+        fm.copies.clear();
+      }
+    }
+    return fm;
+  }
+
+  /**
+   * sync makes sure our copy of a font file matches its source.
+   *
+   * @param src
+   *          the font source file
+   * @param dest
+   *          the copy inside the user's project
+   * @return <code>true</code>, if the file had to be copied
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  public boolean sync(File src, File dest) throws IOException {
+    if (!src.exists()) return false;
+    String key = keyOf(dest);
+    inUse.add(key);
+    String value = copies.getProperty(key);
+    // first see if nothing has been touched since last time
+    if (value != null && dest.exists()) {
+      String[] fields = value.split(" ", 5);
+      if (fields.length == 5 
+          && fields[1].equals(String.valueOf(src.length()))
+          && fields[2].equals(String.valueOf(src.lastModified()))
+          && fields[3].equals(String.valueOf(dest.length()))
+          && fields[4].equals(String.valueOf(dest.lastModified()))) {
+        return false;
+      }
+    }
+    // otherwise compare contents
+    String digest = Fingerprint.of(src.toPath());
+    boolean bCopy = true;
+    if (dest.exists() && dest.length() == src.length()) {
+      bCopy = !digest.equals(Fingerprint.of(dest.toPath()));
+    }
+    if (bCopy) {
+      Files.copy(src.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      Builder.logger.debug("Font file "+src.getName()+ " copied");
+    }
+    record(key, digest + " " + src.length() + " " + src.lastModified() 
+        + " " + dest.length() + " " + dest.lastModified());
+    return bCopy;
+  }
+
+  /**
+   * write makes sure a file we create, rather than copy, 
+   * like a font subset or an image array, holds this content.
+   *
+   * @param content
+   *          the file's content
+   * @param dest
+   *          the file inside the user's project
+   * @return <code>true</code>, if the file had to be written
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  public boolean write(byte[] content, File dest) throws IOException {
+    String key = keyOf(dest);
+    inUse.add(key);
+    String digest = Fingerprint.of(content);
+    boolean bWrite = true;
+    if (dest.exists() && dest.length() == content.length) {
+      bWrite = !digest.equals(Fingerprint.of(dest.toPath()));
+    }
+    if (bWrite) {
+      Files.write(dest.toPath(), content);
+      Builder.logger.debug("File "+dest.getName()+ " written");
+    }
+    record(key, digest + " " + content.length + " 0 " 
+        + dest.length() + " " + dest.lastModified());
+    return bWrite;
+  }
+
+  /**
+   * removeUnused deletes any font files we copied before 
+   * that weren't synced during this code generation.
+   */
+  public void removeUnused() {
+    List<String> unused = new ArrayList<String>();
+    for (String key : copies.stringPropertyNames()) {
+      if (!inUse.contains(key)) {
+        unused.add(key);
+      }
+    }
+    for (String key : unused) {
+      File f = resolve(key);
+      if (f == null) {
+        Builder.logger.debug("not deleting font file outside of project: "+key);
+      } else if (f.exists()) {
+        Builder.logger.debug("deleted font file: "+f.toString());
+        f.delete();
+      }
+      copies.remove(key);
+      bChanged = true;
+    }
+  }
+
+  /**
+   * keyOf gives the key we record a file under, its path 
+   * relative to our project's folder.
+   *
+   * @param dest
+   *          the file inside the user's project
+   * @return the key
+   * @throws IOException
+   *           Signals the file is outside our project's folder.
+   */
+  private String keyOf(File dest) throws IOException {
+    Path base = folder.getCanonicalFile().toPath();
+    Path path = dest.getCanonicalFile().toPath();
+    if (!path.startsWith(base)) {
+      throw new IOException(dest + " is outside of project folder " + folder);
+    }
+    return base.relativize(path).toString().replace(File.separatorChar, '/');
+  }
+
+  /**
+   * resolve finds the file recorded under a key.
+   *
+   * @param key
+   *          the key
+   * @return the file, or <code>null</code> if the key points outside
+   *         our project's folder, like the absolute paths of older manifests
+   */
+  private File resolve(String key) {
+    if (new File(key).isAbsolute()) return null;
+    try {
+      Path base = folder.getCanonicalFile().toPath();
+      File f = new File(folder, key).getCanonicalFile();
+      return f.toPath().startsWith(base) ? f : null;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * record the state of a copy.
+   *
+   * @param key
+   *          the copy's path
+   * @param value
+   *          the fingerprint, sizes and dates
+   */
+  private void record(String key, String value) {
+    if (!value.equals(copies.setProperty(key, value))) {
+      bChanged = true;
+    }
+  }
+
+  /**
+   * save our manifest if anything has changed.
+   *
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  public void save() throws IOException {
+    if (!bChanged) return;
+    try (OutputStream out = new FileOutputStream(file)) {
+      copies.store(out, "GUIslice Builder copied font files");
+    }
+    bChanged = false;
+  }
+
+}
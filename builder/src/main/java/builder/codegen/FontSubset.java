@@ -0,0 +1,348 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import builder.common.EnumFactory;
+import builder.fonts.FontFactory;
+import builder.fonts.FontTFT;
+import builder.models.ListBoxModel;
+import builder.models.SpinnerModel;
+import builder.models.TextModel;
+import builder.models.TxtButtonModel;
+import builder.models.WidgetModel;
+
+/**
+ * The Class FontSubset creates a reduced copy of an Adafruit-GFX font
+ * header holding only the glyphs our project's text actually uses.
+ * <p>
+ * GFX fonts index their glyphs by character code from <code>first</code>
+ * to <code>last</code>, so we keep the range from the lowest to the highest
+ * character used. Glyphs inside that range no one uses are left empty and 
+ * their bitmaps dropped, with every remaining bitmap offset remapped.
+ * The font keeps its C names so nothing else in the sketch changes, 
+ * only the header it's included from.
+ * </p>
+ * 
+ * @author Paul Conti
+ *
+ */
+public class FontSubset {
+
+  /** The Constant for the suffix given to the names of our subset headers. */
+  public final static String SUBSET_SUFFIX = "_subset";
+
+  /** The Constant for the bytes of each glyph entry, as fontconvert counts them. */
+  private final static int GLYPH_SIZE = 7;
+
+  /** The Constant for the bytes of our GFXfont struct, as fontconvert counts them. */
+  private final static int FONT_SIZE = 7;
+
+  /** The Constants for parsing a GFX font header. */
+  private final static Pattern COMMENTS = Pattern.compile("//[^\\n]*|/\\*.*?\\*/", Pattern.DOTALL);
+  private final static Pattern BITMAPS = Pattern.compile(
+      "uint8_t\\s+(\\w+)\\s*\\[\\s*\\]\\s*PROGMEM\\s*=\\s*\\{([^}]*)\\}");
+  private final static Pattern GLYPHS = Pattern.compile(
+      "GFXglyph\\s+(\\w+)\\s*\\[\\s*\\]\\s*PROGMEM\\s*=\\s*\\{((?:\\s*\\{[^}]*\\}\\s*,?)*)\\s*\\}");
+  private final static Pattern GLYPH = Pattern.compile(
+      "\\{\\s*(\\d+)\\s*,\\s*(\\d+)\\s*,\\s*(\\d+)\\s*,\\s*(-?\\d+)\\s*,\\s*(-?\\d+)\\s*,\\s*(-?\\d+)\\s*\\}");
+  private final static Pattern FONT = Pattern.compile(
+      "GFXfont\\s+(\\w+)\\s*PROGMEM\\s*=\\s*\\{[^,]*,[^,]*,\\s*(0x[0-9A-Fa-f]+|\\d+)\\s*,"
+      + "\\s*(0x[0-9A-Fa-f]+|\\d+)\\s*,\\s*(\\d+)\\s*\\}");
+  private final static Pattern HEX = Pattern.compile("0x[0-9A-Fa-f]{1,2}");
+
+  /** The characters every spinner may show besides its arrows. */
+  private final static String SPINNER_CHARS = "-0123456789";
+
+  /** The font's name. */
+  private String fontName;
+
+  /** The name of the bitmap array. */
+  private String bitmapName;
+
+  /** The name of the glyph array. */
+  private String glyphName;
+
+  /** The bitmaps. */
+  private byte[] bitmaps;
+
+  /** The glyphs, each as bitmapOffset, width, height, xAdvance, xOffset, yOffset. */
+  private List<int[]> glyphs = new ArrayList<int[]>();
+
+  /** The first character. */
+  private int first;
+
+  /** The last character. */
+  private int last;
+
+  /** The y advance. */
+  private int yAdvance;
+
+  /** The size of our last subset. */
+  private int subsetSize = 0;
+
+  /**
+   * Instantiates a new font subset.
+   */
+  private FontSubset() {
+  }
+
+  /**
+   * glyphsUsed gives back the characters the text of these models uses.
+   *
+   * @param models
+   *          the models using a font
+   * @return the characters, or <code>null</code> if any of our models can 
+   *         show text only known at runtime so needs the whole font
+   */
+  public static Set<Integer> glyphsUsed(List<WidgetModel> models) {
+    Set<Integer> used = new TreeSet<Integer>();
+    for (WidgetModel m : models) {
+      FontTFT font = FontFactory.getInstance().getFont(m.getFontDisplayName());
+      if (m.getType().equals(EnumFactory.TEXT) && isStatic(m)) {
+        addText(used, font, ((TextModel) m).getText());
+      } else if (m.getType().equals(EnumFactory.TEXTBUTTON) && isStatic(m)) {
+        addText(used, font, ((TxtButtonModel) m).getText());
+      } else if (m.getType().equals(EnumFactory.LISTBOX)) {
+        String[] items = ((ListBoxModel) m).getItems();
+        if (items == null) continue;
+        for (String s : items) {
+          addText(used, font, s);
+        }
+      } else if (m.getType().equals(EnumFactory.SPINNER)) {
+        SpinnerModel s = (SpinnerModel) m;
+        addText(used, font, SPINNER_CHARS + s.getIncrementChar() + s.getDecrementChar());
+      } else {
+        return null;
+      }
+    }
+    return used;
+  }
+
+  /**
+   * isStatic.
+   *
+   * @param m
+   *          the Text or TextButton model
+   * @return <code>true</code>, if the model's text can't change at runtime
+   */
+  private static boolean isStatic(WidgetModel m) {
+    if (!m.getElementRef().isEmpty()) return false;
+    if (m.getType().equals(EnumFactory.TEXT)) {
+      TextModel t = (TextModel) m;
+      return t.getTextStorage() == 0 && (t.isQuotesEnabled() || t.getText().length() >= 2);
+    }
+    TxtButtonModel b = (TxtButtonModel) m;
+    return b.getTextStorage() == 0 && b.isQuotesEnabled();
+  }
+
+  /**
+   * addText adds the characters of a string the way our code generation
+   * writes it into the sketch, including any escape sequences.
+   *
+   * @param used
+   *          the characters used
+   * @param font
+   *          the font
+   * @param text
+   *          the text
+   */
+  private static void addText(Set<Integer> used, FontTFT font, String text) {
+    if (text == null) return;
+    for (byte b : StringPool.toBytes(CodeUtils.createLiteral(font, "", text))) {
+      used.add(Integer.valueOf(b & 0xFF));
+    }
+  }
+
+  /**
+   * parse a GFX font header.
+   *
+   * @param file
+   *          the font header
+   * @return the font subset, or <code>null</code> if we don't recognize 
+   *         the header as a GFX font
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  public static FontSubset parse(File file) throws IOException {
+    String s = new String(Files.readAllBytes(file.toPath()), StandardCharsets.ISO_8859_1);
+    s = COMMENTS.matcher(s).replaceAll(" ");
+    Matcher mBitmaps = BITMAPS.matcher(s);
+    Matcher mGlyphs = GLYPHS.matcher(s);
+    Matcher mFont = FONT.matcher(s);
+    if (!mBitmaps.find() || !mGlyphs.find() || !mFont.find()) return null;
+    FontSubset f = new FontSubset();
+    f.bitmapName = mBitmaps.group(1);
+    f.glyphName = mGlyphs.group(1);
+    f.fontName = mFont.group(1);
+    f.first = Integer.decode(mFont.group(2)).intValue();
+    f.last = Integer.decode(mFont.group(3)).intValue();
+    f.yAdvance = Integer.parseInt(mFont.group(4));
+    List<Byte> bytes = new ArrayList<Byte>();
+    Matcher mHex = HEX.matcher(mBitmaps.group(2));
+    while (mHex.find()) {
+      bytes.add(Byte.valueOf((byte) Integer.parseInt(mHex.group().substring(2), 16)));
+    }
+    f.bitmaps = new byte[bytes.size()];
+    for (int i=0; i<f.bitmaps.length; i++) {
+      f.bitmaps[i] = bytes.get(i).byteValue();
+    }
+    Matcher mGlyph = GLYPH.matcher(mGlyphs.group(2));
+    while (mGlyph.find()) {
+      int[] g = new int[6];
+      for (int i=0; i<6; i++) {
+        g[i] = Integer.parseInt(mGlyph.group(i+1));
+      }
+      f.glyphs.add(g);
+    }
+    if (f.glyphs.size() != f.last - f.first + 1) return null;
+    return f;
+  }
+
+  /**
+   * subset creates our reduced font header.
+   *
+   * @param used
+   *          the characters used
+   * @param sourceName
+   *          the file name of our original header
+   * @return the contents of our new header, or <code>null</code> if
+   *         none of our glyphs are used
+   */
+  public byte[] subset(Set<Integer> used, String sourceName) {
+    int nFirst = Integer.MAX_VALUE;
+    int nLast = Integer.MIN_VALUE;
+    for (Integer ch : used) {
+      if (ch.intValue() < first || ch.intValue() > last) continue;
+      nFirst = Math.min(nFirst, ch.intValue());
+      nLast = Math.max(nLast, ch.intValue());
+    }
+    if (nFirst > nLast) return null;
+    String sep = System.lineSeparator();
+    StringBuilder sBd = new StringBuilder();
+    StringBuilder sGlyphs = new StringBuilder();
+    StringBuilder sBitmaps = new StringBuilder();
+    int nOffset = 0;
+    int nKept = 0;
+    for (int ch = nFirst; ch <= nLast; ch++) {
+      int[] g = glyphs.get(ch - first);
+      boolean bUsed = used.contains(Integer.valueOf(ch));
+      int nBytes = bUsed ? (g[1] * g[2] + 7) / 8 : 0;
+      for (int i=0; i<nBytes; i++) {
+        if (nOffset % 12 == 0) sBitmaps.append(sep).append(" ");
+        sBitmaps.append(String.format(" 0x%02X,", bitmaps[g[0] + i] & 0xFF));
+        nOffset++;
+      }
+      if (bUsed) {
+        sGlyphs.append(String.format("  { %5d, %3d, %3d, %3d, %4d, %4d }", 
+            nOffset - nBytes, g[1], g[2], g[3], g[4], g[5]));
+        nKept++;
+      } else {
+        sGlyphs.append(String.format("  { %5d, %3d, %3d, %3d, %4d, %4d }", 0, 0, 0, g[3], 0, 0));
+      }
+      sGlyphs.append((ch == nLast) ? " };" : ",  ");
+      sGlyphs.append(String.format(" // 0x%02X", ch));
+      if (ch >= 0x20 && ch < 0x7F && ch != '\\') {
+        sGlyphs.append(String.format(" '%c'", (char) ch));
+      }
+      if (!bUsed) {
+        sGlyphs.append(" unused");
+      }
+      sGlyphs.append(sep);
+    }
+    if (nOffset == 0) {
+      // the font needs at least one byte of bitmap
+      sBitmaps.append(sep).append("  0x00,");
+      nOffset = 1;
+    }
+    sBd.append(String.format("// Subset of %s created by GUIslice Builder%s", sourceName, sep));
+    sBd.append(String.format("// - Holds the %d glyphs used from 0x%02X to 0x%02X of 0x%02X to 0x%02X%s", 
+        nKept, nFirst, nLast, first, last, sep));
+    sBd.append(String.format("// - Recreated by each code generation so please don't edit%s%s", sep, sep));
+    sBd.append(String.format("const uint8_t %s[] PROGMEM = {", bitmapName));
+    sBd.append(sBitmaps).append(" };").append(sep).append(sep);
+    sBd.append(String.format("const GFXglyph %s[] PROGMEM = {%s", glyphName, sep));
+    sBd.append(sGlyphs).append(sep);
+    sBd.append(String.format("const GFXfont %s PROGMEM = {%s", fontName, sep));
+    sBd.append(String.format("  (uint8_t  *)%s,%s", bitmapName, sep));
+    sBd.append(String.format("  (GFXglyph *)%s,%s", glyphName, sep));
+    sBd.append(String.format("  0x%02X, 0x%02X, %d };%s%s", nFirst, nLast, yAdvance, sep, sep));
+    subsetSize = nOffset + (nLast - nFirst + 1) * GLYPH_SIZE + FONT_SIZE;
+    sBd.append(String.format("// Approx. %d bytes%s", subsetSize, sep));
+    return sBd.toString().getBytes(StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * subsetName gives the file name of a subset header.
+   *
+   * @param fileName
+   *          the file name of the original header
+   * @return the subset's file name
+   */
+  public static String subsetName(String fileName) {
+    int n = fileName.lastIndexOf(".h");
+    if (n < 0) return fileName + SUBSET_SUFFIX;
+    return fileName.substring(0, n) + SUBSET_SUFFIX + fileName.substring(n);
+  }
+
+  /**
+   * Gets the font's name.
+   *
+   * @return the font name
+   */
+  public String getFontName() {
+    return fontName;
+  }
+
+  /**
+   * Gets the size of the last subset we created.
+   *
+   * @return the size, in bytes as fontconvert counts them
+   */
+  public int getSubsetSize() {
+    return subsetSize;
+  }
+
+  /**
+   * Gets the size of the original font.
+   *
+   * @return the size, in bytes as fontconvert counts them
+   */
+  public int getSize() {
+    return bitmaps.length + glyphs.size() * GLYPH_SIZE + FONT_SIZE;
+  }
+
+}
@@ -0,0 +1,666 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import builder.common.EnumFactory;
+import builder.fonts.FontFactory;
+import builder.fonts.FontItem;
+import builder.models.GraphModel;
+import builder.models.ImageModel;
+import builder.models.ImgButtonModel;
+import builder.models.ListBoxModel;
+import builder.models.ProjectModel;
+import builder.models.TextBoxModel;
+import builder.models.WidgetModel;
+import builder.widgets.Widget;
+
+/**
+ * The Class Footprint estimates the RAM and flash our generated code
+ * will need on the target MCU, page by page and widget by widget.
+ * <p>
+ * It covers the gslc_tsElem and gslc_tsElemRef entries of every element,
+ * text storage, the extended element structures of widgets like sliders,
+ * listboxes and keypads, font data and image arrays. Sizes of GUIslice's
+ * structures are approximations so treat the result as an early warning
+ * rather than what the linker will report.
+ * </p>
+ * 
+ * @author Paul Conti
+ *
+ */
+public class Footprint {
+
+  /** The Constants for our categories. */
+  public final static String CAT_ELEMENTS = "Elements";
+  public final static String CAT_TEXT     = "Text";
+  public final static String CAT_EXTENDED = "Extended";
+  public final static String CAT_FONTS    = "Fonts";
+  public final static String CAT_IMAGES   = "Images";
+  public final static String CAT_PAGES    = "Pages";
+
+  /** The Constants for the name of our pseudo page holding project wide items. */
+  public final static String PROJECT_PAGE = "Project";
+
+  /** The Constants for GUIslice structures, as bytes and pointers. */
+  private final static int[] ELEM     = { 45, 12 };  // gslc_tsElem
+  private final static int[] ELEMREF  = {  1,  1 };  // gslc_tsElemRef
+  private final static int[] PAGE     = { 20,  2 };  // gslc_tsPage
+  private final static int[] FONT     = {  6,  1 };  // gslc_tsFont
+  private final static int[] SLIDER   = { 18,  1 };  // gslc_tsXSlider
+  private final static int[] KEYPAD   = { 40,  6 };  // gslc_tsXKeyPad
+  private final static int[] TOGGLEIMG = { 4,  1 };  // gslc_tsXToggleImgbtn
+  
+  /** The Constant for elements embedded inside each spinner. */
+  private final static int SPINNER_ELEMS = 4;
+
+  /** The Constant for the extended structure of each widget type. */
+  private final static Map<String, int[]> EXTENDED = new HashMap<String, int[]>();
+  static {
+    EXTENDED.put(EnumFactory.CHECKBOX,     new int[] {  6, 2 });  // gslc_tsXCheckbox
+    EXTENDED.put(EnumFactory.RADIOBUTTON,  new int[] {  6, 2 });  // gslc_tsXCheckbox
+    EXTENDED.put(EnumFactory.PROGRESSBAR,  new int[] {  9, 0 });  // gslc_tsXProgress
+    EXTENDED.put(EnumFactory.RAMPGAUGE,    new int[] {  8, 0 });  // gslc_tsXRamp
+    EXTENDED.put(EnumFactory.RADIALGAUGE,  new int[] { 16, 0 });  // gslc_tsXRadial
+    EXTENDED.put(EnumFactory.RINGGAUGE,    new int[] { 24, 1 });  // gslc_tsXRingGauge
+    EXTENDED.put(EnumFactory.SEEKBAR,      new int[] { 22, 0 });  // gslc_tsXSeekbar
+    EXTENDED.put(EnumFactory.SLIDER,       SLIDER);
+    EXTENDED.put(EnumFactory.SPINNER,      new int[] { 12, 3 });  // gslc_tsXSpinner
+    EXTENDED.put(EnumFactory.TEXTBOX,      new int[] { 20, 1 });  // gslc_tsXTextbox
+    EXTENDED.put(EnumFactory.TOGGLEBUTTON, new int[] { 10, 1 });  // gslc_tsXTogglebtn
+    EXTENDED.put(EnumFactory.LISTBOX,      new int[] { 30, 3 });  // gslc_tsXListbox
+    EXTENDED.put(EnumFactory.GRAPH,        new int[] { 18, 1 });  // gslc_tsXGraph
+  }
+
+  /** The Constant for the size Adafruit's GFX fonts note at their end. */
+  private final static Pattern APPROX_BYTES = Pattern.compile("Approx\\.\\s*(\\d+)\\s*bytes");
+
+  /** The Constant for each byte of a font bitmap. */
+  private final static Pattern HEX_BYTE = Pattern.compile("0x[0-9A-Fa-f]{2}\\b");
+
+  /** The font data sizes already read, by file name. */
+  private final static Map<String, Integer> fontSizes = new ConcurrentHashMap<String, Integer>();
+
+  /** The mcu. */
+  private final McuProfile mcu;
+
+  /** The items, one for each widget, page, font and keypad. */
+  private final List<Item> items = new ArrayList<Item>();
+
+  /** The totals of each category, as RAM then flash. */
+  private final Map<String, int[]> categories = new LinkedHashMap<String, int[]>();
+
+  /** The pooled text already counted, or <code>null</code> if our text isn't pooled. */
+  private Set<String> pooled = null;
+
+  /** The names of image arrays in flash already counted. */
+  private final Set<String> images = new HashSet<String>();
+
+  /** The total RAM. */
+  private int nRam = 0;
+
+  /** The total flash. */
+  private int nFlash = 0;
+
+  /**
+   * Instantiates a new footprint.
+   *
+   * @param mcu
+   *          the mcu
+   */
+  private Footprint(McuProfile mcu) {
+    this.mcu = mcu;
+    for (String s : new String[] { CAT_PAGES, CAT_ELEMENTS, CAT_EXTENDED, CAT_TEXT, CAT_FONTS, CAT_IMAGES }) {
+      categories.put(s, new int[2]);
+    }
+  }
+
+  /**
+   * estimate the footprint of a project.
+   * Must be called from the thread that edits our pages 
+   * unless they are a snapshot.
+   *
+   * @param pages
+   *          the pages
+   * @param pm
+   *          the project model
+   * @return the footprint
+   */
+  public static Footprint estimate(List<? extends CodePage> pages, ProjectModel pm) {
+    Footprint fp = new Footprint(McuProfile.of(pm));
+    if (pm.isStringPool() && !pm.getTargetPlatform().equals(ProjectModel.PLATFORM_LINUX)) {
+      fp.pooled = new HashSet<String>();
+    }
+    Set<String> fonts = new LinkedHashSet<String>();
+    boolean bNumKeyPad = false;
+    boolean bAlphaKeyPad = false;
+    for (CodePage p : pages) {
+      if (p.getPageType().equals(EnumFactory.PROJECT)) continue;
+      Item page = fp.newItem(p.getEnum(), p.getEnum(), p.getPageType());
+      page.add(CAT_PAGES, fp.mcu.sizeOf(PAGE[0], PAGE[1]), 0);
+      for (Widget w : p.getWidgets()) {
+        WidgetModel m = w.getModel();
+        fp.addWidget(fp.newItem(p.getEnum(), m.getEnum(), m.getType()), m, m.useFlash());
+        String font = m.getFontDisplayName();
+        if (font != null) fonts.add(font);
+        bNumKeyPad |= m.getType().equals(EnumFactory.NUMINPUT);
+        bAlphaKeyPad |= m.getType().equals(EnumFactory.TEXTINPUT);
+      }
+    }
+    if (bNumKeyPad) {
+      fp.addKeyPad(EnumFactory.KEYPAD_PAGE_ENUM, EnumFactory.NUMKEYPAD);
+    }
+    if (bAlphaKeyPad) {
+      fp.addKeyPad(EnumFactory.ALPHAKEYPAD_PAGE_ENUM, EnumFactory.ALPHAKEYPAD);
+    }
+    for (String s : pm.getFontsList()) {
+      if (s != null && !s.isEmpty()) fonts.add(s);
+    }
+    FontFactory ff = FontFactory.getInstance();
+    for (String s : fonts) {
+      FontItem f = ff.getFontItem(s);
+      Item item = fp.newItem(PROJECT_PAGE, s, CAT_FONTS);
+      item.add(CAT_FONTS, fp.mcu.sizeOf(FONT[0], FONT[1]), (f == null) ? 0 : fontSize(f));
+    }
+    return fp;
+  }
+
+  /**
+   * newItem.
+   *
+   * @param page
+   *          the page enum
+   * @param name
+   *          the widget enum or other name
+   * @param type
+   *          the type
+   * @return the item
+   */
+  private Item newItem(String page, String name, String type) {
+    Item item = new Item(page, name, type);
+    items.add(item);
+    return item;
+  }
+
+  /**
+   * ramSaved estimates how much RAM a widget would save by
+   * being placed in flash using the _P API.
+   *
+   * @param m
+   *          the model
+   * @param mcu
+   *          the mcu
+   * @return the RAM saved
+   */
+  static int ramSaved(WidgetModel m, McuProfile mcu) {
+    Footprint fp = new Footprint(mcu);
+    Item inRam = fp.newItem("", m.getEnum(), m.getType());
+    fp.addWidget(inRam, m, false);
+    Item inFlash = fp.newItem("", m.getEnum(), m.getType());
+    fp.addWidget(inFlash, m, true);
+    return inRam.getRam() - inFlash.getRam();
+  }
+
+  /**
+   * addWidget estimates a single widget.
+   *
+   * @param item
+   *          the item
+   * @param m
+   *          the model
+   * @param bFlash
+   *          <code>true</code> if our element is placed in flash
+   */
+  private void addWidget(Item item, WidgetModel m, boolean bFlash) {
+    int elem = mcu.sizeOf(ELEM[0], ELEM[1]);
+    int elemRef = mcu.sizeOf(ELEMREF[0], ELEMREF[1]);
+    // our element lives in flash when using the _P API, its reference never does
+    if (bFlash) {
+      item.add(CAT_ELEMENTS, elemRef, elem);
+    } else {
+      item.add(CAT_ELEMENTS, elem + elemRef, 0);
+    }
+    String type = m.getType();
+    int[] ext = EXTENDED.get(type);
+    // the _P macros still declare our extended data static in RAM 
+    // since it holds the widget's state, only its element moves to flash
+    if (ext != null) {
+      item.add(CAT_EXTENDED, mcu.sizeOf(ext[0], ext[1]), 0);
+    }
+    if (type.equals(EnumFactory.SPINNER)) {
+      item.add(CAT_EXTENDED, SPINNER_ELEMS * (elem + elemRef), 0);
+    } else if (type.equals(EnumFactory.IMAGEBUTTON) && m.isToggle()) {
+      item.add(CAT_EXTENDED, mcu.sizeOf(TOGGLEIMG[0], TOGGLEIMG[1]), 0);
+    }
+    // widgets wrapped with a box and a scrollbar
+    if ((type.equals(EnumFactory.TEXTBOX) || type.equals(EnumFactory.LISTBOX)) && m.addScrollbar()) {
+      item.add(CAT_EXTENDED, 2 * (elem + elemRef) + mcu.sizeOf(SLIDER[0], SLIDER[1]), 0);
+    }
+    // buffers
+    if (type.equals(EnumFactory.LISTBOX)) {
+      item.add(CAT_TEXT, ((ListBoxModel) m).getStorageSz(), 0);
+    } else if (type.equals(EnumFactory.TEXTBOX)) {
+      TextBoxModel tb = (TextBoxModel) m;
+      item.add(CAT_TEXT, tb.getNumTextRows() * tb.getNumTextColumns(), 0);
+    } else if (type.equals(EnumFactory.GRAPH)) {
+      item.add(CAT_EXTENDED, 2 * ((GraphModel) m).getNumRows(), 0);
+    }
+    addText(item, m, bFlash);
+    addImages(item, m);
+  }
+
+  /**
+   * addText estimates the text of a widget.
+   * Text given external storage is always in RAM with its initial value
+   * in flash. Otherwise our text is a string literal that AVR's also 
+   * copy into RAM unless its element is placed in flash or its text pooled.
+   *
+   * @param item
+   *          the item
+   * @param m
+   *          the model
+   * @param bFlash
+   *          <code>true</code> if our element is placed in flash
+   */
+  private void addText(Item item, WidgetModel m, boolean bFlash) {
+    Object storage = valueOf(m, "TXT-205");
+    int nStorage = (storage instanceof Integer) ? ((Integer) storage).intValue() : 0;
+    if (nStorage > 0) {
+      item.add(CAT_TEXT, nStorage + 1, nStorage + 1);
+      return;
+    }
+    Object text = valueOf(m, "TXT-201");
+    if (text == null) text = valueOf(m, "TXT-202");
+    if (!(text instanceof String)) return;
+    int nText = ((String) text).getBytes(StandardCharsets.UTF_8).length + 1;
+    if (pooled != null && StringPool.isPooled(m)) {
+      // pooled text is only ever stored once and only in flash
+      item.add(CAT_TEXT, 0, pooled.add((String) text) ? nText : 0);
+      return;
+    }
+    boolean bRam = mcu.isHarvard() && !bFlash;
+    item.add(CAT_TEXT, bRam ? nText : 0, nText);
+  }
+
+  /**
+   * addImages estimates any image arrays of a widget.
+   *
+   * @param item
+   *          the item
+   * @param m
+   *          the model
+   */
+  private void addImages(Item item, WidgetModel m) {
+    if (m instanceof ImageModel) {
+      ImageModel im = (ImageModel) m;
+      addImage(item, im.getMemory(), im.getImageFormat(), im.getExternName(), 
+          m.getWidth(), m.getHeight());
+    } else if (m instanceof ImgButtonModel) {
+      ImgButtonModel im = (ImgButtonModel) m;
+      addImage(item, im.getMemory(), im.getImageFormat(), im.getExternName(), 
+          m.getWidth(), m.getHeight());
+      addImage(item, im.getSelMemory(), im.getImageFormat(), im.getSelExternName(), 
+          m.getWidth(), m.getHeight());
+    }
+  }
+
+  /**
+   * addImage estimates one image array, images loaded 
+   * from SD cards or files cost nothing.
+   * Arrays in flash are shared by every widget naming them
+   * so each is only counted once. They hold RGB565 pixels 
+   * whatever their format says, the same as HexToImgConv imports.
+   *
+   * @param item
+   *          the item
+   * @param memory
+   *          the memory type
+   * @param format
+   *          the image format
+   * @param extern
+   *          the name of the image's array
+   * @param w
+   *          the width
+   * @param h
+   *          the height
+   */
+  private void addImage(Item item, String memory, String format, String extern, int w, int h) {
+    if (memory == null || format == null) return;
+    boolean bProg = memory.equals(ImageModel.SRC_PROG);
+    int nBytes;
+    if (format.equals(ImageModel.FORMAT_BMP24)) {
+      nBytes = bProg ? 2 * w * h + 4 : 3 * w * h;
+    } else if (format.equals(ImageModel.FORMAT_BMP16)) {
+      nBytes = 2 * w * h;
+    } else if (format.equals(ImageModel.FORMAT_RAW)) {
+      // height, width and color come first
+      nBytes = (w + 7) / 8 * h + 7;
+    } else {
+      return; // compressed formats, like JPG, are unknown until encoded
+    }
+    if (bProg) {
+      if (extern != null && !extern.isEmpty() && !images.add(extern)) return;
+      item.add(CAT_IMAGES, 0, nBytes);
+    } else if (memory.equals(ImageModel.SRC_RAM)) {
+      item.add(CAT_IMAGES, nBytes, nBytes);
+    }
+  }
+
+  /**
+   * addKeyPad estimates one of our virtual keypads, 
+   * a hidden page holding a single keypad element.
+   *
+   * @param pageEnum
+   *          the page enum
+   * @param type
+   *          the keypad type
+   */
+  private void addKeyPad(String pageEnum, String type) {
+    Item item = newItem(pageEnum, pageEnum, type);
+    item.add(CAT_PAGES, mcu.sizeOf(PAGE[0], PAGE[1]), 0);
+    item.add(CAT_ELEMENTS, mcu.sizeOf(ELEM[0], ELEM[1]) + mcu.sizeOf(ELEMREF[0], ELEMREF[1]), 0);
+    item.add(CAT_EXTENDED, mcu.sizeOf(KEYPAD[0], KEYPAD[1]), 0);
+  }
+
+  /**
+   * fontSize gives back the flash needed by a font's data.
+   * Only fonts with a header file of their own, like Adafruit's GFX fonts,
+   * are counted. Fonts built into a graphics library are not.
+   *
+   * @param f
+   *          the font item
+   * @return the size
+   */
+  private static int fontSize(FontItem f) {
+    String fileName = f.getFileName();
+    if (fileName == null || !fileName.endsWith(".h")) return 0;
+    return fontSizes.computeIfAbsent(fileName, k -> Integer.valueOf(readFontSize(new File(k)))).intValue();
+  }
+
+  /**
+   * readFontSize reads the size noted at the end of a GFX font 
+   * or failing that counts its bytes.
+   *
+   * @param file
+   *          the font header file
+   * @return the size, or zero if unknown
+   */
+  private static int readFontSize(File file) {
+    if (!file.exists()) return 0;
+    try {
+      String s = new String(Files.readAllBytes(file.toPath()), StandardCharsets.ISO_8859_1);
+      Matcher approx = APPROX_BYTES.matcher(s);
+      if (approx.find()) {
+        return Integer.parseInt(approx.group(1));
+      }
+      int n = 0;
+      Matcher hex = HEX_BYTE.matcher(s);
+      while (hex.find()) n++;
+      return n;
+    } catch (IOException | NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * valueOf a property by meta ID.
+   *
+   * @param m
+   *          the model
+   * @param metaId
+   *          the meta id
+   * @return the value, or <code>null</code> if our model doesn't have it
+   */
+  private static Object valueOf(WidgetModel m, String metaId) {
+    int row = m.mapMetaIDtoProperty(metaId);
+    return (row < 0) ? null : m.getData()[row][WidgetModel.PROP_VAL_VALUE];
+  }
+
+  /**
+   * Gets the mcu.
+   *
+   * @return the mcu
+   */
+  public McuProfile getMcu() {
+    return mcu;
+  }
+
+  /**
+   * Gets the items.
+   *
+   * @return the items
+   */
+  public List<Item> getItems() {
+    return Collections.unmodifiableList(items);
+  }
+
+  /**
+   * Gets the totals of each category.
+   *
+   * @return the totals, as RAM then flash, by category name
+   */
+  public Map<String, int[]> getCategories() {
+    return Collections.unmodifiableMap(categories);
+  }
+
+  /**
+   * Gets the total RAM.
+   *
+   * @return the RAM
+   */
+  public int getRam() {
+    return nRam;
+  }
+
+  /**
+   * Gets the total flash.
+   *
+   * @return the flash
+   */
+  public int getFlash() {
+    return nFlash;
+  }
+
+  /**
+   * isOverBudget.
+   *
+   * @return <code>true</code> if we need more RAM or flash than our MCU has
+   */
+  public boolean isOverBudget() {
+    return (mcu.getRam() > 0 && nRam > mcu.getRam()) 
+        || (mcu.getFlash() > 0 && nFlash > mcu.getFlash());
+  }
+
+  /**
+   * summary.
+   *
+   * @return a one line summary of our estimate
+   */
+  public String summary() {
+    return String.format("%s est. RAM %s, Flash %s", mcu.getName(), 
+        usage(nRam, mcu.getRam()), usage(nFlash, mcu.getFlash()));
+  }
+
+  /**
+   * report.
+   *
+   * @return a table of our estimate, one line for each item
+   */
+  public String report() {
+    StringBuilder sBd = new StringBuilder();
+    String sep = System.lineSeparator();
+    sBd.append("Memory Footprint: " + summary() + sep);
+    sBd.append(String.format("  %-24s %-32s %-14s %8s %8s%n", "Page", "Element", "Type", "RAM", "Flash"));
+    for (Item item : items) {
+      sBd.append(String.format("  %-24s %-32s %-14s %8d %8d%n", 
+          item.page, item.name, item.type, item.nRam, item.nFlash));
+    }
+    for (Map.Entry<String, int[]> e : categories.entrySet()) {
+      sBd.append(String.format("  %-72s %8d %8d%n", 
+          "Total " + e.getKey(), e.getValue()[0], e.getValue()[1]));
+    }
+    if (isOverBudget()) {
+      sBd.append("  WARNING: estimate exceeds the memory of " + mcu.getName() + sep);
+    }
+    return sBd.toString();
+  }
+
+  /**
+   * usage.
+   *
+   * @param nUsed
+   *          the bytes used
+   * @param nSize
+   *          the bytes available, or zero if unlimited
+   * @return the usage
+   */
+  private static String usage(int nUsed, int nSize) {
+    if (nSize <= 0) {
+      return String.format("%d bytes", nUsed);
+    }
+    return String.format("%d of %d bytes (%d%%)", nUsed, nSize, (int) (100L * nUsed / nSize));
+  }
+
+  /**
+   * The Class Item holds the estimate of one widget, page, font or keypad.
+   */
+  public class Item {
+
+    /** The page enum. */
+    private final String page;
+
+    /** The widget enum or other name. */
+    private final String name;
+
+    /** The type. */
+    private final String type;
+
+    /** The RAM. */
+    private int nRam = 0;
+
+    /** The flash. */
+    private int nFlash = 0;
+
+    /**
+     * Instantiates a new item.
+     *
+     * @param page
+     *          the page enum
+     * @param name
+     *          the name
+     * @param type
+     *          the type
+     */
+    Item(String page, String name, String type) {
+      this.page = page;
+      this.name = name;
+      this.type = type;
+    }
+
+    /**
+     * add some memory to our item and its category.
+     *
+     * @param category
+     *          the category
+     * @param ram
+     *          the RAM
+     * @param flash
+     *          the flash
+     */
+    void add(String category, int ram, int flash) {
+      nRam += ram;
+      nFlash += flash;
+      int[] total = categories.get(category);
+      total[0] += ram;
+      total[1] += flash;
+      Footprint.this.nRam += ram;
+      Footprint.this.nFlash += flash;
+    }
+
+    /**
+     * Gets the page enum.
+     *
+     * @return the page
+     */
+    public String getPage() {
+      return page;
+    }
+
+    /**
+     * Gets the name.
+     *
+     * @return the name
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Gets the type.
+     *
+     * @return the type
+     */
+    public String getType() {
+      return type;
+    }
+
+    /**
+     * Gets the RAM.
+     *
+     * @return the RAM
+     */
+    public int getRam() {
+      return nRam;
+    }
+
+    /**
+     * Gets the flash.
+     *
+     * @return the flash
+     */
+    public int getFlash() {
+      return nFlash;
+    }
+
+  }
+
+}
@@ -0,0 +1,502 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import builder.Builder;
+import builder.common.EnumFactory;
+import builder.models.GeneralModel;
+import builder.models.ImageModel;
+import builder.models.ImgButtonModel;
+import builder.models.WidgetModel;
+import builder.widgets.Widget;
+
+/**
+ * The Class ImageExporter converts the images our project would load
+ * from an SD card or file into C arrays stored in flash.
+ * <p>
+ * Each image is written in whichever format GUIslice can draw from 
+ * flash that is smallest while still showing the same pixels on a 16 bit panel,
+ * either 1 bit monochrome (GSLC_IMGREF_FMT_RAW1) when every pixel is 
+ * one color or transparent, or RGB565. Our RGB565 arrays use the same
+ * layout as the arrays HexToImgConv imports, which GUIslice draws 
+ * as GSLC_IMGREF_FMT_BMP24. Images used more than once, even under 
+ * different file names, share one array.
+ * </p>
+ * 
+ * @author Paul Conti
+ *
+ */
+public class ImageExporter {
+
+  /** The Constants for the meta ids of our image properties. */
+  private final static String IMG_DEFINE_ID     = "IMG-101";
+  private final static String IMG_FORMAT_ID     = "IMG-102";
+  private final static String IMG_EXTERN_ID     = "IMG-108";
+  private final static String IMG_MEMORY_ID     = "IMG-109";
+  private final static String IBTN_DEFINE_ID    = "IBTN-102";
+  private final static String IBTN_SEL_DEFINE_ID= "IBTN-103";
+  private final static String IBTN_FORMAT_ID    = "IBTN-104";
+  private final static String IBTN_EXTERN_ID    = "IBTN-108";
+  private final static String IBTN_SEL_EXTERN_ID= "IBTN-109";
+  private final static String IBTN_MEMORY_ID    = "IBTN-110";
+  private final static String IBTN_SEL_MEMORY_ID= "IBTN-113";
+
+  /** The Constant for the number of values on each line of our arrays. */
+  private final static int VALUES_PER_LINE = 12;
+
+  /** The arrays we created keyed by the fingerprint of their contents. */
+  private Map<String, Array> arrays = new LinkedHashMap<String, Array>();
+
+  /** The names given to our arrays. */
+  private Set<String> names = new HashSet<String>();
+
+  /** The number of images we converted. */
+  private int nImages = 0;
+
+  /** The bytes the same images would take as RGB565 arrays, one per image. */
+  private int nRgb565Size = 0;
+
+  /** The color GUIslice treats as transparent. */
+  private int nTransparentColor;
+
+  /**
+   * Instantiates a new image exporter.
+   *
+   * @param gm
+   *          the general preferences
+   */
+  private ImageExporter(GeneralModel gm) {
+    Color color = gm.getTransparencyColor();
+    nTransparentColor = toRgb565(color.getRGB());
+  }
+
+  /**
+   * export converts the images of every Image and ImgButton that would load 
+   * them at runtime into arrays in flash and points the models at them.
+   * Layers baked by our StaticLayer are always converted.
+   *
+   * @param pages
+   *          the pages, a snapshot of our project
+   * @param gm
+   *          the general preferences
+   * @param bLoaded
+   *          <code>true</code> to convert images loaded from an SD card or file,
+   *          otherwise only our layers
+   * @return the image exporter holding our arrays
+   */
+  public static ImageExporter export(List<? extends CodePage> pages, GeneralModel gm, boolean bLoaded) {
+    ImageExporter exporter = new ImageExporter(gm);
+    for (CodePage p : pages) {
+      for (Widget w : p.getWidgets()) {
+        WidgetModel m = w.getModel();
+        if (m.getType().equals(EnumFactory.IMAGE)) {
+          if (bLoaded || StaticLayer.isLayer(m)) {
+            exporter.exportImage((ImageModel) m);
+          }
+        } else if (bLoaded && m.getType().equals(EnumFactory.IMAGEBUTTON)) {
+          exporter.exportButton((ImgButtonModel) m);
+        }
+      }
+    }
+    if (exporter.nImages > 0) {
+      Builder.logger.debug(exporter.report());
+    }
+    return exporter;
+  }
+
+  /**
+   * exportImage.
+   *
+   * @param m
+   *          the model
+   */
+  private void exportImage(ImageModel m) {
+    if (!isLoaded(m.getMemory(), m.getDefine(), m.getImage())) return;
+    boolean bMono = isMonochrome(m.getImage(), m.isTransparent());
+    Array a = add(m.getImage(), bMono, m.isTransparent(), m.getDefine(), m.getImageName());
+    set(m, IMG_MEMORY_ID, ImageModel.SRC_PROG);
+    set(m, IMG_EXTERN_ID, a.name);
+    set(m, IMG_DEFINE_ID, "");
+    set(m, IMG_FORMAT_ID, a.format);
+  }
+
+  /**
+   * exportButton, both of our button's images share one format.
+   *
+   * @param m
+   *          the model
+   */
+  private void exportButton(ImgButtonModel m) {
+    if (!isLoaded(m.getMemory(), m.getDefine(), m.getImage())
+     || !isLoaded(m.getSelMemory(), m.getSelDefine(), m.getImageSelected())) return;
+    boolean bMono = isMonochrome(m.getImage(), m.isTransparent())
+                 && isMonochrome(m.getImageSelected(), m.isTransparent());
+    Array a = add(m.getImage(), bMono, m.isTransparent(), m.getDefine(), m.getImageName());
+    Array sel = add(m.getImageSelected(), bMono, m.isTransparent(), m.getSelDefine(), 
+        m.getSelectImageName());
+    set(m, IBTN_MEMORY_ID, ImgButtonModel.SRC_PROG);
+    set(m, IBTN_SEL_MEMORY_ID, ImgButtonModel.SRC_PROG);
+    set(m, IBTN_EXTERN_ID, a.name);
+    set(m, IBTN_SEL_EXTERN_ID, sel.name);
+    set(m, IBTN_DEFINE_ID, "");
+    set(m, IBTN_SEL_DEFINE_ID, "");
+    set(m, IBTN_FORMAT_ID, a.format);
+  }
+
+  /**
+   * isLoaded.
+   *
+   * @param memory
+   *          the image memory
+   * @param define
+   *          the image #define
+   * @param image
+   *          the image
+   * @return <code>true</code>, if this image is loaded at runtime 
+   *         from an SD card or file so we can convert it
+   */
+  private static boolean isLoaded(String memory, String define, BufferedImage image) {
+    return image != null && define != null && !define.isEmpty()
+        && (ImageModel.SRC_SD.equals(memory) || ImageModel.SRC_FILE.equals(memory));
+  }
+
+  /**
+   * set a property of our snapshot model.
+   *
+   * @param m
+   *          the model
+   * @param metaId
+   *          the meta id of the property
+   * @param value
+   *          the value
+   */
+  private static void set(WidgetModel m, String metaId, String value) {
+    m.getData()[m.mapMetaIDtoProperty(metaId)][WidgetModel.PROP_VAL_VALUE] = value;
+  }
+
+  /**
+   * isBackground.
+   *
+   * @param argb
+   *          the pixel
+   * @param bTransparent
+   *          <code>true</code> if the image uses our transparency color
+   * @return <code>true</code>, if GUIslice won't draw this pixel
+   */
+  private boolean isBackground(int argb, boolean bTransparent) {
+    return (argb >>> 24) < 0x80 || (bTransparent && toRgb565(argb) == nTransparentColor);
+  }
+
+  /**
+   * isMonochrome.
+   *
+   * @param image
+   *          the image
+   * @param bTransparent
+   *          <code>true</code> if the image uses our transparency color
+   * @return <code>true</code>, if every pixel drawn is the same color
+   *         on a 16 bit panel, so a 1 bit image shows the same thing
+   */
+  private boolean isMonochrome(BufferedImage image, boolean bTransparent) {
+    int nColor = -1;
+    for (int y=0; y<image.getHeight(); y++) {
+      for (int x=0; x<image.getWidth(); x++) {
+        int argb = image.getRGB(x, y);
+        if (isBackground(argb, bTransparent)) continue;
+        int c = toRgb565(argb);
+        if (nColor < 0) {
+          nColor = c;
+        } else if (c != nColor) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * add an image to our arrays unless we already hold the same one.
+   *
+   * @param image
+   *          the image
+   * @param bMono
+   *          <code>true</code> to store the image as 1 bit monochrome
+   * @param bTransparent
+   *          <code>true</code> if the image uses our transparency color
+   * @param define
+   *          the image's #define, which we name our array after
+   * @param source
+   *          the image's file name
+   * @return the array
+   */
+  private Array add(BufferedImage image, boolean bMono, boolean bTransparent, 
+      String define, String source) {
+    int w = image.getWidth();
+    int h = image.getHeight();
+    byte[] content = bMono ? toRaw1(image, bTransparent) : toRgb565(image);
+    nImages++;
+    nRgb565Size += 2 * (w * h + 2);
+    String key = Fingerprint.of(content);
+    Array a = arrays.get(key);
+    if (a != null) {
+      return a;
+    }
+    a = new Array();
+    a.name = uniqueName(define.toLowerCase());
+    a.format = bMono ? ImageModel.FORMAT_RAW : ImageModel.FORMAT_BMP24;
+    a.content = content;
+    a.width = w;
+    a.height = h;
+    a.source = new File(source).getName();
+    arrays.put(key, a);
+    return a;
+  }
+
+  /**
+   * uniqueName.
+   *
+   * @param name
+   *          the name we would like
+   * @return the name, with a suffix if another image already has it
+   */
+  private String uniqueName(String name) {
+    name = name.replaceAll("\\W", "_");
+    String unique = name;
+    for (int n=2; names.contains(unique); n++) {
+      unique = name + "_" + n;
+    }
+    names.add(unique);
+    return unique;
+  }
+
+  /**
+   * toRgb565.
+   *
+   * @param argb
+   *          the pixel
+   * @return the pixel as RGB565
+   */
+  private static int toRgb565(int argb) {
+    return ((argb >> 8) & 0xF800) | ((argb >> 5) & 0x07E0) | ((argb >> 3) & 0x001F);
+  }
+
+  /**
+   * toRgb565 converts an image into the 16 bit values of our array,
+   * its height and width then each pixel, as big endian bytes.
+   *
+   * @param image
+   *          the image
+   * @return the contents
+   */
+  private byte[] toRgb565(BufferedImage image) {
+    int w = image.getWidth();
+    int h = image.getHeight();
+    byte[] b = new byte[2 * (w * h + 2)];
+    int i = 0;
+    for (int v : new int[] { h, w }) {
+      b[i++] = (byte) (v >> 8);
+      b[i++] = (byte) v;
+    }
+    for (int y=0; y<h; y++) {
+      for (int x=0; x<w; x++) {
+        int c = toRgb565(image.getRGB(x, y));
+        b[i++] = (byte) (c >> 8);
+        b[i++] = (byte) c;
+      }
+    }
+    return b;
+  }
+
+  /**
+   * toRaw1 converts an image into the bytes of a GUIslice monochrome image,
+   * its height and width as big endian shorts, the red, green and blue of its 
+   * color, then each row of pixels padded to a whole byte.
+   *
+   * @param image
+   *          the image
+   * @param bTransparent
+   *          <code>true</code> if the image uses our transparency color
+   * @return the contents
+   */
+  private byte[] toRaw1(BufferedImage image, boolean bTransparent) {
+    int w = image.getWidth();
+    int h = image.getHeight();
+    int nRowBytes = (w + 7) / 8;
+    byte[] b = new byte[7 + nRowBytes * h];
+    b[0] = (byte) (h >> 8);
+    b[1] = (byte) h;
+    b[2] = (byte) (w >> 8);
+    b[3] = (byte) w;
+    boolean bColor = false;
+    for (int y=0; y<h; y++) {
+      for (int x=0; x<w; x++) {
+        int argb = image.getRGB(x, y);
+        if (isBackground(argb, bTransparent)) continue;
+        if (!bColor) {
+          b[4] = (byte) (argb >> 16);
+          b[5] = (byte) (argb >> 8);
+          b[6] = (byte) argb;
+          bColor = true;
+        }
+        b[7 + y * nRowBytes + x / 8] |= (byte) (0x80 >> (x & 7));
+      }
+    }
+    return b;
+  }
+
+  /**
+   * write our arrays into the user's project, one C file for each.
+   *
+   * @param folder
+   *          the folder holding the user's sketch
+   * @param manifest
+   *          the manifest recording the files we write
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  public void write(String folder, FontManifest manifest) throws IOException {
+    for (Array a : arrays.values()) {
+      manifest.write(a.toSource().getBytes(StandardCharsets.US_ASCII), new File(folder, a.name + ".c"));
+    }
+  }
+
+  /**
+   * Gets the size of our arrays.
+   *
+   * @return the size in bytes
+   */
+  public int getSize() {
+    int nSize = 0;
+    for (Array a : arrays.values()) {
+      nSize += a.content.length;
+    }
+    return nSize;
+  }
+
+  /**
+   * Gets the flash saved over storing every image as its own RGB565 array.
+   *
+   * @return the bytes saved
+   */
+  public int getSaved() {
+    return nRgb565Size - getSize();
+  }
+
+  /**
+   * report of our arrays.
+   *
+   * @return the report
+   */
+  public String report() {
+    StringBuilder sBd = new StringBuilder();
+    sBd.append(String.format("Image Export: %d images in %d arrays, %d bytes of flash, %d bytes saved%n",
+        nImages, arrays.size(), getSize(), getSaved()));
+    for (Array a : arrays.values()) {
+      sBd.append(String.format("  %-24s %-22s %4dx%-4d %7d bytes  %s%n", 
+          a.name, a.format, a.width, a.height, a.content.length, a.source));
+    }
+    return sBd.toString();
+  }
+
+  /**
+   * The Class Array holds one image array.
+   */
+  private static class Array {
+
+    /** The array's name. */
+    String name;
+
+    /** The GUIslice image format. */
+    String format;
+
+    /** The contents as bytes. */
+    byte[] content;
+
+    /** The width. */
+    int width;
+
+    /** The height. */
+    int height;
+
+    /** The file name of the image we converted. */
+    String source;
+
+    /**
+     * toSource.
+     *
+     * @return the C source of our array
+     */
+    String toSource() {
+      String sep = System.lineSeparator();
+      boolean bMono = format.equals(ImageModel.FORMAT_RAW);
+      StringBuilder sBd = new StringBuilder();
+      sBd.append(String.format("// Created by GUIslice Builder from %s%s", source, sep));
+      sBd.append(String.format("// - %dx%d pixels as %s, %d bytes%s", width, height, 
+          bMono ? "1 bit monochrome" : "RGB565", content.length, sep));
+      sBd.append(String.format("// - Recreated by each code generation so please don't edit%s%s", sep, sep));
+      sBd.append("#if defined(__AVR__)").append(sep);
+      sBd.append("  #include <avr/pgmspace.h>").append(sep);
+      sBd.append("#elif defined(ESP8266) || defined(ESP32)").append(sep);
+      sBd.append("  #include <pgmspace.h>").append(sep);
+      sBd.append("#endif").append(sep);
+      sBd.append("#ifndef PROGMEM").append(sep);
+      sBd.append("  #define PROGMEM").append(sep);
+      sBd.append("#endif").append(sep).append(sep);
+      if (bMono) {
+        sBd.append(String.format("const unsigned char %s[%d] PROGMEM = {", name, content.length));
+        sBd.append(sep).append("  // height, width and color").append(sep).append(" ");
+        for (int i=0; i<content.length; i++) {
+          if (i == 7 || (i > 7 && (i - 7) % VALUES_PER_LINE == 0)) sBd.append(sep).append(" ");
+          sBd.append(String.format(" 0x%02X,", content[i] & 0xFF));
+        }
+      } else {
+        // height and width are decimal for our HexToImgConv to import
+        int nPixels = content.length / 2 - 2;
+        sBd.append(String.format("const unsigned short %s[%d+2] PROGMEM = {", name, nPixels));
+        sBd.append(sep).append(String.format("  %d, %d,", height, width));
+        for (int i=0; i<nPixels; i++) {
+          if (i % VALUES_PER_LINE == 0) sBd.append(sep).append(" ");
+          int v = ((content[4 + 2*i] & 0xFF) << 8) | (content[5 + 2*i] & 0xFF);
+          sBd.append(String.format(" 0x%04X,", v));
+        }
+      }
+      sBd.append(sep).append("};").append(sep);
+      return sBd.toString();
+    }
+  }
+
+}
@@ -0,0 +1,208 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+import builder.models.ProjectModel;
+
+/**
+ * The Class McuProfile describes the memory of a target MCU
+ * so we can estimate what our generated code will cost.
+ * <p>
+ * Structure sizes are given as so many bytes plus so many pointers
+ * since GUIslice's structures mostly differ between targets 
+ * by the size of their pointers and alignment.
+ * </p>
+ * 
+ * @author Paul Conti
+ *
+ */
+public class McuProfile {
+
+  /** The name of our pseudo profile chosen by target platform. */
+  public final static String AUTO = "Auto";
+
+  /** The Constant PROFILES, our supported MCUs. */
+  private final static McuProfile[] PROFILES = {
+    new McuProfile("ATmega328P",   2,    2048,   32768, true),
+    new McuProfile("ATmega2560",   2,    8192,  262144, true),
+    new McuProfile("ESP8266",      4,   81920, 1048576, false),
+    new McuProfile("ESP32",        4,  327680, 4194304, false),
+    new McuProfile("SAMD21",       4,   32768,  262144, false),
+    new McuProfile("STM32F103",    4,   20480,   65536, false),
+    new McuProfile("Teensy 4",     4, 1048576, 2031616, false),
+    new McuProfile("Linux",        8,       0,       0, false),
+  };
+
+  /** The name. */
+  private final String name;
+
+  /** The size of a pointer. */
+  private final int nPtrSize;
+
+  /** The RAM size, or zero if unlimited. */
+  private final int nRam;
+
+  /** The flash size, or zero if unlimited. */
+  private final int nFlash;
+
+  /** <code>true</code> if initialized data is copied from flash into RAM. */
+  private final boolean bHarvard;
+
+  /**
+   * Instantiates a new mcu profile.
+   *
+   * @param name
+   *          the name
+   * @param nPtrSize
+   *          the size of a pointer
+   * @param nRam
+   *          the RAM size, or zero if unlimited
+   * @param nFlash
+   *          the flash size, or zero if unlimited
+   * @param bHarvard
+   *          <code>true</code> if string literals are copied into RAM
+   */
+  private McuProfile(String name, int nPtrSize, int nRam, int nFlash, boolean bHarvard) {
+    this.name = name;
+    this.nPtrSize = nPtrSize;
+    this.nRam = nRam;
+    this.nFlash = nFlash;
+    this.bHarvard = bHarvard;
+  }
+
+  /**
+   * Gets the names of our profiles, starting with AUTO.
+   *
+   * @return the names
+   */
+  public static String[] getNames() {
+    String[] names = new String[PROFILES.length + 1];
+    names[0] = AUTO;
+    for (int i=0; i<PROFILES.length; i++) {
+      names[i+1] = PROFILES[i].name;
+    }
+    return names;
+  }
+
+  /**
+   * Gets the profile chosen for a project.
+   *
+   * @param pm
+   *          the project model
+   * @return the profile
+   */
+  public static McuProfile of(ProjectModel pm) {
+    String mcu = pm.getMcu();
+    for (McuProfile p : PROFILES) {
+      if (p.name.equals(mcu)) return p;
+    }
+    // AUTO or unknown so guess from our graphics library
+    String target = pm.getTargetPlatform();
+    if (target.equals(ProjectModel.PLATFORM_LINUX)) {
+      return find("Linux");
+    } else if (target.equals(ProjectModel.PLATFORM_TFT_ESPI) 
+            || target.equals(ProjectModel.PLATFORM_M5STACK)) {
+      return find("ESP32");
+    }
+    return find("ATmega2560");
+  }
+
+  /**
+   * find a profile by name.
+   *
+   * @param name
+   *          the name
+   * @return the profile
+   */
+  private static McuProfile find(String name) {
+    for (McuProfile p : PROFILES) {
+      if (p.name.equals(name)) return p;
+    }
+    return PROFILES[0];
+  }
+
+  /**
+   * sizeOf a structure on this MCU.
+   *
+   * @param nBytes
+   *          the bytes of its fields that aren't pointers
+   * @param nPtrs
+   *          the number of pointers
+   * @return the size, padded to our alignment
+   */
+  public int sizeOf(int nBytes, int nPtrs) {
+    int size = nBytes + nPtrs * nPtrSize;
+    int align = (nPtrSize > 2) ? nPtrSize : 1;
+    return (size + align - 1) / align * align;
+  }
+
+  /**
+   * Gets the name.
+   *
+   * @return the name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Gets the size of a pointer.
+   *
+   * @return the pointer size
+   */
+  public int getPtrSize() {
+    return nPtrSize;
+  }
+
+  /**
+   * Gets the RAM size.
+   *
+   * @return the RAM size, or zero if unlimited
+   */
+  public int getRam() {
+    return nRam;
+  }
+
+  /**
+   * Gets the flash size.
+   *
+   * @return the flash size, or zero if unlimited
+   */
+  public int getFlash() {
+    return nFlash;
+  }
+
+  /**
+   * isHarvard.
+   *
+   * @return <code>true</code> if string literals not placed 
+   *         in PROGMEM are also copied into RAM
+   */
+  public boolean isHarvard() {
+    return bHarvard;
+  }
+
+}
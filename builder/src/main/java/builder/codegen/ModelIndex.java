@@ -0,0 +1,321 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import builder.common.EnumFactory;
+import builder.models.BoxModel;
+import builder.models.CheckBoxModel;
+import builder.models.ImageModel;
+import builder.models.RadioButtonModel;
+import builder.models.WidgetModel;
+import builder.widgets.Widget;
+
+/**
+ * The Class ModelIndex sorts every widget model of a code generation run
+ * into buckets by widget type, by page, by font and by callback section.
+ * It's built once per run so our pipes can look up the models they
+ * need instead of each one filtering the full list of models.
+ * 
+ * All lists keep the models in the same order as our pages and widgets.
+ * 
+ * @author Paul Conti
+ *
+ */
+public final class ModelIndex {
+
+  /** The empty list returned for missing buckets. */
+  private static final List<WidgetModel> NONE = Collections.emptyList();
+
+  /** The full list of widget models. */
+  private final List<WidgetModel> models;
+
+  /** The position of each model within models, by widget type. */
+  private final Map<String, int[]> positionsByType;
+
+  /** The models by widget type. */
+  private final Map<String, List<WidgetModel>> byType;
+
+  /** The models by page key. */
+  private final Map<String, List<WidgetModel>> byPage;
+
+  /** The models by font display name, in order of first use. */
+  private final Map<String, List<WidgetModel>> byFont;
+
+  /** The models needing a case statement, by callback tag. */
+  private final Map<String, List<WidgetModel>> byCallback;
+
+  /**
+   * Instantiates a new model index.
+   *
+   * @param pages
+   *          the pages
+   */
+  public ModelIndex(List<? extends CodePage> pages) {
+    List<WidgetModel> all = new ArrayList<WidgetModel>();
+    Map<String, List<WidgetModel>> types = new HashMap<String, List<WidgetModel>>();
+    Map<String, List<Integer>> positions = new HashMap<String, List<Integer>>();
+    byPage = new HashMap<String, List<WidgetModel>>();
+    byFont = new LinkedHashMap<String, List<WidgetModel>>();
+    byCallback = new HashMap<String, List<WidgetModel>>();
+    for (CodePage p : pages) {
+      List<WidgetModel> pageList = new ArrayList<WidgetModel>();
+      for (Widget w : p.getWidgets()) {
+        WidgetModel m = w.getModel();
+        String type = m.getType();
+        types.computeIfAbsent(type, k -> new ArrayList<WidgetModel>()).add(m);
+        positions.computeIfAbsent(type, k -> new ArrayList<Integer>()).add(all.size());
+        String font = m.getFontDisplayName();
+        if (font != null) {
+          byFont.computeIfAbsent(font, k -> new ArrayList<WidgetModel>()).add(m);
+        }
+        addCallbacks(type, m);
+        pageList.add(m);
+        all.add(m);
+      }
+      byPage.put(p.getKey(), Collections.unmodifiableList(pageList));
+    }
+    models = Collections.unmodifiableList(all);
+    byType = new HashMap<String, List<WidgetModel>>();
+    positionsByType = new HashMap<String, int[]>();
+    for (Map.Entry<String, List<WidgetModel>> e : types.entrySet()) {
+      byType.put(e.getKey(), Collections.unmodifiableList(e.getValue()));
+      List<Integer> list = positions.get(e.getKey());
+      int[] pos = new int[list.size()];
+      for (int i=0; i<pos.length; i++) {
+        pos[i] = list.get(i);
+      }
+      positionsByType.put(e.getKey(), pos);
+    }
+  }
+
+  /**
+   * addCallbacks
+   * files our model under each callback section that will 
+   * output a case statement for it.
+   *
+   * @param type
+   *          the widget type
+   * @param m
+   *          the model
+   */
+  private void addCallbacks(String type, WidgetModel m) {
+    switch (type) {
+      case EnumFactory.TEXTBUTTON:
+      case EnumFactory.IMAGEBUTTON:
+      case EnumFactory.TOGGLEBUTTON:
+        addCallback(Tags.BUTTONCB_TAG, m);
+        break;
+      case EnumFactory.NUMINPUT:
+      case EnumFactory.TEXTINPUT:
+        addCallback(Tags.BUTTONCB_TAG, m);
+        addCallback(Tags.KEYPADCB_TAG, m);
+        break;
+      case EnumFactory.IMAGE:
+        if (((ImageModel) m).isTouchEn()) {
+          addCallback(Tags.BUTTONCB_TAG, m);
+        }
+        break;
+      case EnumFactory.BOX:
+        if (((BoxModel) m).isTouchEn()) {
+          addCallback(Tags.BUTTONCB_TAG, m);
+        }
+        if (((BoxModel) m).hasDrawFunc()) {
+          addCallback(Tags.DRAWCB_TAG, m);
+        }
+        if (((BoxModel) m).hasTickFunc()) {
+          addCallback(Tags.TICKCB_TAG, m);
+        }
+        break;
+      case EnumFactory.CHECKBOX:
+        if (((CheckBoxModel) m).isCallbackEn()) {
+          addCallback(Tags.CHECKBOXCB_TAG, m);
+        }
+        break;
+      case EnumFactory.RADIOBUTTON:
+        if (((RadioButtonModel) m).isCallbackEn()) {
+          addCallback(Tags.CHECKBOXCB_TAG, m);
+        }
+        break;
+      case EnumFactory.SPINNER:
+        addCallback(Tags.SPINNERCB_TAG, m);
+        break;
+      case EnumFactory.LISTBOX:
+        addCallback(Tags.LISTBOXCB_TAG, m);
+        if (m.addScrollbar()) {
+          addCallback(Tags.SLIDERCB_TAG, m);
+        }
+        break;
+      case EnumFactory.SLIDER:
+      case EnumFactory.SEEKBAR:
+        addCallback(Tags.SLIDERCB_TAG, m);
+        break;
+      default:
+        if (m.addScrollbar()) {
+          addCallback(Tags.SLIDERCB_TAG, m);
+        }
+        break;
+    }
+  }
+
+  /**
+   * addCallback
+   *
+   * @param tag
+   *          the callback tag
+   * @param m
+   *          the model
+   */
+  private void addCallback(String tag, WidgetModel m) {
+    byCallback.computeIfAbsent(tag, k -> new ArrayList<WidgetModel>()).add(m);
+  }
+
+  /**
+   * Gets the full list of models.
+   *
+   * @return the models
+   */
+  public List<WidgetModel> getModels() {
+    return models;
+  }
+
+  /**
+   * Gets the models matching any of our widget types.
+   *
+   * @param types
+   *          the widget types
+   * @return the models in page order
+   */
+  public List<WidgetModel> getModels(String... types) {
+    if (types.length == 1) {
+      List<WidgetModel> list = byType.get(types[0]);
+      return list == null ? NONE : list;
+    }
+    // merge the positions of our buckets to keep page order
+    int nCount = 0;
+    for (String type : types) {
+      int[] pos = positionsByType.get(type);
+      if (pos != null) nCount += pos.length;
+    }
+    if (nCount == 0) return NONE;
+    int[] merged = new int[nCount];
+    int n = 0;
+    for (String type : types) {
+      int[] pos = positionsByType.get(type);
+      if (pos == null) continue;
+      System.arraycopy(pos, 0, merged, n, pos.length);
+      n += pos.length;
+    }
+    Arrays.sort(merged);
+    List<WidgetModel> list = new ArrayList<WidgetModel>(nCount);
+    for (int i : merged) {
+      list.add(models.get(i));
+    }
+    return list;
+  }
+
+  /**
+   * hasType
+   *
+   * @param type
+   *          the widget type
+   * @return <code>true</code>, if any widget of this type exists
+   */
+  public boolean hasType(String type) {
+    return byType.containsKey(type);
+  }
+
+  /**
+   * Gets the models of a page.
+   *
+   * @param pageKey
+   *          the page key
+   * @return the models
+   */
+  public List<WidgetModel> getPageModels(String pageKey) {
+    List<WidgetModel> list = byPage.get(pageKey);
+    return list == null ? NONE : list;
+  }
+
+  /**
+   * Gets the display names of the fonts our models use.
+   *
+   * @return the font names in order of first use
+   */
+  public List<String> getFonts() {
+    return new ArrayList<String>(byFont.keySet());
+  }
+
+  /**
+   * Gets the models using a font.
+   *
+   * @param fontName
+   *          the font display name
+   * @return the models
+   */
+  public List<WidgetModel> getFontModels(String fontName) {
+    List<WidgetModel> list = byFont.get(fontName);
+    return list == null ? NONE : Collections.unmodifiableList(list);
+  }
+
+  /**
+   * Gets the models that need a case statement in a callback.
+   *
+   * @param tag
+   *          the callback tag, like Tags.BUTTONCB_TAG
+   * @return the models in page order
+   */
+  public List<WidgetModel> getCallbacks(String tag) {
+    List<WidgetModel> list = byCallback.get(tag);
+    return list == null ? NONE : Collections.unmodifiableList(list);
+  }
+
+  /**
+   * Gets the sorted enums of models matching our widget types.
+   *
+   * @param types
+   *          the widget types
+   * @return the list of enums
+   */
+  public List<String> getEnums(String... types) {
+    List<String> eList = new ArrayList<String>();
+    for (WidgetModel m : getModels(types)) {
+      eList.add(m.getEnum());
+    }
+    if (eList.size() > 1) {
+      Collections.sort(eList);
+    }
+    return eList;
+  }
+
+}
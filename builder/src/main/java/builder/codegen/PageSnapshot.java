@@ -0,0 +1,124 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import builder.widgets.Widget;
+
+/**
+ * The Class PageSnapshot is a frozen copy of a page and its widgets
+ * so code generation can run in the background while the user
+ * carries on editing the original.
+ * 
+ * @author Paul Conti
+ *
+ */
+public final class PageSnapshot implements CodePage {
+
+  /** The key. */
+  private final String key;
+
+  /** The enum. */
+  private final String pageEnum;
+
+  /** The page type. */
+  private final String pageType;
+
+  /** The widgets. */
+  private final List<Widget> widgets;
+
+  /**
+   * Instantiates a new page snapshot.
+   *
+   * @param page
+   *          the page to copy
+   */
+  private PageSnapshot(CodePage page) {
+    key = page.getKey();
+    pageEnum = page.getEnum();
+    pageType = page.getPageType();
+    List<Widget> list = new ArrayList<Widget>();
+    for (Widget w : page.getWidgets()) {
+      list.add(w.snapshot());
+    }
+    widgets = Collections.unmodifiableList(list);
+  }
+
+  /**
+   * Instantiates a new page snapshot holding widgets already copied.
+   *
+   * @param page
+   *          the page
+   * @param widgets
+   *          the page's widgets
+   */
+  PageSnapshot(CodePage page, List<Widget> widgets) {
+    key = page.getKey();
+    pageEnum = page.getEnum();
+    pageType = page.getPageType();
+    this.widgets = Collections.unmodifiableList(new ArrayList<Widget>(widgets));
+  }
+
+  /**
+   * of copies a list of pages. 
+   * Must be called from the thread that edits them, our Event Dispatch Thread.
+   *
+   * @param pages
+   *          the pages
+   * @return the snapshot of our pages
+   */
+  static public List<CodePage> of(List<? extends CodePage> pages) {
+    List<CodePage> list = new ArrayList<CodePage>();
+    for (CodePage p : pages) {
+      list.add(new PageSnapshot(p));
+    }
+    return Collections.unmodifiableList(list);
+  }
+
+  @Override
+  public String getKey() {
+    return key;
+  }
+
+  @Override
+  public String getEnum() {
+    return pageEnum;
+  }
+
+  @Override
+  public String getPageType() {
+    return pageType;
+  }
+
+  @Override
+  public List<Widget> getWidgets() {
+    return widgets;
+  }
+
+}
@@ -65,6 +65,19 @@ public class PlatformIO {
   private final static String GUIslice_ENV         = "$<GUIslice_ENV>";
   
   public static void createIniFile(String folder) {
+    createIniFile(folder, Controller.getProjectModel());
+  }
+
+  /**
+   * createIniFile for the project model we were given,
+   * code generation passes the snapshot it is working on.
+   *
+   * @param folder
+   *          the folder
+   * @param pm
+   *          the project model
+   */
+  public static void createIniFile(String folder, ProjectModel pm) {
     String home = Utils.getWorkingDir();
     String m_sFileSep = System.getProperty("file.separator");
     
@@ -81,7 +94,6 @@ public class PlatformIO {
       return;
     }
     // has user set a platformio environment?
-    ProjectModel pm = Controller.getProjectModel();
     String myEnv = pm.getPioEnv();
     if (myEnv == null || myEnv.isEmpty())
       return; // nothing to see here
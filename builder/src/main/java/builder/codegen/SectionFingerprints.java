@@ -0,0 +1,185 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import builder.Builder;
+
+/**
+ * The Class SectionFingerprints remembers, for each section of code
+ * we generated, the fingerprint of everything the section depended upon 
+ * along with where it sits in the output file and the fingerprint of 
+ * the code itself.
+ * <p>
+ * On our next code generation a section whose inputs are unchanged
+ * and whose code hasn't been touched since can simply be left as is.
+ * The fingerprints are kept next to the project file, deleting them
+ * forces a full code generation.
+ * </p>
+ * 
+ * @author Paul Conti
+ *
+ */
+public class SectionFingerprints {
+
+  /** The Constant for our file extension. */
+  public final static String FINGERPRINT_EXT = ".fingerprints";
+
+  /** The fingerprints file. */
+  private final File file;
+
+  /** The sections, key is output file and pipe. */
+  private final Properties sections = new Properties();
+
+  /** Set when our sections need saving. */
+  private boolean bChanged = false;
+
+  /**
+   * Instantiates new section fingerprints.
+   *
+   * @param file
+   *          the fingerprints file
+   */
+  private SectionFingerprints(File file) {
+    this.file = file;
+  }
+
+  /**
+   * load our fingerprints, a missing or unreadable file
+   * simply means every section gets generated.
+   *
+   * @param file
+   *          the fingerprints file
+   * @return the <code>SectionFingerprints</code> object
+   */
+  static public SectionFingerprints load(File file) {
+    SectionFingerprints fps = new SectionFingerprints(file);
+    if (file.exists()) {
+      try (InputStream in = new FileInputStream(file)) {
+        fps.sections.load(in);
+      } catch (IOException | IllegalArgumentException e) {
+        Builder.logger.debug("Ignoring fingerprints: " + file + " " + e.toString());
+        fps.sections.clear();
+      }
+    }
+    return fps;
+  }
+
+  /**
+   * isUnchanged.
+   *
+   * @param key
+   *          the section key
+   * @param deps
+   *          the fingerprint of our section's inputs
+   * @param doc
+   *          the document being generated
+   * @return <code>true</code>, if the section's inputs are the same as last time
+   *         and its code is still exactly what we generated
+   */
+  public boolean isUnchanged(String key, String deps, CodeDocument doc) {
+    String value = sections.getProperty(key);
+    if (value == null) return false;
+    String[] fields = value.split(" ", 5);
+    if (fields.length != 5 || !fields[0].equals(deps)) return false;
+    int nAnchor = doc.findTag(fields[4]);
+    if (nAnchor < 0) return false;
+    int nStart, nEnd;
+    try {
+      nStart = nAnchor + Integer.parseInt(fields[1]);
+      nEnd = nStart + Integer.parseInt(fields[2]);
+    } catch (NumberFormatException e) {
+      return false;
+    }
+    if (nEnd > doc.size()) return false;
+    return fields[3].equals(Fingerprint.of(doc, nStart, nEnd));
+  }
+
+  /**
+   * record the region of our document just generated for a section.
+   * The region is located relative to the nearest tag at or above it
+   * since earlier sections may grow or shrink.
+   *
+   * @param key
+   *          the section key
+   * @param deps
+   *          the fingerprint of our section's inputs
+   * @param doc
+   *          the document being generated
+   */
+  public void record(String key, String deps, CodeDocument doc) {
+    int nStart = doc.getChangedStart();
+    int nAnchor = Math.min(nStart, doc.size() - 1);
+    while (nAnchor >= 0 && !CodeDocument.ltrim(doc.getLine(nAnchor)).startsWith(Tags.TAG_PREFIX)) {
+      nAnchor--;
+    }
+    if (nStart < 0 || nAnchor < 0) {
+      remove(key);
+      return;
+    }
+    int nEnd = doc.getChangedEnd();
+    String tag = CodeDocument.ltrim(doc.getLine(nAnchor));
+    String value = deps + " " + (nStart - nAnchor) + " " + (nEnd - nStart) 
+        + " " + Fingerprint.of(doc, nStart, nEnd) + " " + tag;
+    if (!value.equals(sections.setProperty(key, value))) {
+      bChanged = true;
+    }
+  }
+
+  /**
+   * remove a section so it will be generated next time.
+   *
+   * @param key
+   *          the section key
+   */
+  public void remove(String key) {
+    if (sections.remove(key) != null) {
+      bChanged = true;
+    }
+  }
+
+  /**
+   * save our fingerprints if any have changed.
+   *
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   */
+  public void save() throws IOException {
+    if (!bChanged) return;
+    try (OutputStream out = new FileOutputStream(file)) {
+      sections.store(out, "GUIslice Builder generated code fingerprints");
+    }
+    bChanged = false;
+  }
+
+}
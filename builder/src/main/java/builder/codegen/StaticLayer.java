@@ -0,0 +1,420 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import builder.Builder;
+import builder.common.EnumFactory;
+import builder.models.GeneralModel;
+import builder.models.ImageModel;
+import builder.models.ProjectModel;
+import builder.models.WidgetModel;
+import builder.widgets.ImageWidget;
+import builder.widgets.Widget;
+
+/**
+ * The Class StaticLayer bakes runs of elements that never change 
+ * into a single image, a layer, drawn with one element.
+ * <p>
+ * Only Box, Line, Text and Image elements our user's code can't reach,
+ * without an ElementRef, callbacks, touch or external text storage, 
+ * are baked. Each run of two or more of them, one after the other 
+ * on a page, is drawn through the same Widget.draw() our designer uses
+ * and replaced by a transparent Image element where the run began,
+ * so the order elements are drawn in never changes. 
+ * Our ImageExporter then stores each layer in flash.
+ * </p>
+ * <p>
+ * A layer costs two bytes a pixel of flash so a run only grows while
+ * its layer costs less than MAX_BYTES_PER_ELEM for each element it saves,
+ * otherwise the run is split, and all our layers together must fit
+ * within a share of our target MCU's flash. A full screen Box under
+ * a label is far cheaper, and faster, drawn as two elements.
+ * </p>
+ * NOTE: Like FlashPlacement this must only ever be handed
+ * a snapshot of our project and never the pages being edited.
+ * 
+ * @author Paul Conti
+ *
+ */
+public class StaticLayer {
+
+  /** The Constant for the start of the key of each layer. */
+  private final static String LAYER_KEY = EnumFactory.IMAGE + "$Layer";
+
+  /** The Constant for the smallest run of elements worth baking. */
+  private final static int MIN_RUN = 2;
+
+  /** The Constant for the most flash a layer may cost for each element it saves. */
+  private final static int MAX_BYTES_PER_ELEM = 2048;
+
+  /** The Constant for the share of our MCU's flash all layers may use. */
+  private final static int FLASH_SHARE = 4;
+
+  /** The Constants for the meta ids of properties we check. */
+  private final static String[] ACTIVE_IDS = {
+    "COM-016", // Touch Enabled?
+    "BOX-100", // Draw Function
+    "BOX-101", // Tick Function
+  };
+  private final static String TEXT_ID         = "TXT-201";
+  private final static String QUOTES_ID       = "TXT-214";
+  private final static String TEXT_STORAGE_ID = "TXT-205";
+
+  /** The Constants for the meta ids of our layer's image properties. */
+  private final static String IMG_NAME_ID     = "IMG-100";
+  private final static String IMG_DEFINE_ID   = "IMG-101";
+  private final static String IMG_MEMORY_ID   = "IMG-109";
+  private final static String IMG_TRANSPARENT_ID = "IMG-107";
+
+  /** The Constants for the meta ids of image defines our user may already have. */
+  private final static String[] DEFINE_IDS = {
+    IMG_DEFINE_ID,
+    "IBTN-102",  // Image defines
+    "IBTN-103",  // Image Selected defines
+  };
+
+  /** The Constants for the start of the enum and define of each layer. */
+  private final static String LAYER_ENUM   = "E_ELEM_LAYER";
+  private final static String LAYER_DEFINE = "IMG_LAYER";
+
+  /** The color GUIslice treats as transparent. */
+  private final Color transparent;
+
+  /** The flash left for our layers, or -1 if unlimited. */
+  private int nFlashLeft;
+
+  /** The enums and image defines already in our project. */
+  private final Set<String> names = new HashSet<String>();
+
+  /** The number of layers baked. */
+  private int nLayers = 0;
+
+  /** The number given to our last layer. */
+  private int nLastLayer = 0;
+
+  /** The number of elements baked into our layers. */
+  private int nElements = 0;
+
+  /**
+   * Instantiates a new static layer.
+   *
+   * @param mcu
+   *          the target mcu
+   * @param gm
+   *          the general preferences
+   * @param pages
+   *          the pages, a snapshot of our project
+   */
+  private StaticLayer(McuProfile mcu, GeneralModel gm, List<? extends CodePage> pages) {
+    transparent = gm.getTransparencyColor();
+    nFlashLeft = (mcu.getFlash() > 0) ? mcu.getFlash() / FLASH_SHARE : -1;
+    for (CodePage p : pages) {
+      names.add(p.getEnum());
+      for (Widget w : p.getWidgets()) {
+        WidgetModel m = w.getModel();
+        names.add(m.getEnum());
+        for (String id : DEFINE_IDS) {
+          Object define = getValue(m, id);
+          if (define instanceof String) names.add((String) define);
+        }
+      }
+    }
+  }
+
+  /**
+   * nextLayer numbers our next layer so neither its enum nor its
+   * image define collide with any our user already has.
+   *
+   * @return the number of our layer
+   */
+  private int nextLayer() {
+    do {
+      nLastLayer++;
+    } while (names.contains(LAYER_ENUM + nLastLayer) || names.contains(LAYER_DEFINE + nLastLayer));
+    nLayers++;
+    return nLastLayer;
+  }
+
+  /**
+   * bake replaces each run of static elements on our pages with a layer.
+   *
+   * @param pages
+   *          the pages, a snapshot of our project
+   * @param pm
+   *          the project model
+   * @param gm
+   *          the general preferences
+   * @return the pages, with any page holding layers replaced
+   */
+  public static List<CodePage> bake(List<? extends CodePage> pages, ProjectModel pm, GeneralModel gm) {
+    StaticLayer baker = new StaticLayer(McuProfile.of(pm), gm, pages);
+    List<CodePage> baked = new ArrayList<CodePage>();
+    for (CodePage p : pages) {
+      if (p.getPageType().equals(EnumFactory.PROJECT)) {
+        baked.add(p);
+        continue;
+      }
+      List<Widget> widgets = new ArrayList<Widget>();
+      List<Widget> run = new ArrayList<Widget>();
+      for (Widget w : p.getWidgets()) {
+        if (isStatic(w.getModel())) {
+          // split our run rather than grow a layer costing more than it saves
+          if (!run.isEmpty() && !isWorthBaking(run, w)) {
+            baker.flush(run, widgets);
+          }
+          run.add(w);
+          continue;
+        }
+        baker.flush(run, widgets);
+        widgets.add(w);
+      }
+      baker.flush(run, widgets);
+      if (widgets.size() == p.getWidgets().size()) {
+        baked.add(p);
+      } else {
+        baked.add(new PageSnapshot(p, widgets));
+      }
+    }
+    if (baker.nLayers > 0) {
+      Builder.logger.debug("Static Layer: baked " + baker.nElements + " elements into " 
+          + baker.nLayers + " layers");
+    }
+    return baked;
+  }
+
+  /**
+   * flush ends a run, adding its layer to our widgets if the run 
+   * is long enough and its layer fits in our flash, 
+   * otherwise the run's own elements.
+   *
+   * @param run
+   *          the run of static elements, emptied on return
+   * @param widgets
+   *          the widgets of our page
+   */
+  private void flush(List<Widget> run, List<Widget> widgets) {
+    if (run.size() >= MIN_RUN) {
+      Rectangle bounds = boundsOf(run);
+      int nBytes = sizeOf(bounds);
+      if (nFlashLeft < 0 || nBytes <= nFlashLeft) {
+        widgets.add(createLayer(run, bounds, nextLayer()));
+        nElements += run.size();
+        if (nFlashLeft >= 0) nFlashLeft -= nBytes;
+      } else {
+        Builder.logger.debug("Static Layer: not baking" + enumsOf(run) + ", its " 
+          + nBytes + " bytes exceed the " + nFlashLeft + " bytes of flash left for layers");
+        widgets.addAll(run);
+      }
+    } else {
+      widgets.addAll(run);
+    }
+    run.clear();
+  }
+
+  /**
+   * isWorthBaking checks the cost of adding an element to our run.
+   *
+   * @param run
+   *          the run of static elements
+   * @param w
+   *          the element to add
+   * @return <code>true</code>, if the layer would still cost
+   *         no more than MAX_BYTES_PER_ELEM for each element it saves
+   */
+  private static boolean isWorthBaking(List<Widget> run, Widget w) {
+    List<Widget> grown = new ArrayList<Widget>(run);
+    grown.add(w);
+    int nBytes = sizeOf(boundsOf(grown));
+    // our layer is itself an element so saves one less than it holds
+    if (nBytes <= MAX_BYTES_PER_ELEM * run.size()) return true;
+    Builder.logger.debug("Static Layer: split run before " + w.getEnum() + ", a layer of " 
+      + nBytes + " bytes would only save " + run.size() + " elements");
+    return false;
+  }
+
+  /**
+   * isLayer.
+   *
+   * @param m
+   *          the model
+   * @return <code>true</code>, if this model is one of our layers
+   */
+  public static boolean isLayer(WidgetModel m) {
+    return m.getKey().startsWith(LAYER_KEY);
+  }
+
+  /**
+   * isStatic.
+   *
+   * @param m
+   *          the model
+   * @return <code>true</code>, if nothing can change this element at runtime
+   *         and we know how to draw it
+   */
+  private static boolean isStatic(WidgetModel m) {
+    String type = m.getType();
+    if (!type.equals(EnumFactory.BOX) && !type.equals(EnumFactory.LINE)
+     && !type.equals(EnumFactory.TEXT) && !type.equals(EnumFactory.IMAGE)) {
+      return false;
+    }
+    String ref = m.getElementRef();
+    if (ref != null && !ref.isEmpty()) return false;
+    for (String id : ACTIVE_IDS) {
+      if (Boolean.TRUE.equals(getValue(m, id))) return false;
+    }
+    if (type.equals(EnumFactory.TEXT)) {
+      // text without quotes is an expression we can't draw, and
+      // our designer draws placeholders for empty text and
+      // escape sequences as they're typed
+      Object storage = getValue(m, TEXT_STORAGE_ID);
+      if (storage instanceof Integer && ((Integer) storage).intValue() > 0) return false;
+      Object text = getValue(m, TEXT_ID);
+      if (!(text instanceof String) || ((String) text).isEmpty() 
+       || ((String) text).indexOf('\\') >= 0) return false;
+      return Boolean.TRUE.equals(getValue(m, QUOTES_ID));
+    }
+    if (type.equals(EnumFactory.IMAGE)) {
+      return ((ImageModel) m).getImage() != null;
+    }
+    return true;
+  }
+
+  /**
+   * Gets the value of a property.
+   *
+   * @param m
+   *          the model
+   * @param metaId
+   *          the meta id of the property
+   * @return the value, or <code>null</code> if the model doesn't have it
+   */
+  private static Object getValue(WidgetModel m, String metaId) {
+    int row = m.mapMetaIDtoProperty(metaId);
+    return (row < 0) ? null : m.getData()[row][WidgetModel.PROP_VAL_VALUE];
+  }
+
+  /**
+   * boundsOf a run of elements.
+   *
+   * @param run
+   *          the run of static elements
+   * @return the bounds drawn by our run, never left or above the screen
+   */
+  private static Rectangle boundsOf(List<Widget> run) {
+    Rectangle bounds = null;
+    for (Widget w : run) {
+      // frames are drawn one pixel past the element's width and height
+      Rectangle b = w.getWinBounded();
+      b.width++;
+      b.height++;
+      bounds = (bounds == null) ? b : bounds.union(b);
+    }
+    return bounds.intersection(new Rectangle(0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE));
+  }
+
+  /**
+   * sizeOf the array our ImageExporter will store a layer in,
+   * assuming RGB565 although single color layers end up smaller.
+   *
+   * @param bounds
+   *          the bounds of our layer
+   * @return the size in bytes
+   */
+  private static int sizeOf(Rectangle bounds) {
+    return 2 * bounds.width * bounds.height + 4;
+  }
+
+  /**
+   * enumsOf a run of elements, for our log.
+   *
+   * @param run
+   *          the run of static elements
+   * @return the enums, each after a space
+   */
+  private static String enumsOf(List<Widget> run) {
+    StringBuilder sBd = new StringBuilder();
+    for (Widget w : run) {
+      sBd.append(" ");
+      sBd.append(w.getEnum());
+    }
+    return sBd.toString();
+  }
+
+  /**
+   * createLayer draws a run of elements into one transparent image.
+   *
+   * @param run
+   *          the run of static elements
+   * @param bounds
+   *          the bounds of our run
+   * @param nLayer
+   *          the number of our layer
+   * @return the image widget holding our layer
+   */
+  private Widget createLayer(List<Widget> run, Rectangle bounds, int nLayer) {
+    BufferedImage image = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g2d = image.createGraphics();
+    g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+    g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+    g2d.setColor(transparent);
+    g2d.fillRect(0, 0, bounds.width, bounds.height);
+    g2d.translate(-bounds.x, -bounds.y);
+    for (Widget w : run) {
+      w.draw(g2d);
+    }
+    g2d.dispose();
+
+    ImageWidget layer = new ImageWidget();
+    ImageModel m = (ImageModel) layer.getModel();
+    m.TurnOffEvents();
+    Object[][] data = m.getData();
+    data[WidgetModel.PROP_KEY][WidgetModel.PROP_VAL_VALUE] = LAYER_KEY + nLayer;
+    data[WidgetModel.PROP_ENUM][WidgetModel.PROP_VAL_VALUE] = LAYER_ENUM + nLayer;
+    data[WidgetModel.PROP_X][WidgetModel.PROP_VAL_VALUE] = Integer.valueOf(bounds.x);
+    data[WidgetModel.PROP_Y][WidgetModel.PROP_VAL_VALUE] = Integer.valueOf(bounds.y);
+    data[WidgetModel.PROP_WIDTH][WidgetModel.PROP_VAL_VALUE] = Integer.valueOf(bounds.width);
+    data[WidgetModel.PROP_HEIGHT][WidgetModel.PROP_VAL_VALUE] = Integer.valueOf(bounds.height);
+    data[m.mapMetaIDtoProperty(IMG_NAME_ID)][WidgetModel.PROP_VAL_VALUE] = "layer" + nLayer;
+    data[m.mapMetaIDtoProperty(IMG_DEFINE_ID)][WidgetModel.PROP_VAL_VALUE] = LAYER_DEFINE + nLayer;
+    data[m.mapMetaIDtoProperty(IMG_MEMORY_ID)][WidgetModel.PROP_VAL_VALUE] = ImageModel.SRC_SD;
+    data[m.mapMetaIDtoProperty(IMG_TRANSPARENT_ID)][WidgetModel.PROP_VAL_VALUE] = Boolean.TRUE;
+    m.setImage(image);
+    Builder.logger.debug("Static Layer: " + LAYER_ENUM + nLayer + " " + bounds.width + "x" 
+        + bounds.height + " replaces" + enumsOf(run));
+    return layer;
+  }
+
+}
@@ -0,0 +1,372 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import builder.common.EnumFactory;
+import builder.fonts.FontFactory;
+import builder.fonts.FontTFT;
+import builder.models.ListBoxModel;
+import builder.models.TextModel;
+import builder.models.TxtButtonModel;
+import builder.models.WidgetModel;
+
+/**
+ * The Class StringPool collects the static text literals of our elements
+ * into a single table stored in flash (PROGMEM).
+ * <p>
+ * Identical strings are stored once and a string that ends another
+ * shares its tail, so "Cancel" also serves "el". Elements then refer
+ * to their text through a symbolic name, STR_POOL_n, defined as an
+ * offset into our table.
+ * </p>
+ * Only text that never changes at runtime is pooled, so elements
+ * with text storage, an ElementRef or using the _P flash API keep
+ * their own literals.
+ * 
+ * @author Paul Conti
+ *
+ */
+public class StringPool {
+
+  /** The Constant for the prefix of our symbolic names. */
+  public final static String POOL_PREFIX = "STR_POOL_";
+
+  /** The Constant for our table's name. */
+  public final static String POOL_NAME = "m_acStrPool";
+
+  /** The symbolic name of each pooled text by model key. */
+  private final Map<String, String> textRefs = new HashMap<String, String>();
+
+  /** The symbolic names of each pooled list of items by model key. */
+  private final Map<String, String[]> itemRefs = new HashMap<String, String[]>();
+
+  /** The strings, each as a C literal without quotes, by symbolic name. */
+  private final Map<String, String> literals = new LinkedHashMap<String, String>();
+
+  /** The offset of each string within our table by symbolic name. */
+  private final Map<String, Integer> offsets = new HashMap<String, Integer>();
+
+  /** The strings actually stored in our table, all others share their tail. */
+  private final List<String> table = new ArrayList<String>();
+
+  /** The size of our table in bytes. */
+  private int nSize = 0;
+
+  /** The bytes saved by sharing strings. */
+  private int nSaved = 0;
+
+  /**
+   * Instantiates a new string pool.
+   */
+  private StringPool() {
+  }
+
+  /**
+   * build our pool from the text of our models.
+   *
+   * @param models
+   *          the models
+   * @return the string pool
+   */
+  public static StringPool build(List<WidgetModel> models) {
+    StringPool pool = new StringPool();
+    Map<String, String> names = new HashMap<String, String>();
+    for (WidgetModel m : models) {
+      if (isPooled(m)) {
+        String literal = literalOf(m);
+        pool.textRefs.put(m.getKey(), pool.add(names, literal));
+      } else if (m.getType().equals(EnumFactory.LISTBOX)) {
+        String[] items = ((ListBoxModel) m).getItems();
+        if (items == null || Arrays.asList(items).contains("")) continue;
+        String[] refs = new String[items.length];
+        for (int i=0; i<items.length; i++) {
+          refs[i] = pool.add(names, items[i]);
+        }
+        pool.itemRefs.put(m.getKey(), refs);
+      }
+    }
+    pool.layout();
+    return pool;
+  }
+
+  /**
+   * isPooled.
+   *
+   * @param m
+   *          the model
+   * @return <code>true</code>, if the text of this model 
+   *         is a static literal we can pool, empty text never is
+   */
+  public static boolean isPooled(WidgetModel m) {
+    if (m.useFlash() || !m.getElementRef().isEmpty()) return false;
+    if (m.getType().equals(EnumFactory.TEXT)) {
+      TextModel t = (TextModel) m;
+      return t.getTextStorage() == 0 && !t.getText().isEmpty()
+          && (t.isQuotesEnabled() || t.getText().length() >= 2);
+    } else if (m.getType().equals(EnumFactory.TEXTBUTTON)) {
+      TxtButtonModel b = (TxtButtonModel) m;
+      return b.getTextStorage() == 0 && !b.getText().isEmpty() && b.isQuotesEnabled();
+    }
+    return false;
+  }
+
+  /**
+   * literalOf gives back the text of a model as it's written
+   * between the quotes of a C string.
+   *
+   * @param m
+   *          the model
+   * @return the literal
+   */
+  private static String literalOf(WidgetModel m) {
+    FontTFT font = FontFactory.getInstance().getFont(m.getFontDisplayName());
+    String text = (m instanceof TextModel) ? ((TextModel) m).getText() : ((TxtButtonModel) m).getText();
+    return CodeUtils.createLiteral(font, "", text);
+  }
+
+  /**
+   * add a string to our pool.
+   *
+   * @param names
+   *          the symbolic names already given out by literal
+   * @param literal
+   *          the literal
+   * @return the symbolic name
+   */
+  private String add(Map<String, String> names, String literal) {
+    String name = names.get(literal);
+    if (name == null) {
+      name = POOL_PREFIX + (names.size() + 1);
+      names.put(literal, name);
+      literals.put(name, literal);
+    }
+    return name;
+  }
+
+  /**
+   * layout decides where each string lives within our table,
+   * longest first so shorter strings can share their tails.
+   */
+  private void layout() {
+    List<String> names = new ArrayList<String>(literals.keySet());
+    Map<String, byte[]> bytes = new HashMap<String, byte[]>();
+    for (String name : names) {
+      bytes.put(name, toBytes(literals.get(name)));
+    }
+    // sorting is stable so equal lengths keep their order of first use
+    names.sort((a, b) -> Integer.compare(bytes.get(b).length, bytes.get(a).length));
+    List<String> owners = new ArrayList<String>();
+    for (String name : names) {
+      byte[] s = bytes.get(name);
+      String owner = null;
+      for (String o : owners) {
+        if (endsWith(bytes.get(o), s)) {
+          owner = o;
+          break;
+        }
+      }
+      if (owner == null) {
+        owners.add(name);
+        table.add(name);
+        offsets.put(name, Integer.valueOf(nSize));
+        nSize += s.length + 1;
+      } else {
+        int nOffset = offsets.get(owner).intValue() + bytes.get(owner).length - s.length;
+        offsets.put(name, Integer.valueOf(nOffset));
+        nSaved += s.length + 1;
+      }
+    }
+  }
+
+  /**
+   * endsWith.
+   *
+   * @param s
+   *          the string
+   * @param suffix
+   *          the suffix
+   * @return <code>true</code>, if s ends with suffix
+   */
+  private static boolean endsWith(byte[] s, byte[] suffix) {
+    if (suffix.length > s.length) return false;
+    return Arrays.equals(s, s.length - suffix.length, s.length, suffix, 0, suffix.length);
+  }
+
+  /**
+   * toBytes gives back the bytes our C compiler will store 
+   * for a literal, decoding any escape sequences.
+   *
+   * @param literal
+   *          the literal
+   * @return the bytes
+   */
+  static byte[] toBytes(String literal) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    int n = 0;
+    while (n < literal.length()) {
+      char ch = literal.charAt(n);
+      if (ch != '\\' || n + 1 >= literal.length()) {
+        int nEnd = Character.isHighSurrogate(ch) ? Math.min(n + 2, literal.length()) : n + 1;
+        byte[] b = literal.substring(n, nEnd).getBytes(StandardCharsets.UTF_8);
+        out.write(b, 0, b.length);
+        n = nEnd;
+        continue;
+      }
+      char esc = literal.charAt(n + 1);
+      n += 2;
+      if (esc == 'x') {
+        // hex escapes take every hex digit that follows
+        int nValue = 0;
+        while (n < literal.length() && Character.digit(literal.charAt(n), 16) >= 0) {
+          nValue = (nValue << 4) | Character.digit(literal.charAt(n), 16);
+          n++;
+        }
+        out.write(nValue & 0xFF);
+      } else if (esc >= '0' && esc <= '7') {
+        // octal escapes take up to three digits
+        int nValue = esc - '0';
+        for (int i=0; i<2 && n < literal.length() && literal.charAt(n) >= '0' && literal.charAt(n) <= '7'; i++) {
+          nValue = (nValue << 3) | (literal.charAt(n++) - '0');
+        }
+        out.write(nValue & 0xFF);
+      } else {
+        int nIdx = "abfnrtv".indexOf(esc);
+        out.write((nIdx >= 0) ? "\007\b\f\n\r\t\013".charAt(nIdx) : esc);
+      }
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Gets the symbolic name of a model's text.
+   *
+   * @param m
+   *          the model
+   * @return the symbolic name, or <code>null</code> if its text isn't pooled
+   */
+  public String getTextRef(WidgetModel m) {
+    return textRefs.get(m.getKey());
+  }
+
+  /**
+   * Gets the symbolic names of a listbox's items.
+   *
+   * @param m
+   *          the model
+   * @return the symbolic names, or <code>null</code> if its items aren't pooled
+   */
+  public String[] getItemRefs(WidgetModel m) {
+    return itemRefs.get(m.getKey());
+  }
+
+  /**
+   * hasItems.
+   *
+   * @return <code>true</code>, if any listbox items are pooled
+   */
+  public boolean hasItems() {
+    return !itemRefs.isEmpty();
+  }
+
+  /**
+   * isEmpty.
+   *
+   * @return <code>true</code>, if we have nothing to pool
+   */
+  public boolean isEmpty() {
+    return literals.isEmpty();
+  }
+
+  /**
+   * Gets the symbolic names of every string in our pool.
+   *
+   * @return the names, in order of first use
+   */
+  public List<String> getNames() {
+    return Collections.unmodifiableList(new ArrayList<String>(literals.keySet()));
+  }
+
+  /**
+   * Gets the names of the strings stored in our table, in table order.
+   *
+   * @return the names
+   */
+  public List<String> getTable() {
+    return Collections.unmodifiableList(table);
+  }
+
+  /**
+   * Gets the literal of a string.
+   *
+   * @param name
+   *          the symbolic name
+   * @return the literal, without quotes
+   */
+  public String getLiteral(String name) {
+    return literals.get(name);
+  }
+
+  /**
+   * Gets the offset of a string within our table.
+   *
+   * @param name
+   *          the symbolic name
+   * @return the offset
+   */
+  public int getOffset(String name) {
+    return offsets.get(name).intValue();
+  }
+
+  /**
+   * Gets the size of our table, the same as sizeof() our array
+   * which also holds the NUL our compiler adds after the last string.
+   *
+   * @return the size in bytes
+   */
+  public int getSize() {
+    return literals.isEmpty() ? 0 : nSize + 1;
+  }
+
+  /**
+   * Gets the bytes saved by sharing strings.
+   *
+   * @return the bytes saved
+   */
+  public int getSaved() {
+    return nSaved;
+  }
+
+}
@@ -50,6 +50,7 @@ public class Tags {
   public final static String HEADER_TAG             = "Header";
   public final static String INCLUDES_TAG           = "Includes";
   public final static String INITGUI_TAG            = "InitGUI";
+  public final static String INITPAGES_TAG          = "InitPages";
   public final static String LISTBOXCB_TAG          = "Listbox Callback";
   public final static String LISTBOX_ENUMS_TAG      = "Listbox Enums";
   public final static String LOADFONTS_TAG          = "Load_Fonts";
@@ -31,14 +31,16 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
 
 import builder.Builder;
 import builder.common.Utils;
+import builder.models.PropertyMap;
 
 /**
  * The Class TemplateManager handles all functions related to 
@@ -63,8 +65,11 @@ public class TemplateManager {
   /** The Constant END_TEMPLATE. */
   private final static String END_TEMPLATE           = "<END>";
   
-  /** The Constant MACRO_PATTERN is our regex search pattern '$<xxx>'. */
-  private static final Pattern MACRO_PATTERN = Pattern.compile("\\$\\<(.+?)\\>");
+  /** The Constant SPACES used for padding out macro values. */
+  private static final char[] SPACES = new char[64];
+  static {
+    Arrays.fill(SPACES, ' ');
+  }
 
   /** The Constant BEGIN_LINE. */
   // finite state machine for printing enums
@@ -76,22 +81,28 @@ public class TemplateManager {
   /** The Constant CLIP_LINE. */
   private final static int CLIP_LINE     = 72;
 
+  /** The process wide cache of compiled template files, keyed by path name. */
+  private static final Map<String, TemplateFile> templateCache = 
+      new ConcurrentHashMap<String, TemplateFile>();
+
   /** The template map. */
-  HashMap<String, Integer> templateMap;
-  
-  /** The list of templates. */
-  List<String>[] listOfTemplates = null;
+  Map<String, CompiledTemplate> templateMap;
+
+  /** The template file identity, its path, time stamp and size. */
+  private String templateId = "";
 
   /**
    * Instantiates a new template manager.
    */
-  @SuppressWarnings("unchecked")
   public TemplateManager() {
-    listOfTemplates = new ArrayList[256];
+    templateMap = new HashMap<String, CompiledTemplate>();
   }
 
   /**
    * Store templates from filename.
+   * 
+   * The template file is read and compiled only once, after that
+   * we share the compiled templates until the file is modified.
    *
    * @param templateFileName
    *          the template file name
@@ -99,18 +110,48 @@ public class TemplateManager {
    *           the code gen exception
    */
   public void storeTemplatesFromFileName(String templateFileName) throws CodeGenException {
-    templateMap = new HashMap<String, Integer>(64);
 //    String pathName = RESOURCES_PATH + templateFileName;
     String pathName = Utils.getWorkingDir() +
         "templates" + System.getProperty("file.separator") 
         + templateFileName;
     File file = new File(pathName);
+    long lastModified = file.lastModified();
+    long length = file.length();
+    TemplateFile tf = templateCache.get(pathName);
+    if (tf == null || tf.lastModified != lastModified || tf.length != length) {
+      tf = new TemplateFile(lastModified, length, readTemplateFile(file));
+      templateCache.put(pathName, tf);
+//      Builder.logger.debug("Compiled Template File: " + pathName);
+    }
+    templateMap = tf.templates;
+    templateId = pathName + ":" + lastModified + ":" + length;
+  }
+
+  /**
+   * Gets the template file identity.
+   *
+   * @return the template file path, time stamp and size
+   */
+  public String getTemplateId() {
+    return templateId;
+  }
+    
+  /**
+   * readTemplateFile reads and compiles every template inside our file.
+   *
+   * @param file
+   *          the template file
+   * @return the <code>map</code> of template names to compiled templates
+   * @throws CodeGenException
+   *           the code gen exception
+   */
+  private Map<String, CompiledTemplate> readTemplateFile(File file) throws CodeGenException {
+    Map<String, CompiledTemplate> map = new HashMap<String, CompiledTemplate>(256);
     BufferedReader tbr=null;
 //    BufferedReader tbr = new BufferedReader(new InputStreamReader(
 //                  this.getClass().getResourceAsStream(pathName)));
     String l = "";
     String templateName = "";
-    int i = 0;
     try {
       tbr = new BufferedReader(new InputStreamReader(
           new FileInputStream(file), "UTF8"));
@@ -122,10 +163,8 @@ public class TemplateManager {
         while (!(l = tbr.readLine()).equals(STOP_TEMPLATE)) {
           lines.add(l);
         }
-        templateMap.put(templateName, i);
-        listOfTemplates[i] = lines;
-//        Builder.logger.debug("Stored Template: " + templateName + " idx=" + i);
-        i++;
+        map.put(templateName, CompiledTemplate.compile(templateName, lines));
+//        Builder.logger.debug("Stored Template: " + templateName);
       }
       
     } catch (IOException e) {
@@ -137,6 +176,7 @@ public class TemplateManager {
         throw new CodeGenException(e.toString());
       }
     }
+    return Collections.unmodifiableMap(map);
   }
     
   /**
@@ -150,7 +190,7 @@ public class TemplateManager {
    *           the code gen exception
    */
   public void storeTemplateFromPathName(String templateName, String templatePathName) throws CodeGenException {
-    templateMap = new HashMap<String, Integer>(64);
+    templateMap = new HashMap<String, CompiledTemplate>(64);
     File file = new File(templatePathName);
     BufferedReader tbr=null;
     try {
@@ -161,8 +201,7 @@ public class TemplateManager {
       String line;
       while(true) {
         if((line = tbr.readLine()) == null) {
-          templateMap.put(templateName, 0);
-          listOfTemplates[0] = lines;
+          templateMap.put(templateName, CompiledTemplate.compile(templateName, lines));
           break;
         }
         lines.add(line);
@@ -181,25 +220,19 @@ public class TemplateManager {
     
   /**
    * Load template.
+   * 
+   * NOTE: The template returned is shared and read only.
    *
    * @param templateName
    *          the template name
    * @return the <code>list</code> object
    */
   public List<String> loadTemplate(String templateName) {
-    Integer idx = Integer.valueOf(-1);  
-    if (templateMap.containsKey(templateName)) {
-      idx = templateMap.get(templateName);
-    } else {
+    CompiledTemplate template = templateMap.get(templateName);
+    if (template == null) {
       throw new CodeGenException("Missing template: " + templateName);
     }
-    List<String> templateOld = listOfTemplates[idx.intValue()];
-    List<String> templateNew = new ArrayList<String>();
-    for (String s : templateOld) {
-      templateNew.add(s);
-    }
-    
-    return templateNew;
+    return template;
   }
 
   /**
@@ -237,49 +270,127 @@ public class TemplateManager {
    */
   public List<String> expandMacros(List<String> template, Map<String, String> map) 
     throws CodeGenException {
-    List<String> outputList = new ArrayList<String>();
-    String sKey = null;
+    CompiledTemplate ct = compiledTemplate(template);
+    List<String> outputList = new ArrayList<String>(ct.size());
+    StringBuilder sb = new StringBuilder();
+    int nPadding = 0;
+    for (int i=0; i<ct.size(); i++) {
+      sb.setLength(0);
+      nPadding = expandLine(sb, ct.getSegments(i), map, nPadding);
+      outputList.add(sb.toString());
+    }
+    return outputList;
+  }
+
+  /**
+   * Expand macros writing the expanded template lines straight
+   * into our code buffer.
+   * 
+   * Same as calling expandMacros(template, map) followed by
+   * codeWriter(sBd, lines) without building the intermediate list.
+   *
+   * @param sBd
+   *          the StringBuilder receiving our code
+   * @param template
+   *          the template lines
+   * @param map
+   *          the map containing the key/value pairs.
+   * @throws CodeGenException
+   */
+  public void expandMacros(StringBuilder sBd, List<String> template, Map<String, String> map) 
+    throws CodeGenException {
+    CompiledTemplate ct = compiledTemplate(template);
+    String sep = System.lineSeparator();
+    int nPadding = 0;
+    for (int i=0; i<ct.size(); i++) {
+      nPadding = expandLine(sBd, ct.getSegments(i), map, nPadding);
+      sBd.append(sep);
+    }
+  }
+
+  /**
+   * expandLine
+   *  expands a single pre-tokenized template line.
+   *
+   * @param sBd
+   *          the StringBuilder receiving our code
+   * @param segments
+   *          the segments making up our line
+   * @param map
+   *          the map containing the key/value pairs.
+   * @param nPadding
+   *          the padding still pending from a previous line
+   * @return the padding still pending for the next line
+   */
+  private int expandLine(StringBuilder sBd, CompiledTemplate.Segment[] segments,
+      Map<String, String> map, int nPadding) {
     String sValue = null;
-    int nPadding=0;
-    try {
-      for (String l : template) {
-        Matcher m = MACRO_PATTERN.matcher(l);
-        StringBuffer sb = new StringBuffer();
-        while (m.find()) {
-          sKey = m.group(1);
-          // test the key, if its numeric its padding
-          // otherwise its a macro to be expanded
-          if (sKey.matches("[0-9]+")) {
-              nPadding = Integer.parseInt(sKey);
-              m.appendReplacement(sb, "");
+    for (CompiledTemplate.Segment seg : segments) {
+      switch (seg.type) {
+        case CompiledTemplate.LITERAL:
+          sBd.append(seg.text);
+          break;
+        case CompiledTemplate.PADDING:
+          nPadding = seg.width;
+          break;
+        default:
+          if (map instanceof PropertyMap) {
+            // meta IDs were given their slot when our template was compiled
+            sValue = ((PropertyMap) map).get(seg.slot, seg.text);
           } else {
-            sValue = map.get(sKey); 
-            if (sValue != null) {
-              if (nPadding > 0) {
-                // space out this value
-                nPadding = nPadding - sValue.length();
-                if (nPadding > 0) {
-                  for (int i=0; i<nPadding; i++)
-                    sValue = sValue + " ";
-                  nPadding = 0; // reset for next value
-                }
-              }
-// bug: 123 appendReplacementfails if sValue has a '$' in it. 
-//              m.appendReplacement(sb, sValue);
-              m.appendReplacement(sb, "");
-              sb.append(sValue);
+            sValue = map.get(seg.text);
+          }
+          if (sValue == null) {
+            // leave unknown macros untouched
+            sBd.append("$<").append(seg.text).append('>');
+            break;
+          }
+          sBd.append(sValue);
+          if (nPadding > 0) {
+            // space out this value
+            nPadding = nPadding - sValue.length();
+            if (nPadding > 0) {
+              padding(sBd, nPadding);
+              nPadding = 0; // reset for next value
             }
           }
-        }
-        m.appendTail(sb);
-        outputList.add(sb.toString());
+          break;
       }
-    } catch(IllegalArgumentException e) {
-      System.out.println("sKey: " + sKey + " sValue: " + sValue);
-      e.printStackTrace();
-      throw new CodeGenException(e.toString());
     }
-    return outputList;
+    return nPadding;
+  }
+
+  /**
+   * padding appends spaces to our code buffer.
+   *
+   * @param sBd
+   *          the StringBuilder receiving our code
+   * @param n
+   *          the number of spaces
+   */
+  private void padding(StringBuilder sBd, int n) {
+    sBd.ensureCapacity(sBd.length() + n);
+    while (n > 0) {
+      int len = Math.min(n, SPACES.length);
+      sBd.append(SPACES, 0, len);
+      n -= len;
+    }
+  }
+
+  /**
+   * compiledTemplate
+   *  templates handed out by loadTemplate() are already compiled,
+   *  anything else gets compiled on the fly.
+   *
+   * @param template
+   *          the template lines
+   * @return the <code>CompiledTemplate</code> object
+   */
+  private CompiledTemplate compiledTemplate(List<String> template) {
+    if (template instanceof CompiledTemplate) {
+      return (CompiledTemplate) template;
+    }
+    return CompiledTemplate.compile(null, template);
   }
 
   /**
@@ -373,6 +484,21 @@ public class TemplateManager {
    *          the enum list
    */
   public void codeWriterEnums(StringBuilder sBd, List<String> enumList) {
+    codeWriterEnums(sBd, enumList, null);
+  }
+
+  /**
+   * codeWriterEnums
+   *    writes out a formatted list enums with a fixed underlying type,
+   *    something only C++ supports.
+   *
+   * @param enumList
+   *          the enum list
+   * @param type
+   *          the underlying type, like uint8_t, or <code>null</code> for int
+   */
+  public void codeWriterEnums(StringBuilder sBd, List<String> enumList, String type) {
+    String start = (type == null) ? "enum {" : "enum : " + type + " {";
     int printState = BEGIN_LINE;
     String line = "";
     String sEnum;
@@ -387,7 +513,7 @@ public class TemplateManager {
           line = "      ," + sEnum;
         }
       } else if (printState == BEGIN_LINE)  {
-        line = "enum {" + sEnum;
+        line = start + sEnum;
         printState = WRITE_NEXT;
       }
     }
@@ -397,4 +523,36 @@ public class TemplateManager {
     return;
   }
 
+  /**
+   * The Class TemplateFile holds the compiled templates of a file
+   * along with what we need to detect changes to the file.
+   */
+  private static final class TemplateFile {
+
+    /** The file's last modified time. */
+    final long lastModified;
+
+    /** The file's length. */
+    final long length;
+
+    /** The compiled templates. */
+    final Map<String, CompiledTemplate> templates;
+
+    /**
+     * Instantiates a new template file.
+     *
+     * @param lastModified
+     *          the last modified time
+     * @param length
+     *          the length
+     * @param templates
+     *          the compiled templates
+     */
+    TemplateFile(long lastModified, long length, Map<String, CompiledTemplate> templates) {
+      this.lastModified = lastModified;
+      this.length = length;
+      this.templates = templates;
+    }
+  }
+
 }
@@ -78,13 +78,11 @@ public class BoxCodeBlock implements CodeBlock {
   static public StringBuilder process(CodeGenerator cg, TemplateManager tm, StringBuilder sBd, String pageEnum, WidgetModel wm) {
     BoxModel m = (BoxModel)wm;
     List<String> template = null;
-    List<String> outputLines = null;
     Map<String, String> map = m.getMappedProperties(pageEnum);
 
     // now output creation API
     template = tm.loadTemplate(BOX_TEMPLATE);
-    outputLines = tm.expandMacros(template, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, template, map);
 
     if (m.isRoundedEn()) {
       template = tm.loadTemplate(CORNERS_ROUNDED_TEMPLATE);
@@ -110,24 +108,19 @@ public class BoxCodeBlock implements CodeBlock {
         (!m.getFillColor().equals(BoxModel.DEF_FILL_COLOR))  || 
         (!m.getSelectedColor().equals(BoxModel.DEF_SELECTED_COLOR))) {
       template = tm.loadTemplate(COLOR_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     
     if (!m.isFrameEnabled()) {
       template = tm.loadTemplate(FRAME_EN_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     
     if (!m.getElementRef().isEmpty()) {
       template = tm.loadTemplate(ELEMENTREF_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     } 
 
-    template.clear();
-    outputLines.clear();
     map.clear();
     return sBd;   
   }
@@ -77,7 +77,6 @@ public final class CheckBoxCodeBlock implements CodeBlock {
   static public StringBuilder process(CodeGenerator cg, TemplateManager tm, StringBuilder sBd, String pageEnum, WidgetModel wm) {
     CheckBoxModel m = (CheckBoxModel)wm;
     List<String> template = null;
-    List<String> outputLines = null;
     Map<String, String> map = m.getMappedProperties(pageEnum);
 
     // now output creation API
@@ -89,21 +88,18 @@ public final class CheckBoxCodeBlock implements CodeBlock {
       tm.loadTemplate(CHECKBOX_GROUP_TEMPLATE);
     }
 */
-    outputLines = tm.expandMacros(template, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, template, map);
 
     if ((!m.getFrameColor().equals(CheckBoxModel.DEF_FRAME_COLOR)) ||
         (!m.getFillColor().equals(CheckBoxModel.DEF_FILL_COLOR))  || 
         (!m.getSelectedColor().equals(CheckBoxModel.DEF_SELECTED_COLOR))) {
       template = tm.loadTemplate(COLOR_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
 /*
     if (!groupId.equals("GSLC_GROUP_ID_NONE")) {
       template = tm.loadTemplate(GROUP_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
 */    
     if (m.isCallbackEn()) {
@@ -113,12 +109,9 @@ public final class CheckBoxCodeBlock implements CodeBlock {
 
     if (!m.getElementRef().isEmpty()) {
       template = tm.loadTemplate(ELEMENTREF_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
 
-    template.clear();
-    outputLines.clear();
     map.clear();
     return sBd;   
   }
@@ -80,7 +80,6 @@ public final class ImageCodeBlock implements CodeBlock {
   static public StringBuilder process(CodeGenerator cg, TemplateManager tm, StringBuilder sBd, String pageEnum, WidgetModel wm) {
     ImageModel m = (ImageModel)wm;
     List<String> template = null;
-    List<String> outputLines = null;
     Map<String, String> map = m.getMappedProperties(pageEnum);
 
     // now output creation API
@@ -90,14 +89,12 @@ public final class ImageCodeBlock implements CodeBlock {
     } else {
       template = tm.loadTemplate(IMAGE_EXTERN_TEMPLATE);
     }
-    outputLines = tm.expandMacros(template, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, template, map);
 
     // handle transparency
     if (m.isTransparent()) {
       template = tm.loadTemplate(IMAGETRANSPARENT_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     if (m.isTouchEn()) {
       template = tm.loadTemplate(TOUCH_EN_TEMPLATE);
@@ -106,21 +103,16 @@ public final class ImageCodeBlock implements CodeBlock {
 
     if (m.isFrameEnabled()) {
       template = tm.loadTemplate(FRAME_EN_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
       template = tm.loadTemplate(COLOR_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     
     if (!m.getElementRef().isEmpty()) {
       template = tm.loadTemplate(ELEMENTREF_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
 
-    template.clear();
-    outputLines.clear();
     map.clear();
     return sBd;   
   }
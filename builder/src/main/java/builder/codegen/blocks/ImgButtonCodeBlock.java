@@ -82,7 +82,6 @@ public final class ImgButtonCodeBlock implements CodeBlock {
   static public StringBuilder process(CodeGenerator cg, TemplateManager tm, StringBuilder sBd, String pageEnum, WidgetModel wm) {
     ImgButtonModel m = (ImgButtonModel)wm;
     List<String> template = null;
-    List<String> outputLines = null;
     Map<String, String> map = m.getMappedProperties(pageEnum);
 
     map.put(COUNT_MACRO, CodeUtils.getKeyCount(m.getKey()));
@@ -101,39 +100,31 @@ public final class ImgButtonCodeBlock implements CodeBlock {
         template = tm.loadTemplate(IMGBUTTON_EXTERN_TEMPLATE);
       }
     }
-    outputLines = tm.expandMacros(template, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, template, map);
 
     // handle transparency
     if (m.isTransparent()) {
       template = tm.loadTemplate(IMAGETRANSPARENT_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }    
     if (m.isFrameEnabled()) {
       template = tm.loadTemplate(FRAME_EN_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
       template = tm.loadTemplate(COLOR_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     String groupId = m.getGroupId();
 
     if (m.isToggle() && !groupId.equals("GSLC_GROUP_ID_NONE")) {
       template = tm.loadTemplate(GROUP_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     
     if (!m.getElementRef().isEmpty()) {
       template = tm.loadTemplate(ELEMENTREF_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
 
-    template.clear();
-    outputLines.clear();
     map.clear();
     return sBd;   
   }
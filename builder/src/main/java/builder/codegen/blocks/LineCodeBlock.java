@@ -75,7 +75,6 @@ public class LineCodeBlock implements CodeBlock {
   static public StringBuilder process(CodeGenerator cg, TemplateManager tm, StringBuilder sBd, String pageEnum, WidgetModel wm) {
     LineModel m = (LineModel)wm;
     List<String> template = null;
-    List<String> outputLines = null;
     Map<String, String> map = m.getMappedProperties(pageEnum);
     
     // now output creation API
@@ -93,11 +92,8 @@ public class LineCodeBlock implements CodeBlock {
     map.put(X1_MACRO, String.valueOf(nX1));
     map.put(Y1_MACRO, String.valueOf(nY1));
     
-    outputLines = tm.expandMacros(template, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, template, map);
 
-    template.clear();
-    outputLines.clear();
     map.clear();
     return sBd;   
   }
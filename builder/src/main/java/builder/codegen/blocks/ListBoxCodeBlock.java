@@ -31,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 
 import builder.codegen.CodeGenerator;
+import builder.codegen.StringPool;
 import builder.codegen.TemplateManager;
 import builder.fonts.FontTFT;
 import builder.models.ListBoxModel;
@@ -50,6 +51,7 @@ public final class ListBoxCodeBlock implements CodeBlock {
   private final static String LISTBOXSLIDER1_TEMPLATE = "<LISTBOXSLIDER_1>";
   private final static String LISTBOXSLIDER2_TEMPLATE = "<LISTBOXSLIDER_2>";
   private final static String LISTBOX_ITEM_TEMPLATE   = "<LISTBOX_ITEM>";
+  private final static String LISTBOX_ITEM_POOL_TEMPLATE = "<LISTBOX_ITEM_POOL>";
   private final static String LISTBOX_GAP_TEMPLATE    = "<LISTBOX_GAP>";
   private final static String ALIGN_TEMPLATE         = "<TEXTALIGN>";
   private final static String FRAME_EN_TEMPLATE       = "<FRAME_EN>";
@@ -82,7 +84,6 @@ public final class ListBoxCodeBlock implements CodeBlock {
   static public StringBuilder process(CodeGenerator cg, TemplateManager tm, StringBuilder sBd, String pageEnum, WidgetModel wm) {
     ListBoxModel m = (ListBoxModel)wm;
     List<String> template = null;
-    List<String> outputLines = null;
     Map<String, String> map = m.getMappedProperties(pageEnum);
 
     // now output creation API
@@ -91,23 +92,28 @@ public final class ListBoxCodeBlock implements CodeBlock {
     } else {
       template = tm.loadTemplate(LISTBOX_TEMPLATE);
     }
-    outputLines = tm.expandMacros(template, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, template, map);
     
     if (m.getItemGap() > 0) {
       template = tm.loadTemplate(LISTBOX_GAP_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     
     String[] items = m.getItems();
     if (items != null && !items[0].isEmpty()) {
       Map<String, String> mapItems = new HashMap<String, String>(16);
-      template = tm.loadTemplate(LISTBOX_ITEM_TEMPLATE);
+      StringPool pool = cg.getStringPool();
+      String[] poolRefs = (pool == null) ? null : pool.getItemRefs(m);
+      if (poolRefs != null) {
+        // our items live in flash and get copied into the listbox
+        template = tm.loadTemplate(LISTBOX_ITEM_POOL_TEMPLATE);
+        items = poolRefs;
+      } else {
+        template = tm.loadTemplate(LISTBOX_ITEM_TEMPLATE);
+      }
       for (int i=0; i<items.length; i++) {
         mapItems.put(TEXT_MACRO, items[i]);
-        outputLines = tm.expandMacros(template, mapItems);
-        tm.codeWriter(sBd, outputLines);
+        tm.expandMacros(sBd, template, mapItems);
         mapItems.clear();
       }
     }
@@ -115,31 +121,25 @@ public final class ListBoxCodeBlock implements CodeBlock {
     String strAlign = m.getAlignment();
     if (!strAlign.equals(FontTFT.ALIGN_LEFT)) {
       template = tm.loadTemplate(ALIGN_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
 
     if (m.isFrameEnabled()) {
       template = tm.loadTemplate(FRAME_EN_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
 
     if (!m.getElementRef().isEmpty()) {
       template = tm.loadTemplate(ELEMENTREF_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
 
     if (m.addScrollbar()) {
       template = tm.loadTemplate(LISTBOXSLIDER2_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     
     map.clear();
-    template.clear();
-    outputLines.clear();
     return sBd;   
   }
   
@@ -32,7 +32,6 @@ import java.util.Map;
 import builder.codegen.CodeGenerator;
 import builder.codegen.CodeUtils;
 import builder.codegen.TemplateManager;
-import builder.controller.Controller;
 import builder.fonts.FontFactory;
 import builder.fonts.FontTFT;
 import builder.models.NumberInputModel;
@@ -90,7 +89,6 @@ public final class NumberInputCodeBlock implements CodeBlock {
   static public StringBuilder process(CodeGenerator cg, TemplateManager tm, StringBuilder sBd, String pageEnum, WidgetModel wm) {
     NumberInputModel m = (NumberInputModel)wm;
     List<String> template = null;
-    List<String> outputLines = null;
     Map<String, String> map = m.getMappedProperties(pageEnum);
 
     // now output creation API
@@ -104,38 +102,32 @@ public final class NumberInputCodeBlock implements CodeBlock {
      */
     map.put(TEXT_MACRO, CodeUtils.createLiteral(font, "\"", m.getText()));
 
-    outputLines = tm.expandMacros(template, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, template, map);
     
     // now deal with any extra switches
     String strAlign = m.getAlignment();
     if (!strAlign.equals(FontTFT.ALIGN_LEFT)) {
       template = tm.loadTemplate(ALIGN_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     if (m.getTextMargin() != 0) {
       template = tm.loadTemplate(TEXTMARGIN_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     if (!m.getTextColor().equals(NumberInputModel.DEF_TEXT_COLOR)) {
       template = tm.loadTemplate(TEXTCOLOR_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     if ((!m.getFrameColor().equals(NumberInputModel.DEF_FRAME_COLOR)) ||
         (!m.getFillColor().equals(NumberInputModel.DEF_FILL_COLOR))  || 
         (!m.getSelectedColor().equals(NumberInputModel.DEF_SELECTED_COLOR))) {
       template = tm.loadTemplate(COLOR_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     
     if (!m.isFillEnabled()) {
       template = tm.loadTemplate(FILL_EN_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
 
     template = tm.loadTemplate(FRAME_EN_TEMPLATE);
@@ -146,18 +138,14 @@ public final class NumberInputCodeBlock implements CodeBlock {
     
     if (!m.getElementRef().isEmpty()) {
       template = tm.loadTemplate(ELEMENTREF_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     
-    if (m.isUTF8() && Controller.getTargetPlatform().equals(ProjectModel.PLATFORM_LINUX)) {
+    if (m.isUTF8() && cg.getProjectModel().getTargetPlatform().equals(ProjectModel.PLATFORM_LINUX)) {
         template = tm.loadTemplate(TEXTUTF8_TEMPLATE);
-        outputLines = tm.expandMacros(template, map);
-        tm.codeWriter(sBd, outputLines);
+        tm.expandMacros(sBd, template, map);
     }
 
-    template.clear();
-    outputLines.clear();
     map.clear();
     return sBd;   
   }
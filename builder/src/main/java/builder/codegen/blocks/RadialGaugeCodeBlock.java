@@ -76,42 +76,33 @@ public class RadialGaugeCodeBlock implements CodeBlock {
   static public StringBuilder process(CodeGenerator cg, TemplateManager tm, StringBuilder sBd, String pageEnum, WidgetModel wm) {
     RadialGaugeModel m = (RadialGaugeModel)wm;
     List<String> template = null;
-    List<String> outputLines = null;
     Map<String, String> map = m.getMappedProperties(pageEnum);
 
     // now output creation API
     template = tm.loadTemplate(RADIALGAUGE_TEMPLATE);
-    outputLines = tm.expandMacros(template, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, template, map);
 
     if ((!m.getFrameColor().equals(RadialGaugeModel.DEF_FRAME_COLOR)) ||
         (!m.getFillColor().equals(RadialGaugeModel.DEF_FILL_COLOR))   || 
         (!m.getSelectedColor().equals(RadialGaugeModel.DEF_SELECTED_COLOR))) {
       template = tm.loadTemplate(COLOR_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     
     if (!m.isClockwise()) {
       template = tm.loadTemplate(RADIALGAUGEFLIP_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     
     // now deal with indicator and ticks, only works with Radial
     template = tm.loadTemplate(RADIALGAUGEIND_TEMPLATE);
-    outputLines = tm.expandMacros(template, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, template, map);
     template = tm.loadTemplate(RADIALGAUGETICKS_TEMPLATE);
-    outputLines = tm.expandMacros(template, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, template, map);
 
     template = tm.loadTemplate(ELEMENTREF_TEMPLATE);
-    outputLines = tm.expandMacros(template, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, template, map);
 
-    template.clear();
-    outputLines.clear();
     map.clear();
     return sBd;   
   }
@@ -80,13 +80,11 @@ public class SpinnerCodeBlock implements CodeBlock {
   static public StringBuilder process(CodeGenerator cg, TemplateManager tm, StringBuilder sBd, String pageEnum, WidgetModel wm) {
     SpinnerModel m = (SpinnerModel)wm;
     List<String> template = null;
-    List<String> outputLines = null;
     Map<String, String> map = m.getMappedProperties(pageEnum);
 
     // now output creation API
     template = tm.loadTemplate(SPINNER_TEMPLATE);
-    outputLines = tm.expandMacros(template, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, template, map);
     
     // deal with any overrides
     if (!(m.getIncrementChar().equals(SpinnerModel.DEF_INCRBUTTON)) ||
@@ -100,16 +98,12 @@ public class SpinnerCodeBlock implements CodeBlock {
        */
       map.put(INCR_MACRO, CodeUtils.createLiteral(font, "'", m.getIncrementChar()));
       map.put(DECR_MACRO, CodeUtils.createLiteral(font, "'", m.getDecrementChar()));
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     
     template = tm.loadTemplate(ELEMENTREF_TEMPLATE);
-    outputLines = tm.expandMacros(template, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, template, map);
 
-    template.clear();
-    outputLines.clear();
     map.clear();
     return sBd;   
   }
@@ -74,7 +74,6 @@ public final class TextBoxCodeBlock implements CodeBlock {
   static public StringBuilder process(CodeGenerator cg, TemplateManager tm, StringBuilder sBd, String pageEnum, WidgetModel wm) {
     TextBoxModel m = (TextBoxModel)wm;
     List<String> template = null;
-    List<String> outputLines = null;
     Map<String, String> map = m.getMappedProperties(pageEnum);
 
     // now output creation API
@@ -83,18 +82,14 @@ public final class TextBoxCodeBlock implements CodeBlock {
     } else {
       template = tm.loadTemplate(TEXTBOX_TEMPLATE);
     }
-    outputLines = tm.expandMacros(template, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, template, map);
 
     if (m.addScrollbar()) {
       template = tm.loadTemplate(TEXTBOXSLIDER2_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     
     map.clear();
-    template.clear();
-    outputLines.clear();
     return sBd;   
   }
   
@@ -31,8 +31,8 @@ import java.util.Map;
 
 import builder.codegen.CodeGenerator;
 import builder.codegen.CodeUtils;
+import builder.codegen.StringPool;
 import builder.codegen.TemplateManager;
-import builder.controller.Controller;
 import builder.fonts.FontFactory;
 import builder.fonts.FontTFT;
 import builder.models.ProjectModel;
@@ -54,6 +54,7 @@ public final class TextCodeBlock implements CodeBlock {
   private final static String FILL_EN_TEMPLATE = "<FILL_EN>";
   private final static String FRAME_EN_TEMPLATE = "<FRAME_EN>";
   private final static String TEXT_TEMPLATE = "<TEXT>";
+  private final static String TEXT_MEM_PROG_TEMPLATE = "<TEXT_MEM_PROG>";
   private final static String TEXTCOLOR_TEMPLATE = "<TEXT_COLOR>";
   private final static String TEXTMARGIN_TEMPLATE = "<TEXT_MARGIN>";
   private final static String TEXT_UPDATE_TEMPLATE = "<TEXT_UPDATE>";
@@ -91,7 +92,6 @@ public final class TextCodeBlock implements CodeBlock {
     TextModel m = (TextModel) wm;
     String templateName = null;
     List<String> template = null;
-    List<String> outputLines = null;
     Map<String, String> map = m.getMappedProperties(pageEnum);
 
     // now output creation API
@@ -111,64 +111,62 @@ public final class TextCodeBlock implements CodeBlock {
      * (classic) character sets that be not be in display 32-126 ascii range.
      */
     String text = m.getText();
+    StringPool pool = cg.getStringPool();
+    String poolRef = (pool == null) ? null : pool.getTextRef(m);
     
-    if (m.isQuotesEnabled() || text.length() >= 2) {
+    if (poolRef != null) {
+      map.put(TEXT_MACRO, poolRef);
+    } else if (m.isQuotesEnabled() || text.length() >= 2) {
       map.put(TEXT_MACRO, CodeUtils.createLiteral(font, "\"", m.getText()));
     } else {
       map.put(TEXT_MACRO, m.getText());
     }
-    outputLines = tm.expandMacros(template, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, template, map);
+    if (poolRef != null) {
+      // our text now lives in flash
+      template = tm.loadTemplate(TEXT_MEM_PROG_TEMPLATE);
+      tm.codeWriter(sBd, template);
+    }
 
     // now deal with any extra switches
     String strAlign = m.getAlignment();
     if (!strAlign.equals(FontTFT.ALIGN_LEFT)) {
       template = tm.loadTemplate(ALIGN_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     if (m.getTextMargin() != 0) {
       template = tm.loadTemplate(TEXTMARGIN_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     if (!m.isFillEnabled()) {
       template = tm.loadTemplate(FILL_EN_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     if (m.isFrameEnabled()) {
       template = tm.loadTemplate(FRAME_EN_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     if (!m.getTextColor().equals(TextModel.DEF_TEXT_COLOR)) {
       template = tm.loadTemplate(TEXTCOLOR_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     if ((!m.getFrameColor().equals(TextModel.DEF_FRAME_COLOR)) ||
         (!m.getFillColor().equals(TextModel.DEF_FILL_COLOR)) ||
         (!m.getSelectedColor().equals(TextModel.DEF_SELECTED_COLOR))) {
       template = tm.loadTemplate(COLOR_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
 
-    if (m.isUTF8() && Controller.getTargetPlatform().equals(ProjectModel.PLATFORM_LINUX)) {
+    if (m.isUTF8() && cg.getProjectModel().getTargetPlatform().equals(ProjectModel.PLATFORM_LINUX)) {
       template = tm.loadTemplate(TEXTUTF8_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
 
     if (!m.getElementRef().isEmpty()) {
       template = tm.loadTemplate(ELEMENTREF_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
 
-    template.clear();
-    outputLines.clear();
     map.clear();
     return sBd;
   }
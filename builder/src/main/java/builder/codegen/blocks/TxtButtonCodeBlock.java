@@ -31,8 +31,8 @@ import java.util.Map;
 
 import builder.codegen.CodeGenerator;
 import builder.codegen.CodeUtils;
+import builder.codegen.StringPool;
 import builder.codegen.TemplateManager;
-import builder.controller.Controller;
 import builder.fonts.FontFactory;
 import builder.fonts.FontTFT;
 import builder.models.ProjectModel;
@@ -57,6 +57,7 @@ public final class TxtButtonCodeBlock implements CodeBlock {
   private final static String TEXTMARGIN_TEMPLATE = "<TEXT_MARGIN>";
   private final static String TEXTCOLOR_TEMPLATE = "<TEXT_COLOR>";
   private final static String TEXTUTF8_TEMPLATE = "<TEXT_UTF8>";
+  private final static String TEXT_MEM_PROG_TEMPLATE = "<TEXT_MEM_PROG>";
   private final static String TXTBUTTON_TEMPLATE = "<TXTBUTTON>";
   private final static String TXTBUTTON_UPDATE_TEMPLATE = "<TXTBUTTON_UPDATE>";
   private final static String COLOR_TEMPLATE = "<COLOR>";
@@ -91,7 +92,6 @@ public final class TxtButtonCodeBlock implements CodeBlock {
       WidgetModel wm) {
     TxtButtonModel m = (TxtButtonModel) wm;
     List<String> template = null;
-    List<String> outputLines = null;
     Map<String, String> map = m.getMappedProperties(pageEnum);
 
     // now output creation API
@@ -112,43 +112,47 @@ public final class TxtButtonCodeBlock implements CodeBlock {
      * (classic) character sets that be not be in display 32-126 ascii range.
      */
     String text = m.getText();
+    StringPool pool = cg.getStringPool();
+    String poolRef = (pool == null) ? null : pool.getTextRef(m);
 
-    if (m.isQuotesEnabled()) { // check if text is string or variable name to decide whether to
+    if (poolRef != null) {
+      map.put(TEXT_MACRO, poolRef);
+    } else if (m.isQuotesEnabled()) { // check if text is string or variable name to decide whether to
                                                      // use the "" or not.
       map.put(TEXT_MACRO, CodeUtils.createLiteral(font, "\"", m.getText()));
     } else {
       map.put(TEXT_MACRO, m.getText());
     }
 
-    outputLines = tm.expandMacros(template, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, template, map);
+    if (poolRef != null) {
+      // our text now lives in flash
+      template = tm.loadTemplate(TEXT_MEM_PROG_TEMPLATE);
+      tm.codeWriter(sBd, template);
+    }
 
     // now deal with any extra switches
     String strAlign = m.getAlignment();
     if (!strAlign.equals("GSLC_ALIGN_MID_MID")) {
       template = tm.loadTemplate(ALIGN_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     if (m.getTextMargin() != 0) {
       template = tm.loadTemplate(TEXTMARGIN_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     if (!m.getTextColor().equals(TxtButtonModel.DEF_TEXT_COLOR)) {
       template = tm.loadTemplate(TEXTCOLOR_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     if ((!m.getFrameColor().equals(TxtButtonModel.DEF_FRAME_COLOR)) ||
         (!m.getFillColor().equals(TxtButtonModel.DEF_FILL_COLOR)) ||
         (!m.getSelectedColor().equals(TxtButtonModel.DEF_SELECTED_COLOR))) {
       template = tm.loadTemplate(COLOR_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
 
-    if (m.isUTF8() && Controller.getTargetPlatform().equals(ProjectModel.PLATFORM_LINUX)) {
+    if (m.isUTF8() && cg.getProjectModel().getTargetPlatform().equals(ProjectModel.PLATFORM_LINUX)) {
       template = tm.loadTemplate(TEXTUTF8_TEMPLATE);
       tm.codeWriter(sBd, template);
     }
@@ -160,23 +164,18 @@ public final class TxtButtonCodeBlock implements CodeBlock {
 
     if (!m.isFillEnabled()) {
       template = tm.loadTemplate(FILL_EN_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     if (!m.isFrameEnabled()) {
       template = tm.loadTemplate(FRAME_EN_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
 
     if (!m.getElementRef().isEmpty()) {
       template = tm.loadTemplate(ELEMENTREF_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
 
-    template.clear();
-    outputLines.clear();
     map.clear();
     return sBd;
   }
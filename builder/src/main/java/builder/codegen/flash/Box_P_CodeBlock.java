@@ -78,7 +78,6 @@ public class Box_P_CodeBlock implements CodeBlock {
   static public StringBuilder process(CodeGenerator cg, TemplateManager tm, StringBuilder sBd, String pageEnum, WidgetModel wm) {
     BoxModel m = (BoxModel)wm;
     List<String> template = null;
-    List<String> outputLines = null;
     Map<String, String> map = m.getMappedProperties(pageEnum);
 
     // now output creation API
@@ -92,8 +91,7 @@ public class Box_P_CodeBlock implements CodeBlock {
     } 
     
     template = tm.loadTemplate(templateName);
-    outputLines = tm.expandMacros(template, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, template, map);
 
     if (m.isRoundedEn()) {
       template = tm.loadTemplate(CORNERS_ROUNDED_TEMPLATE);
@@ -108,12 +106,9 @@ public class Box_P_CodeBlock implements CodeBlock {
     if (!m.getElementRef().isEmpty()) {
       // we need to do a gslc_PageFindElemById
       template = tm.loadTemplate(ELEMENTREF_FIND_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     } 
 
-    template.clear();
-    outputLines.clear();
     map.clear();
     return sBd;   
   }
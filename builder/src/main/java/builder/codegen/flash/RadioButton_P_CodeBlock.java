@@ -75,27 +75,21 @@ public final class RadioButton_P_CodeBlock implements CodeBlock {
   static public StringBuilder process(CodeGenerator cg, TemplateManager tm, StringBuilder sBd, String pageEnum, WidgetModel wm) {
     RadioButtonModel m = (RadioButtonModel)wm;
     List<String> template = null;
-    List<String> outputLines = null;
     Map<String, String> map = m.getMappedProperties(pageEnum);
 
     // now output creation API
     template = tm.loadTemplate(RADIOBUTTON_TEMPLATE);
-    outputLines = tm.expandMacros(template, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, template, map);
 
      if (m.isCallbackEn()) {
        // we need to do a gslc_PageFindElemById
        template = tm.loadTemplate(ELEMENTREF_FIND_TEMPLATE);
-       outputLines = tm.expandMacros(template, map);
-       tm.codeWriter(sBd, outputLines);
+       tm.expandMacros(sBd, template, map);
 
        template = tm.loadTemplate(CHECKBOXSETSTATE_TEMPLATE);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
 
-    template.clear();
-    outputLines.clear();
     map.clear();
     return sBd;   
   }
@@ -25,32 +25,27 @@
  */
 package builder.codegen.pipes;
 
-import java.io.BufferedReader;
-import java.io.IOException;
 import java.lang.StringBuilder;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
 
+import builder.codegen.CallbackIndex.Case;
+import builder.codegen.CallbackIndex.Section;
+import builder.codegen.CodeDocument;
+import builder.codegen.CodeDocument.LineReader;
 import builder.codegen.CodeGenException;
 import builder.codegen.CodeGenerator;
-import builder.codegen.CodeUtils;
+import builder.codegen.Fingerprint;
 import builder.codegen.Tags;
 import builder.codegen.TemplateManager;
 import builder.common.EnumFactory;
-import builder.models.BoxModel;
 import builder.models.GeneralModel;
-import builder.models.ImageModel;
 import builder.models.ImgButtonModel;
 import builder.models.KeyPadModel;
 import builder.models.KeyPadTextModel;
 import builder.models.TxtButtonModel;
 import builder.models.WidgetModel;
-import builder.prefs.AlphaKeyPadEditor;
-import builder.prefs.GeneralEditor;
-import builder.prefs.NumKeyPadEditor;
 
 /**
  * The Class ButtonCbPipe handles code generation
@@ -87,10 +82,6 @@ public class ButtonCbPipe extends WorkFlowPipe {
   /** The template manager. */
   TemplateManager tm = null;
 
-  /** The regex word patterns */
-  private final static Pattern LTRIM = Pattern.compile("^\\s+");
-  private final static String EMPTY_STRING = "";
-
   /** Button Case Statement types */
   private final static int CT_UNDEFINED  = 0;
   private final static int CT_STANDARD   = 1;
@@ -104,12 +95,6 @@ public class ButtonCbPipe extends WorkFlowPipe {
   private final static int CT_TOGGLEBTN   = 9;
   private final static int CT_CUSTOM_CODE    =10;
 
-  /** The case statement map. */
-  HashMap<String, Integer> caseMap;
-  
-  /** The list of case statements. */
-  List<String>[] listOfCases = null;
-
   /**
    * Instantiates a new pipe.
    *
@@ -118,12 +103,35 @@ public class ButtonCbPipe extends WorkFlowPipe {
    */
   public ButtonCbPipe(CodeGenerator cg) {
     this.cg = cg;
+    this.MY_TAG     = Tags.TAG_PREFIX + Tags.BUTTONCB_TAG + Tags.TAG_SUFFIX_START;
+    this.MY_END_TAG = Tags.TAG_PREFIX + Tags.BUTTONCB_TAG + Tags.TAG_SUFFIX_END;
+    this.MY_ENUM_TAG     = Tags.TAG_PREFIX + Tags.BUTTON_ENUMS_TAG + Tags.TAG_SUFFIX_START;
+    this.MY_ENUM_END_TAG = Tags.TAG_PREFIX + Tags.BUTTON_ENUMS_TAG + Tags.TAG_SUFFIX_END;
   }
   
   /**
-   * process
+   * fingerprint
+   * our section only depends upon the widgets that can be touched.
+   * Since existing case statements are left alone for models that haven't
+   * changed during this session we must also track each model's changed flag.
    *
-   * For our Button Callback we have this modified process routine.
+   * @see builder.codegen.pipes.WorkFlowPipe#fingerprint(builder.codegen.Fingerprint)
+   */
+  @Override
+  public void fingerprint(Fingerprint fp) {
+    String[] types = { EnumFactory.TEXTBUTTON, EnumFactory.IMAGEBUTTON, 
+        EnumFactory.TOGGLEBUTTON, EnumFactory.IMAGE, EnumFactory.BOX, 
+        EnumFactory.NUMINPUT, EnumFactory.TEXTINPUT };
+    for (WidgetModel m : cg.getModelIndex().getModels(types)) {
+      fp.add(m);
+      fp.add(m.bModelChanged ? 1 : 0);
+    }
+  }
+  
+  /**
+   * prepare
+   *
+   * For our Button Callback we have this modified prepare routine.
    * This version is to support removing the BUTTONCB_TAG and BUTTONCB_END_TAG
    * once we write out any button callbacks.
    *   
@@ -138,17 +146,11 @@ public class ButtonCbPipe extends WorkFlowPipe {
    * NOTE: Notice that we also do not output our end tag by calling
    *       CodeUtils.readPassString(). 
    *
-   * @see builder.codegen.pipes.Pipe#process(java.lang.Object, java.lang.Object)
+   * @see builder.codegen.pipes.SplicePipe#prepare(java.lang.Object)
    */
   @Override
-  public StringBuilder process(StringBuilder input) throws CodeGenException {
-    this.MY_TAG     = Tags.TAG_PREFIX + Tags.BUTTONCB_TAG + Tags.TAG_SUFFIX_START;
-    this.MY_END_TAG = Tags.TAG_PREFIX + Tags.BUTTONCB_TAG + Tags.TAG_SUFFIX_END;
-    this.MY_ENUM_TAG     = Tags.TAG_PREFIX + Tags.BUTTON_ENUMS_TAG + Tags.TAG_SUFFIX_START;
-    this.MY_ENUM_END_TAG = Tags.TAG_PREFIX + Tags.BUTTON_ENUMS_TAG + Tags.TAG_SUFFIX_END;
-    
-    return super.processCB(input);
-        
+  public Splice<CodeDocument> prepare(CodeDocument doc) throws CodeGenException {
+    return super.prepareCB(doc);
   }
 
   /**
@@ -157,33 +159,14 @@ public class ButtonCbPipe extends WorkFlowPipe {
    *  outputButtonCB with this list for the actual code generation.
    *
    * @param br
-   *          the buffered reader of our project template input
+   *          the line reader of our project template input
    * @param sBd
    *          the StringBuilder object containing our project template
-   * @throws IOException
-   *           Signals that an I/O exception has occurred.
    */
   @Override
-  public void doCbCommon(BufferedReader br, StringBuilder sBd) throws IOException {
+  public void doCbCommon(LineReader br, StringBuilder sBd) {
     // build up a list of widget models that have button callbacks enabled
-    callbackList = new ArrayList<WidgetModel>();
-    for (WidgetModel m : cg.getModels()) {
-      if (m.getType().equals(EnumFactory.TEXTBUTTON)) {
-        callbackList.add(m);
-      } else if (m.getType().equals(EnumFactory.IMAGEBUTTON)) {
-        callbackList.add(m);
-      } else if (m.getType().equals(EnumFactory.TOGGLEBUTTON)) {
-        callbackList.add(m);
-      } else if (m.getType().equals(EnumFactory.IMAGE) && ((ImageModel)m).isTouchEn()) {
-        callbackList.add(m);
-      } else if (m.getType().equals(EnumFactory.NUMINPUT)) {
-        callbackList.add(m);
-      } else if (m.getType().equals(EnumFactory.TEXTINPUT)) {
-        callbackList.add(m);
-      } else if (m.getType().equals(EnumFactory.BOX) && ((BoxModel)m).isTouchEn()) {
-        callbackList.add(m);
-      }
-    }
+    callbackList = cg.getModelIndex().getCallbacks(Tags.BUTTONCB_TAG);
     super.doCbCommon(br, sBd);
   }
   
@@ -197,8 +180,8 @@ public class ButtonCbPipe extends WorkFlowPipe {
   @Override
   public void outputCB(StringBuilder sBd) {
     // setup for code generation
-    KeyPadModel km = (KeyPadModel) NumKeyPadEditor.getInstance().getModel();
-    KeyPadTextModel ktm = (KeyPadTextModel) AlphaKeyPadEditor.getInstance().getModel();
+    KeyPadModel km = cg.getNumKeyPadModel();
+    KeyPadTextModel ktm = cg.getAlphaKeyPadModel();
     tm = cg.getTemplateManager();
     // create a temporary string buffer to hold the case statements
     // we will add them all at once before we leave this routine
@@ -268,23 +251,19 @@ public class ButtonCbPipe extends WorkFlowPipe {
         tm.codeWriter(sTemp, outputLines);
       } else if (m.getType().equals(EnumFactory.TOGGLEBUTTON)) {
         map.put(ELEMREF_MACRO, m.getElementRef());
-        outputLines = tm.expandMacros(templateToggleBtn, map);
-        tm.codeWriter(sTemp, outputLines);
+        tm.expandMacros(sTemp, templateToggleBtn, map);
       } else if (m.getType().equals(EnumFactory.NUMINPUT)) {
         map.put(ELEMREF_MACRO, m.getElementRef());
         map.put(KEY_ENUM_MACRO, km.getEnum());
         map.put(KEY_ELEMREF_MACRO, km.getElementRef());
-        outputLines = tm.expandMacros(templateInput, map);
-        tm.codeWriter(sTemp, outputLines);
+        tm.expandMacros(sTemp, templateInput, map);
       } else if (m.getType().equals(EnumFactory.TEXTINPUT)) {
         map.put(ELEMREF_MACRO, m.getElementRef());
         map.put(KEY_ENUM_MACRO, ktm.getEnum());
         map.put(KEY_ELEMREF_MACRO, ktm.getElementRef());
-        outputLines = tm.expandMacros(templateInput, map);
-        tm.codeWriter(sTemp, outputLines);
+        tm.expandMacros(sTemp, templateInput, map);
       } else {
-        outputLines = tm.expandMacros(templateStandard, map);
-        tm.codeWriter(sTemp, outputLines);
+        tm.expandMacros(sTemp, templateStandard, map);
       }
     }
 
@@ -293,8 +272,7 @@ public class ButtonCbPipe extends WorkFlowPipe {
     String sButtons = sTemp.toString();
     map.put(CALLBACK_MACRO, sButtons);
     List<String> templateLines = tm.loadTemplate(BUTTON_CB_TEMPLATE);
-    outputLines = tm.expandMacros(templateLines, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, templateLines, map);
 
   }
 
@@ -303,23 +281,21 @@ public class ButtonCbPipe extends WorkFlowPipe {
    *  The callback already exists so we just process what is  
    *  between the BUTTON_ENUMS_TAG and BUTTON_ENUMS_END_TAG here.
    *
-   * @param br
-   *          the buffered reader of our project template input
+   * @param section
+   *          the existing lines between our enum tags
    * @param sBd
    *          the StringBuilder object containing our project template output
    */
-  @SuppressWarnings("unchecked")
   @Override
-  public void doEnums(BufferedReader br, StringBuilder sBd) throws IOException {
+  public void doEnums(Section section, StringBuilder sBd) {
     // setup for code generation
-    KeyPadModel km = (KeyPadModel) NumKeyPadEditor.getInstance().getModel();
-    KeyPadTextModel ktm = (KeyPadTextModel) AlphaKeyPadEditor.getInstance().getModel();
+    KeyPadModel km = cg.getNumKeyPadModel();
+    KeyPadTextModel ktm = cg.getAlphaKeyPadModel();
     tm = cg.getTemplateManager();
-    GeneralModel gm = (GeneralModel) GeneralEditor.getInstance().getModel();
+    GeneralModel gm = cg.getGeneralModel();
     // do we support round trip edits?
     boolean bPreserveCode = gm.isPreserveButtonCallbacks();
-    
-    listOfCases = new ArrayList[1024];
+
 
     // setup our templates for outputs   
     List<String> templateStandard  = tm.loadTemplate(BUTTON_CASE_TEMPLATE);
@@ -333,31 +309,13 @@ public class ButtonCbPipe extends WorkFlowPipe {
     Map<String, String> map = new HashMap<String,String>();
 
     // build up a list of widget models that have button callbacks enabled
-    callbackList = new ArrayList<WidgetModel>();
-    for (WidgetModel m : cg.getModels()) {
-      if (m.getType().equals(EnumFactory.TEXTBUTTON)) {
-        callbackList.add(m);
-      } else if (m.getType().equals(EnumFactory.IMAGEBUTTON)) {
-        callbackList.add(m);
-      } else if (m.getType().equals(EnumFactory.TOGGLEBUTTON)) {
-        callbackList.add(m);
-      } else if (m.getType().equals(EnumFactory.NUMINPUT)) {
-        callbackList.add(m);
-      } else if (m.getType().equals(EnumFactory.TEXTINPUT)) {
-        callbackList.add(m);
-      } else if (m.getType().equals(EnumFactory.IMAGE) && ((ImageModel)m).isTouchEn()) {
-        callbackList.add(m);
-      } else if (m.getType().equals(EnumFactory.BOX) && ((BoxModel)m).isTouchEn()) {
-        callbackList.add(m);
-      }
-    }
-    /* our callback section already exists - read it into a buffers so we can scan 
-     * it for existing Enum case statements. 
+    callbackList = cg.getModelIndex().getCallbacks(Tags.BUTTONCB_TAG);
+    /* our callback section already exists and has been indexed so we can
+     * lookup existing Enum case statements. 
      * This will allow us to determine if a case statement for an ENUM needs updating.
      */
-    storeCaseStatements(br);
     /* now search the callback list and for each model
-     * check for an existing case statement in our saved buffers.
+     * check for an existing case statement in our section.
      * If none, just do the output.
      * Otherwise, determine type of case statement and if it needs to updated. 
      * No need to worry about any that need deletion since we only output
@@ -374,17 +332,18 @@ public class ButtonCbPipe extends WorkFlowPipe {
       // now examine the model and determine the case type to be generated
       CaseInfo modelInfo = getCaseType(m);
       // lookup our enum to see if we have an existing case statement
-      int idx = -1;
+      Case c = null;
       if (bPreserveCode) {
-        idx = findCaseStatement(e);
+        c = section.findCase(e);
       }
-      if (idx != -1) {
+      if (c != null) {
+        List<String> caseLines = section.getLines(c);
         /* fail-safe if model hasn't changed in this session 
          * leave case statements alone.
          */
         if (!modelInfo.isModelChanged()) {
           // output what we have stored
-          outputLines = listOfCases[idx];
+          outputLines = caseLines;
           tm.codeWriter(sBd, outputLines);
           bNeedOutput = false;
         } else if (modelInfo.getCaseType() == CT_CUSTOM_CODE) {
@@ -397,26 +356,26 @@ public class ButtonCbPipe extends WorkFlowPipe {
          * makes round trip edits possible.
          */
           
-          CaseInfo oldInfo = parseCaseType(e, idx, modelInfo.getCaseType());
+          CaseInfo oldInfo = parseCaseType(e, section, c, modelInfo.getCaseType());
           switch (modelInfo.getCaseType()) {
           case CT_UNDEFINED: 
             break;
           case CT_STANDARD:
             // output what we have stored
-            outputLines = listOfCases[idx];
+            outputLines = caseLines;
             tm.codeWriter(sBd, outputLines);
             bNeedOutput = false;
             break;
           case CT_CHGPAGE:
             if (oldInfo.getCaseType() == CT_CHGPAGE) {
               if (oldInfo.getPageEnum().equals(modelInfo.getPageEnum())) {
-                outputLines = listOfCases[idx];
+                outputLines = caseLines;
                 tm.codeWriter(sBd, outputLines);
                 bNeedOutput = false;
               } else {
                 if (oldInfo.getLineNo() > -1) { 
                   // output what is stored but replace page enum
-                  outputLines = listOfCases[idx];
+                  outputLines = caseLines;
                   tm.codeReplaceWord(sBd, outputLines, 
                       oldInfo.getPageEnum(), modelInfo.getPageEnum(), 
                       oldInfo.getLineNo());
@@ -427,7 +386,7 @@ public class ButtonCbPipe extends WorkFlowPipe {
               if (oldInfo.getLineNo() > -1) { 
                 // output what is stored but replace the one line that is wrong
                 replacement = String.format("        gslc_SetPageCur(&m_gui, %s);", modelInfo.getPageEnum());
-                outputLines = listOfCases[idx];
+                outputLines = caseLines;
                 tm.codeReplaceLine(sBd, outputLines, replacement, 
                     oldInfo.getLineNo(), oldInfo.getLineNo());
                 bNeedOutput = false;
@@ -436,7 +395,7 @@ public class ButtonCbPipe extends WorkFlowPipe {
               if (oldInfo.getLineNo() > -1) { 
                 // output what is stored but replace the one line that is wrong
                 replacement = String.format("        gslc_SetPageCur(&m_gui, %s);", modelInfo.getPageEnum());
-                outputLines = listOfCases[idx];
+                outputLines = caseLines;
                 tm.codeAppendLine(sBd, outputLines, replacement);
                 bNeedOutput = false;
               }
@@ -445,11 +404,11 @@ public class ButtonCbPipe extends WorkFlowPipe {
           case CT_INPUTNUM:
             if (oldInfo.getCaseType() == CT_INPUTNUM) {
               if (oldInfo.getElementRef().equals(modelInfo.getElementRef())) {
-                outputLines = listOfCases[idx];
+                outputLines = caseLines;
                 tm.codeWriter(sBd, outputLines);
                 bNeedOutput = false;
               } else {
-                outputLines = listOfCases[idx];
+                outputLines = caseLines;
                 tm.codeReplaceWord(sBd, outputLines, 
                     oldInfo.getElementRef(), modelInfo.getElementRef(), 
                     oldInfo.getLineNo());
@@ -458,7 +417,7 @@ public class ButtonCbPipe extends WorkFlowPipe {
             }
             if (oldInfo.getCaseType() == CT_UPDINPUTNUM) {
               if (oldInfo.getElementRef().equals(modelInfo.getElementRef())) {
-                outputLines = listOfCases[idx];
+                outputLines = caseLines;
                 // our old input template was 4 lines long, if match reduce to one line
                 if (oldInfo.getLineNo()+3 <= oldInfo.getStopNo()) {
                   replacement = String.format("        gslc_ElemXKeyPadInputAsk(&m_gui, %s, %s, %s);", 
@@ -475,11 +434,11 @@ public class ButtonCbPipe extends WorkFlowPipe {
           case CT_INPUTTXT:
             if (oldInfo.getCaseType() == CT_INPUTTXT) {
               if (oldInfo.getElementRef().equals(modelInfo.getElementRef())) {
-                outputLines = listOfCases[idx];
+                outputLines = caseLines;
                 tm.codeWriter(sBd, outputLines);
                 bNeedOutput = false;
               } else {
-                outputLines = listOfCases[idx];
+                outputLines = caseLines;
                 tm.codeReplaceWord(sBd, outputLines, 
                     oldInfo.getElementRef(), modelInfo.getElementRef(), 
                     oldInfo.getLineNo());
@@ -488,7 +447,7 @@ public class ButtonCbPipe extends WorkFlowPipe {
             }
             if (oldInfo.getCaseType() == CT_UPDINPUTTXT) {
               if (oldInfo.getElementRef().equals(modelInfo.getElementRef())) {
-                outputLines = listOfCases[idx];
+                outputLines = caseLines;
                 // our old input template was 4 lines long, if match reduce to one line
                 if (oldInfo.getLineNo()+3 <= oldInfo.getStopNo()) {
                   replacement = String.format("        gslc_ElemXKeyPadInputAsk(&m_gui, %s, %s, %s);", 
@@ -505,14 +464,14 @@ public class ButtonCbPipe extends WorkFlowPipe {
           case CT_SHOWPOPUP:
             if (oldInfo.getCaseType() == CT_SHOWPOPUP) {
               if (oldInfo.getPageEnum().equals(modelInfo.getPageEnum())) {
-                outputLines = listOfCases[idx];
+                outputLines = caseLines;
                 tm.codeWriter(sBd, outputLines);
                 bNeedOutput = false;
               } else {
                 if (oldInfo.getLineNo() > -1) { 
                   // output what is stored but replace the one line that is wrong
                   replacement = String.format("        gslc_PopupShow(&m_gui, %s);", modelInfo.getPageEnum());
-                  outputLines = listOfCases[idx];
+                  outputLines = caseLines;
                   tm.codeReplaceLine(sBd, outputLines, replacement, 
                       oldInfo.getLineNo(), oldInfo.getLineNo());
                   bNeedOutput = false;
@@ -522,7 +481,7 @@ public class ButtonCbPipe extends WorkFlowPipe {
               if (oldInfo.getLineNo() > -1) { 
                 // output what is stored but replace the one line that is wrong
                 replacement = String.format("        gslc_PopupShow(&m_gui, %s);", modelInfo.getPageEnum());
-                outputLines = listOfCases[idx];
+                outputLines = caseLines;
                 tm.codeReplaceLine(sBd, outputLines, replacement, 
                     oldInfo.getLineNo(), oldInfo.getLineNo());
                 bNeedOutput = false;
@@ -531,7 +490,7 @@ public class ButtonCbPipe extends WorkFlowPipe {
               if (oldInfo.getLineNo() > -1) { 
                 // output what is stored but replace the one line that is wrong
                 replacement = String.format("        gslc_PopupShow(&m_gui, %s);", modelInfo.getPageEnum());
-                outputLines = listOfCases[idx];
+                outputLines = caseLines;
                 tm.codeAppendLine(sBd, outputLines, replacement);
                 bNeedOutput = false;
               }
@@ -539,7 +498,7 @@ public class ButtonCbPipe extends WorkFlowPipe {
             break;
           case CT_HIDEPOPUP:
             if (oldInfo.getCaseType() == CT_HIDEPOPUP) {
-              outputLines = listOfCases[idx];
+              outputLines = caseLines;
               tm.codeWriter(sBd, outputLines);
               bNeedOutput = false;
             }
@@ -547,12 +506,12 @@ public class ButtonCbPipe extends WorkFlowPipe {
           case CT_TOGGLEBTN:
             if (oldInfo.getCaseType() == CT_TOGGLEBTN) {
               if (oldInfo.getElementRef().equals(modelInfo.getElementRef())) {
-                outputLines = listOfCases[idx];
+                outputLines = caseLines;
                 tm.codeWriter(sBd, outputLines);
                 bNeedOutput = false;
               } else {
                 // output what is stored but replace ElementRef
-                outputLines = listOfCases[idx];
+                outputLines = caseLines;
                 tm.codeReplaceWord(sBd, outputLines, 
                     oldInfo.getElementRef(), modelInfo.getElementRef(), 
                     oldInfo.getLineNo());
@@ -571,41 +530,34 @@ public class ButtonCbPipe extends WorkFlowPipe {
         case CT_UNDEFINED: // better not happen
           break;
         case CT_STANDARD:
-          outputLines = tm.expandMacros(templateStandard, map);
-          tm.codeWriter(sBd, outputLines);
+          tm.expandMacros(sBd, templateStandard, map);
           break;
         case CT_CHGPAGE:
           map.put(JUMPPAGE_ENUM_MACRO, modelInfo.getPageEnum());
-          outputLines = tm.expandMacros(templateChgPage, map);
-          tm.codeWriter(sBd, outputLines);
+          tm.expandMacros(sBd, templateChgPage, map);
           break;
         case CT_INPUTNUM:
           map.put(ELEMREF_MACRO, modelInfo.getElementRef());
           map.put(KEY_ENUM_MACRO, km.getEnum());
           map.put(KEY_ELEMREF_MACRO, km.getElementRef());
-          outputLines = tm.expandMacros(templateInput, map);
-          tm.codeWriter(sBd, outputLines);
+          tm.expandMacros(sBd, templateInput, map);
           break;
         case CT_INPUTTXT:
           map.put(ELEMREF_MACRO, modelInfo.getElementRef());
           map.put(KEY_ENUM_MACRO, ktm.getEnum());
           map.put(KEY_ELEMREF_MACRO, ktm.getElementRef());
-          outputLines = tm.expandMacros(templateInput, map);
-          tm.codeWriter(sBd, outputLines);
+          tm.expandMacros(sBd, templateInput, map);
           break;
         case CT_SHOWPOPUP:
           map.put(POPUPPAGE_ENUM_MACRO, modelInfo.getPageEnum());
-          outputLines = tm.expandMacros(templateShowPopup, map);
-          tm.codeWriter(sBd, outputLines);
+          tm.expandMacros(sBd, templateShowPopup, map);
           break;
         case CT_HIDEPOPUP:
-          outputLines = tm.expandMacros(templateHidePopup, map);
-          tm.codeWriter(sBd, outputLines);
+          tm.expandMacros(sBd, templateHidePopup, map);
           break;
         case CT_TOGGLEBTN:
           map.put(ELEMREF_MACRO, modelInfo.getElementRef());
-          outputLines = tm.expandMacros(templateToggleBtn, map);
-          tm.codeWriter(sBd, outputLines);
+          tm.expandMacros(sBd, templateToggleBtn, map);
           break;
         case CT_CUSTOM_CODE: 
           String[] codeList = modelInfo.getCodeSegment();
@@ -616,8 +568,7 @@ public class ButtonCbPipe extends WorkFlowPipe {
             sbCode.append("\n");
           }
           map.put(CODE_SEGMENT_MACRO, sbCode.toString());
-          outputLines = tm.expandMacros(templateCode, map);
-          tm.codeWriter(sBd, outputLines);
+          tm.expandMacros(sBd, templateCode, map);
           break;
         }
       }
@@ -625,85 +576,6 @@ public class ButtonCbPipe extends WorkFlowPipe {
 
   }    
 
-  /**
-   * storeCaseStatements - read all existing case statements in the source code
-   * and store them in buffers.  Keep a map of them for fast lookups.
-   *
-   * @param br
-   *          the BufferedReader br
-   * @throws IOException
-   *           the code gen exception
-   */
-  public void storeCaseStatements(BufferedReader br) throws IOException {
-    caseMap = new HashMap<String, Integer>(64);
-    String scan = "";
-    String enumName = "";
-    int i = 0;
-    String sTestTag= "";
-    // read everything into an array first so we can go backwards if needed
-    List<String> inputLines = new ArrayList<String>();
-    while((scan = br.readLine()) != null) {
-      sTestTag = LTRIM.matcher(scan).replaceAll(EMPTY_STRING);
-      if (sTestTag.equals(MY_ENUM_END_TAG)) 
-        break;
-      inputLines.add(scan);
-    } 
-    int nState = 0;
-    List<String> lines = null;
-    for (int n=0; n<inputLines.size(); n++) {
-      scan = inputLines.get(n);
-      // break the line up into words
-      if (scan.isEmpty()) continue;
-      String[] words = CodeUtils.splitWords(scan);
-      if (words.length == 0) {
-        if (nState == 1) {
-          lines.add(scan);
-        }
-        continue;
-      }
-      // first word must be "case"
-      if (words[0].equals("case")) {
-        if (nState == 0) {
-          enumName = words[1];
-          lines = new ArrayList<String>();
-          nState = 1;
-        } else {
-          caseMap.put(enumName, i);
-          listOfCases[i] = lines;
-//          Builder.logger.debug("Stored Case Statement: " + enumName + " idx=" + i);
-          i++;
-          nState = 0;
-          n--;
-        }
-      }
-      if (nState == 1) {
-        lines.add(scan);
-      }
-    }
-    if (nState == 1) {
-      caseMap.put(enumName, i);
-      listOfCases[i] = lines;
-//      Builder.logger.debug("Stored Case Statement: " + enumName + " idx=" + i);
-      i++;
-    }
-  }
-
-  /**
-   * findCaseStatement - find the case statement for this enum.
-   *
-   * @param caseEnum
-   *          the caseEnum name
-   * @return the index into our list of case statements
-   */
-  public int findCaseStatement(String caseEnum) {
-    Integer idx = Integer.valueOf(-1);  
-    if (caseMap.containsKey(caseEnum)) {
-      idx = caseMap.get(caseEnum);
-    }
-    
-    return idx.intValue();
-  }
-  
   public CaseInfo getCaseType(WidgetModel m) {
     CaseInfo ci = new CaseInfo(m.getEnum());
     ci.setCaseType(CT_STANDARD);
@@ -756,15 +628,15 @@ public class ButtonCbPipe extends WorkFlowPipe {
     return ci;
   }
 
-  public CaseInfo parseCaseType(String e, int idx, int type) {
+  public CaseInfo parseCaseType(String e, Section section, Case c, int type) {
     CaseInfo ci = new CaseInfo(e);      
     ci.setCaseType(CT_STANDARD);
-    List<String> caseList = listOfCases[idx];
+    // n counts the lines of our case statement, skipping empty ones
     int n =-1;
-    for (String line : caseList) {
+    for (int i=c.getStart(); i<c.getEnd(); i++) {
+      if (section.getLine(i).isEmpty()) continue;
       n++;
-      if (line.isEmpty()) continue;
-      String split[] = CodeUtils.splitWords(line);
+      String split[] = section.getWords(i);
       if (split.length == 0) continue;
       
       if (split[0].equals("case")) continue;
@@ -0,0 +1,251 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen.pipes;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import builder.codegen.CodeGenException;
+
+/**
+ * The Class ConcurrentPipeline is a workflow whose pipes
+ * prepare their edits at the same time whenever they can.
+ * <p>
+ * Our pipes are split into runs where no pipe reads or writes
+ * a section written by an earlier pipe of the same run.
+ * Every pipe of a run prepares its edit on the fork-join pool
+ * against the same input. Once all are ready the edits are 
+ * spliced in one after another in workflow order. So our output is the same as
+ * running the pipes one at a time, but a run only takes as long 
+ * as its slowest pipe.
+ * </p>
+ * Pipes that don't declare their sections, or are sequential,
+ * always run by themselves.
+ * 
+ * @author Paul Conti
+ *
+ * @param <T>
+ *          the generic type
+ */
+public class ConcurrentPipeline<T> extends Pipeline<T> {
+
+  /**
+   * Instantiates a new concurrent pipeline.
+   *
+   * @param pipes
+   *          the pipes
+   */
+  @SafeVarargs
+  public ConcurrentPipeline(Pipe<T>... pipes) {
+    super(new ArrayList<Pipe<T>>(pipes.length));
+    // copied one by one so our varargs array is never handed on
+    for (Pipe<T> pipe : pipes) {
+      this.pipes.add(pipe);
+    }
+  }
+
+  /**
+   * Process while telling a listener about each step
+   * and measuring each pipe.
+   *
+   * @see builder.codegen.pipes.Pipeline#process(java.lang.Object, builder.codegen.pipes.PipeListener, builder.codegen.pipes.PipeTelemetry)
+   */
+  @Override
+  public T process(T input, PipeListener<T> listener, PipeTelemetry<T> telemetry) 
+      throws CodeGenException {
+    T processed = input;
+    int n = 0;
+    while (n < pipes.size()) {
+      List<SplicePipe<T>> run = nextRun(n);
+      if (run.isEmpty()) {
+        Pipe<T> pipe = pipes.get(n++);
+        if (listener != null) {
+          listener.pipeStarted(pipe);
+        }
+        processed = process(pipe, processed, telemetry);
+      } else {
+        processed = processRun(run, processed, listener, telemetry);
+        n += run.size();
+      }
+    }
+    return processed;
+  }
+
+  /**
+   * nextRun collects the pipes starting at n that can prepare
+   * their edits at the same time.
+   *
+   * @param n
+   *          the first pipe of our run
+   * @return the run, empty if pipe n must run by itself
+   */
+  @SuppressWarnings("unchecked")
+  private List<SplicePipe<T>> nextRun(int n) {
+    List<SplicePipe<T>> run = new ArrayList<SplicePipe<T>>();
+    Set<String> written = new HashSet<String>();
+    for (int i=n; i<pipes.size(); i++) {
+      if (!(pipes.get(i) instanceof SplicePipe)) break;
+      SplicePipe<T> pipe = (SplicePipe<T>) pipes.get(i);
+      if (pipe.isSequential()) break;
+      if (overlaps(pipe.getReads(), written) || overlaps(pipe.getWrites(), written)) break;
+      written.addAll(pipe.getWrites());
+      run.add(pipe);
+    }
+    return run;
+  }
+
+  /**
+   * overlaps.
+   *
+   * @param tags
+   *          the tags
+   * @param written
+   *          the tags written so far
+   * @return <code>true</code>, if any of our tags have been written
+   */
+  private boolean overlaps(List<String> tags, Set<String> written) {
+    for (String tag : tags) {
+      if (written.contains(tag)) return true;
+    }
+    return false;
+  }
+
+  /**
+   * processRun prepares the edits of a run of pipes 
+   * on the fork-join pool and once they are all ready 
+   * splices them in workflow order.
+   *
+   * @param run
+   *          the pipes
+   * @param input
+   *          the input
+   * @param listener
+   *          the listener, or <code>null</code>
+   * @param telemetry
+   *          the telemetry, or <code>null</code>
+   * @return the processed input
+   * @throws CodeGenException
+   *           the code generation exception
+   */
+  private T processRun(List<SplicePipe<T>> run, T input, PipeListener<T> listener, 
+      PipeTelemetry<T> telemetry) throws CodeGenException {
+    T processed = input;
+    if (run.size() < 2 || ForkJoinPool.getCommonPoolParallelism() < 2) {
+      for (SplicePipe<T> pipe : run) {
+        if (listener != null) {
+          listener.pipeStarted(pipe);
+        }
+        processed = process(pipe, processed, telemetry);
+      }
+      return processed;
+    }
+    List<ForkJoinTask<Splice<T>>> tasks = new ArrayList<ForkJoinTask<Splice<T>>>();
+    List<PipeTelemetry.Probe> probes = new ArrayList<PipeTelemetry.Probe>();
+    for (SplicePipe<T> pipe : run) {
+      PipeTelemetry.Probe probe = (telemetry == null) ? null : telemetry.probe(pipe);
+      probes.add(probe);
+      tasks.add(ForkJoinPool.commonPool().submit(() -> prepare(pipe, input, probe)));
+    }
+    List<Splice<T>> edits = new ArrayList<Splice<T>>();
+    try {
+      for (int i=0; i<run.size(); i++) {
+        if (listener != null) {
+          listener.pipeStarted(run.get(i));
+        }
+        edits.add(tasks.get(i).get());
+      }
+    } catch (ExecutionException e) {
+      cancel(tasks);
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new CodeGenException(e.getCause().toString());
+    } catch (InterruptedException e) {
+      cancel(tasks);
+      Thread.currentThread().interrupt();
+      throw new CodeGenException(e.toString());
+    } catch (RuntimeException e) {
+      cancel(tasks);
+      throw e;
+    }
+    // nothing reads our input any more so now we can edit it
+    for (int i=0; i<edits.size(); i++) {
+      PipeTelemetry.Probe probe = probes.get(i);
+      if (probe == null) {
+        processed = edits.get(i).apply(processed);
+      } else {
+        telemetry.resume(probe, processed);
+        processed = edits.get(i).apply(processed);
+        telemetry.end(probe, processed);
+      }
+    }
+    return processed;
+  }
+
+  /**
+   * prepare the edit of a pipe, measuring it if asked.
+   *
+   * @param pipe
+   *          the pipe
+   * @param input
+   *          the input
+   * @param probe
+   *          the probe, or <code>null</code>
+   * @return the edit
+   * @throws CodeGenException
+   *           the code generation exception
+   */
+  private Splice<T> prepare(SplicePipe<T> pipe, T input, PipeTelemetry.Probe probe) 
+      throws CodeGenException {
+    if (probe == null) {
+      return pipe.prepare(input);
+    }
+    probe.start();
+    try {
+      return pipe.prepare(input);
+    } finally {
+      probe.stop();
+    }
+  }
+
+  /**
+   * cancel any edits still being prepared.
+   *
+   * @param tasks
+   *          the tasks
+   */
+  private void cancel(List<ForkJoinTask<Splice<T>>> tasks) {
+    for (ForkJoinTask<Splice<T>> task : tasks) {
+      task.cancel(true);
+    }
+  }
+
+}
@@ -25,25 +25,20 @@
  */
 package builder.codegen.pipes;
 
-import java.io.ByteArrayInputStream;
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.IOException;
 import java.lang.StringBuilder;
-import java.nio.charset.StandardCharsets;
 
 import java.util.List;
 import java.util.regex.Pattern;
 
+import builder.codegen.CodeDocument;
+import builder.codegen.CodeDocument.LineReader;
 import builder.codegen.CodeGenException;
 import builder.codegen.CodeGenerator;
 import builder.codegen.CodeUtils;
+import builder.codegen.Fingerprint;
 import builder.codegen.Tags;
 import builder.codegen.TemplateManager;
 import builder.common.EnumFactory;
-import builder.models.BoxModel;
-import builder.models.WidgetModel;
 
 /**
  * The Class DrawCbPipe handles code generation
@@ -75,71 +70,54 @@ public class DrawCbPipe extends WorkFlowPipe {
     this.MY_TAG     = Tags.TAG_PREFIX + Tags.DRAWCB_TAG + Tags.TAG_SUFFIX_START;
     this.MY_END_TAG = Tags.TAG_PREFIX + Tags.DRAWCB_TAG + Tags.TAG_SUFFIX_END;
   }
+
+  /**
+   * fingerprint
+   * our section only depends upon these types of widgets.
+   *
+   * @see builder.codegen.pipes.WorkFlowPipe#fingerprint(builder.codegen.Fingerprint)
+   */
+  @Override
+  public void fingerprint(Fingerprint fp) {
+    fp.addModels(cg.getModelIndex().getModels(EnumFactory.BOX));
+  }
   
   /**
-   * process
+   * prepare
    *
-   * For our draw Callback we have this modified process routine.
+   * For our draw Callback we have this modified prepare routine.
    * This version is to support removing the DRAWCB_TAG and DRAWCB_END_TAG
    * once we write out any button callbacks.
    *   
    * NOTE: Notice that we also do not output our end tag by calling
    *       CodeUtils.readPassString(). 
    *
-   * @see builder.codegen.pipes.Pipe#process(java.lang.Object, java.lang.Object)
+   * @see builder.codegen.pipes.SplicePipe#prepare(java.lang.Object)
    */
   @Override
-  public StringBuilder process(StringBuilder input) throws CodeGenException {
-    try {
-      /*
-       * To convert StringBuilder to InputStream in Java, first get bytes
-       * from StringBuilder after converting it into String object.
-       */
-      byte[] bytes = input.toString().getBytes(StandardCharsets.UTF_8);
-      /*
-       * Get ByteArrayInputStream from byte array.
-       */
-      InputStream is = new ByteArrayInputStream(bytes);
-      BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
-      StringBuilder processed = new StringBuilder();
-      String sTestTag= "";
-      while ((line = br.readLine()) != null) {
-        sTestTag = LTRIM.matcher(line).replaceAll(EMPTY_STRING);
-        if (sTestTag.equals(MY_TAG)) {
-          doCallback(br, processed);
-          break;
-        } else {
-          processed.append(line);
-          processed.append(System.lineSeparator());
-        }
-      }
-      CodeUtils.finishUp(br, processed);
-      br.close();
-      return processed;   
-    } catch (IOException e) {
-      throw new CodeGenException(e.toString());
-    }      
+  public Splice<CodeDocument> prepare(CodeDocument doc) throws CodeGenException {
+    int nTag = doc.findTag(MY_TAG);
+    if (nTag < 0) {
+      return NO_CHANGE;
+    }
+    StringBuilder processed = new StringBuilder();
+    LineReader br = doc.reader(nTag+1);
+    doCallback(br, processed);
+    return splice(MY_TAG, 0, br.getPosition() - nTag, processed);
   }
 
   /**
    * doCallback
    * @param br
-   *          the buffered reader of our project template input
+   *          the line reader of our project template input
    * @param sBd
    *          the StringBuilder object containing our project template
-   * @throws IOException
-   *           Signals that an I/O exception has occurred.
    */
-  public void doCallback(BufferedReader br, StringBuilder sBd) throws IOException {
+  public void doCallback(LineReader br, StringBuilder sBd) {
     tm = cg.getTemplateManager();
     
     // search the models for any BOX widget that has a callback.
-    boolean bFoundDrawFunc = false;
-    for (WidgetModel m : cg.getModels()) {
-      if (m.getType().equals(EnumFactory.BOX) && ((BoxModel) m).hasDrawFunc()) {
-        bFoundDrawFunc = true;
-      }
-    }
+    boolean bFoundDrawFunc = !cg.getModelIndex().getCallbacks(Tags.DRAWCB_TAG).isEmpty();
     if (!bFoundDrawFunc) {
       sBd.append(MY_TAG); 
       sBd.append(System.lineSeparator()); 
@@ -32,14 +32,13 @@ import java.util.List;
 import java.util.Map;
 
 import builder.codegen.CodeGenerator;
+import builder.codegen.CodePage;
 import builder.codegen.CodeUtils;
 import builder.codegen.Tags;
 import builder.codegen.TemplateManager;
 import builder.common.EnumFactory;
 import builder.models.ListBoxModel;
 import builder.models.TextBoxModel;
-import builder.models.WidgetModel;
-import builder.views.PagePane;
 import builder.widgets.Widget;
 
 /**
@@ -95,21 +94,13 @@ public class ElementPipe extends WorkFlowPipe {
     Map<String, String> map = new HashMap<String,String>();
     // figure out the MAX_PAGE define
     int nPages = 0;
-    for (PagePane p : cg.getPages()) {
+    for (CodePage p : cg.getPages()) {
       if (!p.getPageType().equals(EnumFactory.PROJECT))
         nPages++;
     }
     // we have hidden pages if users are referencing virtual keypads
-    boolean bAddNumKeyPad = false;
-    boolean bAddAlphaKeyPad = false;
-    for (WidgetModel m : cg.getModels()) {
-      if (m.getType().equals(EnumFactory.NUMINPUT)) {
-        bAddNumKeyPad = true;
-      }
-      if (m.getType().equals(EnumFactory.TEXTINPUT)) {
-        bAddAlphaKeyPad = true;
-      }
-    }
+    boolean bAddNumKeyPad = cg.getModelIndex().hasType(EnumFactory.NUMINPUT);
+    boolean bAddAlphaKeyPad = cg.getModelIndex().hasType(EnumFactory.TEXTINPUT);
     if (bAddNumKeyPad) nPages++;
     if (bAddAlphaKeyPad) nPages++;
     // output number of pages
@@ -117,15 +108,14 @@ public class ElementPipe extends WorkFlowPipe {
     map.put(NAME_MACRO, "MAX_PAGE");
     map.put(COUNT_MACRO, String.valueOf(nPages));
     templateLines = tm.loadTemplate(MAX_PAGE_TEMPLATE);
-    outputLines = tm.expandMacros(templateLines, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, templateLines, map);
     
     // build up a list of counts for out various UI widgets
     // Be sure and count _P functions stored in flash
     boolean bFirstFlash = true;  // this allows us to output progmem warning
     int elem_cnt = 0;
     int flash_cnt = 0;
-    for (PagePane p : cg.getPages()) {
+    for (CodePage p : cg.getPages()) {
       if (p.getPageType().equals(EnumFactory.PROJECT))
         continue;
       flash_cnt = 0;
@@ -151,16 +141,14 @@ public class ElementPipe extends WorkFlowPipe {
       map.put(COUNT_MACRO, String.valueOf(elem_cnt));
       map.put(FLASH_MACRO, String.valueOf(flash_cnt));
       templateLines = tm.loadTemplate(DEFINE_ELEM_PAGE_TEMPLATE);
-      outputLines = tm.expandMacros(templateLines, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, templateLines, map);
       
       if (flash_cnt > 0) {
         templateLines = tm.loadTemplate(DEFINE_ELEM_RAM_P_TEMPLATE);
       } else {
         templateLines = tm.loadTemplate(DEFINE_ELEM_RAM_TEMPLATE);
       }
-      outputLines = tm.expandMacros(templateLines, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, templateLines, map);
     }
       
   }
@@ -30,20 +30,18 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import builder.Builder;
 import builder.codegen.CodeGenerator;
+import builder.codegen.CodePage;
 import builder.codegen.CodeUtils;
 import builder.codegen.Tags;
 import builder.codegen.TemplateManager;
 import builder.common.EnumFactory;
-import builder.controller.Controller;
 import builder.fonts.FontFactory;
 import builder.models.KeyPadModel;
 import builder.models.KeyPadTextModel;
 import builder.models.ProjectModel;
 import builder.models.WidgetModel;
-import builder.prefs.AlphaKeyPadEditor;
-import builder.prefs.NumKeyPadEditor;
-import builder.views.PagePane;
 
 /**
  * The Class EnumPipe handles code generation
@@ -56,8 +54,20 @@ import builder.views.PagePane;
  */
 public class EnumPipe extends WorkFlowPipe {
   
+  /** The Constants for the most GUIslice can hold, it counts 
+   *  pages and fonts with a uint8_t and keeps ids as int16_t. */
+  private final static int MAX_PAGES = 255;
+  private final static int MAX_FONTS = 255;
+  private final static int MAX_IDS   = 32767;
+
+  /** The Constant for the most values a uint8_t enum can hold. */
+  private final static int MAX_UINT8_ENUMS = 256;
+
   /** The template manager. */
   TemplateManager tm = null;
+
+  /** <code>true</code> if our enums get the smallest type holding them. */
+  boolean bNarrow = false;
   
   /**
    * Instantiates a new pipe.
@@ -79,24 +89,19 @@ public class EnumPipe extends WorkFlowPipe {
   @Override
   public void doCodeGen(StringBuilder sBd) {
     // first find our Page enums and output them
-    ProjectModel pm = Controller.getProjectModel();
+    ProjectModel pm = cg.getProjectModel();
     FontFactory ff = FontFactory.getInstance();
+    // linux projects are C which can't give an enum a type
+    bNarrow = pm.isNarrowEnums() 
+        && !pm.getTargetPlatform().equals(ProjectModel.PLATFORM_LINUX);
     List<String> enumList = new ArrayList<String>();
-    for (PagePane p : cg.getPages()) {
+    for (CodePage p : cg.getPages()) {
       if (!p.getPageType().equals(EnumFactory.PROJECT))
         enumList.add(p.getEnum());
     }
     // now handle any keypads
-    boolean bAddNumKeyPad = false;
-    boolean bAddAlphaKeyPad = false;
-    for (WidgetModel m : cg.getModels()) {
-      if (m.getType().equals(EnumFactory.NUMINPUT)) {
-        bAddNumKeyPad = true;
-      }
-      if (m.getType().equals(EnumFactory.TEXTINPUT)) {
-        bAddAlphaKeyPad = true;
-      }
-    }
+    boolean bAddNumKeyPad = cg.getModelIndex().hasType(EnumFactory.NUMINPUT);
+    boolean bAddAlphaKeyPad = cg.getModelIndex().hasType(EnumFactory.TEXTINPUT);
     if (bAddNumKeyPad) {
       enumList.add(EnumFactory.KEYPAD_PAGE_ENUM);
     }
@@ -105,7 +110,8 @@ public class EnumPipe extends WorkFlowPipe {
     }
     // now output all page enums    
     tm = cg.getTemplateManager();
-    tm.codeWriterEnums(sBd, enumList);
+    checkRange("pages", enumList.size(), MAX_PAGES);
+    tm.codeWriterEnums(sBd, enumList, enumType(enumList));
     
     // Now build up a list of our remaining UI widget enums
     enumList.clear();
@@ -131,7 +137,8 @@ public class EnumPipe extends WorkFlowPipe {
     }
     if (enumList.size() > 0) {
       // Now output the UI widgets enum list
-      tm.codeWriterEnums(sBd, enumList);
+      checkRange("element ids", enumList.size() - 1, MAX_IDS);
+      tm.codeWriterEnums(sBd, enumList, enumType(enumList));
     }
     // next pass output any group enums
     enumList.clear();
@@ -145,27 +152,27 @@ public class EnumPipe extends WorkFlowPipe {
       // sort the names and remove duplicates
       CodeUtils.sortListandRemoveDups(enumList);
       // Now output the list of group enums
-      tm.codeWriterEnums(sBd, enumList);
+      tm.codeWriterEnums(sBd, enumList, enumType(enumList));
     }
     // Final pass output any font enums
     enumList.clear();
     // Start with keyboard fonts - bug 126 missing keyboard font
     // place any keypads at end
     if (bAddNumKeyPad) {
-      KeyPadModel m = (KeyPadModel)NumKeyPadEditor.getInstance().getModel();
+      KeyPadModel m = cg.getNumKeyPadModel();
       name = m.getFontEnum();
       if (name != null)
         enumList.add(name);
     }
     if (bAddAlphaKeyPad) {
-      KeyPadTextModel m = (KeyPadTextModel)AlphaKeyPadEditor.getInstance().getModel();
+      KeyPadTextModel m = cg.getAlphaKeyPadModel();
       name = m.getFontEnum();
       if (name != null)
         enumList.add(name);
     }
 
-    for (WidgetModel m : cg.getModels()) {
-      name = m.getFontEnum();
+    for (String fontName : cg.getModelIndex().getFonts()) {
+      name = ff.getFontEnum(fontName);
       if (name != null)
         enumList.add(name);
     }
@@ -179,12 +186,44 @@ public class EnumPipe extends WorkFlowPipe {
     }
     // sort the names and remove duplicates
     CodeUtils.sortListandRemoveDups(enumList);
+    checkRange("fonts", enumList.size(), MAX_FONTS);
     // add our MAX_FONT enum so we can use gslc_FontSet instead of gslc_FontAdd
     enumList.add("MAX_FONT");
     sBd.append("// Must use separate enum for fonts with MAX_FONT at end to use gslc_FontSet.");
     sBd.append(System.lineSeparator());
     // Now output the font list of enums
-    tm.codeWriterEnums(sBd, enumList);
+    tm.codeWriterEnums(sBd, enumList, enumType(enumList));
+  }
+
+  /**
+   * enumType.
+   *
+   * @param enumList
+   *          the enum list, numbered from zero
+   * @return the smallest type holding every value of our list, 
+   *         or <code>null</code> to leave it an int
+   */
+  private String enumType(List<String> enumList) {
+    if (!bNarrow) return null;
+    return (enumList.size() <= MAX_UINT8_ENUMS) ? "uint8_t" : "uint16_t";
+  }
+
+  /**
+   * checkRange warns should our project need more of something 
+   * than GUIslice can hold.
+   *
+   * @param what
+   *          what we are counting
+   * @param nCount
+   *          the count
+   * @param nMax
+   *          the most GUIslice can hold
+   */
+  private void checkRange(String what, int nCount, int nMax) {
+    if (nCount > nMax) {
+      Builder.logger.warning("Project has " + nCount + " " + what 
+          + " but GUIslice can only hold " + nMax);
+    }
   }
 
 }
@@ -40,14 +40,11 @@ import builder.codegen.Tags;
 import builder.codegen.TemplateManager;
 import builder.common.Utils;
 import builder.common.EnumFactory;
-import builder.controller.Controller;
 import builder.fonts.FontFactory;
 import builder.models.KeyPadModel;
 import builder.models.KeyPadTextModel;
 import builder.models.ProjectModel;
 import builder.models.WidgetModel;
-import builder.prefs.AlphaKeyPadEditor;
-import builder.prefs.NumKeyPadEditor;
 
 // TODO: Auto-generated Javadoc
 /**
@@ -91,7 +88,7 @@ public class ExternRefPipe extends WorkFlowPipe {
   @Override
   public void doCodeGen(StringBuilder sBd) {
     // setup
-    ProjectModel pm = Controller.getProjectModel();
+    ProjectModel pm = cg.getProjectModel();
     FontFactory ff = FontFactory.getInstance();
 
     // scan our widget models for element references and build a list of them
@@ -106,7 +103,6 @@ public class ExternRefPipe extends WorkFlowPipe {
     // now output any we found
     tm = cg.getTemplateManager();
     List<String> template = null;
-    List<String> outputLines = null;
     Map<String, String> map = new HashMap<>();
     if (refList.size() > 0) {
       // Now we have a full list of references we can sort the list.
@@ -115,65 +111,47 @@ public class ExternRefPipe extends WorkFlowPipe {
       template = tm.loadTemplate(ELEMENTREF_EXTERN_TEMPLATE);
       for (String s : refList) {
         map.put(ELEMREF_MACRO, s);
-        outputLines = tm.expandMacros(template, map);
-        tm.codeWriter(sBd, outputLines);
+        tm.expandMacros(sBd, template, map);
       }
     }
 
     // we have hidden cg.getPages() if users are referencing virtual keypads
-    boolean bAddNumKeyPad = false;
-    boolean bAddAlphaKeyPad = false;
-    for (WidgetModel m : cg.getModels()) {
-      if (m.getType().equals(EnumFactory.NUMINPUT)) {
-        bAddNumKeyPad = true;
-      }
-      if (m.getType().equals(EnumFactory.TEXTINPUT)) {
-        bAddAlphaKeyPad = true;
-      }
-    }
+    boolean bAddNumKeyPad = cg.getModelIndex().hasType(EnumFactory.NUMINPUT);
+    boolean bAddAlphaKeyPad = cg.getModelIndex().hasType(EnumFactory.TEXTINPUT);
     if (bAddNumKeyPad) {
       template = tm.loadTemplate(ELEMENTREF_EXTERN_TEMPLATE);
       map.clear();
       map.put(ELEMREF_MACRO, EnumFactory.KEYPAD_ELEMREF);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     if (bAddAlphaKeyPad) {
       template = tm.loadTemplate(ELEMENTREF_EXTERN_TEMPLATE);
       map.clear();
       map.put(ELEMREF_MACRO, EnumFactory.ALPHAKEYPAD_ELEMREF);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     
     // Now add any extern's for UTFT fonts, if any
-    String target = Controller.getTargetPlatform();
+    String target = cg.getProjectModel().getTargetPlatform();
     if (target.equals(ProjectModel.PLATFORM_UTFT)) {
       // scan thru all of the projects widgets and
       // build up a list of all font display names.
       List<String> fontNames = new ArrayList<String>();
       String name = null;
       int nErrors = 0;
-      for (WidgetModel m : cg.getModels()) {
-        name = m.getFontDisplayName();
-        if (name != null) {
-          if (ff.getFont(name) == null) {
-            Builder.logger.error("widget: " +  m.getEnum() + " refers to missing font=" + name);
+      for (String fontName : cg.getModelIndex().getFonts()) {
+        if (ff.getFont(fontName) == null) {
+          for (WidgetModel m : cg.getModelIndex().getFontModels(fontName)) {
+            Builder.logger.error("widget: " +  m.getEnum() + " refers to missing font=" + fontName);
             nErrors++;
           }
-          fontNames.add(name);
-        }
-        if (m.getType().equals(EnumFactory.NUMINPUT)) {
-          bAddNumKeyPad = true;
-        }
-        if (m.getType().equals(EnumFactory.TEXTINPUT)) {
-          bAddAlphaKeyPad = true;
         }
+        fontNames.add(fontName);
       }
       // End with keyboard fonts - bug 144 missing keyboard font #include
       // place any keypads at end
       if (bAddNumKeyPad) {
-        KeyPadModel m = (KeyPadModel)NumKeyPadEditor.getInstance().getModel();
+        KeyPadModel m = cg.getNumKeyPadModel();
         name = m.getFontDisplayName();
         if (name != null) {
           if (ff.getFont(name) != null) {
@@ -193,7 +171,7 @@ public class ExternRefPipe extends WorkFlowPipe {
         }
       }
       if (bAddAlphaKeyPad) {
-        KeyPadTextModel m = (KeyPadTextModel)AlphaKeyPadEditor.getInstance().getModel();
+        KeyPadTextModel m = cg.getAlphaKeyPadModel();
         name = m.getFontDisplayName();
         if (name != null) {
           if (ff.getFont(name) != null) {
@@ -241,8 +219,7 @@ public class ExternRefPipe extends WorkFlowPipe {
       for (String s : fontNames) {
         map.clear();
         map.put(UTFT_MACRO, s);
-        outputLines = tm.expandMacros(template, map);
-        tm.codeWriter(sBd, outputLines);
+        tm.expandMacros(sBd, template, map);
         
       }
     }
@@ -31,18 +31,18 @@ import java.util.List;
 import java.util.Map;
 
 import builder.codegen.CodeGenerator;
+import builder.codegen.CodePage;
 import builder.codegen.CodeUtils;
+import builder.codegen.StringPool;
 import builder.codegen.Tags;
 import builder.codegen.TemplateManager;
 import builder.common.EnumFactory;
-import builder.controller.Controller;
 import builder.models.GraphModel;
 import builder.models.ImgButtonModel;
 import builder.models.ListBoxModel;
 import builder.models.ProjectModel;
 import builder.models.TextBoxModel;
 import builder.models.WidgetModel;
-import builder.views.PagePane;
 
 /**
  * The Class ExtraElementPipe handles code generation
@@ -61,6 +61,8 @@ public class ExtraElementPipe extends WorkFlowPipe {
   private final static String KEYPAD_ELEM_NUM_TEMPLATE   = "<KEYPAD_ELEM_NUM>";
   private final static String KEYPAD_ELEM_TEXT_TEMPLATE  = "<KEYPAD_ELEM_TEXT>";
   private final static String KEYPAD_PAGE_TEMPLATE       = "<KEYPAD_PAGE>";
+  private final static String STRING_POOL_TEMPLATE       = "<STRING_POOL>";
+  private final static String STRING_POOL_COPY_TEMPLATE  = "<STRING_POOL_COPY>";
   
   /** The Constants for macros. */
   private final static String STORAGE_MACRO          = "STORAGE";
@@ -92,55 +94,41 @@ public class ExtraElementPipe extends WorkFlowPipe {
   public void doCodeGen(StringBuilder sBd) {
     tm = cg.getTemplateManager();
     List<String> templateLines = tm.loadTemplate(GUI_ELEMENT_TEMPLATE);
-    List<String> outputLines = null;
     Map<String, String> map = new HashMap<String,String>();
-    for (PagePane p : cg.getPages()) {
+    for (CodePage p : cg.getPages()) {
       if (p.getPageType().equals(EnumFactory.PROJECT))
         continue;
       map.clear();
       map.put(STRIP_KEY_MACRO, CodeUtils.convertKey(p.getKey()));
       map.put(STRIP_ENUM_MACRO, CodeUtils.convertEnum(p.getEnum()));
-      outputLines = tm.expandMacros(templateLines, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, templateLines, map);
     }
     // we have hidden cg.getPages() if users are referencing virtual keypads
-    boolean bAddNumKeyPad = false;
-    boolean bAddAlphaKeyPad = false;
-    for (WidgetModel m : cg.getModels()) {
-      if (m.getType().equals(EnumFactory.NUMINPUT)) {
-        bAddNumKeyPad = true;
-      }
-      if (m.getType().equals(EnumFactory.TEXTINPUT)) {
-        bAddAlphaKeyPad = true;
-      }
-    }
+    boolean bAddNumKeyPad = cg.getModelIndex().hasType(EnumFactory.NUMINPUT);
+    boolean bAddAlphaKeyPad = cg.getModelIndex().hasType(EnumFactory.TEXTINPUT);
     if (bAddNumKeyPad) {
       templateLines = tm.loadTemplate(KEYPAD_PAGE_TEMPLATE);
       map.clear();
       map.put(STORAGE_MACRO, EnumFactory.KEYPAD_PAGE_STORAGE);
-      outputLines = tm.expandMacros(templateLines, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, templateLines, map);
    }
     if (bAddAlphaKeyPad) {
       templateLines = tm.loadTemplate(KEYPAD_PAGE_TEMPLATE);
       map.clear();
       map.put(STORAGE_MACRO, EnumFactory.ALPHAKEYPAD_PAGE_STORAGE);
-      outputLines = tm.expandMacros(templateLines, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, templateLines, map);
     }
     if (bAddNumKeyPad) {
       templateLines = tm.loadTemplate(KEYPAD_ELEM_NUM_TEMPLATE);
       map.clear();
       map.put(STORAGE_MACRO, EnumFactory.KEYPAD_ELEM_STORAGE);
-      outputLines = tm.expandMacros(templateLines, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, templateLines, map);
     }
     if (bAddAlphaKeyPad) {
       templateLines = tm.loadTemplate(KEYPAD_ELEM_TEXT_TEMPLATE);
       map.clear();
       map.put(STORAGE_MACRO, EnumFactory.ALPHAKEYPAD_ELEM_STORAGE);
-      outputLines = tm.expandMacros(templateLines, map);
-      tm.codeWriter(sBd, (outputLines));
+      tm.expandMacros(sBd, templateLines, map);
     }
 
     /*
@@ -294,12 +282,50 @@ public class ExtraElementPipe extends WorkFlowPipe {
       } 
     }
     // output MAX String size
-    ProjectModel pm = Controller.getProjectModel();
+    ProjectModel pm = cg.getProjectModel();
     strElement = "MAX_STR";
     sBd.append(System.lineSeparator());
     sBd.append(String.format("#define %-24s%d", strElement, pm.getMaxStr()));
     sBd.append(System.lineSeparator());
     sBd.append(System.lineSeparator());
+    StringPool pool = cg.getStringPool();
+    if (pool != null && !pool.isEmpty()) {
+      doStringPool(sBd, pool);
+    }
+  }
+
+  /**
+   * doStringPool outputs our table of pooled text along with
+   * the symbolic name and offset of each string within it.
+   *
+   * @param sBd
+   *          the StringBuilder object containing our project template
+   * @param pool
+   *          the string pool
+   */
+  private void doStringPool(StringBuilder sBd, StringPool pool) {
+    tm.codeWriter(sBd, tm.loadTemplate(STRING_POOL_TEMPLATE));
+    List<String> table = pool.getTable();
+    for (int i=0; i<table.size(); i++) {
+      sBd.append(String.format("  \"%s\\0\"%s", pool.getLiteral(table.get(i)), 
+          (i == table.size()-1) ? ";" : ""));
+      sBd.append(System.lineSeparator());
+    }
+    sBd.append(String.format("// - %d bytes, %d saved by sharing", pool.getSize(), pool.getSaved()));
+    sBd.append(System.lineSeparator());
+    for (String name : pool.getNames()) {
+      String literal = pool.getLiteral(name);
+      sBd.append(String.format("#define %-24s(%s+%d)", name, StringPool.POOL_NAME, pool.getOffset(name)));
+      // a trailing backslash would continue our comment onto the next line
+      if (!literal.endsWith("\\")) {
+        sBd.append(String.format(" // \"%s\"", literal));
+      }
+      sBd.append(System.lineSeparator());
+    }
+    if (pool.hasItems()) {
+      tm.codeWriter(sBd, tm.loadTemplate(STRING_POOL_COPY_TEMPLATE));
+    }
+    sBd.append(System.lineSeparator());
   }
 
 }
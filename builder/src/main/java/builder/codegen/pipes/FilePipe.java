@@ -25,22 +25,16 @@
  */
 package builder.codegen.pipes;
 
-import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.lang.StringBuilder;
-import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
 
 import builder.Builder;
+import builder.codegen.CodeDocument;
 import builder.codegen.CodeGenException;
 import builder.codegen.CodeGenerator;
-import builder.codegen.CodeUtils;
+import builder.codegen.Fingerprint;
 import builder.codegen.Tags;
 import builder.codegen.TemplateManager;
 
@@ -62,8 +56,6 @@ public class FilePipe extends WorkFlowPipe {
   /** The Constants for macros */
   private final static String FILENAME_MACRO             = "FILENAME";
   private final static String VERSION_MACRO              = "VERSION";
-  private final static Pattern LTRIM = Pattern.compile("^\\s+");
-  private final static String EMPTY_STRING = "";
 
   /**
    * Instantiates a new pipe.
@@ -76,43 +68,29 @@ public class FilePipe extends WorkFlowPipe {
     this.MY_TAG = Tags.TAG_PREFIX+Tags.FILE_TAG+Tags.TAG_SUFFIX_START;
     this.MY_END_TAG = Tags.TAG_PREFIX+Tags.FILE_TAG+Tags.TAG_SUFFIX_END;
   }
+
+  /**
+   * fingerprint
+   * our section depends upon nothing beyond our file name and version.
+   *
+   * @see builder.codegen.pipes.WorkFlowPipe#fingerprint(builder.codegen.Fingerprint)
+   */
+  @Override
+  public void fingerprint(Fingerprint fp) {
+  }
   
   /**
-   * process
+   * prepare
    *
-   * @see builder.codegen.pipes.Pipe#process(java.lang.Object, java.lang.Object)
+   * @see builder.codegen.pipes.SplicePipe#prepare(java.lang.Object)
    */
-  public StringBuilder process(StringBuilder input) throws CodeGenException {
-    try {
-      /*
-       * To convert StringBuilder to InputStream in Java, first get bytes
-       * from StringBuilder after converting it into String object.
-       */
-      byte[] bytes = input.toString().getBytes(StandardCharsets.UTF_8);
-      /*
-       * Get ByteArrayInputStream from byte array.
-       */
-      InputStream is = new ByteArrayInputStream(bytes);
-      BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
-      StringBuilder processed = new StringBuilder();
-      String sTestTag= "";
-      line = br.readLine();
-      sTestTag = LTRIM.matcher(line).replaceAll(EMPTY_STRING);
-      // do we need to upgrade from earlier beta versions?
-      if (sTestTag.equals(MY_TAG)) {
-        processed.append(line);
-        processed.append(System.lineSeparator());
-        doCodeGen(processed);
-        CodeUtils.findTag(br, processed, MY_END_TAG);
-      } else {
-        throw new CodeGenException("file: " + cg.getTemplateName() + "\n is corrupted missing tag:" + MY_TAG);
-      }
-      CodeUtils.finishUp(br, processed);
-      br.close();
-      return processed;   
-    } catch (IOException e) {
-      throw new CodeGenException(e.toString());
-    }      
+  public Splice<CodeDocument> prepare(CodeDocument doc) throws CodeGenException {
+    // do we need to upgrade from earlier beta versions?
+    if (doc.size() > 0 && CodeDocument.ltrim(doc.getLine(0)).equals(MY_TAG)) {
+      return prepareRegion(doc, 0);
+    } else {
+      throw new CodeGenException("file: " + cg.getTemplateName() + "\n is corrupted missing tag:" + MY_TAG);
+    }
   }
 
   /**
@@ -126,15 +104,11 @@ public class FilePipe extends WorkFlowPipe {
     List<String> templateLines = null;
     String sFileName = cg.getOutputName();
     templateLines = tm.loadTemplate(FILE_HDR_TEMPLATE);
-    List<String> outputLines = null;
     Map<String, String> map = new HashMap<String,String>();
     map.put(FILENAME_MACRO, sFileName);
     map.put(VERSION_MACRO, Builder.VERSION);
-    outputLines = tm.expandMacros(templateLines, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, templateLines, map);
 
-    templateLines.clear();
-    outputLines.clear();
     map.clear();
   }
 
@@ -35,16 +35,12 @@ import builder.codegen.CodeGenerator;
 import builder.codegen.CodeUtils;
 import builder.codegen.Tags;
 import builder.codegen.TemplateManager;
-import builder.controller.Controller;
 import builder.fonts.FontFactory;
 import builder.fonts.FontItem;
 import builder.common.EnumFactory;
 import builder.models.KeyPadModel;
 import builder.models.KeyPadTextModel;
 import builder.models.ProjectModel;
-import builder.models.WidgetModel;
-import builder.prefs.AlphaKeyPadEditor;
-import builder.prefs.NumKeyPadEditor;
 
 /**
  * The Class FontLoadPipe handles code generation
@@ -91,30 +87,24 @@ public class FontLoadPipe extends WorkFlowPipe {
   @Override
   public void doCodeGen(StringBuilder sBd) {
     // setup
-    ProjectModel pm = Controller.getProjectModel();
+    ProjectModel pm = cg.getProjectModel();
     FontFactory ff = FontFactory.getInstance();
     
     // create a list of font enums in use by this project.
     // has to be created the same way as EnumPipe or the gslc_FontSet will be off.
     List<String> fontList = new ArrayList<String>();
     String name = null;
-    boolean bAddNumKeyPad = false;
-    boolean bAddAlphaKeyPad = false;
-    for (WidgetModel m : cg.getModels()) {
-      name = m.getFontEnum();
+    boolean bAddNumKeyPad = cg.getModelIndex().hasType(EnumFactory.NUMINPUT);
+    boolean bAddAlphaKeyPad = cg.getModelIndex().hasType(EnumFactory.TEXTINPUT);
+    for (String fontName : cg.getModelIndex().getFonts()) {
+      name = ff.getFontEnum(fontName);
       if (name != null)
         fontList.add(name);
-      if (m.getType().equals(EnumFactory.NUMINPUT)) {
-        bAddNumKeyPad = true;
-      }
-      if (m.getType().equals(EnumFactory.TEXTINPUT)) {
-        bAddAlphaKeyPad = true;
-      }
     }
     // End with keyboard fonts - bug 126 missing keyboard font
     // place any keypads at end
     if (bAddNumKeyPad) {
-      KeyPadModel m = (KeyPadModel)NumKeyPadEditor.getInstance().getModel();
+      KeyPadModel m = cg.getNumKeyPadModel();
       name = m.getFontDisplayName();
       if (name != null) {
         if (ff.getFont(name) != null) {
@@ -129,7 +119,7 @@ public class FontLoadPipe extends WorkFlowPipe {
       }
     }
     if (bAddAlphaKeyPad) {
-      KeyPadTextModel m = (KeyPadTextModel)AlphaKeyPadEditor.getInstance().getModel();
+      KeyPadTextModel m = cg.getAlphaKeyPadModel();
       name = m.getFontDisplayName();
       if (name != null) {
         if (ff.getFont(name) != null) {
@@ -157,7 +147,6 @@ public class FontLoadPipe extends WorkFlowPipe {
     tm = cg.getTemplateManager();
     List<String> load_template = tm.loadTemplate(FONT_LOAD_TEMPLATE);;
     List<String> mode_template = tm.loadTemplate(FONT_MODE_TEMPLATE);;
-    List<String> outputLines = null;
     Map<String, String> map = new HashMap<String,String>();
     FontItem font = null;
     for (String fontEnum : fontList) {
@@ -174,11 +163,9 @@ public class FontLoadPipe extends WorkFlowPipe {
       map.put(FONT_REF_MACRO, font.getFontRef());
       map.put(FONT_SZ_MACRO, font.getFontSz());
       map.put(FONT_MODE_MACRO, font.getFontRefMode());
-      outputLines = tm.expandMacros(load_template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, load_template, map);
       if (!font.getFontRefMode().equals("NULL")) {
-        outputLines = tm.expandMacros(mode_template, map);
-        tm.codeWriter(sBd, outputLines);
+        tm.expandMacros(sBd, mode_template, map);
       }
     }
 
@@ -26,19 +26,23 @@
 package builder.codegen.pipes;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.StringBuilder;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import builder.Builder;
 import builder.codegen.CodeGenException;
 import builder.codegen.CodeGenerator;
 import builder.codegen.CodeUtils;
+import builder.codegen.FontManifest;
+import builder.codegen.FontSubset;
 import builder.codegen.Tags;
 import builder.codegen.TemplateManager;
-import builder.controller.Controller;
 import builder.fonts.BuilderFonts;
 //import builder.fonts.FontCategory;
 import builder.fonts.FontFactory;
@@ -51,8 +55,6 @@ import builder.models.KeyPadModel;
 import builder.models.KeyPadTextModel;
 import builder.models.ProjectModel;
 import builder.models.WidgetModel;
-import builder.prefs.AlphaKeyPadEditor;
-import builder.prefs.NumKeyPadEditor;
 
 /**
  * The Class FontsPipe handles code generation
@@ -92,6 +94,18 @@ public class FontsPipe extends WorkFlowPipe {
     this.MY_END_TAG = Tags.TAG_PREFIX+Tags.FONTS_TAG+Tags.TAG_SUFFIX_END;
   }
   
+  /**
+   * isSequential
+   * we copy, write and delete files inside the user's project
+   * so we never run alongside other pipes.
+   *
+   * @see builder.codegen.pipes.SplicePipe#isSequential()
+   */
+  @Override
+  public boolean isSequential() {
+    return true;
+  }
+
   /**
    * doCodeGen
    *
@@ -99,7 +113,7 @@ public class FontsPipe extends WorkFlowPipe {
    */
   public void doCodeGen(StringBuilder sBd) {
     // setup
-    ProjectModel pm = Controller.getProjectModel();
+    ProjectModel pm = cg.getProjectModel();
     FontFactory ff = FontFactory.getInstance();
     tm = cg.getTemplateManager();
     
@@ -107,29 +121,25 @@ public class FontsPipe extends WorkFlowPipe {
     // build up a list of all font display names.
     List<String> fontNames = new ArrayList<String>();
     String name = null;
-    boolean bAddNumKeyPad = false;
-    boolean bAddAlphaKeyPad = false;
+    boolean bAddNumKeyPad = cg.getModelIndex().hasType(EnumFactory.NUMINPUT);
+    boolean bAddAlphaKeyPad = cg.getModelIndex().hasType(EnumFactory.TEXTINPUT);
+    // fonts whose every glyph we must keep should we subset fonts
+    Set<String> fullFonts = new HashSet<String>();
     int nErrors = 0;
-    for (WidgetModel m : cg.getModels()) {
-      name = m.getFontDisplayName();
-      if (name != null) {
-        if (ff.getFont(name) == null) {
-          Builder.logger.error("widget: " +  m.getEnum() + " refers to missing font=" + name);
+    for (String fontName : cg.getModelIndex().getFonts()) {
+      if (ff.getFont(fontName) == null) {
+        for (WidgetModel m : cg.getModelIndex().getFontModels(fontName)) {
+          Builder.logger.error("widget: " +  m.getEnum() + " refers to missing font=" + fontName);
           nErrors++;
         }
-        fontNames.add(name);
-      }
-      if (m.getType().equals(EnumFactory.NUMINPUT)) {
-        bAddNumKeyPad = true;
-      }
-      if (m.getType().equals(EnumFactory.TEXTINPUT)) {
-        bAddAlphaKeyPad = true;
       }
+      fontNames.add(fontName);
     }
     // End with keyboard fonts - bug 144 missing keyboard font #include
     // place any keypads at end
+    int nWidgetFonts = fontNames.size();
     if (bAddNumKeyPad) {
-      KeyPadModel m = (KeyPadModel)NumKeyPadEditor.getInstance().getModel();
+      KeyPadModel m = cg.getNumKeyPadModel();
       name = m.getFontDisplayName();
       if (name != null) {
         if (ff.getFont(name) != null) {
@@ -149,7 +159,7 @@ public class FontsPipe extends WorkFlowPipe {
       }
     }
     if (bAddAlphaKeyPad) {
-      KeyPadTextModel m = (KeyPadTextModel)AlphaKeyPadEditor.getInstance().getModel();
+      KeyPadTextModel m = cg.getAlphaKeyPadModel();
       name = m.getFontDisplayName();
       if (name != null) {
         if (ff.getFont(name) != null) {
@@ -179,6 +189,7 @@ public class FontsPipe extends WorkFlowPipe {
         }
       }
     }
+    fullFonts.addAll(fontNames.subList(nWidgetFonts, fontNames.size()));
     if (nErrors > 0) {
       String fileName = Utils.getWorkingDir()
           + "logs" 
@@ -202,7 +213,7 @@ public class FontsPipe extends WorkFlowPipe {
       Builder.logger.debug("FontsPipe: "+item.toString());
     }
     
-    String target = Controller.getTargetPlatform();
+    String target = cg.getProjectModel().getTargetPlatform();
     String category;
     List<String> categories = new ArrayList<String>();
     for (FontItem f : fonts) {
@@ -233,7 +244,6 @@ public class FontsPipe extends WorkFlowPipe {
 		List<String> externTemplate = null;
     List<String> includeTemplate = null;
     List<String> defineTemplate = null;
-    List<String> outputLines = null;
     Map<String, String> map = new HashMap<String, String>();
     List<Pair> includesList = new ArrayList<Pair>();
     List<Pair> copyList = new ArrayList<Pair>();
@@ -247,8 +257,17 @@ public class FontsPipe extends WorkFlowPipe {
     if (pm.getTargetPlatform().equals(ProjectModel.PLATFORM_LINUX) ) {
       bCopyFonts = false;
     }
+    Map<String, byte[]> subsets = new HashMap<String, byte[]>();
+    if (pm.isSubsetFonts() && bCopyFonts) {
+      subsets = subsetFonts(fonts, fullFonts);
+    }
     Pair pair = null;
     for (FontItem f : fonts) {
+      if (subsets.containsKey(f.getIncludeFile())) {
+        // our reduced copy goes under its own name
+        includesList.add(new Pair("", FontSubset.subsetName(f.getIncludeFile())));
+        continue;
+      }
       if (!f.getIncludeFile().equals("NULL")) {
         if (!f.isInstalledFont())
           pair = new Pair("", f.getIncludeFile());
@@ -261,14 +280,12 @@ public class FontsPipe extends WorkFlowPipe {
         map.clear();
         map.put(FONT_REF_MACRO, f.getFontRef());
         map.put(DEFINE_FILE_MACRO, f.getDefineFile());
-        outputLines = tm.expandMacros(defineTemplate, map);
-        tm.codeWriter(sBd, outputLines);
+        tm.expandMacros(sBd, defineTemplate, map);
       } else if (!f.getExternName().equals("NULL")) {
         map.clear();
         map.put(EXTERN_MACRO, f.getExternName());
         externTemplate = tm.loadTemplate(FONT_EXTERN_TEMPLATE);
-        outputLines = tm.expandMacros(externTemplate, map);
-        tm.codeWriter(sBd, outputLines);
+        tm.expandMacros(sBd, externTemplate, map);
       }
       if (!f.isInstalledFont() && bCopyFonts) {
         if (!f.getIncludeFile().equals("NULL")) {
@@ -308,24 +325,21 @@ public class FontsPipe extends WorkFlowPipe {
         String s = px.getValue1() + px.getValue2();
         includeTemplate = tm.loadTemplate(FONT_INCLUDE_TEMPLATE);
         map.put(INCLUDE_FILE_MACRO, s);
-        outputLines = tm.expandMacros(includeTemplate, map);
-        tm.codeWriter(sBd, outputLines);
+        tm.expandMacros(sBd, includeTemplate, map);
       }
     }
     File inFile = null;
     File outFile = null;
-    /*
-     * delete any font files we may 
-     * have previously copied
-     */
 		String sHdrPath = cg.getHdrPath();
 		if (sHdrPath == null)
 			sHdrPath = cg.getAppPath();
-    Utils.cleanFolderOfFontHeaders(sHdrPath);
     /* copy font sources for any fonts 
      * not included with the chosen graphics package, 
      * Adafruit_GFX using Google's Noto fonts.
+     * Our font manifest skips any file already up to date.
      */
+    FontManifest manifest = cg.getFontManifest();
+    Set<String> keepList = new HashSet<String>();
     if (copyList.size() > 0 && bCopyFonts) {
       // sort the names and remove duplicates
       CodeUtils.sortPairsRemoveDups(copyList);
@@ -339,8 +353,83 @@ public class FontsPipe extends WorkFlowPipe {
           inFile = new File(sIn);
           outFile = new File(cg.getAppPath()+sOut); 
         }
-        Utils.copyFile(inFile, outFile);
+        try {
+          manifest.sync(inFile, outFile);
+          keepList.add(outFile.getName());
+        } catch (IOException e) {
+          throw new CodeGenException(e.toString());
+        }
+      }
+    }
+    for (Map.Entry<String, byte[]> subset : subsets.entrySet()) {
+      outFile = new File(sHdrPath+FontSubset.subsetName(subset.getKey()));
+      try {
+        manifest.write(subset.getValue(), outFile);
+        keepList.add(outFile.getName());
+      } catch (IOException e) {
+        throw new CodeGenException(e.toString());
+      }
+    }
+    /*
+     * delete any font files we may 
+     * have previously copied but no longer use
+     */
+    Utils.cleanFolderOfFontHeaders(sHdrPath, keepList);
+    manifest.removeUnused();
+  }
+
+  /**
+   * subsetFonts creates reduced copies of any GFX fonts we would otherwise 
+   * copy whole into the user's project, keeping only the glyphs used.
+   *
+   * @param fonts
+   *          the fonts used by our project
+   * @param fullFonts
+   *          the display names of fonts whose every glyph we must keep
+   * @return the contents of each reduced font keyed by its original include file
+   */
+  private Map<String, byte[]> subsetFonts(List<FontItem> fonts, Set<String> fullFonts) {
+    // a font file can back more than one display name so merge their glyphs
+    Map<String, Set<Integer>> usedMap = new HashMap<String, Set<Integer>>();
+    Map<String, FontItem> itemMap = new HashMap<String, FontItem>();
+    for (FontItem f : fonts) {
+      if (f.isInstalledFont() || !f.getIncludeFile().endsWith(".h")
+          || !f.getFileName().endsWith(".h")) continue;
+      String key = f.getIncludeFile();
+      Set<Integer> used = null;
+      if (!fullFonts.contains(f.getDisplayName())) {
+        used = FontSubset.glyphsUsed(cg.getModelIndex().getFontModels(f.getDisplayName()));
+      }
+      if (used == null || (itemMap.containsKey(key) && usedMap.get(key) == null)) {
+        usedMap.put(key, null);
+      } else if (usedMap.containsKey(key)) {
+        usedMap.get(key).addAll(used);
+      } else {
+        usedMap.put(key, used);
+      }
+      itemMap.put(key, f);
+    }
+    Map<String, byte[]> subsets = new HashMap<String, byte[]>();
+    for (String key : usedMap.keySet()) {
+      Set<Integer> used = usedMap.get(key);
+      if (used == null) continue;
+      File file = new File(itemMap.get(key).getFileName());
+      try {
+        FontSubset font = FontSubset.parse(file);
+        if (font == null) {
+          Builder.logger.debug("FontsPipe: can't subset "+file.getName()+", not a GFX font");
+          continue;
+        }
+        byte[] content = font.subset(used, file.getName());
+        if (content == null) continue;
+        subsets.put(key, content);
+        Builder.logger.debug(String.format("FontsPipe: subset %s approx. %d of %d bytes",
+            font.getFontName(), font.getSubsetSize(), font.getSize()));
+      } catch (IOException e) {
+        throw new CodeGenException(e.toString());
       }
     }
+    return subsets;
   }
+
 }
@@ -25,21 +25,18 @@
  */
 package builder.codegen.pipes;
 
-import java.io.ByteArrayInputStream;
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.IOException;
 import java.lang.StringBuilder;
-import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
 
+import builder.codegen.CodeDocument;
+import builder.codegen.CodeDocument.LineReader;
 import builder.codegen.CodeGenException;
 import builder.codegen.CodeGenerator;
 import builder.codegen.CodeUtils;
+import builder.codegen.Fingerprint;
 import builder.codegen.Tags;
 import builder.codegen.TemplateManager;
 
@@ -75,73 +72,56 @@ public class HeaderPipe extends WorkFlowPipe {
     this.MY_TAG     = Tags.TAG_PREFIX + Tags.HEADER_TAG + Tags.TAG_SUFFIX_START;
     this.MY_END_TAG = Tags.TAG_PREFIX + Tags.HEADER_TAG + Tags.TAG_SUFFIX_END;
   }
+
+  /**
+   * fingerprint
+   * our section depends upon nothing beyond our project name.
+   *
+   * @see builder.codegen.pipes.WorkFlowPipe#fingerprint(builder.codegen.Fingerprint)
+   */
+  @Override
+  public void fingerprint(Fingerprint fp) {
+  }
   
   /**
-   * process
+   * prepare
    *
-   * For our tick Callback we have this modified process routine.
+   * For our tick Callback we have this modified prepare routine.
    * This version is to support removing the HEADER_TAG and HEADER_END_TAG
    * once we write out any callbacks.
    *   
    * NOTE: Notice that we also do not output our end tag by calling
    *       CodeUtils.readPassString(). 
    *
-   * @see builder.codegen.pipes.Pipe#process(java.lang.Object, java.lang.Object)
+   * @see builder.codegen.pipes.SplicePipe#prepare(java.lang.Object)
    */
   @Override
-  public StringBuilder process(StringBuilder input) throws CodeGenException {
-    try {
-      /*
-       * To convert StringBuilder to InputStream in Java, first get bytes
-       * from StringBuilder after converting it into String object.
-       */
-      byte[] bytes = input.toString().getBytes(StandardCharsets.UTF_8);
-      /*
-       * Get ByteArrayInputStream from byte array.
-       */
-      InputStream is = new ByteArrayInputStream(bytes);
-      BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
-      StringBuilder processed = new StringBuilder();
-      String sTestTag= "";
-      while ((line = br.readLine()) != null) {
-        sTestTag = LTRIM.matcher(line).replaceAll(EMPTY_STRING);
-        if (sTestTag.equals(MY_TAG)) {
-          doCallback(br, processed);
-          break;
-        } else {
-          processed.append(line);
-          processed.append(System.lineSeparator());
-        }
-      }
-      CodeUtils.finishUp(br, processed);
-      br.close();
-      return processed;   
-    } catch (IOException e) {
-      throw new CodeGenException(e.toString());
-    }      
+  public Splice<CodeDocument> prepare(CodeDocument doc) throws CodeGenException {
+    int nTag = doc.findTag(MY_TAG);
+    if (nTag < 0) {
+      return NO_CHANGE;
+    }
+    StringBuilder processed = new StringBuilder();
+    LineReader br = doc.reader(nTag+1);
+    doCallback(br, processed);
+    return splice(MY_TAG, 0, br.getPosition() - nTag, processed);
   }
 
   /**
    * doCallback
    * @param br
-   *          the buffered reader of our project template input
+   *          the line reader of our project template input
    * @param sBd
    *          the StringBuilder object containing our project template
-   * @throws IOException
-   *           Signals that an I/O exception has occurred.
    */
-  public void doCallback(BufferedReader br, StringBuilder sBd) throws IOException {
+  public void doCallback(LineReader br, StringBuilder sBd) {
     TemplateManager tm = cg.getTemplateManager();
     List<String> templateLines = tm.loadTemplate(HDR_TEMPLATE);
     String sFileName = new String(cg.getProjectName() + CodeGenerator.HEADER_EXT);
-    List<String> outputLines = null;
     Map<String, String> map = new HashMap<String,String>();
     map.put(FILENAME_MACRO, sFileName);
-    outputLines = tm.expandMacros(templateLines, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, templateLines, map);
 
-    templateLines.clear();
-    outputLines.clear();
     map.clear();
 
     // now remove the existing HEADER_END_TAG
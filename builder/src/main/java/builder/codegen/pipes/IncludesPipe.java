@@ -36,7 +36,6 @@ import builder.codegen.CodeUtils;
 import builder.codegen.Tags;
 import builder.codegen.TemplateManager;
 import builder.common.EnumFactory;
-import builder.controller.Controller;
 import builder.models.ImageModel;
 import builder.models.ImgButtonModel;
 import builder.models.ProjectModel;
@@ -88,7 +87,6 @@ public class IncludesPipe extends WorkFlowPipe {
   public void doCodeGen(StringBuilder sBd) {
 
     List<String> template;
-    List<String> outputLines = null;
     tm = cg.getTemplateManager();
     Map<String, String> map = new HashMap<String,String>();
 
@@ -189,13 +187,12 @@ public class IncludesPipe extends WorkFlowPipe {
       template = tm.loadTemplate(ELEM_INCLUDE_TEMPLATE);
       for (String s : headerList) {
         map.put(WIDGET_MACRO, s);
-        outputLines = tm.expandMacros(template, map);
-        tm.codeWriter(sBd, outputLines);
+        tm.expandMacros(sBd, template, map);
       }
     }
     
     // output any warnings required
-    ProjectModel pm = Controller.getProjectModel();
+    ProjectModel pm = cg.getProjectModel();
     if (pm.useBackgroundImage() && 
         pm.getBackgroundMemory().equals(ProjectModel.SRC_SD)) {
       bSD = true;
@@ -0,0 +1,138 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen.pipes;
+
+import java.util.List;
+
+import builder.codegen.CodeDocument;
+import builder.codegen.CodeGenException;
+import builder.codegen.Fingerprint;
+import builder.codegen.SectionFingerprints;
+
+/**
+ * The Class IncrementalPipe wraps one of our workflow pipes so its
+ * section is only generated when something it depends upon has changed.
+ * 
+ * Otherwise the section is left exactly as it sits inside the
+ * existing output file.
+ * 
+ * @author Paul Conti
+ * 
+ */
+public class IncrementalPipe implements SplicePipe<CodeDocument> {
+
+  /** The pipe doing the actual work. */
+  private final WorkFlowPipe pipe;
+
+  /**
+   * Instantiates a new incremental pipe.
+   *
+   * @param pipe
+   *          the pipe to wrap
+   */
+  public IncrementalPipe(WorkFlowPipe pipe) {
+    this.pipe = pipe;
+  }
+
+  /**
+   * getName
+   *
+   * @see builder.codegen.pipes.Pipe#getName()
+   */
+  @Override
+  public String getName() {
+    return pipe.getName();
+  }
+
+  /**
+   * getWrites
+   *
+   * @see builder.codegen.pipes.SplicePipe#getWrites()
+   */
+  @Override
+  public List<String> getWrites() {
+    return pipe.getWrites();
+  }
+
+  /**
+   * getReads
+   *
+   * @see builder.codegen.pipes.SplicePipe#getReads()
+   */
+  @Override
+  public List<String> getReads() {
+    return pipe.getReads();
+  }
+
+  /**
+   * isSequential
+   *
+   * @see builder.codegen.pipes.SplicePipe#isSequential()
+   */
+  @Override
+  public boolean isSequential() {
+    return pipe.isSequential();
+  }
+
+  /**
+   * prepare
+   * checks our section against its fingerprint before
+   * asking our pipe to prepare its edit. The new fingerprint 
+   * is recorded once our edit has been applied.
+   *
+   * @see builder.codegen.pipes.SplicePipe#prepare(java.lang.Object)
+   */
+  @Override
+  public Splice<CodeDocument> prepare(CodeDocument doc) throws CodeGenException {
+    SectionFingerprints fingerprints = pipe.cg.getFingerprints();
+    if (fingerprints == null) {
+      return pipe.prepare(doc);
+    }
+    String key = pipe.cg.getOutputName() + "|" + pipe.getName();
+    /* a file fresh from our templates is always generated in full
+     * since a second pass over our own output may still tidy it up.
+     */
+    if (pipe.cg.isNewFile()) {
+      fingerprints.remove(key);
+      return pipe.prepare(doc);
+    }
+    Fingerprint fp = new Fingerprint();
+    fp.add(pipe.cg.getGlobalFingerprint());
+    pipe.fingerprint(fp);
+    String deps = fp.digest();
+    if (fingerprints.isUnchanged(key, deps, doc)) {
+      return WorkFlowPipe.NO_CHANGE;
+    }
+    Splice<CodeDocument> edit = pipe.prepare(doc);
+    return d -> {
+      d.startTracking();
+      edit.apply(d);
+      fingerprints.record(key, deps, d);
+      return d;
+    };
+  }
+
+}
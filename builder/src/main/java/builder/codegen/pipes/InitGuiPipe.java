@@ -28,11 +28,19 @@ package builder.codegen.pipes;
 import java.awt.Color;
 import java.lang.StringBuilder;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
+import builder.Builder;
+import builder.codegen.CodeDocument;
+import builder.codegen.CodeGenException;
 import builder.codegen.CodeGenerator;
+import builder.codegen.CodePage;
 import builder.codegen.CodeUtils;
 import builder.codegen.Tags;
 import builder.codegen.TemplateManager;
@@ -69,16 +77,12 @@ import builder.codegen.flash.Text_P_CodeBlock;
 import builder.codegen.flash.ToggleButton_P_CodeBlock;
 import builder.codegen.flash.TxtButton_P_CodeBlock;
 import builder.common.EnumFactory;
-import builder.controller.Controller;
 import builder.fonts.FontFactory;
 import builder.models.KeyPadTextModel;
 import builder.models.ProjectModel;
 import builder.models.KeyPadModel;
 import builder.models.WidgetModel;
-import builder.prefs.AlphaKeyPadEditor;
-import builder.prefs.NumKeyPadEditor;
 import builder.themes.GUIsliceThemeFactory;
-import builder.views.PagePane;
 import builder.widgets.Widget;
 
 /**
@@ -136,6 +140,9 @@ public class InitGuiPipe extends WorkFlowPipe {
   /** The template manager. */
   TemplateManager tm = null;
   
+  /** Set when our pages are created on first show inside the InitPages section. */
+  boolean bDeferPages = false;
+  
   /**
    * Instantiates a new pipe.
    *
@@ -148,6 +155,42 @@ public class InitGuiPipe extends WorkFlowPipe {
     this.MY_END_TAG = Tags.TAG_PREFIX+Tags.INITGUI_TAG+Tags.TAG_SUFFIX_END;
   }
   
+  /**
+   * prepare
+   *
+   * Pages can only be created on first show when our document
+   * has an InitPages section to hold their functions, older 
+   * project headers and single file projects don't.
+   *
+   * @see builder.codegen.pipes.WorkFlowPipe#prepare(builder.codegen.CodeDocument)
+   */
+  @Override
+  public Splice<CodeDocument> prepare(CodeDocument doc) throws CodeGenException {
+    bDeferPages = false;
+    if (cg.getProjectModel().isDeferPages()) {
+      bDeferPages = doc.findTag(Tags.TAG_PREFIX+Tags.INITPAGES_TAG+Tags.TAG_SUFFIX_START) >= 0;
+      if (!bDeferPages) {
+        Builder.logger.warning("file: " + cg.getOutputName() 
+          + " has no InitPages section so all pages are created at startup");
+      }
+    }
+    return super.prepare(doc);
+  }
+
+  /**
+   * isDeferred.
+   *
+   * @param p
+   *          the page
+   * @return <code>true</code>, if the page's elements are created 
+   *         on first show when pages are deferred, 
+   *         base pages are always visible so never are
+   */
+  static boolean isDeferred(CodePage p) {
+    return p.getPageType().equals(EnumFactory.PAGE) 
+        || p.getPageType().equals(EnumFactory.POPUP);
+  }
+
   /**
    * doCodeGen
    *
@@ -158,62 +201,49 @@ public class InitGuiPipe extends WorkFlowPipe {
     tm = cg.getTemplateManager();
     FontFactory ff = FontFactory.getInstance();
     List<String> templateLines = tm.loadTemplate(PAGEADD_TEMPLATE);
-    List<String> outputLines = null;
     Map<String, String> map = new HashMap<String,String>();
     String basePageEnum = "";
     String mainPageEnum = "";
     // first output base page, if any
-    for (PagePane p : cg.getPages()) {
+    for (CodePage p : cg.getPages()) {
       if (p.getPageType().equals(EnumFactory.BASEPAGE)) {
         map.clear();
         map.put(PAGE_ENUM_MACRO, p.getEnum());
         map.put(STRIP_KEY_MACRO, CodeUtils.convertKey(p.getKey()));
         map.put(STRIP_ENUM_MACRO, CodeUtils.convertEnum(p.getEnum()));
-        outputLines = tm.expandMacros(templateLines, map);
-        tm.codeWriter(sBd, outputLines);
+        tm.expandMacros(sBd, templateLines, map);
         basePageEnum = p.getEnum();
       }
     }
     // now standard pages
-    for (PagePane p : cg.getPages()) {
+    for (CodePage p : cg.getPages()) {
       if (!p.getPageType().equals(EnumFactory.BASEPAGE) &&
           !p.getPageType().equals(EnumFactory.PROJECT)) {
         map.clear();
         map.put(PAGE_ENUM_MACRO, p.getEnum());
         map.put(STRIP_KEY_MACRO, CodeUtils.convertKey(p.getKey()));
         map.put(STRIP_ENUM_MACRO, CodeUtils.convertEnum(p.getEnum()));
-        outputLines = tm.expandMacros(templateLines, map);
-        tm.codeWriter(sBd, outputLines);
+        tm.expandMacros(sBd, templateLines, map);
         if (p.getKey().equals("Page$1"))
           mainPageEnum = p.getEnum();
       }
     }
     // now handle any keypads
-    boolean bAddNumKeyPad = false;
-    boolean bAddAlphaKeyPad = false;
-    for (WidgetModel m : cg.getModels()) {
-      if (m.getType().equals(EnumFactory.NUMINPUT)) {
-        bAddNumKeyPad = true;
-      }
-      if (m.getType().equals(EnumFactory.TEXTINPUT)) {
-        bAddAlphaKeyPad = true;
-      }
-    }
+    boolean bAddNumKeyPad = cg.getModelIndex().hasType(EnumFactory.NUMINPUT);
+    boolean bAddAlphaKeyPad = cg.getModelIndex().hasType(EnumFactory.TEXTINPUT);
     if (bAddNumKeyPad) {
       templateLines = tm.loadTemplate(PAGEADDKEYPAD_TEMPLATE);
       map.clear();
       map.put(PAGE_ENUM_MACRO, EnumFactory.KEYPAD_PAGE_ENUM);
       map.put(STORAGE_MACRO, EnumFactory.KEYPAD_PAGE_STORAGE);
-      outputLines = tm.expandMacros(templateLines, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, templateLines, map);
    }
    if (bAddAlphaKeyPad) {
       templateLines = tm.loadTemplate(PAGEADDKEYPAD_TEMPLATE);
       map.clear();
       map.put(PAGE_ENUM_MACRO, EnumFactory.ALPHAKEYPAD_PAGE_ENUM);
       map.put(STORAGE_MACRO, EnumFactory.ALPHAKEYPAD_PAGE_STORAGE);
-      outputLines = tm.expandMacros(templateLines, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, templateLines, map);
     }
     map.clear();
     
@@ -222,60 +252,52 @@ public class InitGuiPipe extends WorkFlowPipe {
       templateLines = tm.loadTemplate(PAGEBASE_TEMPLATE);
       map.clear();
       map.put(PAGE_ENUM_MACRO, basePageEnum);
-      outputLines = tm.expandMacros(templateLines, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, templateLines, map);
     }
     
     // now force 'Page$1' to be the main page
     templateLines = tm.loadTemplate(PAGECUR_TEMPLATE);
     map.clear();
     map.put(PAGE_ENUM_MACRO, mainPageEnum);
-    outputLines = tm.expandMacros(templateLines, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, templateLines, map);
     
     // deal with background
-    ProjectModel pm = Controller.getProjectModel();
+    ProjectModel pm = cg.getProjectModel();
     if (pm.useBackgroundImage()) {
       map.clear();
       map.put(MEMORY_MACRO, pm.getBackgroundMemory());
       map.put(DEFINE_MACRO, pm.getBackgroundDefine());
       map.put(FORMAT_MACRO, pm.getBackgroundFormat());
       templateLines = tm.loadTemplate(BACKGROUND_IMAGE_TEMPLATE);
-      outputLines = tm.expandMacros(templateLines, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, templateLines, map);
     } else {
       Color bCol = (Color) pm.getBackgroundColor();
       String color = GUIsliceThemeFactory.getInstance().colorAsString(bCol);
       map.clear();
       map.put(BACKGROUND_COLOR_MACRO, color);
       templateLines = tm.loadTemplate(BACKGROUND_TEMPLATE);
-      outputLines = tm.expandMacros(templateLines, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, templateLines, map);
     }
     
     // output ui widget creation APIs for each page
-    for (PagePane p : cg.getPages()) {
-      if (!p.getPageType().equals(EnumFactory.PROJECT)) {
-        map.clear();
-        map.put(PAGE_ENUM_MACRO, p.getEnum());
-        templateLines = tm.loadTemplate(PAGECOMMENT_TEMPLATE);
-        outputLines = tm.expandMacros(templateLines, map);
-        tm.codeWriter(sBd, outputLines);
-        for (Widget w : p.getWidgets()) {
-          outputAPI(sBd, p.getEnum(), w.getModel());
-        }
+    // unless it's created later by InitPagesPipe
+    List<CodePage> apiPages = new ArrayList<CodePage>();
+    for (CodePage p : cg.getPages()) {
+      if (!p.getPageType().equals(EnumFactory.PROJECT) &&
+          !(bDeferPages && isDeferred(p))) {
+        apiPages.add(p);
       }
     }
+    outputPages(sBd, apiPages);
     
     // output keypad configurations
     String name = null;
     if (bAddNumKeyPad) {
-      KeyPadModel m = (KeyPadModel)NumKeyPadEditor.getInstance().getModel();
+      KeyPadModel m = cg.getNumKeyPadModel();
       map.clear();
       map.put(PAGE_ENUM_MACRO, EnumFactory.KEYPAD_PAGE_ENUM);
       templateLines = tm.loadTemplate(PAGECOMMENT_TEMPLATE);
-      outputLines = tm.expandMacros(templateLines, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, templateLines, map);
       templateLines = tm.loadTemplate(KEYPAD_CONFIG_NUM_TEMPLATE);
       map.clear();
       map.put(CONFIG_MACRO,"&sCfg");
@@ -301,35 +323,29 @@ public class InitGuiPipe extends WorkFlowPipe {
         }
       }
       map.put(FONT_ID_MACRO, name);
-      outputLines = tm.expandMacros(templateLines, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, templateLines, map);
       if (!m.useDefBtnSize()) {
         templateLines = tm.loadTemplate(KEYPAD_BUTTONSZ_TEMPLATE);
-        outputLines = tm.expandMacros(templateLines, map);
-        tm.codeWriter(sBd, outputLines);
+        tm.expandMacros(sBd, templateLines, map);
       }
       if (m.getButtonGapX() > 0 || m.getButtonGapY() > 0) {
         templateLines = tm.loadTemplate(KEYPAD_BUTTONGAP_TEMPLATE);
-        outputLines = tm.expandMacros(templateLines, map);
-        tm.codeWriter(sBd, outputLines);
+        tm.expandMacros(sBd, templateLines, map);
       }
       if (m.isRoundedEn()) {
         templateLines = tm.loadTemplate(KEYPAD_ROUNDBUTTONS_TEMPLATE);
-        outputLines = tm.expandMacros(templateLines, map);
-        tm.codeWriter(sBd, outputLines);
+        tm.expandMacros(sBd, templateLines, map);
       }
       templateLines = tm.loadTemplate(KEYPAD_CREATE_NUM_TEMPLATE);
-      outputLines = tm.expandMacros(templateLines, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, templateLines, map);
     }
 
     if (bAddAlphaKeyPad) {
-      KeyPadTextModel m = (KeyPadTextModel)AlphaKeyPadEditor.getInstance().getModel();
+      KeyPadTextModel m = cg.getAlphaKeyPadModel();
       map.clear();
       map.put(PAGE_ENUM_MACRO, EnumFactory.ALPHAKEYPAD_PAGE_ENUM);
       templateLines = tm.loadTemplate(PAGECOMMENT_TEMPLATE);
-      outputLines = tm.expandMacros(templateLines, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, templateLines, map);
       templateLines = tm.loadTemplate(KEYPAD_CONFIG_TXT_TEMPLATE);
       map.clear();
       map.put(ELEMREF_MACRO, EnumFactory.ALPHAKEYPAD_ELEMREF);
@@ -353,29 +369,85 @@ public class InitGuiPipe extends WorkFlowPipe {
         }
       }
       map.put(FONT_ID_MACRO, name);
-      outputLines = tm.expandMacros(templateLines, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, templateLines, map);
       if (!m.useDefBtnSize()) {
         templateLines = tm.loadTemplate(KEYPAD_BUTTONSZ_TEMPLATE);
-        outputLines = tm.expandMacros(templateLines, map);
-        tm.codeWriter(sBd, outputLines);
+        tm.expandMacros(sBd, templateLines, map);
       }
       if (m.getButtonGapX() > 0 || m.getButtonGapY() > 0) {
         templateLines = tm.loadTemplate(KEYPAD_BUTTONGAP_TEMPLATE);
-        outputLines = tm.expandMacros(templateLines, map);
-        tm.codeWriter(sBd, outputLines);
+        tm.expandMacros(sBd, templateLines, map);
       }
       if (m.isRoundedEn()) {
         templateLines = tm.loadTemplate(KEYPAD_ROUNDBUTTONS_TEMPLATE);
-        outputLines = tm.expandMacros(templateLines, map);
-        tm.codeWriter(sBd, outputLines);
+        tm.expandMacros(sBd, templateLines, map);
       }
       templateLines = tm.loadTemplate(KEYPAD_CREATE_TXT_TEMPLATE);
-      outputLines = tm.expandMacros(templateLines, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, templateLines, map);
     }
   }
   
+  /**
+   * outputPages
+   *  Pages are independent of each other so when we have more than one 
+   *  each page's creation APIs are generated into its own buffer on the 
+   *  fork-join pool. The buffers are then joined in page order so our 
+   *  output is the same as generating the pages one after another.
+   *
+   * @param sBd
+   *          the StringBuilder object containing our project template
+   * @param pages
+   *          the pages to output
+   */
+  private void outputPages(StringBuilder sBd, List<CodePage> pages) {
+    if (pages.size() < 2 || ForkJoinPool.getCommonPoolParallelism() < 2) {
+      for (CodePage p : pages) {
+        outputPage(sBd, p);
+      }
+      return;
+    }
+    List<ForkJoinTask<StringBuilder>> tasks = new ArrayList<ForkJoinTask<StringBuilder>>();
+    for (CodePage p : pages) {
+      tasks.add(ForkJoinPool.commonPool().submit(() -> outputPage(new StringBuilder(), p)));
+    }
+    try {
+      for (ForkJoinTask<StringBuilder> task : tasks) {
+        sBd.append(task.get());
+      }
+    } catch (ExecutionException e) {
+      for (ForkJoinTask<StringBuilder> task : tasks) {
+        task.cancel(true);
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new CodeGenException(e.getCause().toString());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CodeGenException(e.toString());
+    }
+  }
+
+  /**
+   * outputPage
+   *  output the page comment and ui widget creation APIs for a single page.
+   *
+   * @param sBd
+   *          the StringBuilder object to receive our code
+   * @param p
+   *          the page
+   * @return the <code>string builder</code> object
+   */
+  StringBuilder outputPage(StringBuilder sBd, CodePage p) {
+    Map<String, String> map = new HashMap<String,String>();
+    map.put(PAGE_ENUM_MACRO, p.getEnum());
+    tm.expandMacros(sBd, tm.loadTemplate(PAGECOMMENT_TEMPLATE), map);
+    for (Widget w : p.getWidgets()) {
+      outputAPI(sBd, p.getEnum(), w.getModel());
+    }
+    return sBd;
+  }
+
    /**
     * Output API.
     *
@@ -0,0 +1,125 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen.pipes;
+
+import java.lang.StringBuilder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import builder.codegen.CodeDocument;
+import builder.codegen.CodeGenException;
+import builder.codegen.CodeGenerator;
+import builder.codegen.CodePage;
+import builder.codegen.Tags;
+
+/**
+ * The Class InitPagesPipe handles code generation
+ * within the "InitPages" tag of our source code.
+ * 
+ * When our project creates pages on first show this section 
+ * holds a function for each page that InitGuiPipe no longer 
+ * creates at startup, along with hooks so showing a page 
+ * creates it first. Otherwise the section is left empty.
+ * 
+ * @author Paul Conti
+ * 
+ */
+public class InitPagesPipe extends InitGuiPipe {
+
+  /** The Constants for templates. */
+  private final static String PAGEINIT_TEMPLATE            = "<PAGEINIT>";
+  private final static String PAGEINIT_END_TEMPLATE        = "<PAGEINIT_END>";
+  private final static String PAGEINIT_HOOKS_TEMPLATE      = "<PAGEINIT_HOOKS>";
+  private final static String PAGEINIT_SWITCH_TEMPLATE     = "<PAGEINIT_SWITCH>";
+  private final static String PAGEINIT_CASE_TEMPLATE       = "<PAGEINIT_CASE>";
+  private final static String PAGEINIT_SWITCH_END_TEMPLATE = "<PAGEINIT_SWITCH_END>";
+  
+  /** The Constants for macros. */
+  private final static String PAGE_ENUM_MACRO        = "PAGE_ENUM";
+  
+  /**
+   * Instantiates a new pipe.
+   *
+   * @param cg
+   *          the cg
+   */
+  public InitPagesPipe(CodeGenerator cg) {
+    super(cg);
+    this.MY_TAG = Tags.TAG_PREFIX+Tags.INITPAGES_TAG+Tags.TAG_SUFFIX_START;
+    this.MY_END_TAG = Tags.TAG_PREFIX+Tags.INITPAGES_TAG+Tags.TAG_SUFFIX_END;
+  }
+  
+  /**
+   * prepare
+   *
+   * Project headers created before we had an InitPages section are left alone.
+   *
+   * @see builder.codegen.pipes.InitGuiPipe#prepare(builder.codegen.CodeDocument)
+   */
+  @Override
+  public Splice<CodeDocument> prepare(CodeDocument doc) throws CodeGenException {
+    int nStart = doc.findTag(MY_TAG);
+    if (nStart < 0) {
+      return NO_CHANGE;
+    }
+    bDeferPages = cg.getProjectModel().isDeferPages();
+    return prepareRegion(doc, nStart);
+  }
+
+  /**
+   * doCodeGen
+   *
+   * @see builder.codegen.pipes.InitGuiPipe#doCodeGen(java.lang.StringBuilder)
+   */
+  @Override
+  public void doCodeGen(StringBuilder sBd) {
+    if (!bDeferPages) return;
+    tm = cg.getTemplateManager();
+    Map<String, String> map = new HashMap<String,String>();
+    tm.codeWriter(sBd, tm.loadTemplate(PAGEINIT_HOOKS_TEMPLATE));
+    List<String> startLines = tm.loadTemplate(PAGEINIT_TEMPLATE);
+    List<String> endLines = tm.loadTemplate(PAGEINIT_END_TEMPLATE);
+    for (CodePage p : cg.getPages()) {
+      if (!isDeferred(p)) continue;
+      map.put(PAGE_ENUM_MACRO, p.getEnum());
+      tm.expandMacros(sBd, startLines, map);
+      outputPage(sBd, p);
+      tm.codeWriter(sBd, endLines);
+    }
+    // now our page switch hook
+    tm.codeWriter(sBd, tm.loadTemplate(PAGEINIT_SWITCH_TEMPLATE));
+    List<String> caseLines = tm.loadTemplate(PAGEINIT_CASE_TEMPLATE);
+    for (CodePage p : cg.getPages()) {
+      if (!isDeferred(p)) continue;
+      map.put(PAGE_ENUM_MACRO, p.getEnum());
+      tm.expandMacros(sBd, caseLines, map);
+    }
+    tm.codeWriter(sBd, tm.loadTemplate(PAGEINIT_SWITCH_END_TEMPLATE));
+  }
+
+}
@@ -25,8 +25,6 @@
  */
 package builder.codegen.pipes;
 
-import java.io.BufferedReader;
-import java.io.IOException;
 import java.lang.StringBuilder;
 
 import java.util.ArrayList;
@@ -34,8 +32,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import builder.codegen.CallbackIndex.Section;
+import builder.codegen.CodeDocument;
+import builder.codegen.CodeDocument.LineReader;
 import builder.codegen.CodeGenException;
 import builder.codegen.CodeGenerator;
+import builder.codegen.Fingerprint;
 import builder.codegen.Tags;
 import builder.codegen.TemplateManager;
 import builder.common.EnumFactory;
@@ -71,12 +73,27 @@ public class ListboxCbPipe extends WorkFlowPipe {
    */
   public ListboxCbPipe(CodeGenerator cg) {
     this.cg = cg;
+    this.MY_TAG     = Tags.TAG_PREFIX + Tags.LISTBOXCB_TAG + Tags.TAG_SUFFIX_START;
+    this.MY_END_TAG = Tags.TAG_PREFIX + Tags.LISTBOXCB_TAG + Tags.TAG_SUFFIX_END;
+    this.MY_ENUM_TAG     = Tags.TAG_PREFIX + Tags.LISTBOX_ENUMS_TAG + Tags.TAG_SUFFIX_START;
+    this.MY_ENUM_END_TAG = Tags.TAG_PREFIX + Tags.LISTBOX_ENUMS_TAG + Tags.TAG_SUFFIX_END;
+  }
+
+  /**
+   * fingerprint
+   * our section only depends upon these types of widgets.
+   *
+   * @see builder.codegen.pipes.WorkFlowPipe#fingerprint(builder.codegen.Fingerprint)
+   */
+  @Override
+  public void fingerprint(Fingerprint fp) {
+    fp.addModels(cg.getModelIndex().getModels(EnumFactory.LISTBOX));
   }
   
   /**
-   * process
+   * prepare
    *
-   * For our Input Callback we have this modified process routine.
+   * For our Input Callback we have this modified prepare routine.
    * This version is to support removing the LISTBOXCB_TAG and LISTBOXCB_END_TAG
    * once we write out any input callbacks.
    *   
@@ -91,17 +108,11 @@ public class ListboxCbPipe extends WorkFlowPipe {
    * NOTE: Notice that we also do not output our end tag by calling
    *       CodeUtils.readPassString(). 
    *
-   * @see builder.codegen.pipes.Pipe#process(java.lang.Object, java.lang.Object)
+   * @see builder.codegen.pipes.SplicePipe#prepare(java.lang.Object)
    */
   @Override
-  public StringBuilder process(StringBuilder input) throws CodeGenException {
-    this.MY_TAG     = Tags.TAG_PREFIX + Tags.LISTBOXCB_TAG + Tags.TAG_SUFFIX_START;
-    this.MY_END_TAG = Tags.TAG_PREFIX + Tags.LISTBOXCB_TAG + Tags.TAG_SUFFIX_END;
-    this.MY_ENUM_TAG     = Tags.TAG_PREFIX + Tags.LISTBOX_ENUMS_TAG + Tags.TAG_SUFFIX_START;
-    this.MY_ENUM_END_TAG = Tags.TAG_PREFIX + Tags.LISTBOX_ENUMS_TAG + Tags.TAG_SUFFIX_END;
-    
-    return super.processCB(input);
-        
+  public Splice<CodeDocument> prepare(CodeDocument doc) throws CodeGenException {
+    return super.prepareCB(doc);
   }
 
   /**
@@ -110,21 +121,15 @@ public class ListboxCbPipe extends WorkFlowPipe {
    *  outputButtonCB with this list for the actual code generation.
    *
    * @param br
-   *          the buffered reader of our project template input
+   *          the line reader of our project template input
    * @param sBd
    *          the StringBuilder object containing our project template
-   * @throws IOException
-   *           Signals that an I/O exception has occurred.
    */
   @Override
-  public void doCbCommon(BufferedReader br, StringBuilder sBd) throws IOException {
+  public void doCbCommon(LineReader br, StringBuilder sBd) {
     
     // build up a list of widget models that have button callbacks enabled
-    callbackList = new ArrayList<WidgetModel>();
-    for (WidgetModel m : cg.getModels()) {
-      if (m.getType().equals(EnumFactory.LISTBOX)) 
-        callbackList.add(m);
-    }
+    callbackList = cg.getModelIndex().getCallbacks(Tags.LISTBOXCB_TAG);
     super.doCbCommon(br, sBd);
   }
   
@@ -146,12 +151,10 @@ public class ListboxCbPipe extends WorkFlowPipe {
     // create our callback section - start by opening our templates
     tm = cg.getTemplateManager();
     List<String> templateStandard = tm.loadTemplate(LISTBOX_CASE_TEMPLATE);
-    List<String> outputLines;
     Map<String, String> map = new HashMap<String, String>();
     for (WidgetModel m : callbackList) {
       map.put(ENUM_MACRO, m.getEnum());
-      outputLines = tm.expandMacros(templateStandard, map);
-      tm.codeWriter(sTemp, outputLines);
+      tm.expandMacros(sTemp, templateStandard, map);
     }
 
     // now we place all of our new case statements inside our callback template
@@ -159,8 +162,7 @@ public class ListboxCbPipe extends WorkFlowPipe {
     String sButtons = sTemp.toString();
     map.put(CALLBACK_MACRO, sButtons);
     List<String> templateLines = tm.loadTemplate(LISTBOX_CB_TEMPLATE);
-    outputLines = tm.expandMacros(templateLines, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, templateLines, map);
 
   }
 
@@ -169,35 +171,31 @@ public class ListboxCbPipe extends WorkFlowPipe {
    *  The callback already exists so we just process what is  
    *  between the LISTBOX_ENUMS_TAG and LISTBOX_ENUMS_END_TAG here.
    *
-   * @param br
-   *          the buffered reader of our project template input
+   * @param section
+   *          the existing lines between our enum tags
    * @param sBd
    *          the StringBuilder object containing our project template output
    */
   @Override
-  public void doEnums(BufferedReader br, StringBuilder sBd) throws IOException {
+  public void doEnums(Section section, StringBuilder sBd) {
     tm = cg.getTemplateManager();
 
     // build up a list of widget models that have button callbacks enabled
     // also, save the enums into our enumMap for easier checking for existence.
-    callbackList = new ArrayList<WidgetModel>();
+    callbackList = cg.getModelIndex().getCallbacks(Tags.LISTBOXCB_TAG);
     List<String> enumList = new ArrayList<String>();
-    for (WidgetModel m : cg.getModels()) {
-      if (m.getType().equals(EnumFactory.LISTBOX)) {
-        callbackList.add(m);
-        enumList.add(m.getEnum());
-      }
+    for (WidgetModel m : callbackList) {
+      enumList.add(m.getEnum());
     }
 // BUG 122 - Deletion of listbox leaves ENUM case statement in CbListbox callback
 //    if (callbackList.size() == 0)
 //      return;
     
     // this removes duplicates and detects and removes deleted ui elements
-    Map<String, String> enumMap = super.mapEnums(br, sBd, enumList);
+    Map<String, String> enumMap = super.mapEnums(section, sBd, enumList);
     
     // now deal with our new enums    
     List<String> templateStandard = tm.loadTemplate(LISTBOX_CASE_TEMPLATE);
-    List<String> outputLines;
     Map<String, String> map = new HashMap<String,String>();
     for (WidgetModel m : callbackList) {
       /* search our enumMap for this enum. 
@@ -207,8 +205,7 @@ public class ListboxCbPipe extends WorkFlowPipe {
       if (enumMap.get(m.getEnum()).equals("0")) {
         map.clear();
         map.put(ENUM_MACRO, m.getEnum());
-        outputLines = tm.expandMacros(templateStandard, map);
-        tm.codeWriter(sBd, outputLines);
+        tm.expandMacros(sBd, templateStandard, map);
       }
     }
   }    
@@ -32,6 +32,7 @@ import java.util.Map;
 
 import builder.codegen.CodeGenerator;
 import builder.codegen.CodeUtils;
+import builder.codegen.Fingerprint;
 import builder.codegen.Tags;
 import builder.codegen.TemplateManager;
 import builder.common.EnumFactory;
@@ -70,6 +71,17 @@ public class PathStoragePipe extends WorkFlowPipe {
     this.MY_TAG = Tags.TAG_PREFIX+Tags.PATHSTORAGE_TAG+Tags.TAG_SUFFIX_START;
     this.MY_END_TAG = Tags.TAG_PREFIX+Tags.PATHSTORAGE_TAG+Tags.TAG_SUFFIX_END;
   }
+
+  /**
+   * fingerprint
+   * our section only depends upon these types of widgets.
+   *
+   * @see builder.codegen.pipes.WorkFlowPipe#fingerprint(builder.codegen.Fingerprint)
+   */
+  @Override
+  public void fingerprint(Fingerprint fp) {
+    fp.addModels(cg.getModelIndex().getModels(EnumFactory.IMAGE, EnumFactory.IMAGEBUTTON));
+  }
   
   /**
    * doCodeGen
@@ -82,17 +94,14 @@ public class PathStoragePipe extends WorkFlowPipe {
     tm = cg.getTemplateManager();
     List<String> imageTemplate = tm.loadTemplate(IMAGE_PATH_TEMPLATE);;
     List<String> buttonTemplate = tm.loadTemplate(IMGBUTTON_PATH_TEMPLATE);;
-    List<String> outputLines = null;
     Map<String, String> map = new HashMap<String,String>();
-    for (WidgetModel m : cg.getModels()) {
+    for (WidgetModel m : cg.getModelIndex().getModels(EnumFactory.IMAGE, EnumFactory.IMAGEBUTTON)) {
       if (m.getType().equals(EnumFactory.IMAGE)) {
         map.put(COUNT_MACRO, CodeUtils.getKeyCount(m.getKey()));
-        outputLines = tm.expandMacros(imageTemplate, map);
-        tm.codeWriter(sBd, outputLines);
+        tm.expandMacros(sBd, imageTemplate, map);
       } else if (m.getType().equals(EnumFactory.IMAGEBUTTON)) { 
         map.put(COUNT_MACRO, CodeUtils.getKeyCount(m.getKey()));
-        outputLines = tm.expandMacros(buttonTemplate, map);
-        tm.codeWriter(sBd, outputLines);
+        tm.expandMacros(sBd, buttonTemplate, map);
       }
     }
   }
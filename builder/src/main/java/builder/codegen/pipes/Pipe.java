@@ -45,4 +45,13 @@ public interface Pipe<T> {
    */
   T process(T input);
   
+  /**
+   * Gets the name of this step for progress reports.
+   *
+   * @return the name
+   */
+  default String getName() {
+    return getClass().getSimpleName();
+  }
+
 }
@@ -0,0 +1,83 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen.pipes;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The Class PipeEvent is the Java Flight Recorder event 
+ * committed as each pipe of a workflow finishes.
+ * <p>
+ * Record a code generation with 
+ * -XX:StartFlightRecording=filename=builder.jfr 
+ * and attach it to any slow generation bug report.
+ * </p>
+ * 
+ * @author Paul Conti
+ *
+ */
+@Name("builder.codegen.Pipe")
+@Label("Code Generation Pipe")
+@Category({ "GUIslice Builder", "Code Generation" })
+@Description("A pipe of a code generation workflow")
+@StackTrace(false)
+public class PipeEvent extends jdk.jfr.Event {
+
+  /** The workflow. */
+  @Label("Workflow")
+  String workFlow;
+
+  /** The pipe. */
+  @Label("Pipe")
+  String pipe;
+
+  /** The time spent inside our pipe. */
+  @Label("Time")
+  @Timespan(Timespan.NANOSECONDS)
+  long time;
+
+  /** The size of our input. */
+  @Label("Bytes In")
+  @DataAmount
+  long bytesIn;
+
+  /** The size of our output. */
+  @Label("Bytes Out")
+  @DataAmount
+  long bytesOut;
+
+  /** The memory allocated, or -1 if our JVM can't tell us. */
+  @Label("Allocated")
+  @DataAmount
+  long allocated;
+
+}
@@ -0,0 +1,315 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen.pipes;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * The Class PipeTelemetry measures each pipe of our workflows.
+ * <p>
+ * For every pipe we keep its time, the size of its input and output,
+ * and the memory it allocated, as told to us by the ThreadMXBean. 
+ * Each measurement is also committed as a PipeEvent 
+ * for the Java Flight Recorder.
+ * </p>
+ * Pipes that prepare their edits on another thread are measured
+ * on both threads and the two added together.
+ * 
+ * @author Paul Conti
+ *
+ * @param <T>
+ *          the generic type
+ */
+public class PipeTelemetry<T> {
+
+  /** The thread bean. */
+  private final static ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+  /** The sizer. */
+  private final ToLongFunction<T> sizer;
+
+  /** The measured pipes, in the order they finished. */
+  private final List<Probe> probes = new ArrayList<Probe>();
+
+  /** The workflow being measured. */
+  private String workFlow = "";
+
+  /** The start time. */
+  private final long nStart = System.nanoTime();
+
+  /** The total elapsed time once finished, or -1 if still running. */
+  private long nElapsed = -1;
+
+  /**
+   * Instantiates a new pipe telemetry.
+   *
+   * @param sizer
+   *          the function giving us the size of our input and output
+   */
+  public PipeTelemetry(ToLongFunction<T> sizer) {
+    this.sizer = sizer;
+  }
+
+  /**
+   * Sets the workflow for the pipes measured from now on.
+   *
+   * @param workFlow
+   *          the new workflow name
+   */
+  public void setWorkFlow(String workFlow) {
+    this.workFlow = workFlow;
+  }
+
+  /**
+   * finish stops our clock.
+   */
+  public void finish() {
+    nElapsed = System.nanoTime() - nStart;
+  }
+
+  /**
+   * probe creates the measurement for a pipe without starting it.
+   *
+   * @param pipe
+   *          the pipe
+   * @return the probe
+   */
+  Probe probe(Pipe<T> pipe) {
+    return new Probe(workFlow, pipe.getName());
+  }
+
+  /**
+   * begin measuring a pipe.
+   *
+   * @param pipe
+   *          the pipe
+   * @param input
+   *          the input
+   * @return the probe
+   */
+  Probe begin(Pipe<T> pipe, T input) {
+    Probe probe = probe(pipe);
+    resume(probe, input);
+    return probe;
+  }
+
+  /**
+   * resume measuring a pipe on this thread.
+   *
+   * @param probe
+   *          the probe
+   * @param input
+   *          the input our pipe now works on
+   */
+  void resume(Probe probe, T input) {
+    probe.bytesIn = sizer.applyAsLong(input);
+    probe.start();
+  }
+
+  /**
+   * end measuring a pipe.
+   *
+   * @param probe
+   *          the probe
+   * @param output
+   *          the output
+   */
+  void end(Probe probe, T output) {
+    probe.stop();
+    probe.bytesOut = sizer.applyAsLong(output);
+    probe.commit();
+    probes.add(probe);
+  }
+
+  /**
+   * summary.
+   *
+   * @return a one line summary of our measurements
+   */
+  public String summary() {
+    Probe slowest = null;
+    long allocated = 0;
+    for (Probe probe : probes) {
+      if (slowest == null || probe.time > slowest.time) {
+        slowest = probe;
+      }
+      allocated = (allocated < 0 || probe.allocated < 0) ? -1 : allocated + probe.allocated;
+    }
+    StringBuilder sBd = new StringBuilder();
+    sBd.append(String.format("%d pipes in %d ms", probes.size(), millis(getElapsed())));
+    if (slowest != null) {
+      sBd.append(String.format(", slowest %s %d ms", slowest.pipe, millis(slowest.time)));
+    }
+    if (allocated >= 0) {
+      sBd.append(String.format(", %d KB allocated", allocated / 1024));
+    }
+    return sBd.toString();
+  }
+
+  /**
+   * report.
+   *
+   * @return a table of our measurements, one line for each pipe
+   */
+  public String report() {
+    StringBuilder sBd = new StringBuilder();
+    String sep = System.lineSeparator();
+    sBd.append("Code Generation: " + summary() + sep);
+    sBd.append(String.format("  %-12s %-18s %10s %10s %10s %12s%n", 
+        "Workflow", "Pipe", "Time(us)", "In", "Out", "Allocated"));
+    for (Probe probe : probes) {
+      sBd.append(String.format("  %-12s %-18s %10d %10d %10d %12s%n", 
+          probe.workFlow, probe.pipe, probe.time / 1000, probe.bytesIn, probe.bytesOut,
+          probe.allocated < 0 ? "n/a" : String.valueOf(probe.allocated)));
+    }
+    return sBd.toString();
+  }
+
+  /**
+   * Gets the total elapsed time.
+   *
+   * @return the elapsed time in nanoseconds
+   */
+  public long getElapsed() {
+    return nElapsed < 0 ? System.nanoTime() - nStart : nElapsed;
+  }
+
+  /**
+   * millis.
+   *
+   * @param nanos
+   *          the nanoseconds
+   * @return the milliseconds
+   */
+  private static long millis(long nanos) {
+    return nanos / 1000000L;
+  }
+
+  /**
+   * allocatedBytes.
+   *
+   * @return the bytes allocated so far by our thread, or -1 if our JVM can't tell us
+   */
+  private static long allocatedBytes() {
+    if (threadBean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadBean;
+      if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+        return bean.getCurrentThreadAllocatedBytes();
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * The Class Probe holds the measurements of one pipe.
+   */
+  static class Probe {
+
+    /** The workflow. */
+    private final String workFlow;
+
+    /** The pipe. */
+    private final String pipe;
+
+    /** The flight recorder event. */
+    private final PipeEvent event = new PipeEvent();
+
+    /** The time spent inside our pipe. */
+    private long time = 0;
+
+    /** The memory allocated, or -1 if our JVM can't tell us. */
+    private long allocated = 0;
+
+    /** The size of our input. */
+    private long bytesIn = 0;
+
+    /** The size of our output. */
+    private long bytesOut = 0;
+
+    /** The start of our current measurement. */
+    private long nStartTime;
+
+    /** The bytes allocated by our thread at the start of our current measurement. */
+    private long nStartAllocated;
+
+    /**
+     * Instantiates a new probe.
+     *
+     * @param workFlow
+     *          the workflow
+     * @param pipe
+     *          the pipe name
+     */
+    Probe(String workFlow, String pipe) {
+      this.workFlow = workFlow;
+      this.pipe = pipe;
+      event.begin();
+    }
+
+    /**
+     * start measuring on this thread.
+     */
+    void start() {
+      nStartAllocated = allocatedBytes();
+      nStartTime = System.nanoTime();
+    }
+
+    /**
+     * stop measuring on this thread.
+     */
+    void stop() {
+      time += System.nanoTime() - nStartTime;
+      long nAllocated = allocatedBytes();
+      if (allocated < 0 || nAllocated < 0 || nStartAllocated < 0) {
+        allocated = -1;
+      } else {
+        allocated += nAllocated - nStartAllocated;
+      }
+    }
+
+    /**
+     * commit our flight recorder event.
+     */
+    void commit() {
+      event.end();
+      if (event.shouldCommit()) {
+        event.workFlow = workFlow;
+        event.pipe = pipe;
+        event.time = time;
+        event.bytesIn = bytesIn;
+        event.bytesOut = bytesOut;
+        event.allocated = allocated;
+        event.commit();
+      }
+    }
+
+  }
+
+}
@@ -46,7 +46,7 @@ import builder.codegen.CodeGenException;
 public class Pipeline<T> {
 
     /** The pipes. */
-    private final List<Pipe<T>> pipes;
+    protected final List<Pipe<T>> pipes;
 
     /**
      * Instantiates a new pipeline.
@@ -59,6 +59,16 @@ public class Pipeline<T> {
         this.pipes = Arrays.asList(pipes);
     }
 
+    /**
+     * Instantiates a new pipeline.
+     *
+     * @param pipes
+     *          the pipes, in workflow order
+     */
+    protected Pipeline(List<Pipe<T>> pipes) {
+        this.pipes = pipes;
+    }
+
     /**
      * Process.
      *
@@ -70,11 +80,83 @@ public class Pipeline<T> {
      *           the code generation exception
      */
     public T process(T input) throws CodeGenException {
+        return process(input, null);
+    }
+
+    /**
+     * Process while telling a listener about each step.
+     *
+     * @param input
+     *          the input thats passed to each 
+     *          pipe in the workflow.
+     * @param listener
+     *          the listener, or <code>null</code>
+     * @return the processed input
+     * @throws CodeGenException
+     *           the code generation exception
+     */
+    public T process(T input, PipeListener<T> listener) throws CodeGenException {
+        return process(input, listener, null);
+    }
+
+    /**
+     * Process while telling a listener about each step
+     * and measuring each pipe.
+     *
+     * @param input
+     *          the input thats passed to each 
+     *          pipe in the workflow.
+     * @param listener
+     *          the listener, or <code>null</code>
+     * @param telemetry
+     *          the telemetry, or <code>null</code>
+     * @return the processed input
+     * @throws CodeGenException
+     *           the code generation exception
+     */
+    public T process(T input, PipeListener<T> listener, PipeTelemetry<T> telemetry) 
+        throws CodeGenException {
         T processed = input;
         for (Pipe<T> pipe : pipes) {
-            processed = pipe.process(processed);
+            if (listener != null) {
+                listener.pipeStarted(pipe);
+            }
+            processed = process(pipe, processed, telemetry);
+        }
+        return processed;
+    }
+
+    /**
+     * Process a single pipe.
+     *
+     * @param pipe
+     *          the pipe
+     * @param input
+     *          the input
+     * @param telemetry
+     *          the telemetry, or <code>null</code>
+     * @return the processed input
+     * @throws CodeGenException
+     *           the code generation exception
+     */
+    protected T process(Pipe<T> pipe, T input, PipeTelemetry<T> telemetry) 
+        throws CodeGenException {
+        if (telemetry == null) {
+            return pipe.process(input);
         }
+        PipeTelemetry.Probe probe = telemetry.begin(pipe, input);
+        T processed = pipe.process(input);
+        telemetry.end(probe, processed);
         return processed;
     }
+
+    /**
+     * Gets the number of pipes in our workflow.
+     *
+     * @return the size
+     */
+    public int size() {
+        return pipes.size();
+    }
 }
 
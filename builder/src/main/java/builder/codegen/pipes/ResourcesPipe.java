@@ -33,10 +33,10 @@ import java.util.Map;
 
 import builder.codegen.CodeGenerator;
 import builder.codegen.CodeUtils;
+import builder.codegen.Fingerprint;
 import builder.codegen.Tags;
 import builder.codegen.TemplateManager;
 import builder.common.EnumFactory;
-import builder.controller.Controller;
 import builder.models.ImageModel;
 import builder.models.ImgButtonModel;
 import builder.models.ProjectModel;
@@ -78,6 +78,17 @@ public class ResourcesPipe extends WorkFlowPipe {
     this.MY_TAG = Tags.TAG_PREFIX+Tags.RESOURCES_TAG+Tags.TAG_SUFFIX_START;
     this.MY_END_TAG = Tags.TAG_PREFIX+Tags.RESOURCES_TAG+Tags.TAG_SUFFIX_END;
   }
+
+  /**
+   * fingerprint
+   * our section only depends upon these types of widgets.
+   *
+   * @see builder.codegen.pipes.WorkFlowPipe#fingerprint(builder.codegen.Fingerprint)
+   */
+  @Override
+  public void fingerprint(Fingerprint fp) {
+    fp.addModels(cg.getModelIndex().getModels(EnumFactory.IMAGE, EnumFactory.IMAGEBUTTON));
+  }
   
   /**
    * doCodeGen
@@ -93,7 +104,7 @@ public class ResourcesPipe extends WorkFlowPipe {
     List<String> outputLines = null;
     Map<String, String> map = new HashMap<String,String>();
     // deal with background image, if any
-    ProjectModel pm = Controller.getProjectModel();
+    ProjectModel pm = cg.getProjectModel();
     if (pm.useBackgroundImage()) { 
        map.put(DEFINE_MACRO, pm.getBackgroundDefine());
        map.put(IMAGE_NAME_MACRO, pm.getBackgroundImageTName()); // use target name
@@ -101,7 +112,9 @@ public class ResourcesPipe extends WorkFlowPipe {
        resources.add(outputLines.get(0));
     }
     // gather all #define names
-    for (WidgetModel m : cg.getModels()) {
+    List<WidgetModel> images = 
+        cg.getModelIndex().getModels(EnumFactory.IMAGE, EnumFactory.IMAGEBUTTON);
+    for (WidgetModel m : images) {
       map.clear();
       if (m.getType().equals(EnumFactory.IMAGE)) {
         if (!((ImageModel)m).getDefine().isEmpty()) {
@@ -141,7 +154,7 @@ public class ResourcesPipe extends WorkFlowPipe {
     List<String> externTemplate = tm.loadTemplate(RESOURCE_EXTERN_TEMPLATE);
     map.clear();
     resources.clear();
-    for (WidgetModel m : cg.getModels()) {
+    for (WidgetModel m : images) {
       if (m.getType().equals(EnumFactory.IMAGE)) {
         if (!((ImageModel)m).getExternName().isEmpty()) {
           map.put(EXTERN_NAME_MACRO, ((ImageModel) m).getExternName());
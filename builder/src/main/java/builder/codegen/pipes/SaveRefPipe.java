@@ -91,7 +91,6 @@ public class SaveRefPipe extends WorkFlowPipe {
     // now output any we found
     tm = cg.getTemplateManager();
     List<String> template = null;
-    List<String> outputLines = null;
     Map<String, String> map = new HashMap<>();
     if (refList.size() > 0) {
       // Now we have a full list of references we can sort the list.
@@ -100,35 +99,24 @@ public class SaveRefPipe extends WorkFlowPipe {
       template = tm.loadTemplate(ELEMENTREF_SAVE_TEMPLATE);
       for (String s : refList) {
         map.put(ELEMREF_MACRO, s);
-        outputLines = tm.expandMacros(template, map);
-        tm.codeWriter(sBd, outputLines);
+        tm.expandMacros(sBd, template, map);
       }
     }
 
     // we have hidden cg.getPages() if users are referencing virtual keypads
-    boolean bAddNumKeyPad = false;
-    boolean bAddAlphaKeyPad = false;
-    for (WidgetModel m : cg.getModels()) {
-      if (m.getType().equals(EnumFactory.NUMINPUT)) {
-        bAddNumKeyPad = true;
-      }
-      if (m.getType().equals(EnumFactory.TEXTINPUT)) {
-        bAddAlphaKeyPad = true;
-      }
-    }
+    boolean bAddNumKeyPad = cg.getModelIndex().hasType(EnumFactory.NUMINPUT);
+    boolean bAddAlphaKeyPad = cg.getModelIndex().hasType(EnumFactory.TEXTINPUT);
     if (bAddNumKeyPad) {
       template = tm.loadTemplate(ELEMENTREF_SAVE_TEMPLATE);
       map.clear();
       map.put(ELEMREF_MACRO, EnumFactory.KEYPAD_ELEMREF);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
     if (bAddAlphaKeyPad) {
       template = tm.loadTemplate(ELEMENTREF_SAVE_TEMPLATE);
       map.clear();
       map.put(ELEMREF_MACRO, EnumFactory.ALPHAKEYPAD_ELEMREF);
-      outputLines = tm.expandMacros(template, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, template, map);
     }
   }
 }
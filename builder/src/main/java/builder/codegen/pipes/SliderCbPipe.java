@@ -25,8 +25,6 @@
  */
 package builder.codegen.pipes;
 
-import java.io.BufferedReader;
-import java.io.IOException;
 import java.lang.StringBuilder;
 
 import java.util.ArrayList;
@@ -34,13 +32,15 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import builder.codegen.CallbackIndex.Section;
+import builder.codegen.CodeDocument;
+import builder.codegen.CodeDocument.LineReader;
 import builder.codegen.CodeGenException;
 import builder.codegen.CodeGenerator;
+import builder.codegen.Fingerprint;
 import builder.codegen.Tags;
 import builder.codegen.TemplateManager;
 import builder.common.EnumFactory;
-import builder.models.ListBoxModel;
-import builder.models.TextBoxModel;
 import builder.models.WidgetModel;
 
 /**
@@ -75,12 +75,28 @@ public class SliderCbPipe extends WorkFlowPipe {
    */
   public SliderCbPipe(CodeGenerator cg) {
     this.cg = cg;
+    this.MY_TAG     = Tags.TAG_PREFIX + Tags.SLIDERCB_TAG + Tags.TAG_SUFFIX_START;
+    this.MY_END_TAG = Tags.TAG_PREFIX + Tags.SLIDERCB_TAG + Tags.TAG_SUFFIX_END;
+    this.MY_ENUM_TAG     = Tags.TAG_PREFIX + Tags.SLIDER_ENUMS_TAG + Tags.TAG_SUFFIX_START;
+    this.MY_ENUM_END_TAG = Tags.TAG_PREFIX + Tags.SLIDER_ENUMS_TAG + Tags.TAG_SUFFIX_END;
+  }
+
+  /**
+   * fingerprint
+   * our section only depends upon these types of widgets.
+   *
+   * @see builder.codegen.pipes.WorkFlowPipe#fingerprint(builder.codegen.Fingerprint)
+   */
+  @Override
+  public void fingerprint(Fingerprint fp) {
+    fp.addModels(cg.getModelIndex().getModels(EnumFactory.SLIDER, EnumFactory.SEEKBAR,
+        EnumFactory.LISTBOX, EnumFactory.TEXTBOX));
   }
   
   /**
-   * process
+   * prepare
    *
-   * For our Slider Callback we have this modified process routine.
+   * For our Slider Callback we have this modified prepare routine.
    * This version is to support removing the SLIDERCB_TAG and SLIDERCB_END_TAG
    * once we write out any slider callbacks.
    *   
@@ -95,17 +111,11 @@ public class SliderCbPipe extends WorkFlowPipe {
    * NOTE: Notice that we also do not output our end tag by calling
    *       CodeUtils.readPassString(). 
    *
-   * @see builder.codegen.pipes.Pipe#process(java.lang.Object, java.lang.Object)
+   * @see builder.codegen.pipes.SplicePipe#prepare(java.lang.Object)
    */
   @Override
-  public StringBuilder process(StringBuilder input) throws CodeGenException {
-    this.MY_TAG     = Tags.TAG_PREFIX + Tags.SLIDERCB_TAG + Tags.TAG_SUFFIX_START;
-    this.MY_END_TAG = Tags.TAG_PREFIX + Tags.SLIDERCB_TAG + Tags.TAG_SUFFIX_END;
-    this.MY_ENUM_TAG     = Tags.TAG_PREFIX + Tags.SLIDER_ENUMS_TAG + Tags.TAG_SUFFIX_START;
-    this.MY_ENUM_END_TAG = Tags.TAG_PREFIX + Tags.SLIDER_ENUMS_TAG + Tags.TAG_SUFFIX_END;
-    
-    return super.processCB(input);
-        
+  public Splice<CodeDocument> prepare(CodeDocument doc) throws CodeGenException {
+    return super.prepareCB(doc);
   }
 
   /**
@@ -114,27 +124,14 @@ public class SliderCbPipe extends WorkFlowPipe {
    *  outputButtonCB with this list for the actual code generation.
    *
    * @param br
-   *          the buffered reader of our project template input
+   *          the line reader of our project template input
    * @param sBd
    *          the StringBuilder object containing our project template
-   * @throws IOException
-   *           Signals that an I/O exception has occurred.
    */
   @Override
-  public void doCbCommon(BufferedReader br, StringBuilder sBd) throws IOException {
+  public void doCbCommon(LineReader br, StringBuilder sBd) {
     // build up a list of widget models that have button callbacks enabled
-    callbackList = new ArrayList<WidgetModel>();
-    for (WidgetModel m : cg.getModels()) {
-      if (m.getType().equals(EnumFactory.SLIDER)) {
-        callbackList.add(m);
-      } else if (m.getType().equals(EnumFactory.SEEKBAR)) {
-        callbackList.add(m);
-      } else if (m.getType().equals(EnumFactory.LISTBOX) && ((ListBoxModel) m).addScrollbar()) {
-        callbackList.add(m);
-      } else if (m.getType().equals(EnumFactory.TEXTBOX) && ((TextBoxModel) m).addScrollbar()) {
-        callbackList.add(m);
-      }
-    }
+    callbackList = cg.getModelIndex().getCallbacks(Tags.SLIDERCB_TAG);
     super.doCbCommon(br, sBd);
   }
   
@@ -157,30 +154,25 @@ public class SliderCbPipe extends WorkFlowPipe {
     tm = cg.getTemplateManager();
     List<String> templateStandard = tm.loadTemplate(SLIDER_CASE_TEMPLATE);
     List<String> templateSeekbar = tm.loadTemplate(SEEKBAR_CASE_TEMPLATE);
-    List<String> outputLines;
     Map<String, String> map = new HashMap<String, String>();
     for (WidgetModel m : callbackList) {
       map.clear();
       if (m.getType().equals(EnumFactory.SLIDER)) {
         map.put(ENUM_MACRO, m.getEnum());
         map.put(ELEMREF_MACRO, m.getElementRef());
-        outputLines = tm.expandMacros(templateStandard, map);
-        tm.codeWriter(sTemp, outputLines);
+        tm.expandMacros(sTemp, templateStandard, map);
       } else if (m.getType().equals(EnumFactory.SEEKBAR)) {
         map.put(ENUM_MACRO, m.getEnum());
         map.put(ELEMREF_MACRO, m.getElementRef());
-        outputLines = tm.expandMacros(templateSeekbar, map);
-        tm.codeWriter(sTemp, outputLines);
+        tm.expandMacros(sTemp, templateSeekbar, map);
       } else if (m.getType().equals(EnumFactory.LISTBOX)) {
         map.put(ENUM_MACRO, m.getScrollbarEnum());
         map.put(ELEMREF_MACRO, m.getScrollbarERef());
-        outputLines = tm.expandMacros(templateStandard, map);
-        tm.codeWriter(sTemp, outputLines);
+        tm.expandMacros(sTemp, templateStandard, map);
       } else if (m.getType().equals(EnumFactory.TEXTBOX)) {
         map.put(ENUM_MACRO, m.getScrollbarEnum());
         map.put(ELEMREF_MACRO, m.getScrollbarERef());
-        outputLines = tm.expandMacros(templateStandard, map);
-        tm.codeWriter(sTemp, outputLines);
+        tm.expandMacros(sTemp, templateStandard, map);
       }
     }
 
@@ -189,8 +181,7 @@ public class SliderCbPipe extends WorkFlowPipe {
     String sButtons = sTemp.toString();
     map.put(CALLBACK_MACRO, sButtons);
     List<String> templateLines = tm.loadTemplate(SLIDER_CB_TEMPLATE);
-    outputLines = tm.expandMacros(templateLines, map);
-    tm.codeWriter(sBd, outputLines);
+    tm.expandMacros(sBd, templateLines, map);
 
   }
 
@@ -199,31 +190,26 @@ public class SliderCbPipe extends WorkFlowPipe {
    *  The callback already exists so we just process what is  
    *  between the SLIDER_ENUMS_TAG and SLIDER_ENUMS_END_TAG here.
    *
-   * @param br
-   *          the buffered reader of our project template input
+   * @param section
+   *          the existing lines between our enum tags
    * @param sBd
    *          the StringBuilder object containing our project template output
     * @param mList
     *          the model list to process for callback buttons
    */
   @Override
-  public void doEnums(BufferedReader br, StringBuilder sBd) throws IOException {
+  public void doEnums(Section section, StringBuilder sBd) {
     tm = cg.getTemplateManager();
 
     // build up a list of widget models that have button callbacks enabled
     // also, save the enums into our enumMap for easier checking for existence.
-    callbackList = new ArrayList<WidgetModel>();
+    callbackList = cg.getModelIndex().getCallbacks(Tags.SLIDERCB_TAG);
     List<String> enumList = new ArrayList<String>();
-    for (WidgetModel m : cg.getModels()) {
-      if (m.getType().equals(EnumFactory.SLIDER)) {
-        callbackList.add(m);
-        enumList.add(m.getEnum());
-      } else if (m.getType().equals(EnumFactory.SEEKBAR)) {
-        callbackList.add(m);
-        enumList.add(m.getEnum());
-      } else if (m.addScrollbar()) {
-        callbackList.add(m);
+    for (WidgetModel m : callbackList) {
+      if (m.addScrollbar()) {
         enumList.add(m.getScrollbarEnum());
+      } else {
+        enumList.add(m.getEnum());
       }
     }
 // BUG 122 - Deletion of listbox leaves ENUM case statements in slider callback
@@ -231,12 +217,11 @@ public class SliderCbPipe extends WorkFlowPipe {
 //      return;
     
     // this removes duplicates and detects and removes deleted ui elements
-    Map<String, String> enumMap = super.mapEnums(br, sBd, enumList);
+    Map<String, String> enumMap = super.mapEnums(section, sBd, enumList);
     
     // now deal with our new enums    
     List<String> templateStandard = tm.loadTemplate(SLIDER_CASE_TEMPLATE);
     List<String> templateSeekbar = tm.loadTemplate(SEEKBAR_CASE_TEMPLATE);
-    List<String> outputLines;
     Map<String, String> map = new HashMap<String,String>();
     for (WidgetModel m : callbackList) {
       /* search our enumMap for this enum. 
@@ -248,29 +233,25 @@ public class SliderCbPipe extends WorkFlowPipe {
         if (enumMap.get(m.getEnum()).equals("0")) {
           map.put(ENUM_MACRO, m.getEnum());
           map.put(ELEMREF_MACRO, m.getElementRef());
-          outputLines = tm.expandMacros(templateStandard, map);
-          tm.codeWriter(sBd, outputLines);
+          tm.expandMacros(sBd, templateStandard, map);
         }
       } else if (m.getType().equals(EnumFactory.SEEKBAR)) {
         if (enumMap.get(m.getEnum()).equals("0")) {
           map.put(ENUM_MACRO, m.getEnum());
           map.put(ELEMREF_MACRO, m.getElementRef());
-          outputLines = tm.expandMacros(templateSeekbar, map);
-          tm.codeWriter(sBd, outputLines);
+          tm.expandMacros(sBd, templateSeekbar, map);
         }
       } else if (m.getType().equals(EnumFactory.LISTBOX)) {
         if (enumMap.get(m.getScrollbarEnum()).equals("0")) {
           map.put(ENUM_MACRO, m.getScrollbarEnum());
           map.put(ELEMREF_MACRO, m.getScrollbarERef());
-          outputLines = tm.expandMacros(templateStandard, map);
-          tm.codeWriter(sBd, outputLines);
+          tm.expandMacros(sBd, templateStandard, map);
         }
       } else if (m.getType().equals(EnumFactory.TEXTBOX)) {
         if (enumMap.get(m.getScrollbarEnum()).equals("0")) {
           map.put(ENUM_MACRO, m.getScrollbarEnum());
           map.put(ELEMREF_MACRO, m.getScrollbarERef());
-          outputLines = tm.expandMacros(templateStandard, map);
-          tm.codeWriter(sBd, outputLines);
+          tm.expandMacros(sBd, templateStandard, map);
         }
       }
 
@@ -0,0 +1,96 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.codegen.pipes;
+
+import java.util.List;
+
+import builder.codegen.CodeGenException;
+
+/**
+ * The Interface SplicePipe is a step in a workflow that splits 
+ * its work in two. First it prepares its edit, which only reads
+ * its input, then it splices that edit into the input.
+ * <p>
+ * Each pipe also declares the tags of the sections it reads 
+ * and writes. Pipes that don't write anything another reads
+ * can then prepare their edits at the same time, unless
+ * they are sequential.
+ * </p>
+ * 
+ * @author Paul Conti
+ *
+ * @param <T>
+ *          the generic type
+ */
+public interface SplicePipe<T> extends Pipe<T> {
+
+  /**
+   * Gets the tags of the sections our edit replaces.
+   *
+   * @return the tags
+   */
+  List<String> getWrites();
+
+  /**
+   * Gets the tags of the sections we read while preparing our edit.
+   *
+   * @return the tags
+   */
+  List<String> getReads();
+
+  /**
+   * isSequential.
+   *
+   * @return <code>true</code>, if we have side effects beyond our edit,
+   *         like writing files, so we must always run by ourselves
+   */
+  default boolean isSequential() {
+    return false;
+  }
+
+  /**
+   * Prepare our edit. 
+   * This may run alongside other pipes so it must not change the input.
+   *
+   * @param input
+   *          the input
+   * @return the edit
+   * @throws CodeGenException
+   *           the code generation exception
+   */
+  Splice<T> prepare(T input) throws CodeGenException;
+
+  /**
+   * process prepares and applies our edit in one go.
+   *
+   * @see builder.codegen.pipes.Pipe#process(java.lang.Object)
+   */
+  @Override
+  default T process(T input) throws CodeGenException {
+    return prepare(input).apply(input);
+  }
+
+}
@@ -32,12 +32,10 @@ import java.util.List;
 import java.util.Map;
 
 import builder.codegen.CodeGenerator;
+import builder.codegen.Fingerprint;
 import builder.codegen.Tags;
 import builder.codegen.TemplateManager;
-import builder.controller.Controller;
-import builder.models.GeneralModel;
 import builder.models.ProjectModel;
-import builder.prefs.GeneralEditor;
 import builder.themes.GUIsliceThemeFactory;
 
 /**
@@ -74,6 +72,16 @@ public class StartupPipe extends WorkFlowPipe {
     this.MY_TAG     = Tags.TAG_PREFIX + Tags.STARTUP_TAG + Tags.TAG_SUFFIX_START;
     this.MY_END_TAG = Tags.TAG_PREFIX + Tags.STARTUP_TAG + Tags.TAG_SUFFIX_END;
   }
+
+  /**
+   * fingerprint
+   * our section depends upon nothing beyond our project settings.
+   *
+   * @see builder.codegen.pipes.WorkFlowPipe#fingerprint(builder.codegen.Fingerprint)
+   */
+  @Override
+  public void fingerprint(Fingerprint fp) {
+  }
   
   /**
    * doCodeGen
@@ -83,23 +91,21 @@ public class StartupPipe extends WorkFlowPipe {
   @Override
   public void doCodeGen(StringBuilder sBd) {
     // grab our user preferences
-    ProjectModel pm = Controller.getProjectModel();
+    ProjectModel pm = cg.getProjectModel();
     // setup    
     tm = cg.getTemplateManager();
     List<String> templateLines = null;
-    List<String> outputLines = null;
     Map<String, String> map = new HashMap<String,String>();
 
     // do we need to set transparency color?
-    Color color = ((GeneralModel) GeneralEditor.getInstance().getModel()).getTransparencyColor();
+    Color color = cg.getGeneralModel().getTransparencyColor();
     Color defaultColor = new Color(255,0,255);
     if (!color.equals(defaultColor)) {
       map.clear();
       String strColor = GUIsliceThemeFactory.getInstance().colorAsString(color);
       map.put(COLOR_MACRO, strColor);      
       templateLines = tm.loadTemplate(TRANSPARENCY_COLOR_TEMPLATE);
-      outputLines = tm.expandMacros(templateLines, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, templateLines, map);
     }
 
     // do we need to rotate display?
@@ -108,8 +114,7 @@ public class StartupPipe extends WorkFlowPipe {
       map.clear();
       map.put(ROTATION_MACRO, String.valueOf(pm.getScreenRotation()));      
       templateLines = tm.loadTemplate(ROTATE_TEMPLATE);
-      outputLines = tm.expandMacros(templateLines, map);
-      tm.codeWriter(sBd, outputLines);
+      tm.expandMacros(sBd, templateLines, map);
     }
   }
 
@@ -26,23 +26,20 @@
 package builder.codegen.pipes;
 
 //import builder.Builder;
-import java.io.ByteArrayInputStream;
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.IOException;
 import java.lang.StringBuilder;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.regex.Pattern;
 
+import builder.codegen.CallbackIndex.Case;
+import builder.codegen.CallbackIndex.Section;
+import builder.codegen.CodeDocument;
+import builder.codegen.CodeDocument.LineReader;
 import builder.codegen.CodeGenException;
 import builder.codegen.CodeGenerator;
-import builder.codegen.CodeUtils;
+import builder.codegen.Fingerprint;
 import builder.models.WidgetModel;
 
 /**
@@ -52,13 +49,16 @@ import builder.models.WidgetModel;
  * @author Paul Conti
  * 
  */
-public class WorkFlowPipe implements Pipe<StringBuilder> {
+public class WorkFlowPipe implements SplicePipe<CodeDocument> {
 
   public String MY_TAG;
   public String MY_END_TAG;
   public String MY_ENUM_TAG;
   public String MY_ENUM_END_TAG;
   
+  /** The edit for when we have nothing to change. */
+  protected final static Splice<CodeDocument> NO_CHANGE = doc -> doc;
+  
   private final static Pattern LTRIM = Pattern.compile("^\\s+");
   private final static String EMPTY_STRING = "";
   
@@ -71,101 +71,163 @@ public class WorkFlowPipe implements Pipe<StringBuilder> {
   String line  = "";
 
   /**
-   * process
+   * prepare
+   *
+   * Locates our tag inside the document and generates the code
+   * that will replace everything between it and our end tag.
    *
-   * @see builder.codegen.pipes.Pipe#process(java.lang.Object, java.lang.Object)
+   * @see builder.codegen.pipes.SplicePipe#prepare(java.lang.Object)
    */
-  public StringBuilder process(StringBuilder input) throws CodeGenException {
-    // bTagFound allows us to detect if we find our tag and error out on failure.
-    boolean bTagFound = false;  // detect if we find our tag
-    try {
-      /*
-       * To convert StringBuilder to InputStream in Java, first get bytes
-       * from StringBuilder after converting it into String object.
-       */
-      byte[] bytes = input.toString().getBytes(StandardCharsets.UTF_8);
-      /*
-       * Get ByteArrayInputStream from byte array.
-       */
-      InputStream is = new ByteArrayInputStream(bytes);
-      BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
-      StringBuilder processed = new StringBuilder();
-      String sTestTag= "";
-      while ((line = br.readLine()) != null) {
-        processed.append(line);
-        processed.append(System.lineSeparator());
-        sTestTag = LTRIM.matcher(line).replaceAll(EMPTY_STRING);
-        if (sTestTag.equals(MY_TAG)) {
-          bTagFound = true;
-          doCodeGen(processed);
-          break;
-        }
-      }
-      if (!bTagFound) {
-//        throw new CodeGenException("file: " + cg.getTemplateName() + "\n is corrupted missing tag:" + MY_TAG);
-        throw new CodeGenException("file: " + cg.getTemplateName() + 
-            "\n corrupted:" + MY_TAG + " out: " + cg.getOutputName());
-      }
-      CodeUtils.findTag(br, processed, MY_END_TAG);
-      CodeUtils.finishUp(br, processed);
-      br.close();
-      return processed;   
-    } catch (IOException e) {
-      throw new CodeGenException(e.toString());
-    }      
+  @Override
+  public Splice<CodeDocument> prepare(CodeDocument doc) throws CodeGenException {
+    int nStart = doc.findTag(MY_TAG);
+    if (nStart < 0) {
+//      throw new CodeGenException("file: " + cg.getTemplateName() + "\n is corrupted missing tag:" + MY_TAG);
+      throw new CodeGenException("file: " + cg.getTemplateName() + 
+          "\n corrupted:" + MY_TAG + " out: " + cg.getOutputName());
+    }
+    return prepareRegion(doc, nStart);
   }
 
   /**
-   * process callback tags
+   * prepareRegion 
+   * generates our code to replace the lines following our tag
+   * at nStart up to, but not including, our end tag.
    *
-   * @see builder.codegen.pipes.Pipe#process(java.lang.Object, java.lang.Object)
+   * @param doc
+   *          the document containing our project template
+   * @param nStart
+   *          the line number of our tag
+   * @return the edit
+   * @throws CodeGenException
+   *           the code gen exception
    */
-  public StringBuilder processCB(StringBuilder input) throws CodeGenException {
-    // bTagFound allows us to detect if we find our tag and error out on failure.
-    boolean bTagFound = false;  // detect if we find our tag
-    try {
-      /*
-       * To convert StringBuilder to InputStream in Java, first get bytes
-       * from StringBuilder after converting it into String object.
-       */
-      byte[] bytes = input.toString().getBytes(StandardCharsets.UTF_8);
-      /*
-       * Get ByteArrayInputStream from byte array.
-       */
-      InputStream is = new ByteArrayInputStream(bytes);
-      BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+  protected Splice<CodeDocument> prepareRegion(CodeDocument doc, int nStart) throws CodeGenException {
+    StringBuilder processed = new StringBuilder();
+    doCodeGen(processed);
+    int nEnd = doc.findTag(MY_END_TAG, nStart+1);
+    if (nEnd < 0) {
+      throw new CodeGenException("file: " + cg.getTemplateName() + 
+          "\n corrupted:" + MY_END_TAG + " out: " + cg.getOutputName());
+    }
+    return splice(MY_TAG, 1, nEnd - nStart - 1, processed);
+  }
+
+  /**
+   * prepare callback tags
+   *
+   * If our callback doesn't yet exist the region from our tag
+   * through our end tag is replaced by the callback, otherwise we only
+   * rework the region between our enum tags.
+   *
+   * @param doc
+   *          the document containing our project template
+   * @return the edit
+   * @throws CodeGenException
+   *           the code gen exception
+   */
+  public Splice<CodeDocument> prepareCB(CodeDocument doc) throws CodeGenException {
+    int nTag = doc.findTag(MY_TAG);
+    int nEnumTag = doc.findTag(MY_ENUM_TAG);
+    if (nTag < 0 && nEnumTag < 0) {
+      throw new CodeGenException("file: " + cg.getTemplateName() + 
+          "\n is corrupted missing tag:" + MY_TAG);
+    }
+    Splice<CodeDocument> enums = NO_CHANGE;
+    if (nEnumTag >= 0 && (nTag < 0 || nEnumTag < nTag)) {
+      Section section = cg.getCallbackIndex(doc).getSection(MY_ENUM_TAG, nEnumTag+1);
       StringBuilder processed = new StringBuilder();
-      String sTestTag= "";
-      while ((line = br.readLine()) != null) {
-        sTestTag = LTRIM.matcher(line).replaceAll(EMPTY_STRING);
-        if (sTestTag.equals(MY_TAG)) {
-          bTagFound = true;
-          doCbCommon(br, processed);
-          break;
-        } else if (sTestTag.equals(MY_ENUM_TAG)) {
-          bTagFound = true;
-          processed.append(sTestTag); // output our BUTTON_ENUMS_TAG
-          processed.append(System.lineSeparator());  
-          doEnums(br, processed);
-          processed.append(MY_ENUM_END_TAG); 
-          processed.append(System.lineSeparator());  
-        } else {
-          processed.append(line);
-          processed.append(System.lineSeparator());
-        }
-      }
-      if (!bTagFound) {
+      processed.append(MY_ENUM_TAG); // output our BUTTON_ENUMS_TAG
+      processed.append(System.lineSeparator());  
+      doEnums(section, processed);
+      processed.append(MY_ENUM_END_TAG); 
+      processed.append(System.lineSeparator());  
+      // replace through our end tag, if we have one
+      int nEnd = Math.min(nEnumTag + section.size() + 2, doc.size());
+      enums = splice(MY_ENUM_TAG, 0, nEnd - nEnumTag, processed);
+      nTag = doc.findTag(MY_TAG, nEnumTag);
+    }
+    if (nTag < 0) {
+      return enums;
+    }
+    StringBuilder processed = new StringBuilder();
+    LineReader br = doc.reader(nTag+1);
+    doCbCommon(br, processed);
+    Splice<CodeDocument> callback = splice(MY_TAG, 0, br.getPosition() - nTag, processed);
+    Splice<CodeDocument> before = enums;
+    return d -> callback.apply(before.apply(d));
+  }
+  
+  /**
+   * splice creates the edit replacing lines following one of our tags.
+   * Our edit finds its tag again once applied since other 
+   * pipes may have moved it by then, though never changed 
+   * anything between it and our lines.
+   *
+   * @param tag
+   *          the tag our lines follow
+   * @param nOffset
+   *          the offset of our first line from the tag
+   * @param nLines
+   *          the number of lines to replace
+   * @param code
+   *          the replacement code
+   * @return the edit
+   */
+  protected Splice<CodeDocument> splice(String tag, int nOffset, int nLines, CharSequence code) {
+    return doc -> {
+      int nTag = doc.findTag(tag);
+      if (nTag < 0) {
         throw new CodeGenException("file: " + cg.getTemplateName() + 
-            "\n is corrupted missing tag:" + MY_TAG);
+            "\n corrupted:" + tag + " out: " + cg.getOutputName());
       }
-      CodeUtils.finishUp(br, processed);
-      br.close();
-      return processed;   
-    } catch (IOException e) {
-      throw new CodeGenException(e.toString());
-    }      
+      doc.replace(nTag + nOffset, nTag + nOffset + nLines, code);
+      return doc;
+    };
   }
-  
+
+  /**
+   * getWrites
+   *
+   * @see builder.codegen.pipes.SplicePipe#getWrites()
+   */
+  @Override
+  public List<String> getWrites() {
+    List<String> tags = new ArrayList<String>();
+    tags.add(MY_TAG);
+    if (MY_ENUM_TAG != null) {
+      tags.add(MY_ENUM_TAG);
+    }
+    return tags;
+  }
+
+  /**
+   * getReads
+   * we only ever read our own sections of the document, 
+   * everything else comes from our models which stay put
+   * during code generation, see fingerprint().
+   *
+   * @see builder.codegen.pipes.SplicePipe#getReads()
+   */
+  @Override
+  public List<String> getReads() {
+    return getWrites();
+  }
+
+  /**
+   * fingerprint adds everything our generated section depends upon
+   * beyond the project wide settings.
+   * By default that's every page and widget, pipes that only look at
+   * some types of widgets narrow this down so they can be skipped more often.
+   *
+   * @param fp
+   *          the fingerprint
+   */
+  public void fingerprint(Fingerprint fp) {
+    fp.addPages(cg.getPages());
+    fp.addModels(cg.getModels());
+  }
+
   /**
    * doCodeGen.
    *
@@ -182,13 +244,11 @@ public class WorkFlowPipe implements Pipe<StringBuilder> {
    *  outputButtonCB with this list for the actual code generation.
    *
    * @param br
-   *          the buffered reader of our project template input
+   *          the line reader of our project template input
    * @param sBd
    *          the StringBuilder object containing our project template
-   * @throws IOException
-   *           Signals that an I/O exception has occurred.
    */
-  public void doCbCommon(BufferedReader br, StringBuilder sBd) throws IOException {
+  public void doCbCommon(LineReader br, StringBuilder sBd) {
     if (callbackList == null || callbackList.size() == 0) {
       sBd.append(MY_TAG); 
       sBd.append(System.lineSeparator());  
@@ -220,12 +280,12 @@ public class WorkFlowPipe implements Pipe<StringBuilder> {
    *  The callback already exists so we just process what is  
    *  between the BUTTON_ENUMS_TAG and BUTTON_ENUMS_END_TAG here.
    *
-   * @param br
-   *          the buffered reader of our project template input
+   * @param section
+   *          the existing lines between our enum tags
    * @param sBd
    *          the StringBuilder object containing our project template output
    */
-  public void doEnums(BufferedReader br, StringBuilder sBd) throws IOException {
+  public void doEnums(Section section, StringBuilder sBd) {
     
   }
 
@@ -235,73 +295,66 @@ public class WorkFlowPipe implements Pipe<StringBuilder> {
    * a map of enums with a code of 0 for new or 1 for existing.
    * It will also detect and prune deleted UI elements.
    *
-   * @param br
-   *          the buffered reader of our project template input
+   * @param section
+   *          the existing lines between our enum tags
+   * @param sBd
+   *          the StringBuilder object containing our project template output
+   * @param enumList
+   *          the enums of our callbackList
    * @return map
    */
-  public Map<String, String> mapEnums(BufferedReader br, StringBuilder sBd, List<String>enumList) throws IOException {
+  public Map<String, String> mapEnums(Section section, StringBuilder sBd, List<String>enumList) {
     Map<String, String> enumMap = new HashMap<String, String>();
     for (String s : enumList) {
       enumMap.put(s, "0");
     }
-    List<String> scanLines = new ArrayList<String>();
-    /* our callback section already exists - read it into a buffer we can scan 
-     * it for existing Enum case statements. This will allow us to determine
-     * if a case statement for an ENUM already exists or not.
-     * Also, we can detect of a ENUM case should be deleted because the button
-     * was removed.
-     */     
-    String sTestTag= "";
-    while((line = br.readLine()) != null) {
-      sTestTag = LTRIM.matcher(line).replaceAll(EMPTY_STRING);
-      if (sTestTag.equals(MY_ENUM_END_TAG)) break;
-      scanLines.add(line);
-    }
-    /* now search the saved buffer (scanLines) for any 
-     * deleted enums and remove their case statements 
-     * from the buffer.
+    /* our callback section already exists and has been indexed,
+     * so we can determine if a case statement for an ENUM already exists or not.
+     * Also, we can detect if a ENUM case should be deleted because the button
+     * was removed, in which case we drop all lines up to and including
+     * the "break" statement.
      */
-    ListIterator<String> litr = scanLines.listIterator();
-    while(litr.hasNext()) {
-      String s = litr.next();
-      // break the line up into words
-      if (s.isEmpty()) continue;
-      String[] words = s.split("\\W+");
-      // first word must be "case"
-      if (words.length == 0) continue;
-      if (words[1].equals("case")) {
-        // second word will be our ENUM, look it up in our ENUM map
-        if (enumMap.containsKey(words[2])) {
-          /* since we know we have this ENUM case statement already 
-           * exists lets set the value inside the map to
-           * indicate it's already been dealt with.
-           */
-          enumMap.put(words[2], "1");  // changed from "0" to "1"
-        } else {        
-          // this ENUM isn't in our list of valid ENUMs so we need to delete it
-          litr.remove();
-          // now remove all lines up to and including the "break" statement
-          while(litr.hasNext()) {
-            s = litr.next();
-            litr.remove();
-            // search for "break" statement
-            if (s.matches(".*\\bbreak\\b.*")) 
-              break;
-          }
-        }
-      } 
+    int nNext = 0;
+    for (Case c : section.getCases()) {
+      // skip any case swallowed up by a deleted one
+      if (c.getStart() < nNext) continue;
+      if (enumMap.containsKey(c.getLabel())) {
+        /* since we know we have this ENUM case statement already 
+         * exists lets set the value inside the map to
+         * indicate it's already been dealt with.
+         */
+        enumMap.put(c.getLabel(), "1");  // changed from "0" to "1"
+      } else {
+        // this ENUM isn't in our list of valid ENUMs so we need to delete it
+        appendLines(section, nNext, c.getStart(), sBd);
+        nNext = (c.getBreakLine() < 0) ? section.size() : c.getBreakLine() + 1;
+      }
     }
     
     // Now that our previous case statement ENUMs have been cleaned up output them
-    if (scanLines.size() > 0) {
-      for (String s : scanLines) {
-        sBd.append(s);
-        sBd.append(System.lineSeparator());  
-      } 
-    }
+    appendLines(section, nNext, section.size(), sBd);
     
     return enumMap; 
   }
 
+  /**
+   * appendLines outputs a range of lines from our section.
+   *
+   * @param section
+   *          the section
+   * @param nStart
+   *          the first line
+   * @param nEnd
+   *          the line following our last line
+   * @param sBd
+   *          the StringBuilder object containing our project template output
+   */
+  private void appendLines(Section section, int nStart, int nEnd, StringBuilder sBd) {
+    for (int i=nStart; i<nEnd; i++) {
+      sBd.append(section.getLine(i));
+      sBd.append(System.lineSeparator());  
+    }
+  }
+
 }
   
\ No newline at end of file
@@ -25,9 +25,13 @@
  */
 package builder.commands;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 
 import javax.swing.JOptionPane;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 
 import builder.Builder;
 //import builder.views.ToolBar; 
@@ -70,6 +74,9 @@ public class History {
   /** The redo stack. */
   private LinkedList<Command> redoStack = new LinkedList<Command>();
 
+  /** The listeners told whenever our project may have changed. */
+  private List<ChangeListener> listeners = new ArrayList<ChangeListener>();
+
   /** The instance. */
   private static History instance = null;
   
@@ -103,6 +110,29 @@ public class History {
   public void clearHistory() {
     undoStack.clear();
     redoStack.clear();
+    fireChanged();
+  }
+  
+  /**
+   * addChangeListener asks to be told whenever a command is 
+   * performed, undone or redone, or our history is cleared
+   * since our project may then have changed.
+   *
+   * @param l
+   *          the listener
+   */
+  public void addChangeListener(ChangeListener l) {
+    listeners.add(l);
+  }
+  
+  /**
+   * fireChanged tells our listeners our project may have changed.
+   */
+  private void fireChanged() {
+    ChangeEvent e = new ChangeEvent(this);
+    for (ChangeListener l : listeners) {
+      l.stateChanged(e);
+    }
   }
   
   /**
@@ -117,6 +147,7 @@ public class History {
     Ribbon.getInstance().enableUndo(true);
     redoStack.clear();
     Ribbon.getInstance().enableRedo(false);
+    fireChanged();
   }
   
   /**
@@ -143,6 +174,7 @@ public class History {
     Ribbon.getInstance().enableRedo(true);
 //    System.out.println("Undoing: " + c.toString());
     c.restore();
+    fireChanged();
     return true;
   }
 
@@ -171,6 +203,7 @@ public class History {
     Ribbon.getInstance().enableUndo(true);
     c.restore();
     c.execute();
+    fireChanged();
     return true;
   }
 }
@@ -61,6 +61,7 @@ import builder.prefs.GridEditor;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
+import java.util.Set;
 
 /**
  * The Class CommonUtils is a catch all for useful routines that don't seem to fit
@@ -480,8 +481,10 @@ public class Utils {
   /**
    * cleanFolderOfFontHeaders
    * @param folder
+   * @param keepList
+   *          names of font headers still in use
    */
-  public static void cleanFolderOfFontHeaders(String folder) {
+  public static void cleanFolderOfFontHeaders(String folder, Set<String> keepList) {
       List<File> fileList = new ArrayList<>();
 
       try (DirectoryStream<Path> stream = Files
@@ -499,7 +502,8 @@ public class Utils {
       for (File f : fileList) {
         fileName = f.getName();
         Builder.logger.debug("found: "+f.toString());
-        if (FontFactory.getFontCleanupMap().containsKey(fileName)) {
+        if (FontFactory.getFontCleanupMap().containsKey(fileName)
+            && !keepList.contains(fileName)) {
           Builder.logger.debug("deleted font header: "+f.toString());
           f.delete();
         }
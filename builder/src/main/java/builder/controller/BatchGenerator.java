@@ -0,0 +1,411 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.controller;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import builder.Builder;
+import builder.codegen.CodeGenException;
+import builder.codegen.CodeGenerator;
+import builder.codegen.CodePage;
+import builder.common.EnumFactory;
+import builder.fonts.FontFactory;
+import builder.models.ProjectModel;
+import builder.prefs.GeneralEditor;
+import builder.widgets.Widget;
+import builder.widgets.WidgetFactory;
+
+/**
+ * The Class BatchGenerator runs our code generator from the command line
+ * so projects can be regenerated by scripts and CI builds.
+ * <p>
+ * Usage: builder.Builder --generate &lt;project.prj&gt;... [--jobs N]
+ * </p>
+ * Projects are read without creating any of our Swing views and
+ * errors are reported on stderr and through our exit code.
+ * Since the project model and code generator are singletons, each project
+ * gets its own JVM whenever more than one is being generated in parallel.
+ * 
+ * NOTE: Like the UI, this must be run from the Builder's install folder
+ * so our templates and fonts can be found.
+ * 
+ * @author Paul Conti
+ *
+ */
+public class BatchGenerator {
+
+  /** The Constants for command line options. */
+  public  final static String OPT_GENERATE = "--generate";
+  public  final static String OPT_JOBS     = "--jobs";
+  private final static String OPT_IDE      = "insideIDE";
+
+  /** The Constants for exit codes. */
+  public  final static int EXIT_OK         = 0;
+  public  final static int EXIT_FAILED     = 1;
+  public  final static int EXIT_USAGE      = 2;
+  public  final static int EXIT_UNREADABLE = 3;
+
+  /** The Constant USAGE. */
+  private final static String USAGE =
+      "usage: builder.Builder --generate <project.prj>... [--jobs N]\n" +
+      "  run from the GUIslice Builder install folder\n" +
+      "  exit codes: 0 ok, 1 code generation failed, 2 usage, 3 unreadable project";
+
+  /** The stderr stream, saved before GeneralEditor silences it. */
+  private static PrintStream err = System.err;
+
+  /**
+   * run our command line code generation.
+   *
+   * @param args
+   *          the command line arguments
+   * @return the exit code
+   */
+  public static int run(String[] args) {
+    List<File> projects = new ArrayList<File>();
+    int nJobs = Runtime.getRuntime().availableProcessors();
+    for (int i=0; i<args.length; i++) {
+      if (args[i].equals(OPT_GENERATE) || args[i].equals(OPT_IDE)) {
+        continue;
+      }
+      if (args[i].equals(OPT_JOBS)) {
+        if (++i >= args.length) return usage("missing value for " + OPT_JOBS);
+        try {
+          nJobs = Integer.parseInt(args[i]);
+        } catch (NumberFormatException e) {
+          return usage("invalid value for " + OPT_JOBS + ": " + args[i]);
+        }
+        if (nJobs < 1) return usage("invalid value for " + OPT_JOBS + ": " + args[i]);
+        continue;
+      }
+      if (args[i].startsWith("--")) {
+        return usage("unknown option: " + args[i]);
+      }
+      projects.add(new File(args[i]));
+    }
+    if (projects.isEmpty()) {
+      return usage("no project files given");
+    }
+    if (nJobs > 1 && projects.size() > 1) {
+      return runChildren(projects, Math.min(nJobs, projects.size()));
+    }
+    startUp();
+    int exitCode = EXIT_OK;
+    for (File file : projects) {
+      exitCode = Math.max(exitCode, generate(file));
+    }
+    return exitCode;
+  }
+
+  /**
+   * usage reports a command line error.
+   *
+   * @param msg
+   *          the error message
+   * @return the exit code
+   */
+  private static int usage(String msg) {
+    err.println(msg);
+    err.println(USAGE);
+    return EXIT_USAGE;
+  }
+
+  /**
+   * startUp initializes just the pieces of the Builder
+   * our code generator depends upon.
+   */
+  private static void startUp() {
+    System.setProperty("java.awt.headless", "true");
+    File directory = new File("./logs");
+    if (!directory.exists()) {
+      directory.mkdirs();
+    }
+    Builder.logger = LogManager.getLogger();
+    Builder.logger.openLogger("./logs/builder.log");
+    Builder.logger.debug("Builder ver: " + Builder.VERSION + " command line code generation");
+    FontFactory.getInstance().init();
+    // our General preferences model expects the list of themes
+    Builder.loadThemes();
+    GeneralEditor.getInstance();
+    // GeneralEditor leaves stderr pointing at nothing
+    System.setErr(err);
+  }
+
+  /**
+   * generate code for one project.
+   *
+   * @param file
+   *          the project file
+   * @return the exit code
+   */
+  private static int generate(File file) {
+    List<CodePage> pages = null;
+    try {
+      pages = readProject(file);
+    } catch (IOException | ClassNotFoundException | RuntimeException e) {
+      Builder.logger.error("Project Open Failed: " + file + " " + e.toString());
+      err.println(file + ": unable to read project: " + e.toString());
+      return EXIT_UNREADABLE;
+    }
+    try {
+      String skeleton = CodeGenerator.getInstance().generate(file, pages, 
+          GeneralEditor.getInstance().isBackwardCompat());
+      Builder.logger.debug("Successful Code Generation into " + skeleton);
+      System.out.println(file + ": generated " + skeleton);
+      return EXIT_OK;
+    } catch (CodeGenException e) {
+      Builder.logger.error("Code Generation Failed: " + e.toString());
+      err.println(file + ": code generation failed: " + e.getMessage());
+    } catch (RuntimeException e) {
+      Builder.logger.error("Code Generation Failed: " + e.toString());
+      err.println(file + ": code generation failed: " + e.toString());
+    }
+    return EXIT_FAILED;
+  }
+
+  /**
+   * readProject reads a project file the same way as Controller.openProject()
+   * but only creates what our code generator needs.
+   * The project model is stored with Controller for code generation.
+   *
+   * @param file
+   *          the project file
+   * @return the pages
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   * @throws ClassNotFoundException
+   *           the class not found exception
+   */
+  public static List<CodePage> readProject(File file) 
+      throws IOException, ClassNotFoundException {
+    List<CodePage> pages = new ArrayList<CodePage>();
+    try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(file))) {
+      // Read in version number
+      String strVersion = (String)in.readObject();
+      if (strVersion.equals("1.01") || strVersion.equals("1.02")) {
+        // read in target platform
+        in.readObject();
+      }
+      // skip the page that was open
+      in.readObject();
+      ProjectModel pm = null;
+      if (strVersion.equals("13.025") || strVersion.equals("17") ) {
+        pm = new ProjectModel();
+        pm.readModel(in,EnumFactory.PROJECT + "$1");
+      } else {
+        pm = Controller.newProjectModel();
+      }
+      Controller.setProjectModel(pm);
+      if (strVersion.equals("17")) {
+        // skip the zoom factor
+        in.readDouble();
+      }
+      int cnt = in.readInt();
+      for (int i=0; i<cnt; i++) {
+        String pageKey = (String)in.readObject();
+        String pageEnum = (String)in.readObject();
+        String pageType = EnumFactory.PAGE;
+        if (!strVersion.equals("1.01")) {
+          pageType = (String)in.readObject();
+        }
+        BatchPage p = null;
+        if (pageEnum.equals("E_PROJECT_OPTIONS")) {
+          p = new BatchPage(pm.getKey(), pm.getEnum(), EnumFactory.PROJECT);
+        } else {
+          p = new BatchPage(pageKey, pageEnum, pageType);
+        }
+        p.restore((String)in.readObject());
+        pages.add(p);
+      }
+    }
+    return pages;
+  }
+
+  /**
+   * runChildren generates each project inside its own JVM 
+   * running up to nJobs at a time.
+   *
+   * @param projects
+   *          the project files
+   * @param nJobs
+   *          the number of jobs
+   * @return the worst exit code
+   */
+  private static int runChildren(List<File> projects, int nJobs) {
+    List<String> javaCmd = getJavaCommand();
+    ExecutorService pool = Executors.newFixedThreadPool(nJobs);
+    List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+    for (File file : projects) {
+      List<String> cmd = new ArrayList<String>(javaCmd);
+      cmd.add(OPT_GENERATE);
+      cmd.add(file.getPath());
+      results.add(pool.submit(new Callable<Integer>() {
+        @Override
+        public Integer call() throws IOException, InterruptedException {
+          Process proc = new ProcessBuilder(cmd).inheritIO().start();
+          return Integer.valueOf(proc.waitFor());
+        }
+      }));
+    }
+    pool.shutdown();
+    int exitCode = EXIT_OK;
+    for (int i=0; i<results.size(); i++) {
+      try {
+        exitCode = Math.max(exitCode, results.get(i).get().intValue());
+      } catch (ExecutionException e) {
+        err.println(projects.get(i) + ": unable to start code generation: " 
+          + e.getCause().toString());
+        exitCode = Math.max(exitCode, EXIT_FAILED);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        pool.shutdownNow();
+        return EXIT_FAILED;
+      }
+    }
+    return exitCode;
+  }
+
+  /**
+   * getJavaCommand builds the command that restarts our Builder
+   * with the same java runtime, module or class path.
+   *
+   * @return the command
+   */
+  private static List<String> getJavaCommand() {
+    List<String> cmd = new ArrayList<String>();
+    cmd.add(ProcessHandle.current().info().command().orElse(
+        System.getProperty("java.home") + File.separator + "bin" + File.separator + "java"));
+    if (BatchGenerator.class.getModule().isNamed()) {
+      String modulePath = System.getProperty("jdk.module.path");
+      if (modulePath != null) {
+        cmd.add("-p");
+        cmd.add(modulePath);
+      }
+      cmd.add("-m");
+      cmd.add("builder/" + Builder.class.getName());
+    } else {
+      cmd.add("-cp");
+      cmd.add(System.getProperty("java.class.path"));
+      cmd.add(Builder.class.getName());
+    }
+    if (Builder.isInsideIDE()) {
+      cmd.add(OPT_IDE);
+    }
+    return cmd;
+  }
+
+  /**
+   * The Class BatchPage holds one page of widgets
+   * without any of the Swing baggage of a PagePane.
+   */
+  static class BatchPage implements CodePage {
+
+    /** The key. */
+    private final String key;
+
+    /** The enum. */
+    private final String pageEnum;
+
+    /** The page type. */
+    private final String pageType;
+
+    /** The widgets. */
+    private List<Widget> widgets = new ArrayList<Widget>();
+
+    /**
+     * Instantiates a new batch page.
+     *
+     * @param key
+     *          the key
+     * @param pageEnum
+     *          the page enum
+     * @param pageType
+     *          the page type
+     */
+    BatchPage(String key, String pageEnum, String pageType) {
+      this.key = key;
+      this.pageEnum = pageEnum;
+      this.pageType = pageType;
+    }
+
+    /**
+     * restore our widgets the same way as PagePane.restore().
+     *
+     * @param state
+     *          the saved state
+     * @throws IOException
+     *           Signals that an I/O exception has occurred.
+     * @throws ClassNotFoundException
+     *           the class not found exception
+     */
+    void restore(String state) throws IOException, ClassNotFoundException {
+      byte[] data = Base64.getDecoder().decode(state);
+      try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+        int cnt = in.readInt();  // size of array list
+        for (int i=0; i<cnt; i++) {
+          String widgetType = (String)in.readObject();
+          Widget w = WidgetFactory.getInstance().createWidget(widgetType,0,0);
+          w.readObject(in, widgetType);
+          widgets.add(w);
+        }
+      }
+    }
+
+    @Override
+    public String getKey() {
+      return key;
+    }
+
+    @Override
+    public String getEnum() {
+      return pageEnum;
+    }
+
+    @Override
+    public String getPageType() {
+      return pageType;
+    }
+
+    @Override
+    public List<Widget> getWidgets() {
+      return widgets;
+    }
+  }
+
+}
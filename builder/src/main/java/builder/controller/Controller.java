@@ -43,6 +43,7 @@ import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.concurrent.ExecutionException;
 import java.util.prefs.PreferenceChangeEvent;
 import java.util.prefs.PreferenceChangeListener;
 
@@ -56,6 +57,9 @@ import javax.swing.text.NumberFormatter;
 import builder.Builder;
 import builder.RibbonMenu.RibbonBar;
 import builder.codegen.CodeGenerator;
+import builder.codegen.CodePage;
+import builder.codegen.Footprint;
+import builder.codegen.PageSnapshot;
 import builder.codegen.PlatformIO;
 import builder.commands.AddWidgetCommand;
 import builder.commands.AlignBottomCommand;
@@ -83,6 +87,8 @@ import builder.events.MsgEvent;
 import builder.events.iSubscriber;
 import builder.models.GeneralModel;
 import builder.models.GridModel;
+import builder.models.KeyPadModel;
+import builder.models.KeyPadTextModel;
 import builder.models.PageModel;
 import builder.models.ProjectModel;
 import builder.models.WidgetModel;
@@ -96,6 +102,7 @@ import builder.themes.GUIsliceThemeFactory;
 import builder.views.MenuBar;
 import builder.views.PagePane;
 import builder.views.FileViewWithIcons;
+import builder.views.FootprintDialog;
 import builder.views.ImagePreviewPanel;
 import builder.views.Ribbon;
 import builder.views.TreeView;
@@ -171,6 +178,9 @@ public class Controller extends JInternalFrame
   /** The litr. */
   ListIterator<PagePane> litr;
   
+  /** The code generation running in the background, if any. */
+  private SwingWorker<String, String> codeGenWorker = null;
+  
   /** saved icons */
   ImageIcon ic_project_tab,ic_page_tab, ic_base_tab, ic_popup_tab;
   
@@ -306,16 +316,42 @@ public class Controller extends JInternalFrame
     return pm.getTargetPlatform();
   }
   
+  /**
+   * set project model
+   * used when generating code from the command line
+   * where we have no Controller instance.
+   * @param model
+   */
+  public static void setProjectModel(ProjectModel model) {
+    pm = model;
+  }
+  
   /**
    * 
    */
   public void createProjectModel() {
+    pm = newProjectModel();
+    PagePane p = new PagePane();
+    p.setLayout(null);
+    p.setPM_Model(pm);
+    p.setPage_model(pm);
+    projectPage = p;
+    addPage(p);
+  }
+  
+  /**
+   * newProjectModel
+   * creates a project model using the user's General preferences
+   * for older project files that didn't save one.
+   * @return model
+   */
+  public static ProjectModel newProjectModel() {
     GeneralModel gm = (GeneralModel) GeneralEditor.getInstance().getModel();
     Object[][] gmData = gm.getData();
-    pm = new ProjectModel();
-    pm.setType(EnumFactory.PROJECT);
-    Object[][] pmData = pm.getData();
-    pm.TurnOffEvents();
+    ProjectModel model = new ProjectModel();
+    model.setType(EnumFactory.PROJECT);
+    Object[][] pmData = model.getData();
+    model.TurnOffEvents();
     int rows = gm.getRowCount();
     int mapRow = 0;
     String metaID = null;
@@ -323,19 +359,14 @@ public class Controller extends JInternalFrame
     for (int i=1; i<rows; i++) {
       metaID = (String)gmData[i][WidgetModel.PROP_VAL_ID];
       objectData = gm.getValueAt(i, 1);;
-      mapRow = pm.mapMetaIDtoProperty(metaID);
+      mapRow = model.mapMetaIDtoProperty(metaID);
       if (mapRow >= 0) {
         pmData[mapRow][WidgetModel.PROP_VAL_VALUE] = objectData;
       }
     }
-    pm.setReadOnlyProperties();
-    pm.TurnOnEvents();
-    PagePane p = new PagePane();
-    p.setLayout(null);
-    p.setPM_Model(pm);
-    p.setPage_model(pm);
-    projectPage = p;
-    addPage(p);
+    model.setReadOnlyProperties();
+    model.TurnOnEvents();
+    return model;
   }
   
   
@@ -1467,21 +1498,97 @@ public class Controller extends JInternalFrame
 
   /**
    *  generateCode
-   *    calls the code generator to create our output file
+   *    calls the code generator to create our output file.
+   *    Code generation runs in the background on a snapshot of our
+   *    project so the user can keep editing, showing its progress
+   *    and allowing it to be cancelled.
    */
   public void generateCode() {
-    String skeleton=null;
-    CodeGenerator cg = CodeGenerator.getInstance();
-    if (projectFile != null) {
-      skeleton = cg.generateCode(projectFile, pages, generalEditor.isBackwardCompat());
-      if (skeleton != null)
-        Builder.postStatusMsg("Successful Code Generation into " + skeleton);
-      else 
-        Builder.postStatusMsg("Code Generation Failed");
-    } else {
-        JOptionPane.showMessageDialog(topFrame, "Sorry, You must Name Project before asking for code generation",
-            "Error", JOptionPane.ERROR_MESSAGE);
+    if (projectFile == null) {
+      JOptionPane.showMessageDialog(topFrame, "Sorry, You must Name Project before asking for code generation",
+          "Error", JOptionPane.ERROR_MESSAGE);
+      return;
     }
+    if (codeGenWorker != null) {
+      Builder.postStatusMsg("Code Generation is already running");
+      return;
+    }
+    // freeze our project as it is right now
+    final List<CodePage> snapshot = PageSnapshot.of(pages);
+    final ProjectModel pmSnapshot = (ProjectModel) pm.snapshot();
+    final GeneralModel gmSnapshot = (GeneralModel) generalEditor.getModel().snapshot();
+    final KeyPadModel numKeyPadSnapshot = 
+        (KeyPadModel) NumKeyPadEditor.getInstance().getModel().snapshot();
+    final KeyPadTextModel alphaKeyPadSnapshot = 
+        (KeyPadTextModel) AlphaKeyPadEditor.getInstance().getModel().snapshot();
+    final boolean bCompat = generalEditor.isBackwardCompat();
+    final File file = projectFile;
+    final CodeGenerator cg = CodeGenerator.getInstance();
+    final ProgressMonitor monitor = new ProgressMonitor(topFrame, 
+        "Generating code for " + file.getName(), "", 0, 100);
+    codeGenWorker = new SwingWorker<String, String>() {
+
+      @Override
+      protected String doInBackground() throws Exception {
+        return cg.generate(file, snapshot, pmSnapshot, gmSnapshot, numKeyPadSnapshot, 
+            alphaKeyPadSnapshot, bCompat, (name, nStage, nStages) -> {
+          // leave room at the end so our monitor stays up while saving
+          setProgress(nStage * 100 / (nStages + 1));
+          publish(name);
+        });
+      }
+
+      @Override
+      protected void process(List<String> stages) {
+        if (monitor.isCanceled()) {
+          cg.cancel();
+        } else {
+          monitor.setNote(stages.get(stages.size()-1));
+        }
+      }
+
+      @Override
+      protected void done() {
+        monitor.close();
+        codeGenWorker = null;
+        try {
+          String skeleton = get();
+          Builder.postStatusMsg("Successful Code Generation into " + skeleton 
+              + " (" + cg.getTelemetry().summary() + ", " + cg.getFootprint().summary() + ")");
+        } catch (ExecutionException e) {
+          if (cg.isCancelled()) {
+            Builder.postStatusMsg("Code Generation Cancelled");
+            return;
+          }
+          Throwable cause = e.getCause();
+          Builder.logger.debug("Code Generation Failed: " + cause.toString());
+          JOptionPane.showMessageDialog(topFrame, "Code Generation Failed: " + cause.toString(), 
+              "Error", JOptionPane.ERROR_MESSAGE);
+          Builder.postStatusMsg("Code Generation Failed");
+        } catch (InterruptedException e) {
+          Builder.postStatusMsg("Code Generation Failed");
+        }
+      }
+    };
+    codeGenWorker.addPropertyChangeListener(evt -> {
+      if ("progress".equals(evt.getPropertyName())) {
+        if (monitor.isCanceled()) {
+          cg.cancel();
+        }
+        monitor.setProgress((Integer) evt.getNewValue());
+      }
+    });
+    Builder.postStatusMsg("Generating code for " + file.getName());
+    codeGenWorker.execute();
+  }
+  
+  /**
+   *  showFootprint
+   *    shows our live estimate of the memory our project 
+   *    will need on its target MCU.
+   */
+  public void showFootprint() {
+    FootprintDialog.showDialog(topFrame, () -> Footprint.estimate(pages, pm));
   }
   
   /** getProjectName 
@@ -141,10 +141,13 @@ public class FontItem implements Comparable<FontItem> {
   
   /**
    * Gets the font.
+   * 
+   * Synchronized since code generation may ask for 
+   * the font from several threads at once.
    *
    * @return the java <code>Font</code> object
    */
-  public FontTFT getFont() {
+  public synchronized FontTFT getFont() {
     if (font == null) {
       createFont();
     }
@@ -0,0 +1,128 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.models;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import builder.Builder;
+
+/**
+ * The Class MetaIds assigns each property meta ID, like "COM-001" or "TXT-200",
+ * a small integer slot so property lookups can be done by array index.
+ * 
+ * Slots come from templates/meta_ids.csv in the order listed there, any 
+ * meta ID missing from that file, or any other macro name used by our 
+ * templates, is given the next free slot when first seen.
+ * Slots are only valid while the Builder is running, never save them.
+ * 
+ * @author Paul Conti
+ * 
+ */
+public final class MetaIds {
+
+  /** The meta ID listing. */
+  private final static String META_IDS_RESOURCE = "/resources/templates/meta_ids.csv";
+
+  /** The slots of each meta ID. */
+  private final static Map<String, Integer> slots = new ConcurrentHashMap<String, Integer>();
+
+  static {
+    load();
+  }
+
+  /**
+   * Instantiates a new meta ids.
+   */
+  private MetaIds() {
+  }
+
+  /**
+   * load our meta ID listing, skipping its header line.
+   */
+  private static void load() {
+    try (InputStream in = MetaIds.class.getResourceAsStream(META_IDS_RESOURCE)) {
+      if (in == null) {
+        Builder.logger.debug("MetaIds missing: " + META_IDS_RESOURCE);
+        return;
+      }
+      BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+      String line = br.readLine();
+      while ((line = br.readLine()) != null) {
+        int n = line.indexOf(',');
+        if (n > 0) {
+          slot(line.substring(0, n).trim());
+        }
+      }
+    } catch (IOException e) {
+      Builder.logger.debug("MetaIds load failed: " + e.toString());
+    }
+  }
+
+  /**
+   * slot gives back the slot of a meta ID, assigning one if needed.
+   *
+   * @param metaId
+   *          the meta ID
+   * @return the slot
+   */
+  public static int slot(String metaId) {
+    Integer slot = slots.get(metaId);
+    if (slot != null) {
+      return slot.intValue();
+    }
+    synchronized (slots) {
+      return slots.computeIfAbsent(metaId, k -> Integer.valueOf(slots.size())).intValue();
+    }
+  }
+
+  /**
+   * indexOf gives back the slot of a meta ID without assigning one.
+   *
+   * @param key
+   *          the meta ID, or any other macro name
+   * @return the slot, or -1 if key isn't a known meta ID
+   */
+  public static int indexOf(String key) {
+    Integer slot = slots.get(key);
+    return (slot == null) ? -1 : slot.intValue();
+  }
+
+  /**
+   * Gets the number of slots assigned so far.
+   *
+   * @return the size
+   */
+  public static int size() {
+    return slots.size();
+  }
+
+}
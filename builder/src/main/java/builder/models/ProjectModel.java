@@ -42,6 +42,7 @@ import javax.swing.table.TableCellEditor;
 import javax.swing.table.TableCellRenderer;
 
 import builder.Builder;
+import builder.codegen.McuProfile;
 import builder.codegen.PlatformIO;
 import builder.commands.PropertyCommand;
 import builder.common.Utils;
@@ -102,6 +103,15 @@ public class ProjectModel extends PageModel implements MultipeLineCellListener {
   public static final int PROP_VSPACING             = 18;
   public static final int PROP_MAX_STRING           = 19;
   public static final int PROP_ROTATION             = 20;
+  public static final int PROP_MCU                  = 21;
+  public static final int PROP_FLASH_PLACEMENT      = 22;
+  public static final int PROP_RAM_BUDGET           = 23;
+  public static final int PROP_STRING_POOL          = 24;
+  public static final int PROP_SUBSET_FONTS         = 25;
+  public static final int PROP_DEFER_PAGES          = 26;
+  public static final int PROP_EXPORT_IMAGES        = 27;
+  public static final int PROP_BAKE_STATIC          = 28;
+  public static final int PROP_NARROW_ENUMS         = 29;
   
   /** The Property Defaults */
   static public  final String  DEF_IDE                 = "Arduino IDE";
@@ -123,6 +133,15 @@ public class ProjectModel extends PageModel implements MultipeLineCellListener {
   static public  final Integer DEF_MAX_STRING          = Integer.valueOf(100);
   static public  final Integer DEF_ROTATION            = Integer.valueOf(-1);
   static public  final Boolean DEF_BACKWARD_COMPAT     = Boolean.valueOf(false);
+  static public  final String  DEF_MCU                 = McuProfile.AUTO;
+  static public  final Boolean DEF_FLASH_PLACEMENT     = Boolean.valueOf(false);
+  static public  final Integer DEF_RAM_BUDGET          = Integer.valueOf(0);
+  static public  final Boolean DEF_STRING_POOL         = Boolean.valueOf(false);
+  static public  final Boolean DEF_SUBSET_FONTS        = Boolean.valueOf(false);
+  static public  final Boolean DEF_DEFER_PAGES         = Boolean.valueOf(false);
+  static public  final Boolean DEF_EXPORT_IMAGES       = Boolean.valueOf(false);
+  static public  final Boolean DEF_BAKE_STATIC         = Boolean.valueOf(false);
+  static public  final Boolean DEF_NARROW_ENUMS        = Boolean.valueOf(false);
   
   /** The cb themes. */
   public static JComboBox<String> cbThemes;
@@ -163,6 +182,12 @@ public class ProjectModel extends PageModel implements MultipeLineCellListener {
   /** The memory cell editor. */
   DefaultCellEditor memoryCellEditor;
 
+  /** The cb mcu. */
+  JComboBox<String> cbMcu;
+  
+  /** The mcu cell editor. */
+  DefaultCellEditor mcuCellEditor;
+
   /** The cb format. */
   JComboBox<String> cbFormat;
   
@@ -203,7 +228,7 @@ public class ProjectModel extends PageModel implements MultipeLineCellListener {
   protected void initProperties()
   {
     widgetType = EnumFactory.PROJECT + "$1";
-    data = new Object[21][5];
+    data = new Object[30][5];
 
     initProp(PROP_KEY, String.class, "COM-001", Boolean.TRUE,"Key",widgetType);
     initProp(PROP_ENUM, String.class, "COM-002", Boolean.FALSE,"ENUM","E_PROJECT_OPTIONS");
@@ -238,6 +263,23 @@ public class ProjectModel extends PageModel implements MultipeLineCellListener {
     initProp(PROP_MAX_STRING, Integer.class, "GEN-110", Boolean.FALSE,"MAX_STR",DEF_MAX_STRING);
     initProp(PROP_ROTATION, Integer.class, "GEN-112", Boolean.FALSE,
         "Screen Rotation [0-3 or -1 default]",DEF_ROTATION);
+    initProp(PROP_MCU, String.class, "GEN-114", Boolean.FALSE,"Target MCU",DEF_MCU);
+    initProp(PROP_FLASH_PLACEMENT, Boolean.class, "GEN-115", Boolean.FALSE,
+        "Auto Flash Placement?",DEF_FLASH_PLACEMENT);
+    initProp(PROP_RAM_BUDGET, Integer.class, "GEN-122", Boolean.FALSE,
+        "RAM Budget [bytes or 0 for Target MCU]",DEF_RAM_BUDGET);
+    initProp(PROP_STRING_POOL, Boolean.class, "GEN-123", Boolean.FALSE,
+        "Pool Text in Flash?",DEF_STRING_POOL);
+    initProp(PROP_SUBSET_FONTS, Boolean.class, "GEN-124", Boolean.FALSE,
+        "Subset Fonts?",DEF_SUBSET_FONTS);
+    initProp(PROP_DEFER_PAGES, Boolean.class, "GEN-125", Boolean.FALSE,
+        "Create Pages on First Show?",DEF_DEFER_PAGES);
+    initProp(PROP_EXPORT_IMAGES, Boolean.class, "GEN-126", Boolean.FALSE,
+        "Embed Images in Flash?",DEF_EXPORT_IMAGES);
+    initProp(PROP_BAKE_STATIC, Boolean.class, "GEN-127", Boolean.FALSE,
+        "Bake Static Elements into Images?",DEF_BAKE_STATIC);
+    initProp(PROP_NARROW_ENUMS, Boolean.class, "GEN-128", Boolean.FALSE,
+        "Narrow Enum Types?",DEF_NARROW_ENUMS);
 
   }
   
@@ -286,6 +328,12 @@ public class ProjectModel extends PageModel implements MultipeLineCellListener {
     cbFormat.addItem(FORMAT_RAW);
     formatCellEditor = new DefaultCellEditor(cbFormat);
 
+    cbMcu = new JComboBox<String>();
+    for (String s : McuProfile.getNames()) {
+      cbMcu.addItem(s);
+    }
+    mcuCellEditor = new DefaultCellEditor(cbMcu);
+
     fontsListCell = new MultiStringsCell("Project's Extra Fonts",
         MCDialogType.FONT_DIALOG);
     fontsListCell.setData(DEF_INCLUDES);
@@ -488,6 +536,94 @@ public class ProjectModel extends PageModel implements MultipeLineCellListener {
     return (((Integer) (data[PROP_MAX_STRING][PROP_VAL_VALUE])).intValue());
   }
 
+  /**
+   * Gets the target MCU used to estimate our memory footprint.
+   *
+   * @return the MCU name, or McuProfile.AUTO
+   */
+  public String getMcu() {
+    return (String) data[PROP_MCU][PROP_VAL_VALUE];
+  }
+
+  /**
+   * isFlashPlacement
+   *
+   * @return <code>true</code>, if code generation should move elements
+   *         into flash until we fit our RAM budget
+   */
+  public boolean isFlashPlacement() {
+    return ((Boolean) data[PROP_FLASH_PLACEMENT][PROP_VAL_VALUE]).booleanValue();
+  }
+
+  /**
+   * Gets the RAM budget for automatic flash placement.
+   *
+   * @return the RAM budget in bytes, or zero to use all of our target MCU's RAM
+   */
+  public int getRamBudget() {
+    return (((Integer) (data[PROP_RAM_BUDGET][PROP_VAL_VALUE])).intValue());
+  }
+
+  /**
+   * isStringPool
+   *
+   * @return <code>true</code>, if code generation should collect our static
+   *         text into a single deduplicated table in flash
+   */
+  public boolean isStringPool() {
+    return ((Boolean) data[PROP_STRING_POOL][PROP_VAL_VALUE]).booleanValue();
+  }
+
+  /**
+   * isSubsetFonts
+   *
+   * @return <code>true</code>, if code generation should copy only 
+   *         the glyphs our text uses of any fonts it copies
+   */
+  public boolean isSubsetFonts() {
+    return ((Boolean) data[PROP_SUBSET_FONTS][PROP_VAL_VALUE]).booleanValue();
+  }
+
+  /**
+   * isDeferPages
+   *
+   * @return <code>true</code>, if code generation should create the elements
+   *         of each page the first time it's shown rather than at startup
+   */
+  public boolean isDeferPages() {
+    return ((Boolean) data[PROP_DEFER_PAGES][PROP_VAL_VALUE]).booleanValue();
+  }
+
+  /**
+   * isExportImages
+   *
+   * @return <code>true</code>, if code generation should convert images
+   *         loaded from an SD card or file into arrays stored in flash
+   */
+  public boolean isExportImages() {
+    return ((Boolean) data[PROP_EXPORT_IMAGES][PROP_VAL_VALUE]).booleanValue();
+  }
+
+  /**
+   * isBakeStatic
+   *
+   * @return <code>true</code>, if code generation should draw runs of 
+   *         elements that never change into a single image in flash
+   */
+  public boolean isBakeStatic() {
+    return ((Boolean) data[PROP_BAKE_STATIC][PROP_VAL_VALUE]).booleanValue();
+  }
+
+  /**
+   * isNarrowEnums
+   *
+   * @return <code>true</code>, if code generation should give our enums
+   *         the smallest type holding them, uint8_t or uint16_t
+   */
+  public boolean isNarrowEnums() {
+    return ((Boolean) data[PROP_NARROW_ENUMS][PROP_VAL_VALUE]).booleanValue();
+  }
+
   /**
    * getScreenRotation
    *
@@ -637,6 +773,8 @@ public class ProjectModel extends PageModel implements MultipeLineCellListener {
       return formatCellEditor;
     else if (row == PROP_PIO_ENV)
       return pioenvCellEditor;
+    else if (row == PROP_MCU)
+      return mcuCellEditor;
     return null;
   }
 
@@ -0,0 +1,235 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.models;
+
+import java.awt.Color;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import builder.fonts.FontFactory;
+import builder.themes.GUIsliceThemeFactory;
+
+/**
+ * The Class PropertyMap is a flyweight view of a model's properties
+ * keyed by meta ID for our code templates.
+ * 
+ * Nothing is copied up front, properties are found by their meta ID slot
+ * and turned into strings only when a template first asks for them.
+ * Code blocks may still put() extra macros, like "TEXT", which take
+ * priority over the model's own properties.
+ * 
+ * @author Paul Conti
+ * 
+ */
+public final class PropertyMap extends AbstractMap<String, String> {
+
+  /** The slots of the meta IDs that aren't simply model properties. */
+  private final static int SLOT_PAGE_ENUM = MetaIds.slot("COM-000");
+  private final static int SLOT_KEY_COUNT = MetaIds.slot("COM-018");
+  private final static int SLOT_FONT      = MetaIds.slot("TXT-200");
+  private final static int SLOT_FONT_ENUM = MetaIds.slot("TXT-211");
+  private final static int SLOT_TEXT_SZ   = MetaIds.slot("TXT-205");
+
+  /** The model. */
+  private final WidgetModel m;
+
+  /** The page enum. */
+  private final String pageEnum;
+
+  /** The model row holding each slot. */
+  private final int[] rowBySlot;
+
+  /** The property values already turned into strings, by row. */
+  private final String[] values;
+
+  /** The extra macros put by code blocks, or null. */
+  private Map<String, String> extras = null;
+
+  /**
+   * Instantiates a new property map.
+   *
+   * @param m
+   *          the model
+   * @param pageEnum
+   *          the page enum
+   */
+  PropertyMap(WidgetModel m, String pageEnum) {
+    this.m = m;
+    this.pageEnum = pageEnum;
+    this.rowBySlot = m.getRowsBySlot();
+    this.values = new String[m.data.length];
+  }
+
+  /**
+   * get a macro's value using the slot found when our template was compiled.
+   *
+   * @param slot
+   *          the slot of key, or -1 if key isn't a meta ID
+   * @param key
+   *          the macro key
+   * @return the value, or <code>null</code> if we have none
+   */
+  public String get(int slot, String key) {
+    if (extras != null) {
+      String value = extras.get(key);
+      if (value != null) return value;
+    }
+    if (slot < 0) return null;
+    if (slot == SLOT_PAGE_ENUM) return pageEnum;
+    if (slot == SLOT_KEY_COUNT) return m.getKeyCount();
+    if (slot == SLOT_FONT_ENUM) {
+      int row = rowOf(SLOT_FONT);
+      if (row < 0 || !(m.getValueAt(row, WidgetModel.COLUMN_VALUE) instanceof String)) return null;
+      if (values[row] == null) {
+        values[row] = FontFactory.getInstance().getFontEnum(
+            (String) m.getValueAt(row, WidgetModel.COLUMN_VALUE));
+      }
+      return values[row];
+    }
+    // font names are only ever output as font enums
+    if (slot == SLOT_FONT) return null;
+    int row = rowOf(slot);
+    if (row < 0) return null;
+    if (values[row] == null) {
+      values[row] = toString(slot, m.getValueAt(row, WidgetModel.COLUMN_VALUE));
+    }
+    return values[row];
+  }
+
+  /**
+   * rowOf
+   *
+   * @param slot
+   *          the slot
+   * @return the model row, or -1 if our model doesn't have this property
+   */
+  private int rowOf(int slot) {
+    return (slot < rowBySlot.length) ? rowBySlot[slot] : -1;
+  }
+
+  /**
+   * toString turns a property value into its code form.
+   *
+   * @param slot
+   *          the slot
+   * @param o
+   *          the value
+   * @return the string, or <code>null</code> for values we don't output
+   */
+  private String toString(int slot, Object o) {
+    if (o instanceof String) {
+      return (String) o;
+    } else if (o instanceof Integer) {
+      int def = ((Integer) o).intValue();
+      if (slot == SLOT_TEXT_SZ) {
+        // special case Text storage size needs a 1 added
+        def++;
+      }
+      return String.valueOf(def);
+    } else if (o instanceof Boolean) {
+      return ((Boolean) o).toString();
+    } else if (o instanceof Color) {
+      return GUIsliceThemeFactory.getInstance().colorAsString((Color) o);
+    }
+    return null;
+  }
+
+  /**
+   * get
+   *
+   * @see java.util.AbstractMap#get(java.lang.Object)
+   */
+  @Override
+  public String get(Object key) {
+    if (!(key instanceof String)) return null;
+    return get(MetaIds.indexOf((String) key), (String) key);
+  }
+
+  /**
+   * containsKey
+   *
+   * @see java.util.AbstractMap#containsKey(java.lang.Object)
+   */
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  /**
+   * put an extra macro
+   *
+   * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+   */
+  @Override
+  public String put(String key, String value) {
+    String old = get(key);
+    if (extras == null) {
+      extras = new HashMap<String, String>();
+    }
+    extras.put(key, value);
+    return old;
+  }
+
+  /**
+   * clear drops any extra macros and cached values.
+   *
+   * @see java.util.AbstractMap#clear()
+   */
+  @Override
+  public void clear() {
+    extras = null;
+    for (int i=0; i<values.length; i++) {
+      values[i] = null;
+    }
+  }
+
+  /**
+   * entrySet builds a full copy of our properties, 
+   * only meant for debugging since it defeats our purpose.
+   *
+   * @see java.util.AbstractMap#entrySet()
+   */
+  @Override
+  public Set<Map.Entry<String, String>> entrySet() {
+    Map<String, String> map = new HashMap<String, String>();
+    for (int i=0; i<m.data.length; i++) {
+      String key = (String) m.data[i][WidgetModel.PROP_VAL_ID];
+      String value = get(key);
+      if (value != null) map.put(key, value);
+    }
+    for (String key : new String[] { "COM-000", "COM-018", "TXT-211" }) {
+      String value = get(key);
+      if (value != null) map.put(key, value);
+    }
+    if (extras != null) {
+      map.putAll(extras);
+    }
+    return map.entrySet();
+  }
+
+}
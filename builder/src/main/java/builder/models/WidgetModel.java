@@ -32,11 +32,12 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.Arrays;
 import java.util.Base64;
-import java.util.HashMap;
 import java.util.Map;
 
 import javax.swing.JOptionPane;
+import javax.swing.event.EventListenerList;
 import javax.swing.table.AbstractTableModel;
 import javax.swing.table.TableCellEditor;
 import javax.swing.table.TableCellRenderer;
@@ -49,7 +50,6 @@ import builder.common.Utils;
 import builder.controller.Controller;
 import builder.events.MsgBoard;
 import builder.events.MsgEvent;
-import builder.fonts.FontFactory;
 import builder.themes.GUIsliceTheme;
 import builder.themes.GUIsliceThemeFactory;
 
@@ -60,7 +60,7 @@ import builder.themes.GUIsliceThemeFactory;
  * @author Paul Conti
  * 
  */
-public class WidgetModel extends AbstractTableModel {
+public class WidgetModel extends AbstractTableModel implements Cloneable {
   
   /** The Constant serialVersionUID. */
   private static final long serialVersionUID = 1L;
@@ -132,6 +132,9 @@ public class WidgetModel extends AbstractTableModel {
   /** The b send events. */
   boolean bSendEvents = true;
   
+  /** The row holding each meta ID slot, built on first use. */
+  private volatile int[] rowBySlot = null;
+  
   /** Did the model change during this session */
   public boolean bModelChanged = false;
   
@@ -794,50 +797,44 @@ public class WidgetModel extends AbstractTableModel {
    */
   public void setData(Object[][] data) {
     this.data = data;
+    this.rowBySlot = null;
   }
 
   /**
-   * Gets the mapped properties.
+   * Gets the mapped properties, a lightweight view of our model
+   * keyed by meta ID for expanding code templates.
    *
    * @param pageEnum
    *          the page enum
    * @return the mapped properties
+   * @see builder.models.PropertyMap
    */
   public Map<String, String> getMappedProperties(String pageEnum) {
-    int def=0;
-    GUIsliceThemeFactory cf = GUIsliceThemeFactory.getInstance();
-    FontFactory  ff = FontFactory.getInstance();
-    Map<String, String> map = new HashMap<>();
-    // start with our page enum
-    map.put("COM-000", pageEnum);
-    // place our unique count value from the key into our map
-    map.put("COM-018", getKeyCount());
-    // now rip through our data model and add each property to our map
-    int rows = getRowCount();
-    for (int i=0; i<rows; i++) {
-      String key = (String)data[i][PROP_VAL_ID];
-      Object o = getValueAt(i, WidgetModel.COLUMN_VALUE);
-      if(o instanceof String) {
-        if (key.equals("TXT-200")) {
-          // special case font enum's which are not stored
-          map.put("TXT-211", ff.getFontEnum((String)o));
-        } else {
-          map.put(key, (String)o);
-        }
-      } else if(o instanceof Integer) {
-        def = ((Integer)o).intValue();
-        if (key.equals("TXT-205")) {
-          //special case Text storage size needs a 1 added
-           def++;
-        }
-        map.put(key, String.valueOf(def));
-      } else if(o instanceof Boolean) {
-        map.put(key, ((Boolean)o).toString());
-      } else if (o instanceof Color) {
-        map.put(key, cf.colorAsString((Color)o));
+    return new PropertyMap(this, pageEnum);
+  }
+  
+  /**
+   * getRowsBySlot maps each meta ID slot to the row holding that property.
+   * Our rows never move so it's only built once per model.
+   *
+   * @return the rows, -1 for slots our model doesn't have
+   * @see builder.models.MetaIds
+   */
+  int[] getRowsBySlot() {
+    int[] rows = rowBySlot;
+    if (rows == null) {
+      int[] slots = new int[data.length];
+      for (int i=0; i<data.length; i++) {
+        slots[i] = MetaIds.slot((String)data[i][PROP_VAL_ID]);
       }
+      rows = new int[MetaIds.size()];
+      Arrays.fill(rows, -1);
+      for (int i=0; i<data.length; i++) {
+        rows[slots[i]] = i;
+      }
+      rowBySlot = rows;
     }
-    return map;
+    return rows;
   }
   
   /**
@@ -900,6 +897,32 @@ public class WidgetModel extends AbstractTableModel {
     }
   }
 
+  /**
+   * snapshot makes a private copy of our model so code generation can
+   * run in the background while the user carries on editing this one.
+   * Property values are immutable except for string arrays which get copied.
+   * The copy has no listeners and never sends events.
+   *
+   * @return the copy of our model
+   */
+  public WidgetModel snapshot() {
+    try {
+      WidgetModel copy = (WidgetModel) super.clone();
+      copy.listenerList = new EventListenerList();
+      copy.bSendEvents = false;
+      copy.data = new Object[data.length][];
+      for (int i=0; i<data.length; i++) {
+        copy.data[i] = data[i].clone();
+        if (data[i][PROP_VAL_VALUE] instanceof String[]) {
+          copy.data[i][PROP_VAL_VALUE] = ((String[]) data[i][PROP_VAL_VALUE]).clone();
+        }
+      }
+      return copy;
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
   /**
    * restore() supports our redo command by replacing the current value of the
    * cell with the backup copy made earlier.
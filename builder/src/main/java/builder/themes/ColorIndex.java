@@ -0,0 +1,114 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.themes;
+
+import java.util.List;
+
+/**
+ * The Class ColorIndex finds GUIslice Library colors by their RGB value
+ * using an open addressing hash table keyed by the color's packed ARGB int.
+ * 
+ * It's built once after our colors are loaded and never changes
+ * so it's safe to share between threads.
+ * 
+ * @author Paul Conti
+ * 
+ */
+final class ColorIndex {
+
+  /** The empty slot marker, ARGB 0 is transparent and never a GUIslice color. */
+  private final static int EMPTY = 0;
+
+  /** The keys, each color's ARGB value. */
+  private final int[] keys;
+
+  /** The color items matching our keys. */
+  private final ColorItem[] items;
+
+  /** The mask for wrapping our table index. */
+  private final int mask;
+
+  /**
+   * Instantiates a new color index.
+   * Entry 0, our custom color place holder, is skipped and where 
+   * two names share the same RGB value the first one wins.
+   *
+   * @param colors
+   *          the GUIslice colors
+   */
+  ColorIndex(List<ColorItem> colors) {
+    int capacity = 16;
+    while (capacity < colors.size() * 2) {
+      capacity <<= 1;
+    }
+    keys = new int[capacity];
+    items = new ColorItem[capacity];
+    mask = capacity - 1;
+    for (int i=1; i<colors.size(); i++) {
+      ColorItem item = colors.get(i);
+      int argb = item.getColor().getRGB();
+      int idx = mix(argb) & mask;
+      while (keys[idx] != EMPTY && keys[idx] != argb) {
+        idx = (idx + 1) & mask;
+      }
+      if (keys[idx] == EMPTY) {
+        keys[idx] = argb;
+        items[idx] = item;
+      }
+    }
+  }
+
+  /**
+   * get
+   *
+   * @param argb
+   *          the color as ARGB
+   * @return the <code>ColorItem</code> object, or <code>null</code> if not a GUIslice color
+   */
+  ColorItem get(int argb) {
+    if (argb == EMPTY) return null;
+    int idx = mix(argb) & mask;
+    while (keys[idx] != EMPTY) {
+      if (keys[idx] == argb) return items[idx];
+      idx = (idx + 1) & mask;
+    }
+    return null;
+  }
+
+  /**
+   * mix spreads the bits of our key so colors that differ
+   * only in their low bits don't crowd together.
+   *
+   * @param h
+   *          the key
+   * @return the hash
+   */
+  private static int mix(int h) {
+    h *= 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+}
@@ -61,6 +61,15 @@ public class GUIsliceThemeFactory {
   /** The GUIslice colors. */
   private static List<ColorItem> guisliceColors = new ArrayList<ColorItem>();
   
+  /** The GUIslice colors indexed by RGB, built once our colors are loaded. */
+  private static volatile ColorIndex colorIndex = null;
+  
+  /** The size of our custom color string cache, must be a power of two. */
+  private static final int CUSTOM_CACHE_SIZE = 256;
+  
+  /** The recently used custom color strings, direct mapped by RGB. */
+  private final CustomColor[] customColors = new CustomColor[CUSTOM_CACHE_SIZE];
+  
   /** top level container for all GUIslice API themes (not the Builder's FlatLaf themes!) */
   public GUIsliceThemes themes = new GUIsliceThemes();
   
@@ -142,15 +151,28 @@ public class GUIsliceThemeFactory {
    * @return the <code>ColorItem</code> object
    */
   public ColorItem findColorItem(Color color) { 
-    for (int i=1; i<guisliceColors.size(); i++) {
-      ColorItem item = guisliceColors.get(i);
-      if (item.getColor().equals(color)) {
-         return item;
-      }
+    ColorItem item = lookupColor(color);
+    if (item != null) {
+      return item;
     }
     return guisliceColors.get(0);
   }
 
+  /**
+   * lookupColor finds the GUIslice color matching a java color.
+   *
+   * @param color
+   *          the color
+   * @return the <code>ColorItem</code> object, or <code>null</code> if none match
+   */
+  private ColorItem lookupColor(Color color) {
+    ColorIndex index = colorIndex;
+    if (index == null) {
+      return null;
+    }
+    return index.get(color.getRGB());
+  }
+
   /**
    * colorAsString() - convert java Color object to a string GUIslice API can use
    * Example: We will return either a #define like "Color.BLACK" or if no matching
@@ -162,15 +184,20 @@ public class GUIsliceThemeFactory {
    * @return GUIslice Library string representing the color
    */
   public String colorAsString(Color color) {
-    String strColor = "";
-    for (int i=1; i<guisliceColors.size(); i++) {
-      ColorItem item = guisliceColors.get(i);
-      if (item.getColor().equals(color)) {
-         return item.getDisplayName();
-      }
+    ColorItem item = lookupColor(color);
+    if (item != null) {
+      return item.getDisplayName();
+    }
+    // custom colors get reused a lot so keep their strings around
+    int argb = color.getRGB();
+    int idx = (argb ^ (argb >>> 8) ^ (argb >>> 16)) & (CUSTOM_CACHE_SIZE - 1);
+    CustomColor custom = customColors[idx];
+    if (custom == null || custom.argb != argb) {
+      custom = new CustomColor(argb, 
+          "((gslc_tsColor){" + color.getRed() + "," + color.getGreen() + "," + color.getBlue() + "})");
+      customColors[idx] = custom;
     }
-    strColor = String.format("((gslc_tsColor){%d,%d,%d})", color.getRed(), color.getGreen(), color.getBlue());
-    return strColor;
+    return custom.name;
   }
   
   /**
@@ -264,6 +291,7 @@ public class GUIsliceThemeFactory {
           "ERROR",
           JOptionPane.ERROR_MESSAGE);
     }
+    colorIndex = new ColorIndex(guisliceColors);
   }
 
   private void loadGUIsliceThemes(String jsonFile) {
@@ -281,4 +309,31 @@ public class GUIsliceThemeFactory {
     
   }
 
+  /**
+   * The Class CustomColor holds the GUIslice string for a color
+   * that isn't one of the GUIslice Library's named colors.
+   * It's immutable so our cache can be shared between threads.
+   */
+  private static final class CustomColor {
+
+    /** The color as ARGB. */
+    final int argb;
+
+    /** The GUIslice string. */
+    final String name;
+
+    /**
+     * Instantiates a new custom color.
+     *
+     * @param argb
+     *          the color as ARGB
+     * @param name
+     *          the GUIslice string
+     */
+    CustomColor(int argb, String name) {
+      this.argb = argb;
+      this.name = name;
+    }
+  }
+
 }
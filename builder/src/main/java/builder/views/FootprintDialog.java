@@ -0,0 +1,247 @@
+/**
+ *
+ * The MIT License
+ *
+ * Copyright 2018-2024 Paul Conti
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package builder.views;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Frame;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.AbstractTableModel;
+
+import builder.codegen.Footprint;
+import builder.commands.History;
+
+/**
+ * The Class FootprintDialog shows our live estimate of the RAM and flash 
+ * each page and widget will need on the target MCU.
+ * The dialog isn't modal so it can be left open while editing, 
+ * our estimate is redone whenever an edit is performed, undone or redone.
+ * 
+ * @author Paul Conti
+ *
+ */
+public class FootprintDialog extends JDialog implements ActionListener {
+  private static final long serialVersionUID = 1L;
+
+  private static FootprintDialog dialog;
+
+  private static final String closeString = "close";
+
+  /** The source of our estimates. */
+  private final Supplier<Footprint> estimator;
+
+  /** The table model. */
+  private final FootprintTableModel tableModel = new FootprintTableModel();
+
+  /** The totals label. */
+  private final JLabel lblTotals = new JLabel(" ");
+
+  /** The categories label. */
+  private final JLabel lblCategories = new JLabel(" ");
+
+  /** <code>true</code> while a refresh of our estimate is waiting to run. */
+  private boolean bRefreshPending = false;
+
+  /**
+   * Set up and show the dialog, or bring it to the front if it's already up.
+   *
+   * @param frameComp
+   *          the component whose frame owns our dialog
+   * @param estimator
+   *          the source of our estimates, called on the event dispatch thread
+   */
+  public static void showDialog(Component frameComp, Supplier<Footprint> estimator) {
+    if (dialog == null) {
+      Frame frame = JOptionPane.getFrameForComponent(frameComp);
+      dialog = new FootprintDialog(frame, estimator);
+      dialog.setLocationRelativeTo(frameComp);
+    }
+    dialog.refresh();
+    dialog.setVisible(true);
+    dialog.toFront();
+  }
+
+  /**
+   * Create the dialog.
+   */
+  private FootprintDialog(Frame frame, Supplier<Footprint> estimator) {
+    super(frame, "Memory Footprint", false);
+    this.estimator = estimator;
+    setDefaultCloseOperation(JDialog.HIDE_ON_CLOSE);
+    getContentPane().setLayout(new BorderLayout());
+
+    JPanel header = new JPanel(new BorderLayout());
+    header.setBorder(new EmptyBorder(5, 5, 5, 5));
+    header.add(lblTotals, BorderLayout.NORTH);
+    header.add(lblCategories, BorderLayout.SOUTH);
+    getContentPane().add(header, BorderLayout.NORTH);
+
+    JTable table = new JTable(tableModel);
+    table.setAutoCreateRowSorter(true);
+    table.setFillsViewportHeight(true);
+    JScrollPane scrollPane = new JScrollPane(table);
+    scrollPane.setPreferredSize(new Dimension(600, 350));
+    getContentPane().add(scrollPane, BorderLayout.CENTER);
+
+    JPanel buttonPane = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+    JButton closeButton = new JButton("Close");
+    closeButton.setActionCommand(closeString);
+    closeButton.addActionListener(this);
+    buttonPane.add(closeButton);
+    getContentPane().add(buttonPane, BorderLayout.SOUTH);
+
+    // wait for the edit to finish, a single edit may hold many commands
+    History.getInstance().addChangeListener(e -> {
+      if (!isVisible() || bRefreshPending) return;
+      bRefreshPending = true;
+      SwingUtilities.invokeLater(() -> {
+        bRefreshPending = false;
+        if (isVisible()) refresh();
+      });
+    });
+    pack();
+  }
+
+  /**
+   * refresh our estimate.
+   */
+  private void refresh() {
+    Footprint fp = estimator.get();
+    if (fp == null) return;
+    lblTotals.setText(fp.summary());
+    lblTotals.setForeground(fp.isOverBudget() ? Color.RED : lblCategories.getForeground());
+    StringBuilder sBd = new StringBuilder();
+    for (Map.Entry<String, int[]> e : fp.getCategories().entrySet()) {
+      if (sBd.length() > 0) sBd.append(", ");
+      sBd.append(e.getKey() + " " + e.getValue()[0] + "/" + e.getValue()[1]);
+    }
+    lblCategories.setText("RAM/Flash: " + sBd.toString());
+    tableModel.setItems(fp.getItems());
+  }
+
+  // Handle clicks on the Close button.
+  public void actionPerformed(ActionEvent e) {
+    if (closeString.equals(e.getActionCommand())) {
+      setVisible(false);
+    }
+  }
+
+  /**
+   * The Class FootprintTableModel shows one row for each item of our estimate.
+   */
+  private static class FootprintTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    /** The column names. */
+    private static final String[] columnNames = { "Page", "Element", "Type", "RAM", "Flash" };
+
+    /** The items. */
+    private List<Footprint.Item> items = Collections.emptyList();
+
+    /**
+     * Sets the items, leaving our table and its selection
+     * alone when nothing has changed.
+     *
+     * @param items
+     *          the new items
+     */
+    void setItems(List<Footprint.Item> items) {
+      if (isSame(items)) return;
+      this.items = items;
+      fireTableDataChanged();
+    }
+
+    /**
+     * isSame.
+     *
+     * @param newItems
+     *          the new items
+     * @return <code>true</code>, if every row would show the same values
+     */
+    private boolean isSame(List<Footprint.Item> newItems) {
+      if (newItems.size() != items.size()) return false;
+      for (int i=0; i<items.size(); i++) {
+        Footprint.Item a = items.get(i);
+        Footprint.Item b = newItems.get(i);
+        if (!a.getPage().equals(b.getPage()) || !a.getName().equals(b.getName()) 
+         || !a.getType().equals(b.getType()) 
+         || a.getRam() != b.getRam() || a.getFlash() != b.getFlash()) return false;
+      }
+      return true;
+    }
+
+    @Override
+    public int getRowCount() {
+      return items.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+      return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int col) {
+      return columnNames[col];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int col) {
+      return (col >= 3) ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int col) {
+      Footprint.Item item = items.get(row);
+      switch (col) {
+        case 0:  return item.getPage();
+        case 1:  return item.getName();
+        case 2:  return item.getType();
+        case 3:  return Integer.valueOf(item.getRam());
+        default: return Integer.valueOf(item.getFlash());
+      }
+    }
+  }
+
+}
@@ -60,6 +60,9 @@ public class MenuBar extends JMenuBar {
   /** The about menu item. */
   private JMenuItem miAbout;
 
+  /** The memory footprint menu item. */
+  private JMenuItem miFootprint;
+
   public static JMenuItem miZoomIn, miZoomOut, miZoomReset;
   public static MyToggleButtonMenuItem miShowGrid;
   public static MyToggleButton miSnapGrid;
@@ -198,6 +201,14 @@ public class MenuBar extends JMenuBar {
     miSnapGrid.setToolTipText("Toggle Snap to Grid ON/OFF");
     mbView.add(miSnapGrid);
 
+    mbView.add(new JSeparator()); 
+    
+    miFootprint = new JMenuItem("Memory Footprint",
+      Utils.getIcon("resources/icons/view/invisible.png", 24,24));
+    miFootprint.setActionCommand("footprint");
+    miFootprint.setToolTipText("Estimate RAM and Flash needed on the Target MCU");
+    mbView.add(miFootprint);
+
     this.add(mbView);
   }
   
@@ -344,6 +355,7 @@ public class MenuBar extends JMenuBar {
     miZoomIn.addActionListener(al);
     miZoomOut.addActionListener(al);
     miZoomReset.addActionListener(al);
+    miFootprint.addActionListener(al);
   }
   
   @SuppressWarnings("serial")
@@ -64,6 +64,7 @@ import builder.RibbonMenu.RibbonBar;
 import javax.swing.*;
 
 import builder.Builder;
+import builder.codegen.CodePage;
 import builder.commands.Command;
 import builder.commands.DragByArrowCommand;
 import builder.commands.DragWidgetCommand;
@@ -95,7 +96,7 @@ import builder.widgets.Widget.HandleType;
  * @author Paul Conti
  * 
  */
-public class PagePane extends JPanel implements iSubscriber {
+public class PagePane extends JPanel implements iSubscriber, CodePage {
 
   /** The Constant serialVersionUID. */
   private static final long serialVersionUID = 1L;
@@ -395,6 +395,11 @@ public class RibbonListener implements ActionListener {
       controller.toggleSnapToGrid();
       break;
       
+    case "footprint":
+      Builder.logger.debug("Menu: showFootprint");
+      controller.showFootprint();
+      break;
+      
     case "group":
       Builder.logger.debug("Toolbar: group");
       controller.groupButtons();
@@ -87,4 +87,16 @@ public class BoxWidget extends Widget {
     super.drawSelRect(g2d, b);
   }
 
+  /**
+   * snapshot
+   *
+   * @see builder.widgets.Widget#snapshot()
+   */
+  @Override
+  public Widget snapshot() {
+    BoxWidget w = (BoxWidget) super.snapshot();
+    w.m = (BoxModel) w.model;
+    return w;
+  }
+
 }
@@ -141,4 +141,17 @@ public class CheckBoxWidget extends Widget {
         return handleType;
     }
   }  
+
+  /**
+   * snapshot
+   *
+   * @see builder.widgets.Widget#snapshot()
+   */
+  @Override
+  public Widget snapshot() {
+    CheckBoxWidget w = (CheckBoxWidget) super.snapshot();
+    w.m = (CheckBoxModel) w.model;
+    return w;
+  }
+
 }
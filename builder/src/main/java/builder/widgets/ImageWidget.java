@@ -89,4 +89,16 @@ public class ImageWidget extends Widget {
     super.drawSelRect(g2d, b);
   }
 
+  /**
+   * snapshot
+   *
+   * @see builder.widgets.Widget#snapshot()
+   */
+  @Override
+  public Widget snapshot() {
+    ImageWidget w = (ImageWidget) super.snapshot();
+    w.m = (ImageModel) w.model;
+    return w;
+  }
+
 }
@@ -108,4 +108,16 @@ public class ImgButtonWidget extends Widget {
     super.drawSelRect(g2d, b);
   }
 
+  /**
+   * snapshot
+   *
+   * @see builder.widgets.Widget#snapshot()
+   */
+  @Override
+  public Widget snapshot() {
+    ImgButtonWidget w = (ImgButtonWidget) super.snapshot();
+    w.m = (ImgButtonModel) w.model;
+    return w;
+  }
+
 }
@@ -186,4 +186,17 @@ public class LineWidget extends Widget {
     b.height = RESIZE_HANDLE_SIZE + (isVertical ? r.height : 0);
     return b.contains(p);
   }
+
+  /**
+   * snapshot
+   *
+   * @see builder.widgets.Widget#snapshot()
+   */
+  @Override
+  public Widget snapshot() {
+    LineWidget w = (LineWidget) super.snapshot();
+    w.m = (LineModel) w.model;
+    return w;
+  }
+
 }
@@ -311,4 +311,17 @@ public class ListBoxWidget extends Widget {
       return outer.contains(pInnerStart)
           && outer.contains(PInnerEnd);
   }
+
+  /**
+   * snapshot
+   *
+   * @see builder.widgets.Widget#snapshot()
+   */
+  @Override
+  public Widget snapshot() {
+    ListBoxWidget w = (ListBoxWidget) super.snapshot();
+    w.m = (ListBoxModel) w.model;
+    return w;
+  }
+
 }
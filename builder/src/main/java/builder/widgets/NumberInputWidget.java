@@ -103,4 +103,16 @@ public class NumberInputWidget extends Widget {
     super.drawSelRect(g2d, b);
   }
 
+  /**
+   * snapshot
+   *
+   * @see builder.widgets.Widget#snapshot()
+   */
+  @Override
+  public Widget snapshot() {
+    NumberInputWidget w = (NumberInputWidget) super.snapshot();
+    w.m = (NumberInputModel) w.model;
+    return w;
+  }
+
 }
@@ -88,4 +88,17 @@ public class ProgressBarWidget extends Widget {
     }
   }
   
+
+  /**
+   * snapshot
+   *
+   * @see builder.widgets.Widget#snapshot()
+   */
+  @Override
+  public Widget snapshot() {
+    ProgressBarWidget w = (ProgressBarWidget) super.snapshot();
+    w.m = (ProgressBarModel) w.model;
+    return w;
+  }
+
 }
@@ -151,4 +151,16 @@ public class RadialGaugeWidget extends Widget {
     
   }
 
+  /**
+   * snapshot
+   *
+   * @see builder.widgets.Widget#snapshot()
+   */
+  @Override
+  public Widget snapshot() {
+    RadialGaugeWidget w = (RadialGaugeWidget) super.snapshot();
+    w.m = (RadialGaugeModel) w.model;
+    return w;
+  }
+
 }
@@ -144,4 +144,17 @@ public class RadioButtonWidget extends Widget {
         return handleType;
     }
   }
+
+  /**
+   * snapshot
+   *
+   * @see builder.widgets.Widget#snapshot()
+   */
+  @Override
+  public Widget snapshot() {
+    RadioButtonWidget w = (RadioButtonWidget) super.snapshot();
+    w.m = (RadioButtonModel) w.model;
+    return w;
+  }
+
 }
@@ -151,4 +151,17 @@ public class RampGaugeWidget extends Widget {
   
   }
   
+
+  /**
+   * snapshot
+   *
+   * @see builder.widgets.Widget#snapshot()
+   */
+  @Override
+  public Widget snapshot() {
+    RampGaugeWidget w = (RampGaugeWidget) super.snapshot();
+    w.m = (RampGaugeModel) w.model;
+    return w;
+  }
+
 }
@@ -161,4 +161,17 @@ public class RingGaugeWidget extends Widget {
     }
     
   }
+
+  /**
+   * snapshot
+   *
+   * @see builder.widgets.Widget#snapshot()
+   */
+  @Override
+  public Widget snapshot() {
+    RingGaugeWidget w = (RingGaugeWidget) super.snapshot();
+    w.m = (RingGaugeModel) w.model;
+    return w;
+  }
+
 }
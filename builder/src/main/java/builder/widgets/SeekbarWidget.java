@@ -213,4 +213,16 @@ public class SeekbarWidget extends Widget {
     super.drawSelRect(pGui, rElem);
   }
 
+  /**
+   * snapshot
+   *
+   * @see builder.widgets.Widget#snapshot()
+   */
+  @Override
+  public Widget snapshot() {
+    SeekbarWidget w = (SeekbarWidget) super.snapshot();
+    w.m = (SeekbarModel) w.model;
+    return w;
+  }
+
 }
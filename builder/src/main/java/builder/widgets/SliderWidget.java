@@ -185,4 +185,16 @@ public class SliderWidget extends Widget {
     super.drawSelRect(pGui, rElem);
   }
 
+  /**
+   * snapshot
+   *
+   * @see builder.widgets.Widget#snapshot()
+   */
+  @Override
+  public Widget snapshot() {
+    SliderWidget w = (SliderWidget) super.snapshot();
+    w.m = (SliderModel) w.model;
+    return w;
+  }
+
 }
@@ -106,4 +106,16 @@ public class SpinnerWidget extends Widget {
     super.drawSelRect(g2d, b);
   }
 
+  /**
+   * snapshot
+   *
+   * @see builder.widgets.Widget#snapshot()
+   */
+  @Override
+  public Widget snapshot() {
+    SpinnerWidget w = (SpinnerWidget) super.snapshot();
+    w.m = (SpinnerModel) w.model;
+    return w;
+  }
+
 }
@@ -103,4 +103,16 @@ public class TextInputWidget extends Widget {
     super.drawSelRect(g2d, b);
   }
 
+  /**
+   * snapshot
+   *
+   * @see builder.widgets.Widget#snapshot()
+   */
+  @Override
+  public Widget snapshot() {
+    TextInputWidget w = (TextInputWidget) super.snapshot();
+    w.m = (TextInputModel) w.model;
+    return w;
+  }
+
 }
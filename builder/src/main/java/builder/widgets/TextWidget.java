@@ -105,4 +105,17 @@ public class TextWidget extends Widget {
     }
     super.drawSelRect(g2d, b);
   }
+
+  /**
+   * snapshot
+   *
+   * @see builder.widgets.Widget#snapshot()
+   */
+  @Override
+  public Widget snapshot() {
+    TextWidget w = (TextWidget) super.snapshot();
+    w.m = (TextModel) w.model;
+    return w;
+  }
+
 }
@@ -127,4 +127,16 @@ public class ToggleButtonWidget extends Widget {
     super.drawSelRect(pGui, rElem);
   }
 
+  /**
+   * snapshot
+   *
+   * @see builder.widgets.Widget#snapshot()
+   */
+  @Override
+  public Widget snapshot() {
+    ToggleButtonWidget w = (ToggleButtonWidget) super.snapshot();
+    w.m = (ToggleButtonModel) w.model;
+    return w;
+  }
+
 }
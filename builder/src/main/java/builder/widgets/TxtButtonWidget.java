@@ -117,4 +117,17 @@ public class TxtButtonWidget extends Widget {
     super.drawSelRect(g2d, b);
   }
  
+
+  /**
+   * snapshot
+   *
+   * @see builder.widgets.Widget#snapshot()
+   */
+  @Override
+  public Widget snapshot() {
+    TxtButtonWidget w = (TxtButtonWidget) super.snapshot();
+    w.m = (TxtButtonModel) w.model;
+    return w;
+  }
+
 }
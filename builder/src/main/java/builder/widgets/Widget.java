@@ -47,7 +47,7 @@ import builder.models.WidgetModel;
  * @author Paul Conti
  * 
  */
-public class Widget {
+public class Widget implements Cloneable {
   
   /** The Constant dashed. */
   final static public  BasicStroke dashed = new BasicStroke(3.0f, 
@@ -101,6 +101,25 @@ public class Widget {
   public WidgetModel getModel() {
     return model;
   }
+
+  /**
+   * snapshot makes a lightweight copy of this widget holding
+   * a private copy of our model for background code generation.
+   * The copy keeps our class so it can still draw itself, 
+   * subclasses holding a typed model must point it at the copy.
+   *
+   * @return the copy of our widget
+   */
+  public Widget snapshot() {
+    try {
+      Widget w = (Widget) super.clone();
+      w.model = model.snapshot();
+      w.bSelected = false;
+      return w;
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
   
   public int getX() {
     return model.getX();
@@ -6,6 +6,9 @@ module builder {
   requires transitive java.desktop;
   requires transitive java.prefs;
   requires transitive java.logging;
+  requires java.management;
+  requires jdk.management;
+  requires jdk.jfr;
   requires com.google.gson;
   requires org.fife.RSyntaxTextArea;
   requires com.formdev.flatlaf;